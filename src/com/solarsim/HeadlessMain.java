@@ -0,0 +1,211 @@
+package com.solarsim;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+import com.solarsim.controller.SimulationController;
+import com.solarsim.model.CelestialBody;
+import com.solarsim.model.SolarSystem;
+import com.solarsim.util.catalog.BinaryCatalog;
+import com.solarsim.util.catalog.CatalogColumn;
+import com.solarsim.util.logging.Log;
+import com.solarsim.util.logging.Logger;
+import com.solarsim.util.trajectory.CompressedTrajectoryWriter;
+import com.solarsim.util.trajectory.TrajectoryEncoding;
+
+/**
+ * Punto de entrada sin interfaz gráfica para simulaciones por lotes.
+ *
+ * Usa el {@link SimulationController} sin parámetros, que solo crea el modelo, y
+ * avanza los pasos seguidos en el hilo principal, sin el temporizador de 50 ms de
+ * la aplicación gráfica ni el toolkit de JavaFX, así que funciona en servidores
+ * sin pantalla. Al terminar escribe en el directorio de salida:
+ * <ul>
+ *   <li>{@code final-state.sckp}: checkpoint binario del estado final</li>
+ *   <li>{@code final-state.csv}: el estado final en texto</li>
+ *   <li>{@code trajectories.strc}: posiciones muestreadas (grabación comprimida)</li>
+ *   <li>{@code metrics.properties}: pasos, tiempo real y días simulados por segundo</li>
+ * </ul>
+ *
+ * Uso: {@code HeadlessMain [--steps N] [--scenario checkpoint.sckp] [--catalog catalogo.bin]
+ * [--sample K] [--encoding xor|dod] [--quantum Q] [--out directorio]}
+ */
+public class HeadlessMain {
+    private static final Logger LOG = Log.getLogger(HeadlessMain.class);
+
+    private long steps = 3650;
+    private Path scenario;
+    private Path catalog;
+    private int sampleEvery = 10;
+    private TrajectoryEncoding encoding = TrajectoryEncoding.DELTA_OF_DELTA;
+    private double quantum = 1e-4;
+    private Path outputDirectory = Paths.get("headless-out");
+
+    /**
+     * Método principal de la ejecución por lotes.
+     * @param args Opciones de línea de comandos
+     */
+    public static void main(String[] args) {
+        HeadlessMain run = new HeadlessMain();
+        try {
+            run.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            System.err.println("Uso: HeadlessMain [--steps N] [--scenario checkpoint.sckp] [--catalog catalogo.bin]"
+                + " [--sample K] [--encoding xor|dod] [--quantum Q] [--out directorio]");
+            System.exit(2);
+        }
+        try {
+            run.run();
+        } catch (IOException e) {
+            LOG.error("La simulación por lotes ha fallado", e);
+            System.exit(1);
+        }
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Falta el valor de " + option);
+            }
+            String value = args[++i];
+            try {
+                switch (option) {
+                    case "--steps":
+                        steps = Long.parseLong(value);
+                        break;
+                    case "--scenario":
+                        scenario = Paths.get(value);
+                        break;
+                    case "--catalog":
+                        catalog = Paths.get(value);
+                        break;
+                    case "--sample":
+                        sampleEvery = Integer.parseInt(value);
+                        break;
+                    case "--encoding":
+                        encoding = "xor".equalsIgnoreCase(value) ? TrajectoryEncoding.XOR : TrajectoryEncoding.DELTA_OF_DELTA;
+                        break;
+                    case "--quantum":
+                        quantum = Double.parseDouble(value);
+                        break;
+                    case "--out":
+                        outputDirectory = Paths.get(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Opción desconocida: " + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valor no válido para " + option + ": " + value);
+            }
+        }
+        if (steps < 0 || sampleEvery < 0) {
+            throw new IllegalArgumentException("Los pasos y el muestreo no pueden ser negativos");
+        }
+    }
+
+    private void run() throws IOException {
+        SimulationController controller = new SimulationController();
+        controller.setTimelineEnabled(false);
+        SolarSystem solarSystem = controller.getSolarSystem();
+        if (catalog != null) {
+            // Se mantiene abierto mientras dure la ejecución: los cuerpos leen de él
+            BinaryCatalog opened = BinaryCatalog.open(catalog);
+            int added = solarSystem.addFromCatalog(opened,
+                EnumSet.of(CatalogColumn.MASS, CatalogColumn.SEMI_MAJOR_AXIS, CatalogColumn.ECCENTRICITY,
+                    CatalogColumn.INCLINATION, CatalogColumn.ASCENDING_NODE, CatalogColumn.ARGUMENT_OF_PERIAPSIS,
+                    CatalogColumn.MEAN_ANOMALY, CatalogColumn.PARENT, CatalogColumn.NAME_OFFSET, CatalogColumn.NAME_LENGTH));
+            LOG.info("Añadidos {} cuerpos del catálogo {}", added, catalog);
+        }
+        if (scenario != null) {
+            controller.loadCheckpoint(scenario);
+            LOG.info("Escenario {} cargado en t = {} días", scenario, solarSystem.getSimulationTime());
+        }
+        Files.createDirectories(outputDirectory);
+
+        List<CelestialBody> bodies = solarSystem.getCelestialBodies();
+        int[] ids = new int[bodies.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = bodies.get(i).getId();
+        }
+        double[] positions = new double[ids.length * 3];
+        double startTime = solarSystem.getSimulationTime();
+        long samples = 0;
+
+        long start = System.nanoTime();
+        try (CompressedTrajectoryWriter trajectories = sampleEvery > 0
+                ? new CompressedTrajectoryWriter(outputDirectory.resolve("trajectories.strc"), ids, encoding, quantum)
+                : null) {
+            long done = 0;
+            while (done < steps) {
+                if (trajectories != null) {
+                    sample(bodies, positions);
+                    trajectories.append(solarSystem.getSimulationTime(), positions);
+                    samples++;
+                }
+                long batch = sampleEvery > 0 ? Math.min(sampleEvery, steps - done) : steps - done;
+                controller.runSteps(batch);
+                done += batch;
+            }
+            if (trajectories != null) {
+                sample(bodies, positions);
+                trajectories.append(solarSystem.getSimulationTime(), positions);
+                samples++;
+            }
+        }
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+        double simulatedDays = solarSystem.getSimulationTime() - startTime;
+        double daysPerSecond = wallSeconds > 0 ? simulatedDays / wallSeconds : Double.POSITIVE_INFINITY;
+
+        solarSystem.saveCheckpoint(outputDirectory.resolve("final-state.sckp"), true);
+        writeStateCsv(solarSystem, outputDirectory.resolve("final-state.csv"));
+
+        Properties metrics = new Properties();
+        metrics.setProperty("bodies", Integer.toString(bodies.size()));
+        metrics.setProperty("steps", Long.toString(steps));
+        metrics.setProperty("timeStepDays", Double.toString(controller.getTimeStep()));
+        metrics.setProperty("simulatedDays", Double.toString(simulatedDays));
+        metrics.setProperty("wallSeconds", Double.toString(wallSeconds));
+        metrics.setProperty("simulatedDaysPerSecond", Double.toString(daysPerSecond));
+        metrics.setProperty("trajectorySamples", Long.toString(samples));
+        try (Writer writer = Files.newBufferedWriter(outputDirectory.resolve("metrics.properties"), StandardCharsets.UTF_8)) {
+            metrics.store(writer, "Simulación por lotes");
+        }
+
+        String summary = String.format(Locale.ROOT, "%d pasos, %.1f días simulados en %.3f s: %.0f días/s",
+            steps, simulatedDays, wallSeconds, daysPerSecond);
+        LOG.info(summary);
+        System.out.println(summary);
+    }
+
+    private static void sample(List<CelestialBody> bodies, double[] positions) {
+        for (int i = 0; i < bodies.size(); i++) {
+            System.arraycopy(bodies.get(i).getPosition(), 0, positions, i * 3, 3);
+        }
+    }
+
+    private static void writeStateCsv(SolarSystem solarSystem, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("id,name,x,y,z,vx,vy,vz,mass");
+            writer.newLine();
+            for (CelestialBody body : solarSystem.getCelestialBodies()) {
+                double[] p = body.getPosition();
+                double[] v = body.getVelocity();
+                writer.write(String.format(Locale.ROOT, "%d,\"%s\",%.9g,%.9g,%.9g,%.9g,%.9g,%.9g,%.6g",
+                    body.getId(), body.getName().replace("\"", "\"\""), p[0], p[1], p[2], v[0], v[1], v[2],
+                    body.getMass()));
+                writer.newLine();
+            }
+        }
+    }
+}
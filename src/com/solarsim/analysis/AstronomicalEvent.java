@@ -0,0 +1,90 @@
+package com.solarsim.analysis;
+
+import java.util.Locale;
+
+/**
+ * Evento encontrado por {@link EventSearch}.
+ *
+ * El instante del evento es el del mínimo de su medida (separación angular o
+ * distancia); el principio y el final son los instantes en que la medida cruza
+ * el umbral del evento, por ejemplo los contactos de un eclipse.
+ */
+public class AstronomicalEvent implements Comparable<AstronomicalEvent> {
+    private final EventType type;
+    private final String description;
+    private final double time;
+    private final double start;
+    private final double end;
+    private final double value;
+
+    /**
+     * Crea un evento.
+     * @param type Tipo de evento
+     * @param description Cuerpos implicados, por ejemplo "Luna/Sol desde Tierra"
+     * @param time Instante del máximo del evento (días de simulación)
+     * @param start Instante en que empieza
+     * @param end Instante en que termina
+     * @param value Medida en el máximo: separación en grados para eventos angulares,
+     *              distancia en km para las aproximaciones
+     */
+    public AstronomicalEvent(EventType type, String description, double time, double start, double end, double value) {
+        this.type = type;
+        this.description = description;
+        this.time = time;
+        this.start = start;
+        this.end = end;
+        this.value = value;
+    }
+
+    public EventType getType() {
+        return type;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Obtiene el instante del máximo del evento.
+     * @return Días de simulación
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * Obtiene el instante en que empieza el evento.
+     * @return Días de simulación
+     */
+    public double getStart() {
+        return start;
+    }
+
+    /**
+     * Obtiene el instante en que termina el evento.
+     * @return Días de simulación
+     */
+    public double getEnd() {
+        return end;
+    }
+
+    /**
+     * Obtiene la medida del evento en su máximo.
+     * @return Separación en grados, o distancia en km para {@link EventType#CLOSEST_APPROACH}
+     */
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    public int compareTo(AstronomicalEvent other) {
+        return Double.compare(time, other.time);
+    }
+
+    @Override
+    public String toString() {
+        String unit = type == EventType.CLOSEST_APPROACH ? " km" : "°";
+        return String.format(Locale.ROOT, "%.4f %s %s (%.4f-%.4f) %.4g%s", time, type.getDisplayName(), description,
+            start, end, value, unit);
+    }
+}
@@ -0,0 +1,103 @@
+package com.solarsim.analysis;
+
+import java.util.Arrays;
+
+import com.solarsim.model.CelestialBody;
+import com.solarsim.model.Moon;
+import com.solarsim.model.Planet;
+import com.solarsim.model.SolarSystem;
+import com.solarsim.physics.Orbit;
+
+/**
+ * Posición y velocidad de un cuerpo en cualquier instante, relativas al cuerpo
+ * central, para los cálculos que necesitan el estado de un planeta en fechas
+ * distintas de la actual (por ejemplo, {@link PorkchopPlot}).
+ *
+ * Las implementaciones no deben guardar estado mutable: se consultan desde varios hilos.
+ */
+@FunctionalInterface
+public interface BodyEphemeris {
+    /**
+     * Calcula el estado del cuerpo.
+     * @param time Días de simulación
+     * @param position Array donde se escribe [x, y, z] en km
+     * @param velocity Array donde se escribe [vx, vy, vz] en km/día
+     */
+    void stateAt(double time, double[] position, double[] velocity);
+
+    /**
+     * Crea la efeméride de un cuerpo tal como lo mueve la simulación, sin avanzarla:
+     * los planetas en su círculo del plano XZ, las lunas en su círculo alrededor de
+     * la efeméride de su planeta y el resto en línea recta con su velocidad actual.
+     * Los ángulos, posiciones y velocidades se toman en el momento de la llamada.
+     * @param body Cuerpo
+     * @param solarSystem Sistema al que pertenece; su tiempo es el del estado actual
+     * @return La efeméride
+     */
+    static BodyEphemeris of(CelestialBody body, SolarSystem solarSystem) {
+        double epoch = solarSystem.getSimulationTime();
+        if (body instanceof Planet) {
+            Planet planet = (Planet) body;
+            return circular(planet.getOrbitalRadius(), planet.getOrbitalPeriod(), planet.getCurrentAngle(), epoch, null);
+        }
+        if (body instanceof Moon) {
+            Moon moon = (Moon) body;
+            BodyEphemeris parent = of(moon.getParentPlanet(), solarSystem);
+            return circular(moon.getOrbitalRadius(), moon.getOrbitalPeriod(), moon.getCurrentAngle(), epoch, parent);
+        }
+        double[] position0 = body.getPosition().clone();
+        double[] velocity0 = body.getVelocity().clone();
+        return (time, position, velocity) -> {
+            for (int axis = 0; axis < 3; axis++) {
+                position[axis] = position0[axis] + velocity0[axis] * (time - epoch);
+                velocity[axis] = velocity0[axis];
+            }
+        };
+    }
+
+    /**
+     * Movimiento circular uniforme en el plano XZ, alrededor del origen o de otra efeméride.
+     */
+    private static BodyEphemeris circular(double radius, double period, double angle0, double epoch, BodyEphemeris center) {
+        double angularVelocity = 2 * Math.PI / period;
+        return (time, position, velocity) -> {
+            if (center != null) {
+                center.stateAt(time, position, velocity);
+            } else {
+                Arrays.fill(position, 0, 3, 0);
+                Arrays.fill(velocity, 0, 3, 0);
+            }
+            double angle = angle0 + angularVelocity * (time - epoch);
+            double cos = Math.cos(angle);
+            double sin = Math.sin(angle);
+            position[0] += radius * cos;
+            position[2] += radius * sin;
+            velocity[0] -= radius * angularVelocity * sin;
+            velocity[2] += radius * angularVelocity * cos;
+        };
+    }
+
+    /**
+     * Crea la efeméride de una órbita kepleriana.
+     * @param orbit Órbita elíptica; su anomalía verdadera corresponde a {@code epoch}
+     * @param mu Parámetro gravitacional del cuerpo central en km³/día²
+     * @param epoch Días de simulación de la anomalía verdadera de la órbita
+     * @return La efeméride
+     */
+    static BodyEphemeris of(Orbit orbit, double mu, double epoch) {
+        Orbit elements = new Orbit(orbit.getSemiMajorAxis(), orbit.getEccentricity(), orbit.getInclination(),
+            orbit.getLongitudeOfAscendingNode(), orbit.getArgumentOfPeriapsis(), orbit.getTrueAnomaly());
+        double a = elements.getSemiMajorAxis();
+        double e = elements.getEccentricity();
+        if (!(a > 0) || !(e < 1)) {
+            throw new IllegalArgumentException("La efeméride necesita una órbita elíptica");
+        }
+        double meanMotion = Math.sqrt(mu / (a * a * a));
+        double meanAnomaly0 = Orbit.meanAnomalyFromTrueAnomaly(Math.toRadians(elements.getTrueAnomaly()), e);
+        return (time, position, velocity) -> {
+            double trueAnomaly = Orbit.trueAnomalyFromMeanAnomaly(meanAnomaly0 + meanMotion * (time - epoch), e);
+            elements.positionAtTrueAnomaly(trueAnomaly, position);
+            elements.velocityAtTrueAnomaly(trueAnomaly, mu, velocity);
+        };
+    }
+}
@@ -0,0 +1,194 @@
+package com.solarsim.analysis;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import com.solarsim.model.BranchState;
+import com.solarsim.model.SimulationBranch;
+import com.solarsim.model.SolarSystem;
+
+/**
+ * Descripción de un estudio de Monte Carlo: un estado base, una perturbación y
+ * cuántos miembros simular, durante cuánto tiempo y con qué paso.
+ *
+ * Cada miembro es una {@link SimulationBranch} bifurcada de la base: al principio
+ * comparte las páginas de estado con ella y, en cuanto avanza el primer paso,
+ * tiene sus propios arrays primitivos. Durante el avance se vigilan las parejas
+ * de cuerpos registradas con {@link #addCloseApproach} para obtener la distancia
+ * mínima de cada miembro. Un ensemble se ejecuta con {@link EnsembleRunner}.
+ */
+public class Ensemble {
+    private final SimulationBranch base;
+    private final Perturbation perturbation;
+    private final int memberCount;
+    private final double days;
+    private final double timeStep;
+    private long seed = 1;
+
+    // Parejas vigiladas, como posiciones en el estado de la rama
+    private int[] pairA = new int[0];
+    private int[] pairB = new int[0];
+
+    /**
+     * Crea un estudio a partir del estado actual de un sistema. El estado se copia
+     * aquí, así que el sistema puede seguir avanzando después, pero no mientras se
+     * copia: si otro hilo lo está simulando, conviene usar
+     * {@link #Ensemble(SimulationBranch, Perturbation, int, double, double)} con una
+     * rama tomada con el modelo bloqueado.
+     * @param solarSystem Sistema base
+     * @param perturbation Perturbación de cada miembro
+     * @param memberCount Número de miembros
+     * @param days Días a simular por miembro
+     * @param timeStep Paso de tiempo en días
+     */
+    public Ensemble(SolarSystem solarSystem, Perturbation perturbation, int memberCount, double days, double timeStep) {
+        this(solarSystem.fork("ensemble"), perturbation, memberCount, days, timeStep);
+    }
+
+    /**
+     * Crea un estudio a partir de una rama. Los miembros se bifurcan de ella, así
+     * que no debe avanzarse mientras el estudio exista.
+     * @param base Rama base, por ejemplo la de {@code SimulationController#forkSimulation}
+     * @param perturbation Perturbación de cada miembro
+     * @param memberCount Número de miembros
+     * @param days Días a simular por miembro
+     * @param timeStep Paso de tiempo en días
+     */
+    public Ensemble(SimulationBranch base, Perturbation perturbation, int memberCount, double days, double timeStep) {
+        if (memberCount < 1) {
+            throw new IllegalArgumentException("Número de miembros no válido: " + memberCount);
+        }
+        if (!(days >= 0) || !(timeStep > 0)) {
+            throw new IllegalArgumentException("Intervalo o paso de tiempo no válido: " + days + ", " + timeStep);
+        }
+        this.base = base;
+        this.perturbation = perturbation;
+        this.memberCount = memberCount;
+        this.days = days;
+        this.timeStep = timeStep;
+    }
+
+    /**
+     * Vigila la distancia mínima entre dos cuerpos en cada miembro.
+     * @param bodyA Identificador del primer cuerpo
+     * @param bodyB Identificador del segundo cuerpo
+     * @return Índice de la pareja en {@link EnsembleStatistics}
+     * @throws IllegalArgumentException Si algún cuerpo no está en el sistema base
+     */
+    public int addCloseApproach(int bodyA, int bodyB) {
+        int a = base.getState().indexOf(bodyA);
+        int b = base.getState().indexOf(bodyB);
+        if (a < 0 || b < 0) {
+            throw new IllegalArgumentException("Cuerpo desconocido en la pareja " + bodyA + "-" + bodyB);
+        }
+        int pair = pairA.length;
+        pairA = Arrays.copyOf(pairA, pair + 1);
+        pairB = Arrays.copyOf(pairB, pair + 1);
+        pairA[pair] = a;
+        pairB[pair] = b;
+        return pair;
+    }
+
+    /**
+     * Cambia la semilla de los generadores aleatorios. Con la misma semilla cada
+     * miembro recibe la misma perturbación, se ejecute en el hilo que se ejecute.
+     * @param seed Semilla
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getMemberCount() {
+        return memberCount;
+    }
+
+    public double getDays() {
+        return days;
+    }
+
+    public double getTimeStep() {
+        return timeStep;
+    }
+
+    /**
+     * Crea las estadísticas vacías de una ejecución.
+     */
+    EnsembleStatistics newStatistics() {
+        BranchState state = base.getState();
+        int[] ids = new int[state.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = state.getId(i);
+        }
+        int[] idsA = new int[pairA.length];
+        int[] idsB = new int[pairB.length];
+        for (int p = 0; p < pairA.length; p++) {
+            idsA[p] = ids[pairA[p]];
+            idsB[p] = ids[pairB[p]];
+        }
+        return new EnsembleStatistics(ids, idsA, idsB);
+    }
+
+    /**
+     * Bifurca la base para un miembro. Debe llamarse siempre desde el mismo hilo.
+     */
+    SimulationBranch fork(int member) {
+        return base.fork("miembro-" + member);
+    }
+
+    /**
+     * Perturba y avanza un miembro y añade su resultado a las estadísticas.
+     */
+    void run(SimulationBranch member, SplittableRandom random, EnsembleStatistics statistics) {
+        if (perturbation != null) {
+            perturbation.apply(member, random);
+        }
+        // Un paso nulo recoloca los cuerpos que se mueven por ángulo (quizá perturbado)
+        member.simulateMovement(0);
+        BranchState state = member.getState();
+        int pairs = pairA.length;
+        double[] minima = new double[pairs];
+        double[] minimaTimes = new double[pairs];
+        Arrays.fill(minima, Double.POSITIVE_INFINITY);
+        trackApproaches(state, member.getSimulationTime(), minima, minimaTimes);
+
+        double remaining = days;
+        while (remaining > 1e-9) {
+            double step = Math.min(timeStep, remaining);
+            member.simulateMovement(step);
+            remaining -= step;
+            trackApproaches(state, member.getSimulationTime(), minima, minimaTimes);
+        }
+
+        int count = state.size();
+        double[] positions = new double[count * 3];
+        for (int i = 0; i < count; i++) {
+            for (int axis = 0; axis < 3; axis++) {
+                positions[i * 3 + axis] = state.get(i, BranchState.X + axis);
+            }
+        }
+        for (int p = 0; p < pairs; p++) {
+            minima[p] = Math.sqrt(minima[p]);
+        }
+        statistics.add(positions, minima, minimaTimes);
+    }
+
+    /**
+     * Actualiza la distancia mínima (al cuadrado) de cada pareja vigilada.
+     */
+    private void trackApproaches(BranchState state, double time, double[] minima, double[] minimaTimes) {
+        for (int p = 0; p < minima.length; p++) {
+            double dx = state.get(pairA[p], BranchState.X) - state.get(pairB[p], BranchState.X);
+            double dy = state.get(pairA[p], BranchState.X + 1) - state.get(pairB[p], BranchState.X + 1);
+            double dz = state.get(pairA[p], BranchState.X + 2) - state.get(pairB[p], BranchState.X + 2);
+            double distance = dx * dx + dy * dy + dz * dz;
+            if (distance < minima[p]) {
+                minima[p] = distance;
+                minimaTimes[p] = time;
+            }
+        }
+    }
+}
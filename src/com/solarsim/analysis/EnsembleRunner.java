@@ -0,0 +1,109 @@
+package com.solarsim.analysis;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import com.solarsim.model.SimulationBranch;
+import com.solarsim.util.logging.Log;
+import com.solarsim.util.logging.Logger;
+
+/**
+ * Ejecuta los miembros de un {@link Ensemble} en paralelo sobre un pool con robo
+ * de trabajo, un miembro por tarea.
+ *
+ * Los miembros se bifurcan y se encolan desde el hilo que llama a {@link #run},
+ * pero nunca hay más de {@code maxInFlight} en curso: cada miembro en marcha
+ * tiene su propio estado, así que este límite acota la memoria del estudio
+ * independientemente del número total de miembros.
+ */
+public class EnsembleRunner implements AutoCloseable {
+    private static final Logger LOG = Log.getLogger(EnsembleRunner.class);
+
+    private final ForkJoinPool pool;
+    private final int maxInFlight;
+
+    /**
+     * Crea un ejecutor con un hilo por procesador y hasta cuatro miembros en curso
+     * por hilo.
+     */
+    public EnsembleRunner() {
+        this(Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * Crea un ejecutor.
+     * @param threads Número de hilos del pool
+     * @param maxInFlight Número máximo de miembros con estado en memoria a la vez
+     */
+    public EnsembleRunner(int threads, int maxInFlight) {
+        if (threads < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Hilos o miembros en curso no válidos: " + threads + ", " + maxInFlight);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ForkJoinPool(threads, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("solarsim-ensemble-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Ejecuta todos los miembros de un ensemble y espera a que terminen.
+     * @param ensemble Estudio a ejecutar
+     * @param progress Se llama desde los hilos del pool cada vez que termina un
+     *                 miembro, con las estadísticas ya actualizadas; puede ser null
+     * @return Las estadísticas de todos los miembros
+     * @throws InterruptedException Si se interrumpe la espera
+     * @throws ExecutionException Si falla algún miembro; los que no han empezado ya no se lanzan
+     */
+    public EnsembleStatistics run(Ensemble ensemble, Consumer<EnsembleStatistics> progress)
+            throws InterruptedException, ExecutionException {
+        EnsembleStatistics statistics = ensemble.newStatistics();
+        Semaphore slots = new Semaphore(maxInFlight);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        SplittableRandom random = new SplittableRandom(ensemble.getSeed());
+        long start = System.nanoTime();
+
+        for (int m = 0; m < ensemble.getMemberCount() && failure.get() == null; m++) {
+            slots.acquire();
+            SimulationBranch member = ensemble.fork(m);
+            SplittableRandom memberRandom = random.split();
+            pool.execute(() -> {
+                try {
+                    ensemble.run(member, memberRandom, statistics);
+                    if (progress != null) {
+                        progress.accept(statistics);
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    slots.release();
+                }
+            });
+        }
+        // Cuando se recuperan todos los permisos ya no queda ningún miembro en curso
+        slots.acquire(maxInFlight);
+        slots.release(maxInFlight);
+
+        if (failure.get() != null) {
+            throw new ExecutionException("Ha fallado un miembro del ensemble", failure.get());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        LOG.info("Ensemble de {} miembros completado en {} s", statistics.getCompletedMembers(),
+            String.format("%.3f", seconds));
+        return statistics;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,175 @@
+package com.solarsim.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Estadísticas agregadas de un {@link Ensemble}, que se actualizan a medida que
+ * terminan los miembros.
+ *
+ * Por cada cuerpo se acumulan la media y la dispersión de la posición final
+ * (algoritmo de Welford, sin guardar las posiciones de cada miembro). Por cada
+ * pareja vigilada se guarda la distancia mínima de cada miembro, un double por
+ * miembro, para poder dar percentiles exactos.
+ *
+ * Todos los métodos están sincronizados: se puede consultar desde cualquier hilo
+ * mientras el ensemble sigue en marcha.
+ */
+public class EnsembleStatistics {
+    private final int[] bodyIds;
+    private final int[] pairA;
+    private final int[] pairB;
+
+    private int completed;
+    private final double[] meanPositions;
+    private final double[] squaredDeviations;
+
+    private final double[][] approaches;
+    private final double[] closestTimes;
+    private final double[] closest;
+    private final double[] approachSums;
+
+    EnsembleStatistics(int[] bodyIds, int[] pairA, int[] pairB) {
+        this.bodyIds = bodyIds;
+        this.pairA = pairA;
+        this.pairB = pairB;
+        this.meanPositions = new double[bodyIds.length * 3];
+        this.squaredDeviations = new double[bodyIds.length * 3];
+        this.approaches = new double[pairA.length][16];
+        this.closestTimes = new double[pairA.length];
+        this.closest = new double[pairA.length];
+        this.approachSums = new double[pairA.length];
+        Arrays.fill(closest, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Añade el resultado de un miembro.
+     * @param positions Posiciones finales [x0, y0, z0, x1, ...]
+     * @param minima Distancia mínima de cada pareja en km
+     * @param minimaTimes Instante de cada distancia mínima
+     */
+    synchronized void add(double[] positions, double[] minima, double[] minimaTimes) {
+        completed++;
+        for (int c = 0; c < meanPositions.length; c++) {
+            double delta = positions[c] - meanPositions[c];
+            meanPositions[c] += delta / completed;
+            squaredDeviations[c] += delta * (positions[c] - meanPositions[c]);
+        }
+        for (int p = 0; p < pairA.length; p++) {
+            if (completed > approaches[p].length) {
+                approaches[p] = Arrays.copyOf(approaches[p], approaches[p].length * 2);
+            }
+            approaches[p][completed - 1] = minima[p];
+            approachSums[p] += minima[p];
+            if (minima[p] < closest[p]) {
+                closest[p] = minima[p];
+                closestTimes[p] = minimaTimes[p];
+            }
+        }
+    }
+
+    /**
+     * Obtiene el número de miembros que han terminado.
+     * @return Miembros completados
+     */
+    public synchronized int getCompletedMembers() {
+        return completed;
+    }
+
+    /**
+     * Obtiene la posición final media de un cuerpo.
+     * @param bodyId Identificador del cuerpo
+     * @param out Array de al menos 3 elementos para [x, y, z]
+     * @return El array out
+     * @throws IllegalArgumentException Si el cuerpo no está en el ensemble
+     */
+    public synchronized double[] getMeanPosition(int bodyId, double[] out) {
+        int index = indexOf(bodyId);
+        System.arraycopy(meanPositions, index * 3, out, 0, 3);
+        return out;
+    }
+
+    /**
+     * Obtiene la dispersión de la posición final de un cuerpo: la raíz de la
+     * distancia cuadrática media a la posición media.
+     * @param bodyId Identificador del cuerpo
+     * @return Dispersión en km (0 con menos de dos miembros)
+     * @throws IllegalArgumentException Si el cuerpo no está en el ensemble
+     */
+    public synchronized double getPositionSpread(int bodyId) {
+        if (completed < 2) return 0;
+        int index = indexOf(bodyId);
+        double sum = 0;
+        for (int axis = 0; axis < 3; axis++) {
+            sum += squaredDeviations[index * 3 + axis];
+        }
+        return Math.sqrt(sum / (completed - 1));
+    }
+
+    /**
+     * Obtiene el número de parejas vigiladas.
+     * @return Parejas
+     */
+    public int getPairCount() {
+        return pairA.length;
+    }
+
+    /**
+     * Obtiene los cuerpos de una pareja vigilada.
+     * @param pair Índice de la pareja
+     * @return [identificador A, identificador B]
+     */
+    public int[] getPair(int pair) {
+        return new int[] { pairA[pair], pairB[pair] };
+    }
+
+    /**
+     * Obtiene la menor distancia alcanzada por una pareja en todos los miembros.
+     * @param pair Índice de la pareja
+     * @return Distancia en km, o infinito si aún no ha terminado ningún miembro
+     */
+    public synchronized double getClosestApproach(int pair) {
+        return closest[pair];
+    }
+
+    /**
+     * Obtiene el instante de la menor distancia de una pareja.
+     * @param pair Índice de la pareja
+     * @return Días simulados
+     */
+    public synchronized double getClosestApproachTime(int pair) {
+        return closestTimes[pair];
+    }
+
+    /**
+     * Obtiene la media entre miembros de la distancia mínima de una pareja.
+     * @param pair Índice de la pareja
+     * @return Distancia en km, o NaN si aún no ha terminado ningún miembro
+     */
+    public synchronized double getMeanClosestApproach(int pair) {
+        return completed > 0 ? approachSums[pair] / completed : Double.NaN;
+    }
+
+    /**
+     * Obtiene un percentil de la distancia mínima de una pareja entre los miembros
+     * terminados, interpolando linealmente entre los dos valores más próximos.
+     * @param pair Índice de la pareja
+     * @param percentile Percentil entre 0 y 100
+     * @return Distancia en km, o NaN si aún no ha terminado ningún miembro
+     */
+    public synchronized double getClosestApproachPercentile(int pair, double percentile) {
+        if (completed == 0) return Double.NaN;
+        double[] sorted = Arrays.copyOf(approaches[pair], completed);
+        Arrays.sort(sorted);
+        double rank = Math.max(0, Math.min(100, percentile)) / 100 * (completed - 1);
+        int lower = (int) rank;
+        int upper = Math.min(lower + 1, completed - 1);
+        return sorted[lower] + (sorted[upper] - sorted[lower]) * (rank - lower);
+    }
+
+    private int indexOf(int bodyId) {
+        for (int i = 0; i < bodyIds.length; i++) {
+            if (bodyIds[i] == bodyId) return i;
+        }
+        throw new IllegalArgumentException("El cuerpo " + bodyId + " no está en el ensemble");
+    }
+}
@@ -0,0 +1,403 @@
+package com.solarsim.analysis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.solarsim.model.CelestialBody;
+import com.solarsim.model.Moon;
+import com.solarsim.model.Planet;
+import com.solarsim.model.SolarSystem;
+import com.solarsim.util.logging.Log;
+import com.solarsim.util.logging.Logger;
+
+/**
+ * Búsqueda de eventos geométricos (conjunciones, eclipses, ocultaciones y
+ * máximas aproximaciones) en un intervalo de tiempo.
+ *
+ * Cada evento es un mínimo local de una medida: la separación angular vista por
+ * un observador, la separación menos los radios aparentes en las ocultaciones o
+ * la distancia en las aproximaciones. La medida se muestrea con un paso fijo, cada
+ * mínimo encontrado se refina por sección áurea y, si baja del umbral, se buscan
+ * por bisección los instantes en que empieza y termina el evento.
+ *
+ * Las posiciones salen de las efemérides analíticas de {@link BodyEphemeris}, no
+ * de avanzar la simulación, así que cualquier instante cuesta lo mismo y el
+ * intervalo se puede repartir entre hilos por tramos. Las efemérides se toman del
+ * estado del sistema al registrar cada búsqueda.
+ */
+public class EventSearch {
+    private static final Logger LOG = Log.getLogger(EventSearch.class);
+    private static final double GOLDEN = (Math.sqrt(5) - 1) / 2;
+    private static final double TIME_TOLERANCE = 1e-7;
+    private static final int MAX_CONTACT_SAMPLES = 10000;
+
+    private final SolarSystem solarSystem;
+    private final double sampleStep;
+    private final Map<CelestialBody, BodyEphemeris> ephemerides = new IdentityHashMap<>();
+    private final List<Query> queries = new ArrayList<>();
+
+    /**
+     * Crea una búsqueda vacía.
+     * @param solarSystem Sistema de los cuerpos
+     * @param sampleStep Paso de muestreo en días: debe ser menor que la mitad del
+     *                   tiempo entre dos eventos seguidos de la misma búsqueda (por
+     *                   ejemplo, 0.5 días para eventos en los que interviene la Luna)
+     */
+    public EventSearch(SolarSystem solarSystem, double sampleStep) {
+        if (!(sampleStep > 0)) {
+            throw new IllegalArgumentException("Paso de muestreo no válido: " + sampleStep);
+        }
+        this.solarSystem = solarSystem;
+        this.sampleStep = sampleStep;
+    }
+
+    /**
+     * Busca conjunciones de dos cuerpos vistos desde un observador.
+     * @param observer Cuerpo desde el que se observa
+     * @param first Primer cuerpo
+     * @param second Segundo cuerpo
+     * @param maxSeparation Separación máxima en grados para considerarlo conjunción
+     */
+    public void addConjunction(CelestialBody observer, CelestialBody first, CelestialBody second, double maxSeparation) {
+        queries.add(new AngularQuery(EventType.CONJUNCTION, first.getName() + "/" + second.getName()
+            + " desde " + observer.getName(), ephemeris(observer), ephemeris(first), ephemeris(second),
+            0, 0, Math.toRadians(maxSeparation)));
+    }
+
+    /**
+     * Busca conjunciones entre todos los planetas vistos desde un observador.
+     * @param observer Cuerpo desde el que se observa (se excluye de las parejas)
+     * @param maxSeparation Separación máxima en grados
+     */
+    public void addPlanetaryConjunctions(CelestialBody observer, double maxSeparation) {
+        List<Planet> planets = new ArrayList<>();
+        for (CelestialBody body : solarSystem.getCelestialBodies()) {
+            if (body instanceof Planet && body != observer) {
+                planets.add((Planet) body);
+            }
+        }
+        for (int i = 0; i < planets.size(); i++) {
+            for (int j = i + 1; j < planets.size(); j++) {
+                addConjunction(observer, planets.get(i), planets.get(j), maxSeparation);
+            }
+        }
+    }
+
+    /**
+     * Busca ocultaciones: el primer cuerpo tapa, al menos en parte, al segundo
+     * visto desde el observador.
+     * @param observer Cuerpo desde el que se observa
+     * @param occulter Cuerpo que tapa
+     * @param target Cuerpo tapado
+     */
+    public void addOccultation(CelestialBody observer, CelestialBody occulter, CelestialBody target) {
+        addOccultation(EventType.OCCULTATION, observer, occulter, target);
+    }
+
+    /**
+     * Busca eclipses de Sol: la luna tapa la estrella vista desde el centro de su planeta.
+     * @param moon Luna
+     * @param sun Estrella
+     */
+    public void addSolarEclipses(Moon moon, CelestialBody sun) {
+        addOccultation(EventType.SOLAR_ECLIPSE, moon.getParentPlanet(), moon, sun);
+    }
+
+    /**
+     * Busca eclipses de Luna: el planeta tapa la estrella vista desde el centro de
+     * la luna, es decir, el centro de la luna entra en la penumbra del planeta.
+     * @param moon Luna
+     * @param sun Estrella
+     */
+    public void addLunarEclipses(Moon moon, CelestialBody sun) {
+        addOccultation(EventType.LUNAR_ECLIPSE, moon, moon.getParentPlanet(), sun);
+    }
+
+    /**
+     * Busca los mínimos de distancia entre dos cuerpos.
+     * @param first Primer cuerpo
+     * @param second Segundo cuerpo
+     * @param maxDistance Distancia máxima entre centros en km
+     */
+    public void addClosestApproach(CelestialBody first, CelestialBody second, double maxDistance) {
+        queries.add(new DistanceQuery(first.getName() + "/" + second.getName(),
+            ephemeris(first), ephemeris(second), maxDistance));
+    }
+
+    /**
+     * Busca todos los eventos registrados en un intervalo.
+     * @param start Primer instante (días de simulación)
+     * @param end Último instante
+     * @param threads Número de hilos entre los que se reparten los tramos
+     * @return Eventos ordenados por tiempo
+     * @throws InterruptedException Si se interrumpe la espera
+     */
+    public List<AstronomicalEvent> search(double start, double end, int threads) throws InterruptedException {
+        if (threads < 1 || !(end > start)) {
+            throw new IllegalArgumentException("Intervalo o número de hilos no válidos");
+        }
+        long begin = System.nanoTime();
+        long samples = (long) Math.ceil((end - start) / sampleStep);
+        int chunks = (int) Math.max(1, Math.min(samples / 64, threads * 8L));
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "solarsim-events-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<AstronomicalEvent> events = new ArrayList<>();
+        try {
+            List<Future<List<AstronomicalEvent>>> tasks = new ArrayList<>();
+            for (int c = 0; c < chunks; c++) {
+                long first = samples * c / chunks;
+                long last = samples * (c + 1) / chunks;
+                tasks.add(pool.submit(() -> searchChunk(start, end, samples, first, last)));
+            }
+            for (Future<List<AstronomicalEvent>> task : tasks) {
+                events.addAll(task.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ha fallado la búsqueda de eventos", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        Collections.sort(events);
+        LOG.info("Encontrados {} eventos en {} días", events.size(), String.format("%.0f", end - start));
+        LOG.debug("Búsqueda de eventos en {} ms", (System.nanoTime() - begin) / 1_000_000);
+        return events;
+    }
+
+    /**
+     * Busca los mínimos cuyo punto de muestreo está en [first, last). Los vecinos se
+     * evalúan aunque caigan en otro tramo, así que cada mínimo lo encuentra un solo tramo.
+     */
+    private List<AstronomicalEvent> searchChunk(double start, double end, long samples, long first, long last) {
+        List<AstronomicalEvent> events = new ArrayList<>();
+        Workspace scratch = new Workspace();
+        for (Query query : queries) {
+            long from = Math.max(1, first);
+            long to = Math.min(samples - 1, last);
+            if (from >= to) continue;
+            double before = query.measure(sampleTime(start, end, samples, from - 1), scratch);
+            double current = query.measure(sampleTime(start, end, samples, from), scratch);
+            for (long k = from; k < to; k++) {
+                double after = query.measure(sampleTime(start, end, samples, k + 1), scratch);
+                if (current <= before && current < after) {
+                    AstronomicalEvent event = refine(query, sampleTime(start, end, samples, k - 1),
+                        sampleTime(start, end, samples, k + 1), scratch);
+                    if (event != null) events.add(event);
+                }
+                before = current;
+                current = after;
+            }
+        }
+        return events;
+    }
+
+    private AstronomicalEvent refine(Query query, double low, double high, Workspace scratch) {
+        // Sección áurea sobre el intervalo que rodea al mínimo muestreado
+        double a = low;
+        double b = high;
+        double c = b - GOLDEN * (b - a);
+        double d = a + GOLDEN * (b - a);
+        double fc = query.measure(c, scratch);
+        double fd = query.measure(d, scratch);
+        while (b - a > TIME_TOLERANCE) {
+            if (fc < fd) {
+                b = d;
+                d = c;
+                fd = fc;
+                c = b - GOLDEN * (b - a);
+                fc = query.measure(c, scratch);
+            } else {
+                a = c;
+                c = d;
+                fc = fd;
+                d = a + GOLDEN * (b - a);
+                fd = query.measure(d, scratch);
+            }
+        }
+        double time = (a + b) / 2;
+        double threshold = query.threshold;
+        if (query.measure(time, scratch) > threshold) return null;
+
+        double startTime = contact(query, time, -sampleStep, scratch);
+        double endTime = contact(query, time, sampleStep, scratch);
+        return new AstronomicalEvent(query.type, query.description, time, startTime, endTime, query.value(time, scratch));
+    }
+
+    /**
+     * Busca desde el máximo del evento, en pasos de muestreo, el instante en que la
+     * medida vuelve a superar el umbral, y lo refina por bisección.
+     */
+    private double contact(Query query, double time, double step, Workspace scratch) {
+        double inside = time;
+        double outside = time + step;
+        int samples = 0;
+        while (query.measure(outside, scratch) <= query.threshold) {
+            inside = outside;
+            outside += step;
+            if (++samples == MAX_CONTACT_SAMPLES) return outside;
+        }
+        while (Math.abs(outside - inside) > TIME_TOLERANCE) {
+            double middle = (inside + outside) / 2;
+            if (query.measure(middle, scratch) <= query.threshold) {
+                inside = middle;
+            } else {
+                outside = middle;
+            }
+        }
+        return (inside + outside) / 2;
+    }
+
+    private void addOccultation(EventType type, CelestialBody observer, CelestialBody occulter, CelestialBody target) {
+        queries.add(new AngularQuery(type, occulter.getName() + "/" + target.getName() + " desde " + observer.getName(),
+            ephemeris(observer), ephemeris(occulter), ephemeris(target), occulter.getRadius(), target.getRadius(), 0));
+    }
+
+    private BodyEphemeris ephemeris(CelestialBody body) {
+        return ephemerides.computeIfAbsent(body, b -> BodyEphemeris.of(b, solarSystem));
+    }
+
+    private static double sampleTime(double start, double end, long samples, long k) {
+        return k == samples ? end : start + (end - start) * k / samples;
+    }
+
+    /**
+     * Medida que se minimiza para encontrar un tipo de evento.
+     */
+    private abstract static class Query {
+        final EventType type;
+        final String description;
+        final double threshold;
+
+        Query(EventType type, String description, double threshold) {
+            this.type = type;
+            this.description = description;
+            this.threshold = threshold;
+        }
+
+        /**
+         * Calcula la medida en un instante; el evento ocurre donde baja del umbral.
+         * @param scratch Arrays de trabajo del hilo
+         */
+        abstract double measure(double time, Workspace scratch);
+
+        /**
+         * Valor que se informa en el máximo del evento.
+         */
+        abstract double value(double time, Workspace scratch);
+    }
+
+    /**
+     * Separación angular de dos cuerpos vistos desde un observador, menos la suma
+     * de sus radios aparentes (0 para las conjunciones).
+     */
+    private static final class AngularQuery extends Query {
+        private final BodyEphemeris observer;
+        private final BodyEphemeris first;
+        private final BodyEphemeris second;
+        private final double firstRadius;
+        private final double secondRadius;
+
+        AngularQuery(EventType type, String description, BodyEphemeris observer, BodyEphemeris first,
+                BodyEphemeris second, double firstRadius, double secondRadius, double threshold) {
+            super(type, description, threshold);
+            this.observer = observer;
+            this.first = first;
+            this.second = second;
+            this.firstRadius = firstRadius;
+            this.secondRadius = secondRadius;
+        }
+
+        @Override
+        double measure(double time, Workspace scratch) {
+            double separation = separation(time, scratch);
+            if (firstRadius == 0 && secondRadius == 0) return separation;
+            double firstDistance = scratch.firstDistance;
+            double secondDistance = scratch.secondDistance;
+            // Solo hay ocultación si el primer cuerpo está delante
+            double penalty = firstDistance < secondDistance ? 0 : Math.PI;
+            return separation - Math.asin(Math.min(1, firstRadius / firstDistance))
+                - Math.asin(Math.min(1, secondRadius / secondDistance)) + penalty;
+        }
+
+        @Override
+        double value(double time, Workspace scratch) {
+            return Math.toDegrees(separation(time, scratch));
+        }
+
+        /**
+         * Calcula la separación angular y deja en el espacio de trabajo las distancias
+         * del observador a cada cuerpo.
+         */
+        private double separation(double time, Workspace scratch) {
+            double[] o = scratch.origin;
+            double[] p = scratch.first;
+            double[] q = scratch.second;
+            observer.stateAt(time, o, scratch.velocity);
+            first.stateAt(time, p, scratch.velocity);
+            second.stateAt(time, q, scratch.velocity);
+            double ux = p[0] - o[0], uy = p[1] - o[1], uz = p[2] - o[2];
+            double vx = q[0] - o[0], vy = q[1] - o[1], vz = q[2] - o[2];
+            double cx = uy * vz - uz * vy;
+            double cy = uz * vx - ux * vz;
+            double cz = ux * vy - uy * vx;
+            double separation = Math.atan2(Math.sqrt(cx * cx + cy * cy + cz * cz), ux * vx + uy * vy + uz * vz);
+            scratch.firstDistance = Math.sqrt(ux * ux + uy * uy + uz * uz);
+            scratch.secondDistance = Math.sqrt(vx * vx + vy * vy + vz * vz);
+            return separation;
+        }
+    }
+
+    /**
+     * Distancia entre dos cuerpos.
+     */
+    private static final class DistanceQuery extends Query {
+        private final BodyEphemeris first;
+        private final BodyEphemeris second;
+
+        DistanceQuery(String description, BodyEphemeris first, BodyEphemeris second, double maxDistance) {
+            super(EventType.CLOSEST_APPROACH, description, maxDistance);
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        double measure(double time, Workspace scratch) {
+            double[] p = scratch.first;
+            double[] q = scratch.second;
+            first.stateAt(time, p, scratch.velocity);
+            second.stateAt(time, q, scratch.velocity);
+            double dx = q[0] - p[0];
+            double dy = q[1] - p[1];
+            double dz = q[2] - p[2];
+            return Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+
+        @Override
+        double value(double time, Workspace scratch) {
+            return measure(time, scratch);
+        }
+    }
+
+    /**
+     * Arrays de trabajo de un hilo, para no reservar memoria en cada evaluación.
+     */
+    private static final class Workspace {
+        final double[] origin = new double[3];
+        final double[] first = new double[3];
+        final double[] second = new double[3];
+        final double[] velocity = new double[3];
+        double firstDistance;
+        double secondDistance;
+    }
+}
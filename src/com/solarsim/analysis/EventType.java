@@ -0,0 +1,27 @@
+package com.solarsim.analysis;
+
+/**
+ * Tipo de evento geométrico que busca {@link EventSearch}.
+ */
+public enum EventType {
+    /** Dos cuerpos se ven muy juntos en el cielo de un observador */
+    CONJUNCTION("Conjunción"),
+    /** La luna tapa (total o parcialmente) el Sol visto desde su planeta */
+    SOLAR_ECLIPSE("Eclipse de Sol"),
+    /** La luna entra en la sombra de su planeta */
+    LUNAR_ECLIPSE("Eclipse de Luna"),
+    /** Un cuerpo tapa a otro visto desde un observador */
+    OCCULTATION("Ocultación"),
+    /** Mínimo local de la distancia entre dos cuerpos */
+    CLOSEST_APPROACH("Máxima aproximación");
+
+    private final String displayName;
+
+    EventType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
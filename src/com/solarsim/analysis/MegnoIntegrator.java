@@ -0,0 +1,187 @@
+package com.solarsim.analysis;
+
+/**
+ * Integra una partícula de prueba sin masa alrededor del cuerpo central, bajo la
+ * atracción de los perturbadores de una {@link PerturberEphemeris}, junto con sus
+ * ecuaciones variacionales, y calcula el indicador de caos MEGNO ⟨Y⟩.
+ *
+ * El integrador es un leapfrog deriva-impulso-deriva con paso fijo en el sistema
+ * heliocéntrico (incluye el término indirecto de la aceleración del cuerpo
+ * central). ⟨Y⟩ tiende a 2 en órbitas cuasiperiódicas, a 0 en órbitas estables
+ * muy regulares y crece linealmente con el tiempo en órbitas caóticas.
+ *
+ * Para que las partes de posición y velocidad del vector de desviación pesen lo
+ * mismo, la velocidad se mide en unidades de la órbita inicial (multiplicada por
+ * el inverso del movimiento medio). Cada instancia reutiliza sus arrays y solo
+ * debe usarse desde un hilo.
+ */
+final class MegnoIntegrator {
+    /** La integración se detiene al alejarse más de este factor del semieje mayor inicial */
+    private static final double ESCAPE_FACTOR = 10;
+
+    private final PerturberEphemeris ephemeris;
+    private final double centralMu;
+    private final double timeStep;
+    private final double collisionRadius;
+
+    private final double[] acceleration = new double[3];
+    private final double[] variation = new double[3];
+
+    // Resultado de la última llamada a integrate
+    private double megno;
+    private double survivalTime;
+    private boolean survived;
+
+    MegnoIntegrator(PerturberEphemeris ephemeris, double centralMu, double timeStep, double collisionRadius) {
+        this.ephemeris = ephemeris;
+        this.centralMu = centralMu;
+        this.timeStep = timeStep;
+        this.collisionRadius = collisionRadius;
+    }
+
+    /**
+     * Integra una partícula durante todos los pasos de la efeméride o hasta que
+     * escapa, choca con el cuerpo central o entra en la esfera de Hill de un perturbador.
+     * @param position Posición inicial [x, y, z] en km; se modifica
+     * @param velocity Velocidad inicial [vx, vy, vz] en km/día; se modifica
+     */
+    void integrate(double[] position, double[] velocity) {
+        double r0 = norm(position);
+        double v0 = norm(velocity);
+        double energy = v0 * v0 / 2 - centralMu / r0;
+        double a0 = energy < 0 ? -centralMu / (2 * energy) : r0;
+        double escapeRadius = ESCAPE_FACTOR * a0;
+        double tau = Math.sqrt(a0 * a0 * a0 / centralMu); // inverso del movimiento medio
+        double tau2 = tau * tau;
+
+        // Vector de desviación inicial arbitrario (el resultado no depende de él a largo plazo)
+        double[] dr = { 0.6, 0.0, 0.8 };
+        double[] dv = { 0.0, 0.8 / tau, 0.6 / tau };
+
+        double half = timeStep / 2;
+        double time = 0;
+        double weightedSum = 0; // ∫ s·(δ·δ̇)/(δ·δ) ds
+        double ySum = 0;        // ∫ Y ds
+        int steps = ephemeris.getSteps();
+        survived = true;
+        for (int step = 0; step < steps; step++) {
+            drift(position, velocity, dr, dv, half);
+            if (!accelerate(step, position, dr)) {
+                survived = false;
+                break;
+            }
+            for (int axis = 0; axis < 3; axis++) {
+                velocity[axis] += acceleration[axis] * timeStep;
+                dv[axis] += variation[axis] * timeStep;
+            }
+            double midTime = time + half;
+            double deltaDot = dr[0] * dv[0] + dr[1] * dv[1] + dr[2] * dv[2]
+                + tau2 * (dv[0] * variation[0] + dv[1] * variation[1] + dv[2] * variation[2]);
+            double deltaSquared = dr[0] * dr[0] + dr[1] * dr[1] + dr[2] * dr[2]
+                + tau2 * (dv[0] * dv[0] + dv[1] * dv[1] + dv[2] * dv[2]);
+            drift(position, velocity, dr, dv, half);
+            time += timeStep;
+
+            weightedSum += timeStep * midTime * deltaDot / deltaSquared;
+            ySum += timeStep * 2 * weightedSum / time;
+
+            // El sistema variacional es lineal: se renormaliza para que no desborde
+            if (deltaSquared > 1e100) {
+                double scale = 1 / Math.sqrt(deltaSquared);
+                for (int axis = 0; axis < 3; axis++) {
+                    dr[axis] *= scale;
+                    dv[axis] *= scale;
+                }
+            }
+            double r = norm(position);
+            if (r > escapeRadius || r < collisionRadius || Double.isNaN(r)) {
+                survived = false;
+                break;
+            }
+        }
+        megno = time > 0 ? ySum / time : Double.NaN;
+        survivalTime = time;
+    }
+
+    /**
+     * Obtiene el MEGNO medio ⟨Y⟩ de la última integración.
+     * @return ⟨Y⟩, calculado hasta el final o hasta que se detuvo la integración
+     */
+    double getMegno() {
+        return megno;
+    }
+
+    /**
+     * Obtiene durante cuánto tiempo se integró la última partícula.
+     * @return Días; igual a la duración total si la partícula sobrevivió
+     */
+    double getSurvivalTime() {
+        return survivalTime;
+    }
+
+    /**
+     * Indica si la última partícula llegó al final sin escapar, chocar ni
+     * acercarse demasiado a un perturbador.
+     * @return true si sobrevivió
+     */
+    boolean hasSurvived() {
+        return survived;
+    }
+
+    private static void drift(double[] position, double[] velocity, double[] dr, double[] dv, double dt) {
+        for (int axis = 0; axis < 3; axis++) {
+            position[axis] += velocity[axis] * dt;
+            dr[axis] += dv[axis] * dt;
+        }
+    }
+
+    /**
+     * Calcula la aceleración y su variación a mitad del paso.
+     * @return false si la partícula ha entrado en la esfera de Hill de un perturbador
+     */
+    private boolean accelerate(int step, double[] position, double[] dr) {
+        double[] perturbers = ephemeris.positions();
+        double[] indirect = ephemeris.indirect();
+        double x = position[0], y = position[1], z = position[2];
+
+        double r2 = x * x + y * y + z * z;
+        double r = Math.sqrt(r2);
+        double k = centralMu / (r2 * r);
+        double projection = 3 * (x * dr[0] + y * dr[1] + z * dr[2]) / r2;
+        double ax = -k * x - indirect[step * 3];
+        double ay = -k * y - indirect[step * 3 + 1];
+        double az = -k * z - indirect[step * 3 + 2];
+        double vx = -k * (dr[0] - x * projection);
+        double vy = -k * (dr[1] - y * projection);
+        double vz = -k * (dr[2] - z * projection);
+
+        for (int j = 0; j < ephemeris.getCount(); j++) {
+            int o = ephemeris.offset(step, j);
+            double dx = perturbers[o] - x;
+            double dy = perturbers[o + 1] - y;
+            double dz = perturbers[o + 2] - z;
+            double d2 = dx * dx + dy * dy + dz * dz;
+            double d = Math.sqrt(d2);
+            if (d < ephemeris.getHillRadius(j)) return false;
+            double kj = ephemeris.getGm(j) / (d2 * d);
+            ax += kj * dx;
+            ay += kj * dy;
+            az += kj * dz;
+            double pj = 3 * (dx * dr[0] + dy * dr[1] + dz * dr[2]) / d2;
+            vx += kj * (-dr[0] + dx * pj);
+            vy += kj * (-dr[1] + dy * pj);
+            vz += kj * (-dr[2] + dz * pj);
+        }
+        acceleration[0] = ax;
+        acceleration[1] = ay;
+        acceleration[2] = az;
+        variation[0] = vx;
+        variation[1] = vy;
+        variation[2] = vz;
+        return true;
+    }
+
+    private static double norm(double[] v) {
+        return Math.sqrt(v[0] * v[0] + v[1] * v[1] + v[2] * v[2]);
+    }
+}
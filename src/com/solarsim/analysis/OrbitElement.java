@@ -0,0 +1,42 @@
+package com.solarsim.analysis;
+
+import com.solarsim.physics.Orbit;
+
+/**
+ * Elemento orbital que puede recorrer un eje de un {@link StabilityMap}.
+ * Las unidades son las de {@link Orbit}: kilómetros para el semieje mayor y grados
+ * para los ángulos.
+ */
+public enum OrbitElement {
+    SEMI_MAJOR_AXIS("a"),
+    ECCENTRICITY("e"),
+    INCLINATION("i"),
+    ASCENDING_NODE("node"),
+    ARGUMENT_OF_PERIAPSIS("periapsis"),
+    TRUE_ANOMALY("nu");
+
+    private final String label;
+
+    OrbitElement(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Obtiene el nombre corto del elemento, usado como cabecera de columna.
+     * @return Nombre corto
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Asigna el elemento en un array de elementos orbitales, sin pasar por los
+     * setters de {@link Orbit} (que avisan a la vista de cada cambio).
+     * @param elements Elementos en el orden del constructor de {@link Orbit}: a, e,
+     *                 i, nodo, periapsis y anomalía verdadera
+     * @param value Nuevo valor
+     */
+    public void apply(double[] elements, double value) {
+        elements[ordinal()] = value;
+    }
+}
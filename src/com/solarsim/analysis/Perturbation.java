@@ -0,0 +1,73 @@
+package com.solarsim.analysis;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.solarsim.model.BranchState;
+import com.solarsim.model.CelestialBody;
+import com.solarsim.model.Moon;
+import com.solarsim.model.Planet;
+import com.solarsim.model.SimulationBranch;
+
+/**
+ * Generador de perturbaciones para los miembros de un {@link Ensemble}: modifica
+ * el estado inicial de cada miembro antes de que empiece a avanzar.
+ *
+ * Se llama desde los hilos del ejecutor, una vez por miembro y con un generador
+ * aleatorio propio del miembro, así que una implementación no debe guardar estado
+ * mutable compartido.
+ */
+@FunctionalInterface
+public interface Perturbation {
+    /**
+     * Perturba el estado inicial de un miembro.
+     * @param member Rama del miembro, recién bifurcada de la base
+     * @param random Generador aleatorio del miembro
+     */
+    void apply(SimulationBranch member, SplittableRandom random);
+
+    /**
+     * Crea una perturbación gaussiana de masas, posiciones y velocidades.
+     *
+     * Los planetas y lunas se mueven por ángulo sobre una órbita circular fija, así
+     * que su posición se recalcula en cada paso: para ellos el error de posición
+     * se aplica como un desfase angular equivalente (la misma longitud de arco) y
+     * la velocidad no se perturba.
+     * @param massSigma Desviación típica relativa de la masa (0.01 = 1 %)
+     * @param positionSigma Desviación típica de cada coordenada en km
+     * @param velocitySigma Desviación típica de cada componente de la velocidad en km/día
+     * @return La perturbación
+     */
+    static Perturbation jitter(double massSigma, double positionSigma, double velocitySigma) {
+        return (member, random) -> {
+            BranchState state = member.getState();
+            List<CelestialBody> bodies = member.getCelestialBodies();
+            for (int i = 0; i < state.size(); i++) {
+                CelestialBody body = bodies.get(i);
+                if (massSigma > 0) {
+                    double mass = state.get(i, BranchState.MASS);
+                    state.set(i, BranchState.MASS, Math.max(0, mass * (1 + massSigma * random.nextGaussian())));
+                }
+                double orbitalRadius = body instanceof Planet ? ((Planet) body).getOrbitalRadius()
+                    : body instanceof Moon ? ((Moon) body).getOrbitalRadius() : 0;
+                if (orbitalRadius > 0) {
+                    if (positionSigma > 0) {
+                        double angle = state.get(i, BranchState.ANGLE);
+                        state.set(i, BranchState.ANGLE, angle + positionSigma * random.nextGaussian() / orbitalRadius);
+                    }
+                    continue;
+                }
+                for (int axis = 0; axis < 3; axis++) {
+                    if (positionSigma > 0) {
+                        double x = state.get(i, BranchState.X + axis);
+                        state.set(i, BranchState.X + axis, x + positionSigma * random.nextGaussian());
+                    }
+                    if (velocitySigma > 0) {
+                        double v = state.get(i, BranchState.VX + axis);
+                        state.set(i, BranchState.VX + axis, v + velocitySigma * random.nextGaussian());
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package com.solarsim.analysis;
+
+import java.util.List;
+
+import com.solarsim.physics.Orbit;
+
+/**
+ * Tabla precalculada de las posiciones de los cuerpos perturbadores de un
+ * {@link StabilityMap} en los instantes en que el integrador evalúa fuerzas.
+ *
+ * Los perturbadores siguen sus órbitas keplerianas sin perturbar, igual que los
+ * planetas de la simulación principal, así que sus posiciones no dependen de la
+ * partícula de prueba: se calculan una sola vez (con la ecuación de Kepler) y
+ * todas las celdas del mapa las leen de aquí desde cualquier hilo.
+ */
+final class PerturberEphemeris {
+    private final int count;
+    private final int steps;
+    private final double[] gm;
+    private final double[] hillRadii;
+    // Por paso: posiciones de los perturbadores y término indirecto Σ Gm·r/|r|³
+    private final double[] positions;
+    private final double[] indirect;
+
+    /**
+     * Calcula la tabla.
+     * @param centralMu Parámetro gravitacional del cuerpo central en km³/día²
+     * @param masses μ de cada perturbador en km³/día²
+     * @param orbits Órbita de cada perturbador alrededor del cuerpo central
+     * @param timeStep Paso del integrador en días
+     * @param steps Número de pasos
+     */
+    PerturberEphemeris(double centralMu, double[] masses, List<Orbit> orbits, double timeStep, int steps) {
+        this.count = masses.length;
+        this.steps = steps;
+        this.gm = masses.clone();
+        this.hillRadii = new double[count];
+        this.positions = new double[steps * count * 3];
+        this.indirect = new double[steps * 3];
+
+        double[] position = new double[3];
+        for (int j = 0; j < count; j++) {
+            Orbit orbit = orbits.get(j);
+            double a = orbit.getSemiMajorAxis();
+            double e = orbit.getEccentricity();
+            double meanMotion = Math.sqrt((centralMu + gm[j]) / (a * a * a));
+            double meanAnomaly0 = Orbit.meanAnomalyFromTrueAnomaly(Math.toRadians(orbit.getTrueAnomaly()), e);
+            hillRadii[j] = a * (1 - e) * Math.cbrt(gm[j] / (3 * centralMu));
+            for (int s = 0; s < steps; s++) {
+                // Las fuerzas se evalúan a mitad de cada paso
+                double time = (s + 0.5) * timeStep;
+                double trueAnomaly = Orbit.trueAnomalyFromMeanAnomaly(meanAnomaly0 + meanMotion * time, e);
+                orbit.positionAtTrueAnomaly(trueAnomaly, position);
+                int o = (s * count + j) * 3;
+                positions[o] = position[0];
+                positions[o + 1] = position[1];
+                positions[o + 2] = position[2];
+                double r = Math.sqrt(position[0] * position[0] + position[1] * position[1] + position[2] * position[2]);
+                double k = gm[j] / (r * r * r);
+                indirect[s * 3] += k * position[0];
+                indirect[s * 3 + 1] += k * position[1];
+                indirect[s * 3 + 2] += k * position[2];
+            }
+        }
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    int getSteps() {
+        return steps;
+    }
+
+    double getGm(int perturber) {
+        return gm[perturber];
+    }
+
+    double getHillRadius(int perturber) {
+        return hillRadii[perturber];
+    }
+
+    /**
+     * Desplazamiento en {@link #positions()} de la posición de un perturbador en un paso.
+     */
+    int offset(int step, int perturber) {
+        return (step * count + perturber) * 3;
+    }
+
+    double[] positions() {
+        return positions;
+    }
+
+    double[] indirect() {
+        return indirect;
+    }
+}
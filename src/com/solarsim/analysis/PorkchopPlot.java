@@ -0,0 +1,296 @@
+package com.solarsim.analysis;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.solarsim.physics.GravitationalForce;
+import com.solarsim.physics.LambertSolver;
+import com.solarsim.util.logging.Log;
+import com.solarsim.util.logging.Logger;
+
+/**
+ * Diagrama "porkchop" de transferencias entre dos cuerpos: para cada pareja de
+ * fecha de salida y fecha de llegada resuelve el problema de Lambert y guarda la
+ * energía característica de salida (C3) y la velocidad de exceso hiperbólico de
+ * llegada.
+ *
+ * Las efemérides de los dos cuerpos se evalúan una sola vez por fecha de la
+ * rejilla, no por celda: una rejilla de n × m celdas solo consulta n + m estados.
+ * Las filas (fechas de salida) se reparten entre los hilos y cada hilo usa su
+ * propio {@link LambertSolver}.
+ *
+ * Las velocidades se dan en km/s y C3 en km²/s², las unidades habituales en
+ * diseño de misiones; el Δv total es la suma de los excesos hiperbólicos de salida
+ * y llegada, sin incluir el escape ni la captura en los planetas.
+ */
+public class PorkchopPlot {
+    private static final Logger LOG = Log.getLogger(PorkchopPlot.class);
+    private static final double SECONDS_PER_DAY = 86400.0;
+
+    private final BodyEphemeris departure;
+    private final BodyEphemeris arrival;
+    private final double mu;
+    private final double departureStart;
+    private final double departureEnd;
+    private final int departureCount;
+    private final double arrivalStart;
+    private final double arrivalEnd;
+    private final int arrivalCount;
+    private boolean prograde = true;
+
+    private final double[] c3;
+    private final double[] arrivalVInfinity;
+
+    /**
+     * Crea un diagrama vacío.
+     * @param departure Efeméride del cuerpo de salida
+     * @param arrival Efeméride del cuerpo de llegada
+     * @param centralMass Masa del cuerpo central en kg
+     * @param departureStart Primera fecha de salida (días de simulación)
+     * @param departureEnd Última fecha de salida
+     * @param departureCount Número de fechas de salida
+     * @param arrivalStart Primera fecha de llegada
+     * @param arrivalEnd Última fecha de llegada
+     * @param arrivalCount Número de fechas de llegada
+     */
+    public PorkchopPlot(BodyEphemeris departure, BodyEphemeris arrival, double centralMass,
+            double departureStart, double departureEnd, int departureCount,
+            double arrivalStart, double arrivalEnd, int arrivalCount) {
+        if (departureCount < 1 || arrivalCount < 1) {
+            throw new IllegalArgumentException("Rejilla no válida: " + departureCount + "x" + arrivalCount);
+        }
+        this.departure = departure;
+        this.arrival = arrival;
+        this.mu = GravitationalForce.gravitationalParameter(centralMass);
+        this.departureStart = departureStart;
+        this.departureEnd = departureEnd;
+        this.departureCount = departureCount;
+        this.arrivalStart = arrivalStart;
+        this.arrivalEnd = arrivalEnd;
+        this.arrivalCount = arrivalCount;
+        this.c3 = new double[departureCount * arrivalCount];
+        this.arrivalVInfinity = new double[departureCount * arrivalCount];
+        Arrays.fill(c3, Double.NaN);
+        Arrays.fill(arrivalVInfinity, Double.NaN);
+    }
+
+    /**
+     * Elige el sentido de las transferencias.
+     * @param prograde true (por defecto) para transferencias en el sentido de los planetas
+     */
+    public void setPrograde(boolean prograde) {
+        this.prograde = prograde;
+    }
+
+    /**
+     * Calcula todas las celdas. Las celdas en que la llegada no es posterior a la
+     * salida o el problema de Lambert no tiene solución quedan en NaN.
+     * @param threads Número de hilos
+     * @throws InterruptedException Si se interrumpe la espera
+     */
+    public void compute(int threads) throws InterruptedException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Número de hilos no válido: " + threads);
+        }
+        long start = System.nanoTime();
+        double[] departureStates = tabulate(departure, departureStart, departureEnd, departureCount);
+        double[] arrivalStates = tabulate(arrival, arrivalStart, arrivalEnd, arrivalCount);
+
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "solarsim-porkchop-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // Varias filas por tarea para que las rejillas estrechas no se queden en un hilo
+            int rowsPerTask = Math.max(1, departureCount / (threads * 8));
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int first = 0; first < departureCount; first += rowsPerTask) {
+                int from = first;
+                int to = Math.min(departureCount, first + rowsPerTask);
+                tasks.add(pool.submit(() -> computeRows(from, to, departureStates, arrivalStates)));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ha fallado el cálculo del diagrama", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        LOG.info("Diagrama porkchop de {} celdas calculado en {} s", c3.length, String.format("%.3f", seconds));
+    }
+
+    /**
+     * Obtiene una fecha de salida de la rejilla.
+     * @param index Fila
+     * @return Días de simulación
+     */
+    public double getDepartureTime(int index) {
+        return gridValue(departureStart, departureEnd, departureCount, index);
+    }
+
+    /**
+     * Obtiene una fecha de llegada de la rejilla.
+     * @param index Columna
+     * @return Días de simulación
+     */
+    public double getArrivalTime(int index) {
+        return gridValue(arrivalStart, arrivalEnd, arrivalCount, index);
+    }
+
+    public int getDepartureCount() {
+        return departureCount;
+    }
+
+    public int getArrivalCount() {
+        return arrivalCount;
+    }
+
+    /**
+     * Obtiene la energía característica de salida C3 = v∞².
+     * @param departureIndex Fila
+     * @param arrivalIndex Columna
+     * @return C3 en km²/s², o NaN si la transferencia no es posible
+     */
+    public double getC3(int departureIndex, int arrivalIndex) {
+        return c3[departureIndex * arrivalCount + arrivalIndex];
+    }
+
+    /**
+     * Obtiene la velocidad de exceso hiperbólico a la llegada.
+     * @param departureIndex Fila
+     * @param arrivalIndex Columna
+     * @return v∞ en km/s, o NaN si la transferencia no es posible
+     */
+    public double getArrivalVInfinity(int departureIndex, int arrivalIndex) {
+        return arrivalVInfinity[departureIndex * arrivalCount + arrivalIndex];
+    }
+
+    /**
+     * Obtiene el Δv total de la transferencia: v∞ de salida más v∞ de llegada.
+     * @param departureIndex Fila
+     * @param arrivalIndex Columna
+     * @return Δv en km/s, o NaN si la transferencia no es posible
+     */
+    public double getTotalDeltaV(int departureIndex, int arrivalIndex) {
+        int cell = departureIndex * arrivalCount + arrivalIndex;
+        return Math.sqrt(c3[cell]) + arrivalVInfinity[cell];
+    }
+
+    /**
+     * Obtiene la matriz de C3, por filas de salida.
+     * @return Array de {@code departureCount × arrivalCount} valores; no debe modificarse
+     */
+    public double[] getC3Matrix() {
+        return c3;
+    }
+
+    /**
+     * Obtiene la matriz de v∞ de llegada, por filas de salida.
+     * @return Array de {@code departureCount × arrivalCount} valores; no debe modificarse
+     */
+    public double[] getArrivalVInfinityMatrix() {
+        return arrivalVInfinity;
+    }
+
+    /**
+     * Busca la celda de menor Δv total.
+     * @return [fila, columna], o null si ninguna transferencia es posible
+     */
+    public int[] findMinimumDeltaV() {
+        int best = -1;
+        double bestValue = Double.POSITIVE_INFINITY;
+        for (int cell = 0; cell < c3.length; cell++) {
+            double value = Math.sqrt(c3[cell]) + arrivalVInfinity[cell];
+            if (value < bestValue) {
+                bestValue = value;
+                best = cell;
+            }
+        }
+        return best < 0 ? null : new int[] { best / arrivalCount, best % arrivalCount };
+    }
+
+    /**
+     * Escribe el diagrama como CSV, una línea por celda.
+     * @param file Fichero de destino
+     * @throws IOException Si no se puede escribir
+     */
+    public void writeCsv(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("departure_day,arrival_day,tof_days,c3_km2_s2,arrival_vinf_km_s,total_dv_km_s");
+            writer.newLine();
+            for (int d = 0; d < departureCount; d++) {
+                for (int a = 0; a < arrivalCount; a++) {
+                    double departureTime = getDepartureTime(d);
+                    double arrivalTime = getArrivalTime(a);
+                    writer.write(String.format(Locale.ROOT, "%.4f,%.4f,%.4f,%.6f,%.6f,%.6f", departureTime, arrivalTime,
+                        arrivalTime - departureTime, getC3(d, a), getArrivalVInfinity(d, a), getTotalDeltaV(d, a)));
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    private void computeRows(int from, int to, double[] departureStates, double[] arrivalStates) {
+        LambertSolver solver = new LambertSolver(mu);
+        double[] r1 = new double[3];
+        double[] r2 = new double[3];
+        double[] v1 = new double[3];
+        double[] v2 = new double[3];
+        for (int d = from; d < to; d++) {
+            double departureTime = getDepartureTime(d);
+            System.arraycopy(departureStates, d * 6, r1, 0, 3);
+            for (int a = 0; a < arrivalCount; a++) {
+                double timeOfFlight = getArrivalTime(a) - departureTime;
+                System.arraycopy(arrivalStates, a * 6, r2, 0, 3);
+                if (!solver.solve(r1, r2, timeOfFlight, prograde, v1, v2)) continue;
+                double departureExcess = 0;
+                double arrivalExcess = 0;
+                for (int axis = 0; axis < 3; axis++) {
+                    double dv1 = v1[axis] - departureStates[d * 6 + 3 + axis];
+                    double dv2 = v2[axis] - arrivalStates[a * 6 + 3 + axis];
+                    departureExcess += dv1 * dv1;
+                    arrivalExcess += dv2 * dv2;
+                }
+                int cell = d * arrivalCount + a;
+                c3[cell] = departureExcess / (SECONDS_PER_DAY * SECONDS_PER_DAY);
+                arrivalVInfinity[cell] = Math.sqrt(arrivalExcess) / SECONDS_PER_DAY;
+            }
+        }
+    }
+
+    /**
+     * Evalúa una efeméride en todas las fechas de un eje.
+     * @return Por fecha, [x, y, z, vx, vy, vz]
+     */
+    private static double[] tabulate(BodyEphemeris ephemeris, double start, double end, int count) {
+        double[] states = new double[count * 6];
+        double[] position = new double[3];
+        double[] velocity = new double[3];
+        for (int i = 0; i < count; i++) {
+            ephemeris.stateAt(gridValue(start, end, count, i), position, velocity);
+            System.arraycopy(position, 0, states, i * 6, 3);
+            System.arraycopy(velocity, 0, states, i * 6 + 3, 3);
+        }
+        return states;
+    }
+
+    private static double gridValue(double start, double end, int count, int index) {
+        return count == 1 ? start : start + (end - start) * index / (count - 1);
+    }
+}
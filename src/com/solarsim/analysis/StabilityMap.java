@@ -0,0 +1,478 @@
+package com.solarsim.analysis;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import javax.imageio.ImageIO;
+
+import com.solarsim.physics.GravitationalForce;
+import com.solarsim.physics.Orbit;
+import com.solarsim.util.logging.Log;
+import com.solarsim.util.logging.Logger;
+
+/**
+ * Mapa de estabilidad sobre una rejilla de dos elementos orbitales (por ejemplo,
+ * semieje mayor × excentricidad).
+ *
+ * Cada celda siembra una partícula de prueba con la órbita plantilla y los dos
+ * elementos de la celda, la integra alrededor del cuerpo central bajo la atracción
+ * de los perturbadores y guarda su MEGNO ⟨Y⟩ y su tiempo de supervivencia. Las filas
+ * de la rejilla se reparten entre los hilos; las posiciones de los perturbadores
+ * se calculan una sola vez para todas las celdas.
+ *
+ * El progreso se guarda fila a fila en un fichero, de modo que un barrido
+ * interrumpido continúa donde lo dejó al volver a lanzarlo con el mismo fichero.
+ * Formato (little-endian), versión {@value #VERSION}:
+ * <pre>
+ *   0   int    magia 'SMAP'
+ *   4   int    versión
+ *   8   int    columnas (ancho)
+ *   12  int    filas (alto)
+ *   16  long   huella de la configuración
+ *   24  ...    reservado hasta {@value #HEADER_SIZE}
+ *   64  byte[alto] 1 si la fila está terminada (rellenado a múltiplo de 8 bytes)
+ *   ... para cada fila, ancho pares (MEGNO, días de supervivencia) en double
+ * </pre>
+ */
+public class StabilityMap {
+    private static final Logger LOG = Log.getLogger(StabilityMap.class);
+
+    static final int MAGIC = 0x50414D53; // "SMAP" en little-endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    private final double centralMu;
+    private final Orbit template;
+    private final OrbitElement xElement;
+    private final double xMin;
+    private final double xMax;
+    private final int width;
+    private final OrbitElement yElement;
+    private final double yMin;
+    private final double yMax;
+    private final int height;
+
+    private final List<Orbit> perturberOrbits = new ArrayList<>();
+    private double[] perturberMu = new double[0];
+    private double days = 100 * 365.25;
+    private double timeStep = 5;
+    private double collisionRadius;
+
+    private final double[] megno;
+    private final double[] survival;
+    private final boolean[] rowDone;
+
+    /**
+     * Crea un mapa.
+     * @param centralMass Masa del cuerpo central en kg
+     * @param template Órbita de las partículas salvo los dos elementos que se barren
+     * @param xElement Elemento del eje horizontal
+     * @param xMin Primer valor del eje horizontal
+     * @param xMax Último valor del eje horizontal
+     * @param width Número de columnas
+     * @param yElement Elemento del eje vertical
+     * @param yMin Primer valor del eje vertical
+     * @param yMax Último valor del eje vertical
+     * @param height Número de filas
+     */
+    public StabilityMap(double centralMass, Orbit template,
+            OrbitElement xElement, double xMin, double xMax, int width,
+            OrbitElement yElement, double yMin, double yMax, int height) {
+        if (width < 1 || height < 1 || xElement == yElement) {
+            throw new IllegalArgumentException("Rejilla no válida: " + width + "x" + height + " " + xElement + "/" + yElement);
+        }
+        this.centralMu = GravitationalForce.gravitationalParameter(centralMass);
+        this.template = copy(template);
+        this.xElement = xElement;
+        this.xMin = xMin;
+        this.xMax = xMax;
+        this.width = width;
+        this.yElement = yElement;
+        this.yMin = yMin;
+        this.yMax = yMax;
+        this.height = height;
+        this.megno = new double[width * height];
+        this.survival = new double[width * height];
+        this.rowDone = new boolean[height];
+        Arrays.fill(megno, Double.NaN);
+        Arrays.fill(survival, Double.NaN);
+    }
+
+    /**
+     * Añade un cuerpo perturbador, que recorre su órbita kepleriana alrededor del
+     * cuerpo central sin ser perturbado por nada.
+     * @param mass Masa en kg
+     * @param orbit Órbita alrededor del cuerpo central (elíptica)
+     */
+    public void addPerturber(double mass, Orbit orbit) {
+        if (!(orbit.getEccentricity() < 1) || !(orbit.getSemiMajorAxis() > 0)) {
+            throw new IllegalArgumentException("El perturbador necesita una órbita elíptica");
+        }
+        perturberOrbits.add(copy(orbit));
+        perturberMu = Arrays.copyOf(perturberMu, perturberMu.length + 1);
+        perturberMu[perturberMu.length - 1] = GravitationalForce.gravitationalParameter(mass);
+    }
+
+    /**
+     * Establece cuánto tiempo se integra cada partícula. Por defecto, 100 años en
+     * pasos de 5 días; el paso debe ser una fracción pequeña (1/20 o menos) del
+     * periodo orbital más corto de la rejilla.
+     * @param days Días de integración
+     * @param timeStep Paso de tiempo en días
+     */
+    public void setDuration(double days, double timeStep) {
+        if (!(days > 0) || !(timeStep > 0)) {
+            throw new IllegalArgumentException("Duración o paso no válidos: " + days + ", " + timeStep);
+        }
+        this.days = days;
+        this.timeStep = timeStep;
+    }
+
+    /**
+     * Establece el radio del cuerpo central: las partículas que bajan de él se
+     * consideran caídas.
+     * @param radius Radio en km
+     */
+    public void setCollisionRadius(double radius) {
+        this.collisionRadius = radius;
+    }
+
+    /**
+     * Calcula todas las celdas pendientes. Si el fichero de progreso existe y
+     * corresponde a la misma configuración, las filas ya terminadas se cargan de
+     * él en lugar de recalcularse.
+     * @param progressFile Fichero de progreso (se crea si no existe)
+     * @param threads Número de hilos
+     * @param rowListener Se llama desde los hilos de cálculo con el índice de cada
+     *                    fila terminada; puede ser null
+     * @throws IOException Si no se puede leer o escribir el fichero de progreso, o
+     *                     si pertenece a otra configuración
+     * @throws InterruptedException Si se interrumpe la espera; el progreso ya
+     *                              guardado se conserva
+     */
+    public void run(Path progressFile, int threads, IntConsumer rowListener) throws IOException, InterruptedException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Número de hilos no válido: " + threads);
+        }
+        int steps = (int) Math.ceil(days / timeStep - 1e-9);
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(progressFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int pending = openProgress(channel);
+            if (pending == 0) {
+                LOG.info("Mapa de estabilidad ya completo en {}", progressFile);
+                return;
+            }
+            LOG.info("Barriendo {} filas pendientes de {}", pending, height);
+            PerturberEphemeris ephemeris = new PerturberEphemeris(centralMu, perturberMu, perturberOrbits, timeStep, steps);
+
+            AtomicInteger counter = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+                Thread thread = new Thread(task, "solarsim-stability-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<?>> rows = new ArrayList<>();
+                for (int row = 0; row < height; row++) {
+                    if (rowDone[row]) continue;
+                    int y = row;
+                    rows.add(pool.submit(() -> {
+                        if (!computeRow(y, ephemeris)) return null;
+                        saveRow(channel, y);
+                        if (rowListener != null) {
+                            rowListener.accept(y);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> row : rows) {
+                    row.get();
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) throw (IOException) cause;
+                throw new IOException("Ha fallado el cálculo de una fila", cause);
+            } finally {
+                pool.shutdownNow();
+            }
+            channel.force(false);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        LOG.info("Mapa de estabilidad de {} celdas terminado en {} s", width * height, String.format("%.1f", seconds));
+    }
+
+    /**
+     * Obtiene el valor de un eje en una columna o fila.
+     * @param index Columna o fila
+     * @param vertical true para el eje vertical
+     * @return Valor del elemento orbital
+     */
+    public double axisValue(int index, boolean vertical) {
+        int cells = vertical ? height : width;
+        double min = vertical ? yMin : xMin;
+        double max = vertical ? yMax : xMax;
+        return cells == 1 ? min : min + (max - min) * index / (cells - 1);
+    }
+
+    /**
+     * Obtiene el MEGNO ⟨Y⟩ de una celda.
+     * @param x Columna
+     * @param y Fila
+     * @return ⟨Y⟩, o NaN si la celda no se ha calculado o no tiene una órbita válida
+     */
+    public double getMegno(int x, int y) {
+        return megno[y * width + x];
+    }
+
+    /**
+     * Obtiene el tiempo de supervivencia de una celda.
+     * @param x Columna
+     * @param y Fila
+     * @return Días integrados antes de escapar, chocar o acercarse a un perturbador;
+     *         la duración completa si sobrevivió, o NaN si no se ha calculado
+     */
+    public double getSurvivalTime(int x, int y) {
+        return survival[y * width + x];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Escribe el mapa como CSV, una línea por celda.
+     * @param file Fichero de destino
+     * @throws IOException Si no se puede escribir
+     */
+    public void writeCsv(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(xElement.getLabel() + "," + yElement.getLabel() + ",megno,survival_days,survived");
+            writer.newLine();
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    double lasted = getSurvivalTime(x, y);
+                    writer.write(String.format(Locale.ROOT, "%.9g,%.9g,%.6f,%.3f,%d", axisValue(x, false),
+                        axisValue(y, true), getMegno(x, y), lasted, lasted >= days - 1e-6 ? 1 : 0));
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Escribe el mapa como imagen de calor, con el eje vertical creciendo hacia
+     * arriba. Las celdas que sobreviven van de azul (⟨Y⟩ = 2, regular) a rojo
+     * ({@code maxMegno} o más, caótico); las que no sobreviven, en grises más
+     * claros cuanto más duraron, y las no calculadas en negro.
+     * @param file Fichero de destino; el formato se deduce de la extensión (png por defecto)
+     * @param maxMegno Valor de ⟨Y⟩ que satura la escala de color (por ejemplo 8)
+     * @throws IOException Si no se puede escribir
+     */
+    public void writeImage(Path file, double maxMegno) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, height - 1 - y, cellColor(getMegno(x, y), getSurvivalTime(x, y), maxMegno));
+            }
+        }
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String format = dot >= 0 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "png";
+        if (!ImageIO.write(image, format, file.toFile())) {
+            throw new IOException("Formato de imagen no soportado: " + format);
+        }
+    }
+
+    private int cellColor(double value, double lasted, double maxMegno) {
+        if (Double.isNaN(lasted)) return 0;
+        if (lasted < days - 1e-6) {
+            int grey = 40 + (int) (120 * lasted / days);
+            return grey << 16 | grey << 8 | grey;
+        }
+        double t = Math.max(0, Math.min(1, (value - 2) / (maxMegno - 2)));
+        // Azul → amarillo → rojo
+        int red = (int) (255 * Math.min(1, 2 * t));
+        int green = (int) (255 * (t < 0.5 ? 2 * t : 2 - 2 * t));
+        int blue = (int) (255 * Math.max(0, 1 - 2 * t));
+        return red << 16 | green << 8 | blue;
+    }
+
+    /**
+     * Calcula una fila.
+     * @return false si se ha interrumpido el hilo antes de terminarla
+     */
+    private boolean computeRow(int y, PerturberEphemeris ephemeris) {
+        MegnoIntegrator integrator = new MegnoIntegrator(ephemeris, centralMu, timeStep, collisionRadius);
+        // Los elementos se cambian en un array propio: una órbita nueva por celda no
+        // pasa por los setters, que contarían como cambios de órbita para la vista
+        double[] elements = {
+            template.getSemiMajorAxis(), template.getEccentricity(), template.getInclination(),
+            template.getLongitudeOfAscendingNode(), template.getArgumentOfPeriapsis(), template.getTrueAnomaly()
+        };
+        yElement.apply(elements, axisValue(y, true));
+        double[] position = new double[3];
+        double[] velocity = new double[3];
+        for (int x = 0; x < width; x++) {
+            if (Thread.currentThread().isInterrupted()) return false;
+            xElement.apply(elements, axisValue(x, false));
+            Orbit orbit = new Orbit(elements[0], elements[1], elements[2], elements[3], elements[4], elements[5]);
+            int cell = y * width + x;
+            if (!(orbit.getSemiMajorAxis() > 0) || !(orbit.getEccentricity() >= 0) || !(orbit.getEccentricity() < 1)) {
+                megno[cell] = Double.NaN;
+                survival[cell] = 0;
+                continue;
+            }
+            double trueAnomaly = Math.toRadians(orbit.getTrueAnomaly());
+            orbit.positionAtTrueAnomaly(trueAnomaly, position);
+            orbit.velocityAtTrueAnomaly(trueAnomaly, centralMu, velocity);
+            integrator.integrate(position, velocity);
+            megno[cell] = integrator.getMegno();
+            survival[cell] = integrator.getSurvivalTime();
+        }
+        rowDone[y] = true;
+        return true;
+    }
+
+    /**
+     * Prepara el fichero de progreso: lo inicializa si está vacío o carga las filas
+     * terminadas si es de esta misma configuración.
+     * @return Número de filas pendientes
+     */
+    private int openProgress(FileChannel channel) throws IOException {
+        long fingerprint = fingerprint();
+        long size = cellsOffset() + (long) width * height * 2 * Double.BYTES;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        if (channel.size() == 0) {
+            header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putLong(fingerprint);
+            header.clear();
+            writeFully(channel, header, 0);
+            writeFully(channel, ByteBuffer.allocate((int) (cellsOffset() - HEADER_SIZE)), HEADER_SIZE);
+            // Se reserva el fichero entero para que el tamaño no dependa de qué filas se han escrito
+            writeFully(channel, ByteBuffer.allocate(1), size - 1);
+            return height;
+        }
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != width
+                || header.getInt() != height || header.getLong() != fingerprint || channel.size() < HEADER_SIZE + height) {
+            throw new IOException("El fichero de progreso pertenece a otro mapa de estabilidad");
+        }
+        ByteBuffer flags = ByteBuffer.allocate(height);
+        readFully(channel, flags, HEADER_SIZE);
+        ByteBuffer cells = ByteBuffer.allocate(width * 2 * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long available = channel.size();
+        int pending = 0;
+        for (int y = 0; y < height; y++) {
+            // Un fichero sin reservar crece fila a fila: se comprueba que cada fila esté entera
+            if (flags.get(y) == 0 || available < rowOffset(y) + cells.capacity()) {
+                pending++;
+                continue;
+            }
+            cells.clear();
+            readFully(channel, cells, rowOffset(y));
+            cells.flip();
+            for (int x = 0; x < width; x++) {
+                megno[y * width + x] = cells.getDouble();
+                survival[y * width + x] = cells.getDouble();
+            }
+            rowDone[y] = true;
+        }
+        return pending;
+    }
+
+    /**
+     * Guarda una fila terminada. Los valores se escriben antes que la marca de la
+     * fila, así que una interrupción a medias solo obliga a repetir esa fila.
+     */
+    private void saveRow(FileChannel channel, int y) throws IOException {
+        ByteBuffer cells = ByteBuffer.allocate(width * 2 * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int x = 0; x < width; x++) {
+            cells.putDouble(megno[y * width + x]);
+            cells.putDouble(survival[y * width + x]);
+        }
+        cells.flip();
+        writeFully(channel, cells, rowOffset(y));
+        writeFully(channel, ByteBuffer.wrap(new byte[] { 1 }), HEADER_SIZE + y);
+    }
+
+    private long cellsOffset() {
+        return HEADER_SIZE + ((height + 7) & ~7);
+    }
+
+    private long rowOffset(int y) {
+        return cellsOffset() + (long) y * width * 2 * Double.BYTES;
+    }
+
+    /**
+     * Huella de todos los parámetros que influyen en el resultado, para no mezclar
+     * el progreso de barridos distintos.
+     */
+    private long fingerprint() {
+        long hash = 0xcbf29ce484222325L;
+        double[] values = {
+            centralMu, xElement.ordinal(), xMin, xMax, yElement.ordinal(), yMin, yMax, days, timeStep, collisionRadius,
+            template.getSemiMajorAxis(), template.getEccentricity(), template.getInclination(),
+            template.getLongitudeOfAscendingNode(), template.getArgumentOfPeriapsis(), template.getTrueAnomaly()
+        };
+        for (double value : values) {
+            hash = mix(hash, value);
+        }
+        for (int j = 0; j < perturberMu.length; j++) {
+            Orbit orbit = perturberOrbits.get(j);
+            hash = mix(hash, perturberMu[j]);
+            hash = mix(hash, orbit.getSemiMajorAxis());
+            hash = mix(hash, orbit.getEccentricity());
+            hash = mix(hash, orbit.getInclination());
+            hash = mix(hash, orbit.getLongitudeOfAscendingNode());
+            hash = mix(hash, orbit.getArgumentOfPeriapsis());
+            hash = mix(hash, orbit.getTrueAnomaly());
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, double value) {
+        return (hash ^ Double.doubleToLongBits(value)) * 0x100000001b3L;
+    }
+
+    private static Orbit copy(Orbit orbit) {
+        return new Orbit(orbit.getSemiMajorAxis(), orbit.getEccentricity(), orbit.getInclination(),
+            orbit.getLongitudeOfAscendingNode(), orbit.getArgumentOfPeriapsis(), orbit.getTrueAnomaly());
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) throw new IOException("Fichero de progreso truncado");
+            position += read;
+        }
+    }
+}
@@ -1,31 +1,58 @@
 package com.solarsim.controller;
 
 import com.solarsim.model.CelestialBody;
+import com.solarsim.model.CelestialBodyListener;
+import com.solarsim.model.KeyframeIndex;
 import com.solarsim.model.Moon;
 import com.solarsim.model.Planet;
+import com.solarsim.model.SimulationBranch;
 import com.solarsim.model.SolarSystem;
 import com.solarsim.model.Star;
+import com.solarsim.model.SystemState;
+import com.solarsim.util.catalog.CatalogBody;
+import com.solarsim.util.logging.Log;
+import com.solarsim.util.logging.Logger;
+import com.solarsim.util.trajectory.CompressedTrajectoryReader;
+import com.solarsim.util.trajectory.CompressedTrajectoryWriter;
+import com.solarsim.util.trajectory.TrajectoryEncoding;
+import com.solarsim.util.trajectory.TrajectoryPrecision;
+import com.solarsim.util.trajectory.TrajectoryReader;
+import com.solarsim.util.trajectory.TrajectoryRecorder;
+import com.solarsim.util.trajectory.TrajectorySource;
 import com.solarsim.view.JavaFX3DSimulationView;
+import com.solarsim.view.OrbitPathCache;
+import com.solarsim.view.OrbitPathLayer;
+import com.solarsim.view.SceneCuller;
+import com.solarsim.view.TrailLayer;
 import com.solarsim.view.components.CelestialBodyInfoPanel;
 
 import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javafx.application.Platform;
-import javafx.scene.Group;
 import javafx.scene.AmbientLight;
 import javafx.scene.Node;
 import javafx.scene.PointLight;
 import javafx.scene.paint.PhongMaterial;
 import javafx.scene.shape.Sphere;
-import javafx.scene.transform.Rotate;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.shape.Box;
-import javafx.scene.shape.Circle;
 import javafx.scene.shape.DrawMode;
+import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 
 /**
@@ -34,6 +61,8 @@ import javafx.stage.Stage;
  * Implementa el patrón MVC (Modelo-Vista-Controlador) con JavaFX 3D.
  */
 public class SimulationController {
+    private static final Logger LOG = Log.getLogger(SimulationController.class);
+    
     private JavaFX3DSimulationView simulationView;
     private Timer simulationTimer;
     private boolean isSimulationRunning;
@@ -43,13 +72,18 @@ public class SimulationController {
     
     // Objetos 3D
     private Sphere sun3D;
-    private Group orbitsGroup;
-    private Sphere[] planets3D;
-    private Sphere[] moons3D; // Array para las lunas
+    private OrbitPathLayer orbitsGroup;
+    private TrailLayer trailsGroup;
     
     /** Paso de tiempo en días de simulación */
     private static final double TIME_STEP = 1.0;
     
+    /** Días de simulación entre instantáneas de la línea de tiempo (con pocos cuerpos) */
+    private static final double KEYFRAME_SPACING = 10.0;
+    
+    /** Memoria máxima para las instantáneas de la línea de tiempo */
+    private static final long KEYFRAME_BUDGET = 256L << 20;
+    
     /** 
      * Factor de escala para hacer visibles las órbitas en pantalla.
      * Usamos un factor progresivo para que los planetas interiores no estén tan cerca
@@ -64,7 +98,7 @@ public class SimulationController {
     private static final double OUTER_PLANETS_FACTOR = 2.0; // Aumentado para mayor visibilidad
     
     /** Factor de zoom actual */
-    private double zoomFactor = 0.7; // Reducido para ver todo el sistema inicialmente
+    private volatile double zoomFactor = 0.7; // Reducido para ver todo el sistema inicialmente
     
     /** Límites de zoom para evitar valores extremos */
     private static final double MAX_ZOOM = 5.0;
@@ -73,12 +107,68 @@ public class SimulationController {
     /** Tamaño visual del sol - reducido para evitar que se sobreponga con Mercurio */
     private static final int BASE_SUN_SIZE = 20; // Reducido para una mejor escala visual
 
+    /** Tamaño visual de los cuerpos que no son planetas ni lunas */
+    private static final double MIN_BODY_SIZE = 1.5;
+
+    /** Fuentes de las etiquetas de planetas y lunas */
+    // En una clase aparte para que el controlador sin interfaz no inicialice el toolkit de JavaFX
+    private static final class LabelFonts {
+        static final javafx.scene.text.Font PLANET = javafx.scene.text.Font.font("Arial", 12);
+        static final javafx.scene.text.Font MOON = javafx.scene.text.Font.font("Arial", 8);
+    }
+
+    /** Número máximo de cuerpos seleccionados que dejan estela a la vez */
+    private static final int MAX_TRAILS = 8;
+
+    /** Esfera de un cuerpo construida fuera del hilo de JavaFX; sin fuente no lleva etiqueta */
+    private static final class BodyNode {
+        final CelestialBody body;
+        final Sphere sphere;
+        final javafx.scene.paint.Color labelColor;
+        final javafx.scene.text.Font labelFont;
+
+        BodyNode(CelestialBody body, Sphere sphere, javafx.scene.paint.Color labelColor, javafx.scene.text.Font labelFont) {
+            this.body = body;
+            this.sphere = sphere;
+            this.labelColor = labelColor;
+            this.labelFont = labelFont;
+        }
+    }
+
+    /** Hilo en el que se construye la escena, y número de la última construcción pedida */
+    private final ExecutorService sceneBuilder = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "solarsim-scene");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong sceneGeneration = new AtomicLong();
+
+    /** Trayectorias orbitales ya muestreadas; sobrevive a las reconstrucciones de la escena */
+    private final OrbitPathCache orbitPathCache = new OrbitPathCache();
+
     // Mapa para relacionar objetos 3D con sus correspondientes cuerpos celestes
     private Map<Sphere, CelestialBody> sphereToCelestialBodyMap = new HashMap<>();
     
     // Referencia al cuerpo celeste seleccionado actualmente
     private CelestialBody selectedCelestialBody;
 
+    // Grabación de trayectorias y reproducción desde fichero
+    private volatile TrajectoryRecorder recorder;
+    // Protege el modelo frente al temporizador cuando la interfaz salta en el tiempo
+    private final Object modelLock = new Object();
+    private volatile TrajectorySource replay;
+    private CelestialBody[] replayBodies;
+    private double[] replayPositions;
+    private long replayFrame;
+    private SystemState liveState;
+    // Estado inicial, para reiniciar copiando arrays en lugar de reconstruir la escena
+    private SystemState initialState;
+
+    // Línea de tiempo: instantáneas periódicas para saltar a cualquier instante simulado
+    private final KeyframeIndex keyframes = new KeyframeIndex(KEYFRAME_SPACING, KEYFRAME_BUDGET);
+    private volatile boolean timelineEnabled = true;
+    private double[] previewPositions = new double[0];
+
     /**
      * Constructor que inicializa el controlador con una vista.
      * @param stage El Stage principal de JavaFX (ventana principal)
@@ -91,8 +181,40 @@ public class SimulationController {
         // Inicializar el modelo de simulación
         initializeSimulation();
         
+        // Los cuerpos que se añaden o quitan después solo tocan sus propios nodos
+        solarSystem.addCelestialBodyListener(new CelestialBodyListener() {
+            @Override
+            public void bodyAdded(CelestialBody body) {
+                bodiesAdded(List.of(body));
+            }
+
+            @Override
+            public void bodiesAdded(List<CelestialBody> bodies) {
+                if (isRecording()) {
+                    // La grabación guarda los cuerpos por posición en la lista
+                    LOG.warn("Se han añadido {} cuerpos durante una grabación; se termina la grabación", bodies.size());
+                    stopRecording();
+                }
+                restartTimeline();
+                Platform.runLater(() -> attachBodies(bodies));
+            }
+
+            @Override
+            public void bodyRemoved(CelestialBody body) {
+                if (isRecording()) {
+                    LOG.warn("Se ha quitado {} durante una grabación; se termina la grabación", body.getName());
+                    stopRecording();
+                }
+                restartTimeline();
+                Platform.runLater(() -> {
+                    detachBody(body);
+                    simulationView.requestFrameUpdate();
+                });
+            }
+        });
+        
         // Configurar la escena 3D con los planetas
-        Platform.runLater(this::setup3DScene);
+        setup3DScene();
     }
     
     /**
@@ -106,128 +228,253 @@ public class SimulationController {
     }
     
     /**
-     * Configura la escena 3D con todos los elementos.
+     * Configura la escena 3D con todos los elementos. Las esferas, materiales y
+     * mallas se crean en un hilo de trabajo, sin estar conectados a la escena, y se
+     * añaden de una vez en el hilo de JavaFX; mientras tanto la ventana responde y
+     * muestra el progreso.
      */
     private void setup3DScene() {
         if (simulationView == null) return;
+        long generation = sceneGeneration.incrementAndGet();
+        sceneBuilder.execute(() -> buildScene(generation));
+    }
+    
+    /**
+     * Crea todos los nodos de la escena fuera del hilo de JavaFX. Si la
+     * construcción falla, se registra el error y se retira el aviso de progreso,
+     * salvo que ya haya empezado otra construcción que lo necesite.
+     * @param generation Construcción a la que pertenecen; si empieza otra, esta se abandona
+     */
+    private void buildScene(long generation) {
+        try {
+            buildSceneNodes(generation);
+        } catch (RuntimeException e) {
+            LOG.error("No se pudo construir la escena", e);
+            Platform.runLater(() -> {
+                if (sceneGeneration.get() == generation) {
+                    simulationView.hideProgress();
+                }
+            });
+        }
+    }
+    
+    private void buildSceneNodes(long generation) {
+        long start = System.nanoTime();
+        double builtZoom = zoomFactor;
+        Platform.runLater(() -> simulationView.showProgress("Construyendo la escena...", 0));
         
-        Group planetGroup = simulationView.getPlanetGroup();
+        List<CelestialBody> bodies = solarSystem.getCelestialBodies();
+        List<Node> children = new ArrayList<>(bodies.size() + 5);
         
-        // Limpiar grupo por si acaso
-        planetGroup.getChildren().clear();
+        // Añadir iluminación ambiental
+        children.add(new AmbientLight(javafx.scene.paint.Color.rgb(30, 30, 30)));
+        
+        // Crear el Sol en el centro (como primer cuerpo celeste del sistema solar)
+        Sphere sun = createSun3D(BASE_SUN_SIZE);
+        CelestialBody sunBody = !bodies.isEmpty() && bodies.get(0) instanceof Star ? bodies.get(0) : null;
+        BodyNode sunNode = null;
+        if (sunBody != null) {
+            sunNode = new BodyNode(sunBody, sun, null, null);
+            configureCelestialBodySelection(sun);
+        }
+        children.add(sun);
         
-        // Limpiar mapa de correspondencia
+        // Añadir luz puntual en el sol
+        PointLight sunLight = new PointLight(javafx.scene.paint.Color.WHITE);
+        sunLight.getScope().add(simulationView.getPlanetGroup());
+        children.add(sunLight);
+        
+        // Crear las mallas de órbitas a partir de los elementos keplerianos de cada cuerpo
+        OrbitPathLayer orbits = new OrbitPathLayer(orbitPathCache);
+        orbits.build(bodies);
+        orbits.setZoom(builtZoom);
+        children.add(orbits);
+        
+        // Estelas de los cuerpos seleccionados
+        TrailLayer trails = new TrailLayer(MAX_TRAILS);
+        trails.setZoom(builtZoom);
+        children.add(trails);
+        
+        // Planetas, lunas y el resto de cuerpos
+        List<BodyNode> nodes = new ArrayList<>(bodies.size());
+        int reportEvery = Math.max(1, bodies.size() / 100);
+        for (int i = 0; i < bodies.size(); i++) {
+            CelestialBody body = bodies.get(i);
+            if (body == sunBody) continue;
+            BodyNode node = createBodyNode(body);
+            nodes.add(node);
+            children.add(node.sphere);
+            if (i % reportEvery == 0) {
+                if (sceneGeneration.get() != generation) return;
+                double progress = (double) i / bodies.size();
+                Platform.runLater(() -> simulationView.showProgress(
+                    String.format("Construyendo la escena... %d%%", Math.round(progress * 100)), progress));
+            }
+        }
+        
+        BodyNode builtSun = sunNode;
+        Platform.runLater(() -> attachScene(generation, builtZoom, children, sun, builtSun, orbits, trails, nodes));
+        LOG.debug("Escena de {} cuerpos construida en {} ms", bodies.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    /**
+     * Sustituye el contenido de la escena por los nodos construidos en segundo
+     * plano, en una sola operación. Debe llamarse en el hilo de JavaFX.
+     */
+    private void attachScene(long generation, double builtZoom, List<Node> children, Sphere sun, BodyNode sunNode,
+            OrbitPathLayer orbits, TrailLayer trails, List<BodyNode> nodes) {
+        if (sceneGeneration.get() != generation) return;
+        
+        // Limpiar la escena anterior
         sphereToCelestialBodyMap.clear();
+        simulationView.getLabelLayer().clearLabels();
+        SceneCuller culler = simulationView.getSceneCuller();
+        culler.clear();
+        culler.setZoom(zoomFactor);
         
         // Conectar el panel de información con el controlador
         if (simulationView.getInfoPanel() != null) {
             simulationView.getInfoPanel().setController(this);
         }
         
-        // Añadir iluminación ambiental
-        AmbientLight ambientLight = new AmbientLight(javafx.scene.paint.Color.rgb(30, 30, 30));
-        planetGroup.getChildren().add(ambientLight);
-        
-        // Crear el Sol en el centro
-        sun3D = createSun3D(BASE_SUN_SIZE);
-        
-        // Añadir el Sol al mapa (como primer cuerpo celeste del sistema solar)
-        if (!solarSystem.getCelestialBodies().isEmpty() && 
-            solarSystem.getCelestialBodies().get(0) instanceof Star) {
-            sphereToCelestialBodyMap.put(sun3D, solarSystem.getCelestialBodies().get(0));
-            
-            // Configurar evento de click para el Sol
-            configureCelestialBodySelection(sun3D);
+        sun3D = sun;
+        orbitsGroup = orbits;
+        trailsGroup = trails;
+        if (sunNode != null) {
+            registerBodyNode(sunNode, true);
+        }
+        for (BodyNode node : nodes) {
+            registerBodyNode(node, false);
+        }
+        simulationView.getPlanetGroup().getChildren().setAll(children);
+        
+        // Cuerpos añadidos o quitados mientras se construía la escena
+        List<CelestialBody> live = solarSystem.getCelestialBodies();
+        Set<CelestialBody> current = Collections.newSetFromMap(new IdentityHashMap<>());
+        current.addAll(live);
+        attachBodies(live);
+        for (BodyNode node : nodes) {
+            if (!current.contains(node.body)) {
+                detachBody(node.body);
+            }
         }
         
-        planetGroup.getChildren().add(sun3D);
+        // El zoom ha podido cambiar durante la construcción
+        if (builtZoom != zoomFactor) {
+            orbitsGroup.setZoom(zoomFactor);
+            trailsGroup.setZoom(zoomFactor);
+            sun3D.setRadius(BASE_SUN_SIZE * zoomFactor);
+            updatePlanetSizesForZoom();
+        }
         
-        // Añadir luz puntual en el sol
-        PointLight sunLight = new PointLight(javafx.scene.paint.Color.WHITE);
-        sunLight.getScope().add(planetGroup);
-        planetGroup.getChildren().add(sunLight);
+        simulationView.hideProgress();
+        simulationView.requestFrameUpdate();
+    }
+    
+    /**
+     * Crea las esferas, etiquetas y órbitas de los cuerpos que aún no tienen nodo y
+     * las añade a la escena de una vez, sin tocar los nodos de los demás cuerpos.
+     * Debe llamarse en el hilo de JavaFX.
+     * @param bodies Cuerpos del modelo; los que ya tienen esfera se ignoran
+     */
+    private void attachBodies(List<CelestialBody> bodies) {
+        if (orbitsGroup == null) return; // la escena aún se está construyendo
+        SceneCuller culler = simulationView.getSceneCuller();
+        List<CelestialBody> attached = new ArrayList<>();
+        List<Node> spheres = new ArrayList<>();
+        for (CelestialBody body : bodies) {
+            if (culler.getNode(body) != null) continue;
+            BodyNode node = createBodyNode(body);
+            registerBodyNode(node, false);
+            attached.add(body);
+            spheres.add(node.sphere);
+        }
+        if (attached.isEmpty()) return;
+        simulationView.getPlanetGroup().getChildren().addAll(spheres);
+        orbitsGroup.add(attached);
+        simulationView.requestFrameUpdate();
+    }
+    
+    /**
+     * Crea la esfera de un cuerpo sin añadirla a la escena; se puede llamar desde
+     * cualquier hilo.
+     * @param body Cuerpo del modelo
+     * @return La esfera con el estilo de su etiqueta
+     */
+    private BodyNode createBodyNode(CelestialBody body) {
+        Sphere esfera;
+        javafx.scene.paint.Color labelColor = javafx.scene.paint.Color.LIGHTGRAY;
+        javafx.scene.text.Font labelFont = LabelFonts.MOON;
+        if (body instanceof Planet) {
+            esfera = createPlanet3D((Planet) body);
+            labelColor = javafx.scene.paint.Color.WHITE;
+            labelFont = LabelFonts.PLANET;
+        } else if (body instanceof Moon) {
+            esfera = createMoon3D((Moon) body);
+        } else {
+            esfera = createBody3D(body);
+        }
+        configureCelestialBodySelection(esfera);
+        return new BodyNode(body, esfera, labelColor, labelFont);
+    }
+    
+    /**
+     * Registra la esfera de un cuerpo para el descarte, la selección y las
+     * etiquetas. Debe llamarse en el hilo de JavaFX.
+     * @param node Esfera creada con {@link #createBodyNode}
+     * @param occluder true si el cuerpo debe tenerse siempre en cuenta como oclusor
+     */
+    private void registerBodyNode(BodyNode node, boolean occluder) {
+        simulationView.getSceneCuller().add(node.body, node.sphere, occluder);
         
-        // Crear grupo para órbitas
-        orbitsGroup = new Group();
-        planetGroup.getChildren().add(orbitsGroup);
+        // Agregar al mapa para selección
+        sphereToCelestialBodyMap.put(node.sphere, node.body);
         
-        // Contar planetas para crear el array
-        int planetCount = 0;
-        int moonCount = 0;
-        for (int i = 0; i < solarSystem.getCelestialBodies().size(); i++) {
-            if (solarSystem.getCelestialBodies().get(i) instanceof Planet) {
-                planetCount++;
-            } else if (solarSystem.getCelestialBodies().get(i) instanceof Moon) {
-                moonCount++;
-            }
+        if (node.labelFont != null) {
+            simulationView.getLabelLayer().addLabel(node.sphere, node.body.getName(), labelPriority(node.body),
+                node.labelColor, node.labelFont);
         }
-        planets3D = new Sphere[planetCount];
-        moons3D = new Sphere[moonCount];
-        
-        // Añadir todos los planetas y sus órbitas
-        int planetIndex = 0;
-        for (int i = 0; i < solarSystem.getCelestialBodies().size(); i++) {
-            if (solarSystem.getCelestialBodies().get(i) instanceof Planet) {
-                Planet planeta = (Planet) solarSystem.getCelestialBodies().get(i);
-                
-                // Añadir órbita
-                Group orbit = createOrbit3D(planeta);
-                orbitsGroup.getChildren().add(orbit);
-                
-                // Añadir planeta como esfera 3D
-                Sphere planeta3D = createPlanet3D(planeta);
-                planets3D[planetIndex++] = planeta3D;
-                
-                // Agregar al mapa para selección
-                sphereToCelestialBodyMap.put(planeta3D, planeta);
-                
-                // Configurar evento de click
-                configureCelestialBodySelection(planeta3D);
-                
-                planetGroup.getChildren().add(planeta3D);
-                
-                // Añadir etiqueta con el nombre
-                javafx.scene.text.Text nombrePlaneta = new javafx.scene.text.Text(planeta.getName());
-                nombrePlaneta.setFill(javafx.scene.paint.Color.WHITE);
-                nombrePlaneta.setTranslateX(planeta3D.getTranslateX() + planeta.getSize() * 2);
-                nombrePlaneta.setTranslateZ(planeta3D.getTranslateZ());
-                planetGroup.getChildren().add(nombrePlaneta);
-            }
+    }
+    
+    /**
+     * Quita de la escena la esfera, la etiqueta, la órbita y la estela de un cuerpo.
+     * @param body Cuerpo quitado del modelo
+     */
+    private void detachBody(CelestialBody body) {
+        Sphere esfera = simulationView.getSceneCuller().remove(body);
+        if (esfera == null) return;
+        sphereToCelestialBodyMap.remove(esfera);
+        simulationView.getPlanetGroup().getChildren().remove(esfera);
+        simulationView.getLabelLayer().removeLabel(esfera);
+        if (orbitsGroup != null) {
+            orbitsGroup.remove(body);
         }
-        
-        // Añadir todas las lunas
-        int moonIndex = 0;
-        for (int i = 0; i < solarSystem.getCelestialBodies().size(); i++) {
-            if (solarSystem.getCelestialBodies().get(i) instanceof Moon) {
-                Moon luna = (Moon) solarSystem.getCelestialBodies().get(i);
-                
-                // Añadir órbita de la luna
-                Group moonOrbit = createMoonOrbit3D(luna);
-                orbitsGroup.getChildren().add(moonOrbit);
-                
-                // Añadir luna como esfera 3D
-                Sphere luna3D = createMoon3D(luna);
-                moons3D[moonIndex++] = luna3D;
-                
-                // Agregar al mapa para selección
-                sphereToCelestialBodyMap.put(luna3D, luna);
-                
-                // Configurar evento de click
-                configureCelestialBodySelection(luna3D);
-                
-                planetGroup.getChildren().add(luna3D);
-                
-                // Añadir etiqueta con el nombre
-                javafx.scene.text.Text nombreLuna = new javafx.scene.text.Text(luna.getName());
-                nombreLuna.setFill(javafx.scene.paint.Color.LIGHTGRAY);
-                nombreLuna.setTranslateX(luna3D.getTranslateX() + luna.getSize() * 2);
-                nombreLuna.setTranslateZ(luna3D.getTranslateZ());
-                nombreLuna.setFont(javafx.scene.text.Font.font("Arial", 8)); // Fuente más pequeña para las lunas
-                planetGroup.getChildren().add(nombreLuna);
-            }
+        if (trailsGroup != null) {
+            trailsGroup.removeTrail(body);
+        }
+        if (body == selectedCelestialBody) {
+            selectedCelestialBody = null;
         }
     }
     
+    /**
+     * Calcula la importancia de la etiqueta de un cuerpo: cuando dos etiquetas se
+     * solapan se muestra la de mayor prioridad. Estrellas antes que planetas, planetas
+     * antes que lunas y, dentro de cada tipo, los cuerpos de mayor tamaño visual.
+     * @param body Cuerpo celeste etiquetado
+     * @return Prioridad de la etiqueta
+     */
+    private int labelPriority(CelestialBody body) {
+        if (body instanceof Star) {
+            return 30000;
+        } else if (body instanceof Planet) {
+            return 20000 + (int) Math.min(9999, ((Planet) body).getSize() * 100);
+        } else if (body instanceof Moon) {
+            return 10000 + (int) Math.min(9999, ((Moon) body).getSize() * 100);
+        }
+        return 0;
+    }
+    
     /**
      * Crea una representación 3D de un planeta.
      * @param planeta El planeta a representar
@@ -255,7 +502,8 @@ public class SimulationController {
         esfera.setMaterial(material);
         
         // Posicionar el planeta en el espacio 3D usando la posición del modelo
-        double[] position = planeta.getPosition();
+        double[] position = new double[3];
+        planeta.copyPosition(position);
         esfera.setTranslateX(position[0] * zoomFactor);
         esfera.setTranslateY(0); // Mantener en el plano horizontal por ahora
         esfera.setTranslateZ(position[2] * zoomFactor);
@@ -263,30 +511,6 @@ public class SimulationController {
         return esfera;
     }
     
-    /**
-     * Crea una representación 3D de la órbita del planeta.
-     * @param planeta Planeta cuya órbita se va a renderizar
-     * @return Grupo con la órbita renderizada como un círculo en el espacio 3D
-     */
-    private Group createOrbit3D(Planet planeta) {
-        Group orbitGroup = new Group();
-        
-        javafx.scene.shape.Circle orbita = new Circle(
-            0, 0, 
-            planeta.getOrbitalRadius() * zoomFactor
-        );
-        
-        orbita.setFill(javafx.scene.paint.Color.TRANSPARENT);
-        orbita.setStroke(javafx.scene.paint.Color.rgb(70, 70, 70));
-        orbita.setStrokeWidth(1);
-        
-        // Rotar el círculo 90 grados para que quede en el plano XZ
-        orbita.getTransforms().add(new Rotate(90, Rotate.X_AXIS));
-        
-        orbitGroup.getChildren().add(orbita);
-        return orbitGroup;
-    }
-    
     /**
      * Crea una representación 3D de una luna o satélite.
      * @param luna La luna a representar
@@ -316,7 +540,8 @@ public class SimulationController {
         esfera.setMaterial(material);
         
         // Posicionar la luna en el espacio 3D usando la posición del modelo
-        double[] position = luna.getPosition();
+        double[] position = new double[3];
+        luna.copyPosition(position);
         esfera.setTranslateX(position[0] * zoomFactor);
         esfera.setTranslateY(0); // Mantener en el plano horizontal por ahora
         esfera.setTranslateZ(position[2] * zoomFactor);
@@ -325,37 +550,38 @@ public class SimulationController {
     }
     
     /**
-     * Crea una representación 3D de la órbita de una luna.
-     * @param luna Luna cuya órbita se va a renderizar
-     * @return Grupo con la órbita renderizada como un círculo en el espacio 3D
+     * Crea una representación 3D de un cuerpo que no es planeta ni luna (cometas,
+     * naves, cuerpos de catálogo).
+     * @param body El cuerpo a representar
+     * @return Una esfera pequeña con el color del cuerpo
      */
-    private Group createMoonOrbit3D(Moon luna) {
-        Group orbitGroup = new Group();
-        
-        // Obtener la posición del planeta padre
-        Planet parentPlanet = luna.getParentPlanet();
-        double[] planetPosition = parentPlanet.getPosition();
-        
-        // Crear un círculo centrado en la posición del planeta
-        Circle orbita = new Circle(
-            0, 0, 
-            luna.getOrbitalRadius() * zoomFactor
-        );
-        
-        orbita.setFill(javafx.scene.paint.Color.TRANSPARENT);
-        // Color más visible para las órbitas de las lunas
-        orbita.setStroke(javafx.scene.paint.Color.rgb(120, 120, 160, 0.7));
-        orbita.setStrokeWidth(0.8); // Grosor ligeramente aumentado
-        
-        // Rotar el círculo 90 grados para que quede en el plano XZ
-        orbita.getTransforms().add(new Rotate(90, Rotate.X_AXIS));
-        
-        // Trasladar el círculo a la posición del planeta padre
-        orbitGroup.setTranslateX(planetPosition[0] * zoomFactor);
-        orbitGroup.setTranslateZ(planetPosition[2] * zoomFactor);
+    private Sphere createBody3D(CelestialBody body) {
+        Sphere esfera = new Sphere(MIN_BODY_SIZE);
+        PhongMaterial material = new PhongMaterial();
+        material.setDiffuseColor(bodyColor(body));
+        material.setSpecularColor(javafx.scene.paint.Color.WHITE);
+        esfera.setMaterial(material);
         
-        orbitGroup.getChildren().add(orbita);
-        return orbitGroup;
+        double[] position = new double[3];
+        body.copyPosition(position);
+        esfera.setTranslateX(position[0] * zoomFactor);
+        esfera.setTranslateY(position[1] * zoomFactor);
+        esfera.setTranslateZ(position[2] * zoomFactor);
+        return esfera;
+    }
+    
+    /**
+     * Obtiene el color con el que se dibuja un cuerpo que no es planeta ni luna.
+     * @param body Cuerpo del modelo
+     * @return El color del catálogo, o gris claro si el cuerpo no tiene color
+     */
+    private static javafx.scene.paint.Color bodyColor(CelestialBody body) {
+        if (body instanceof CatalogBody) {
+            int argb = ((CatalogBody) body).getColor();
+            return javafx.scene.paint.Color.rgb((argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF,
+                ((argb >>> 24) & 0xFF) / 255.0);
+        }
+        return javafx.scene.paint.Color.LIGHTGRAY;
     }
     
     /**
@@ -399,7 +625,7 @@ public class SimulationController {
     private void configureCelestialBodySelection(Sphere sphere) {
         // Agregar efecto al pasar el mouse por encima
         sphere.setOnMouseEntered(event -> {
-            System.out.println("Mouse entró en: " + sphereToCelestialBodyMap.get(sphere).getName());
+            LOG.debug("Mouse entró en: {}", sphereToCelestialBodyMap.get(sphere).getName());
             // Guardar el material original para restaurarlo después
             PhongMaterial originalMaterial = (PhongMaterial) sphere.getMaterial();
             
@@ -415,8 +641,8 @@ public class SimulationController {
         
         // Restaurar la apariencia original al quitar el mouse
         sphere.setOnMouseExited(event -> {
-            System.out.println("Mouse salió de: " + sphereToCelestialBodyMap.get(sphere).getName());
             CelestialBody body = sphereToCelestialBodyMap.get(sphere);
+            LOG.debug("Mouse salió de: {}", body.getName());
             
             // Si este cuerpo es el seleccionado, mantenerlo resaltado
             if (body != selectedCelestialBody) {
@@ -427,8 +653,8 @@ public class SimulationController {
         
         // Manejar el evento de click
         sphere.setOnMouseClicked(event -> {
-            System.out.println("Click en: " + sphereToCelestialBodyMap.get(sphere).getName());
             CelestialBody selectedBody = sphereToCelestialBodyMap.get(sphere);
+            LOG.debug("Click en: {}", selectedBody.getName());
             selectCelestialBody(selectedBody, sphere);
             event.consume(); // Evitar que el click se propague a otros elementos
         });
@@ -482,6 +708,11 @@ public class SimulationController {
             material.setSpecularColor(javafx.scene.paint.Color.rgb(255, 255, 255, 0.9));
             material.setSpecularPower(2.0);
             sphere.setMaterial(material);
+        } else {
+            PhongMaterial material = new PhongMaterial();
+            material.setDiffuseColor(bodyColor(body));
+            material.setSpecularColor(javafx.scene.paint.Color.WHITE);
+            sphere.setMaterial(material);
         }
     }
     
@@ -535,9 +766,14 @@ public class SimulationController {
         selectionMaterial.setSpecularPower(40.0);
         sphere.setMaterial(selectionMaterial);
         
+        // Dejar una estela detrás de los planetas y lunas seleccionados
+        if (trailsGroup != null && !(body instanceof Star)) {
+            trailsGroup.addTrail(body, trailColor(body));
+        }
+        
         // Actualizar panel de información
         if (simulationView != null && simulationView.getInfoPanel() != null) {
-            System.out.println("Actualizando panel de información para: " + body.getName());
+            LOG.debug("Actualizando panel de información para: {}", body.getName());
             Platform.runLater(() -> {
                 CelestialBodyInfoPanel infoPanel = simulationView.getInfoPanel();
                 infoPanel.updateInfo(selectedCelestialBody);
@@ -557,10 +793,25 @@ public class SimulationController {
                 }
             });
         } else {
-            System.out.println("ERROR: No se puede actualizar el panel de información (null)");
+            LOG.error("No se puede actualizar el panel de información (null)");
         }
     }
     
+    /**
+     * Obtiene el color de la estela de un cuerpo a partir de su color de visualización.
+     * @param body Planeta o luna seleccionado
+     * @return Color JavaFX para la estela
+     */
+    private javafx.scene.paint.Color trailColor(CelestialBody body) {
+        java.awt.Color awtColor = java.awt.Color.WHITE;
+        if (body instanceof Planet) {
+            awtColor = ((Planet) body).getColor();
+        } else if (body instanceof Moon) {
+            awtColor = ((Moon) body).getColor();
+        }
+        return javafx.scene.paint.Color.rgb(awtColor.getRed(), awtColor.getGreen(), awtColor.getBlue());
+    }
+    
     /**
      * Obtiene el factor de zoom actual.
      * @return El factor de zoom actual
@@ -604,8 +855,13 @@ public class SimulationController {
             double distanciaZ = -1500 / zoomFactor;
             simulationView.getCamera().setTranslateZ(distanciaZ);
             
-            // Actualizar órbitas para mantener la consistencia visual
-            updateOrbitsForZoom();
+            // Escalar las órbitas; las mallas no se regeneran
+            if (orbitsGroup != null) {
+                orbitsGroup.setZoom(zoomFactor);
+            }
+            if (trailsGroup != null) {
+                trailsGroup.setZoom(zoomFactor);
+            }
             
             // Actualizar el sol
             if (sun3D != null) {
@@ -615,141 +871,30 @@ public class SimulationController {
             // Actualizar cada planeta (solo tamaño visual, no posición)
             updatePlanetSizesForZoom();
             
-            // También actualizar las posiciones de los planetas según su posición actual en el modelo
-            // Esto corrige el problema cuando se hace zoom mientras la simulación está pausada
-            updatePlanetPositionsForZoom();
+            // Las posiciones se recolocan en el próximo fotograma, solo para los
+            // cuerpos visibles; así el zoom también funciona con la simulación pausada
+            simulationView.getSceneCuller().setZoom(zoomFactor);
+            simulationView.requestFrameUpdate();
         });
     }
     
-    /**
-     * Actualiza las órbitas de los planetas cuando cambia el zoom
-     */
-    private void updateOrbitsForZoom() {
-        if (orbitsGroup == null) return;
-        
-        orbitsGroup.getChildren().clear();
-        
-        // Recrear todas las órbitas con el zoom actualizado
-        for (int i = 0; i < solarSystem.getCelestialBodies().size(); i++) {
-            if (solarSystem.getCelestialBodies().get(i) instanceof Planet) {
-                Planet planeta = (Planet) solarSystem.getCelestialBodies().get(i);
-                Group orbit = createOrbit3D(planeta);
-                orbitsGroup.getChildren().add(orbit);
-            } else if (solarSystem.getCelestialBodies().get(i) instanceof Moon) {
-                Moon luna = (Moon) solarSystem.getCelestialBodies().get(i);
-                Group moonOrbit = createMoonOrbit3D(luna);
-                orbitsGroup.getChildren().add(moonOrbit);
-            }
-        }
-    }
-    
     /**
      * Actualiza solo los tamaños de los planetas, no sus posiciones
      */
     private void updatePlanetSizesForZoom() {
-        if (planets3D == null) return;
-        
-        int planetIndex = 0;
-        for (int i = 0; i < solarSystem.getCelestialBodies().size(); i++) {
-            if (solarSystem.getCelestialBodies().get(i) instanceof Planet) {
-                Planet planeta = (Planet) solarSystem.getCelestialBodies().get(i);
-                
-                if (planetIndex < planets3D.length) {
-                    Sphere planeta3D = planets3D[planetIndex];
-                    // Solo actualizar el radio visual
-                    double tamaño = planeta.getSize() * zoomFactor;
-                    if (tamaño < 2) tamaño = 2; // Tamaño mínimo para visibilidad
-                    planeta3D.setRadius(tamaño);
-                }
-                planetIndex++;
-            }
-        }
-        
-        if (moons3D == null) return;
-        
-        int moonIndex = 0;
-        for (int i = 0; i < solarSystem.getCelestialBodies().size(); i++) {
-            if (solarSystem.getCelestialBodies().get(i) instanceof Moon) {
-                Moon luna = (Moon) solarSystem.getCelestialBodies().get(i);
-                
-                if (moonIndex < moons3D.length) {
-                    Sphere luna3D = moons3D[moonIndex];
-                    // Solo actualizar el radio visual
-                    double tamaño = luna.getSize() * zoomFactor;
-                    if (tamaño < 1.5) tamaño = 1.5; // Tamaño mínimo para visibilidad
-                    luna3D.setRadius(tamaño);
-                }
-                moonIndex++;
-            }
-        }
-    }
-
-    /**
-     * Actualiza las posiciones de los planetas cuando cambia el zoom sin avanzar la simulación
-     * Esto es especialmente importante cuando la simulación está pausada
-     */
-    private void updatePlanetPositionsForZoom() {
-        if (planets3D == null) return;
-        
-        int planetIndex = 0;
-        for (int i = 0; i < solarSystem.getCelestialBodies().size(); i++) {
-            if (solarSystem.getCelestialBodies().get(i) instanceof Planet) {
-                Planet planeta = (Planet) solarSystem.getCelestialBodies().get(i);
-                
-                if (planetIndex < planets3D.length) {
-                    Sphere planeta3D = planets3D[planetIndex];
-                    
-                    // Obtener la posición actual del modelo
-                    double[] position = planeta.getPosition();
-                    
-                    // Aplicar el zoom a la posición actual
-                    planeta3D.setTranslateX(position[0] * zoomFactor);
-                    planeta3D.setTranslateZ(position[2] * zoomFactor);
-                    
-                    // Actualizar también la etiqueta
-                    Group planetGroup = simulationView.getPlanetGroup();
-                    int textIndex = planetGroup.getChildren().indexOf(planeta3D) + 1;
-                    if (textIndex < planetGroup.getChildren().size() && 
-                        planetGroup.getChildren().get(textIndex) instanceof javafx.scene.text.Text) {
-                        javafx.scene.text.Text text = 
-                            (javafx.scene.text.Text) planetGroup.getChildren().get(textIndex);
-                        text.setTranslateX(position[0] * zoomFactor + planeta.getSize() * 2);
-                        text.setTranslateZ(position[2] * zoomFactor);
-                    }
-                }
-                planetIndex++;
-            }
-        }
-        
-        if (moons3D == null) return;
-        
-        int moonIndex = 0;
-        for (int i = 0; i < solarSystem.getCelestialBodies().size(); i++) {
-            if (solarSystem.getCelestialBodies().get(i) instanceof Moon) {
-                Moon luna = (Moon) solarSystem.getCelestialBodies().get(i);
-                
-                if (moonIndex < moons3D.length) {
-                    Sphere luna3D = moons3D[moonIndex];
-                    
-                    // Obtener la posición actual del modelo
-                    double[] position = luna.getPosition();
-                    
-                    // Aplicar el zoom a la posición actual
-                    luna3D.setTranslateX(position[0] * zoomFactor);
-                    luna3D.setTranslateZ(position[2] * zoomFactor);
-                    
-                    // También actualizamos la etiqueta del nombre si existe
-                    Group planetGroup = simulationView.getPlanetGroup();
-                    int textIndex = planetGroup.getChildren().indexOf(luna3D) + 1;
-                    if (textIndex < planetGroup.getChildren().size() && 
-                        planetGroup.getChildren().get(textIndex) instanceof javafx.scene.text.Text) {
-                        javafx.scene.text.Text text = 
-                            (javafx.scene.text.Text) planetGroup.getChildren().get(textIndex);
-                        text.setTranslateX(position[0] * zoomFactor + luna.getSize() * 2);
-                        text.setTranslateZ(position[2] * zoomFactor);
-                    }
-                }
-                moonIndex++;
+        SceneCuller culler = simulationView.getSceneCuller();
+        for (CelestialBody body : solarSystem.getCelestialBodies()) {
+            Sphere esfera = culler.getNode(body);
+            if (esfera == null) continue;
+            if (body instanceof Planet) {
+                // Solo actualizar el radio visual
+                double tamaño = ((Planet) body).getSize() * zoomFactor;
+                if (tamaño < 2) tamaño = 2; // Tamaño mínimo para visibilidad
+                esfera.setRadius(tamaño);
+            } else if (body instanceof Moon) {
+                double tamaño = ((Moon) body).getSize() * zoomFactor;
+                if (tamaño < 1.5) tamaño = 1.5; // Tamaño mínimo para visibilidad
+                esfera.setRadius(tamaño);
             }
         }
     }
@@ -854,6 +999,11 @@ public class SimulationController {
         solarSystem.addCelestialBody(saturno);
         solarSystem.addCelestialBody(urano);
         solarSystem.addCelestialBody(neptuno);
+        initialState = solarSystem.captureState(null);
+        
+        // Instantánea inicial de la línea de tiempo
+        keyframes.clear();
+        keyframes.observe(solarSystem);
         
         // Configurar temporizador de simulación
         simulationTimer = new Timer(true);
@@ -870,7 +1020,11 @@ public class SimulationController {
             simulationTimer.scheduleAtFixedRate(new TimerTask() {
                 @Override
                 public void run() {
-                    updateSimulation();
+                    if (replay != null) {
+                        advanceReplay();
+                    } else {
+                        updateSimulation();
+                    }
                     updatePlanetPositions();
                 }
             }, 0, 50); // Actualizar aproximadamente 20 veces por segundo
@@ -891,151 +1045,475 @@ public class SimulationController {
 
     /**
      * Reinicia la simulación a su estado inicial.
-     * Reposiciona todos los planetas a su posición original.
+     * Copia de vuelta la instantánea tomada al crear el sistema; los nodos de la
+     * escena se conservan y se recolocan en el siguiente fotograma.
      */
     public void resetSimulation() {
         // Detener la simulación actual
         pauseSimulation();
+        stopReplay();
+        stopRecordingBeforeJump();
         
-        // Resetear todos los planetas a sus posiciones iniciales
-        for (int i = 0; i < solarSystem.getCelestialBodies().size(); i++) {
-            if (solarSystem.getCelestialBodies().get(i) instanceof Planet) {
-                Planet planeta = (Planet) solarSystem.getCelestialBodies().get(i);
-                planeta.setCurrentAngle(0);  // Restablecer ángulo a la posición inicial
-                
-                // Actualizar posición basada en el ángulo reseteado
-                double[] posicion = new double[3];
-                posicion[0] = planeta.getOrbitalRadius();
-                posicion[1] = 0;
-                posicion[2] = 0;
-                planeta.setPosition(posicion);
-            }
+        // Los cuerpos añadidos después de crear el sistema se quedan donde están
+        synchronized (modelLock) {
+            solarSystem.restoreState(initialState, true);
         }
         
-        // Resetear también todas las lunas
-        for (int i = 0; i < solarSystem.getCelestialBodies().size(); i++) {
-            if (solarSystem.getCelestialBodies().get(i) instanceof Moon) {
-                Moon luna = (Moon) solarSystem.getCelestialBodies().get(i);
-                luna.setCurrentAngle(0);  // Restablecer ángulo a la posición inicial
-                
-                // Actualizar posición basada en el planeta padre
-                Planet padre = luna.getParentPlanet();
-                double[] posicionPadre = padre.getPosition();
-                
-                double[] posicion = new double[3];
-                posicion[0] = posicionPadre[0] + luna.getOrbitalRadius();
-                posicion[1] = 0;
-                posicion[2] = posicionPadre[2];
-                luna.setPosition(posicion);
-            }
-        }
+        // La línea de tiempo empieza de nuevo desde el estado reiniciado
+        restartTimeline();
         
-        // Reconstruir la escena 3D con las posiciones reseteadas
-        Platform.runLater(this::setup3DScene);
+        if (trailsGroup != null) {
+            Platform.runLater(trailsGroup::clearTrails);
+        }
+        refreshAfterJump();
+    }
+
+    /**
+     * Empieza una línea de tiempo nueva desde el estado actual. Las instantáneas
+     * anteriores dejan de valer cuando cambia el conjunto de cuerpos.
+     */
+    private void restartTimeline() {
+        synchronized (modelLock) {
+            keyframes.clear();
+            keyframes.observe(solarSystem);
+        }
     }
 
     /**
      * Actualiza la posición de todos los cuerpos celestes basándose en el paso de tiempo.
      */
     private void updateSimulation() {
-        solarSystem.simulateMovement(TIME_STEP);
+        synchronized (modelLock) {
+            solarSystem.simulateMovement(TIME_STEP);
+            if (timelineEnabled) {
+                keyframes.observe(solarSystem);
+            }
+            
+            // La grabación solo copia las posiciones; el fichero se escribe en otro hilo.
+            // Si acaban de cambiar los cuerpos, el oyente de cuerpos la termina
+            TrajectoryRecorder activeRecorder = recorder;
+            if (activeRecorder != null
+                    && activeRecorder.getBodyCount() == solarSystem.getCelestialBodies().size()) {
+                activeRecorder.record(solarSystem);
+            }
+        }
         
-        // Después de actualizar las posiciones, actualizar las órbitas de las lunas
-        // porque sus posiciones relativas a los planetas han cambiado
+        // Después de actualizar las posiciones, desplazar las órbitas de las lunas
+        // con sus planetas (una malla por planeta con satélites) y regenerar las
+        // mallas de las órbitas cuyos elementos hayan cambiado
         if (orbitsGroup != null) {
-            Platform.runLater(() -> {
-                // Solo actualizar las órbitas de las lunas, no las de los planetas
-                for (int i = 0; i < orbitsGroup.getChildren().size(); i++) {
-                    Group orbitGroup = (Group)orbitsGroup.getChildren().get(i);
-                    if (orbitGroup.getTranslateX() != 0 || orbitGroup.getTranslateZ() != 0) {
-                        // Esta es probablemente una órbita de luna (está desplazada del origen)
-                        // Necesitamos encontrar a qué luna corresponde
-                        for (int j = 0; j < solarSystem.getCelestialBodies().size(); j++) {
-                            if (solarSystem.getCelestialBodies().get(j) instanceof Moon) {
-                                Moon luna = (Moon)solarSystem.getCelestialBodies().get(j);
-                                Planet padre = luna.getParentPlanet();
-                                
-                                // Actualizar la posición de la órbita para que siga al planeta
-                                double[] planetPosition = padre.getPosition();
-                                orbitGroup.setTranslateX(planetPosition[0] * zoomFactor);
-                                orbitGroup.setTranslateZ(planetPosition[2] * zoomFactor);
-                            }
-                        }
-                    }
-                }
-            });
+            Platform.runLater(orbitsGroup::update);
         }
     }
     
     /**
-     * Corrige la posición de los planetas para alinearlos perfectamente con sus órbitas y asegura que el zoom no los desplace.
+     * Avanza la simulación varios pasos seguidos en el hilo que llama, sin
+     * temporizador: la forma de simular lo más rápido posible sin interfaz.
+     * @param steps Número de pasos de {@link #getTimeStep()} días
      */
-    private void updatePlanetPositions() {
-        if (simulationView == null || planets3D == null) return;
+    public void runSteps(long steps) {
+        for (long i = 0; i < steps; i++) {
+            updateSimulation();
+        }
+    }
+
+    /**
+     * Obtiene el paso de tiempo de la simulación.
+     * @return Días por paso
+     */
+    public double getTimeStep() {
+        return TIME_STEP;
+    }
+
+    /**
+     * Crea una rama a partir del estado actual con el modelo bloqueado, de modo que
+     * todos los cuerpos salen del mismo paso aunque la simulación esté en marcha.
+     * @param name Nombre de la rama
+     * @return La rama
+     */
+    public SimulationBranch forkSimulation(String name) {
+        synchronized (modelLock) {
+            return solarSystem.fork(name);
+        }
+    }
+
+    /**
+     * Obtiene el modelo que simula el controlador.
+     * @return El sistema solar
+     */
+    public SolarSystem getSolarSystem() {
+        return solarSystem;
+    }
+
+    /**
+     * Activa o desactiva las instantáneas de la línea de tiempo. Sin interfaz no
+     * hacen falta y su coste crece con el número de cuerpos.
+     * @param enabled false para dejar de tomar instantáneas
+     */
+    public void setTimelineEnabled(boolean enabled) {
+        timelineEnabled = enabled;
+    }
 
+    /**
+     * Sustituye el estado de la simulación por el de un checkpoint guardado con
+     * {@link SolarSystem#saveCheckpoint} y empieza una línea de tiempo nueva.
+     * @param checkpoint Fichero del checkpoint
+     * @throws IOException Si no se puede leer o no corresponde a los cuerpos simulados
+     */
+    public void loadCheckpoint(Path checkpoint) throws IOException {
+        stopRecordingBeforeJump();
+        synchronized (modelLock) {
+            solarSystem.restoreCheckpoint(checkpoint);
+            keyframes.clear();
+            keyframes.observe(solarSystem);
+        }
+        refreshAfterJump();
+    }
+
+    /**
+     * Obtiene el tiempo de simulación actual.
+     * @return Días simulados
+     */
+    public double getSimulationTime() {
+        return solarSystem.getSimulationTime();
+    }
+
+    /**
+     * Obtiene el primer instante al que se puede saltar en la línea de tiempo.
+     * @return Días simulados
+     */
+    public double getTimelineStart() {
+        synchronized (modelLock) {
+            return keyframes.getStartTime();
+        }
+    }
+
+    /**
+     * Obtiene el último instante simulado al que se puede saltar en la línea de tiempo.
+     * @return Días simulados
+     */
+    public double getTimelineEnd() {
+        synchronized (modelLock) {
+            return Math.max(keyframes.getEndTime(), solarSystem.getSimulationTime());
+        }
+    }
+
+    /**
+     * Muestra una vista previa aproximada de un instante mientras se arrastra la
+     * línea de tiempo: las posiciones se interpolan entre instantáneas sin integrar
+     * y se dibujan desde un búfer de la vista. El modelo no cambia;
+     * {@link #seekTimeline} lo lleva después al instante exacto.
+     * Debe llamarse en el hilo de JavaFX.
+     * @param time Días simulados
+     */
+    public void previewTimeline(double time) {
+        if (replay != null || simulationView == null) return;
+        List<CelestialBody> bodies;
+        synchronized (modelLock) {
+            bodies = solarSystem.getCelestialBodies();
+            int count = bodies.size();
+            if (previewPositions.length < count * 3) {
+                previewPositions = new double[count * 3];
+            }
+            int index = keyframes.floorIndex(time);
+            if (index < 0 || keyframes.getKeyframe(index).size() != count
+                    || !keyframes.interpolate(time, previewPositions)) {
+                return;
+            }
+        }
+        simulationView.getSceneCuller().setPreview(bodies, previewPositions);
+        simulationView.requestFrameUpdate();
+    }
+
+    /**
+     * Lleva la simulación a un instante ya simulado restaurando la instantánea
+     * anterior e integrando solo desde ella.
+     * @param time Días simulados (se limita al intervalo de la línea de tiempo)
+     */
+    public void seekTimeline(double time) {
+        if (replay != null) return;
+        stopRecordingBeforeJump();
+        synchronized (modelLock) {
+            double start = keyframes.getStartTime();
+            if (Double.isNaN(start)) return;
+            double end = Math.max(keyframes.getEndTime(), solarSystem.getSimulationTime());
+            time = Math.max(start, Math.min(time, end));
+            if (time > keyframes.getEndTime()) {
+                // Entre la última instantánea y el presente: se integra desde ella
+                time = Math.min(time, solarSystem.getSimulationTime());
+            }
+            int steps = keyframes.seek(solarSystem, Math.min(time, keyframes.getEndTime()), TIME_STEP);
+            while (solarSystem.getSimulationTime() < time - 1e-9) {
+                solarSystem.simulateMovement(Math.min(TIME_STEP, time - solarSystem.getSimulationTime()));
+                steps++;
+            }
+            LOG.debug("Salto a t = {} con {} pasos integrados", solarSystem.getSimulationTime(), steps);
+        }
+        refreshAfterJump();
+    }
+
+    private void refreshAfterJump() {
+        if (orbitsGroup != null) {
+            Platform.runLater(orbitsGroup::update);
+        }
+        if (simulationView == null) return;
         Platform.runLater(() -> {
-            // Actualizar cada planeta
-            int planetIndex = 0;
-            for (int i = 0; i < solarSystem.getCelestialBodies().size(); i++) {
-                if (solarSystem.getCelestialBodies().get(i) instanceof Planet) {
-                    Planet planeta = (Planet) solarSystem.getCelestialBodies().get(i);
+            simulationView.getSceneCuller().clearPreview();
+            simulationView.requestFrameUpdate();
+            updateTimelineView();
+        });
+    }
 
-                    if (planetIndex < planets3D.length) {
-                        Sphere planeta3D = planets3D[planetIndex];
+    /**
+     * Termina la grabación en curso antes de mover el tiempo de simulación: los
+     * fotogramas se numeran en orden y sus tiempos deben crecer con el índice.
+     */
+    private void stopRecordingBeforeJump() {
+        if (isRecording()) {
+            LOG.warn("Salto en el tiempo durante una grabación; se termina la grabación");
+            stopRecording();
+        }
+    }
 
-                        // Obtener la posición exacta del modelo
-                        double[] position = planeta.getPosition();
-                        
-                        // Aplicar la posición exactamente como está en el modelo, con el factor de zoom
-                        planeta3D.setTranslateX(position[0] * zoomFactor);
-                        planeta3D.setTranslateZ(position[2] * zoomFactor);
+    /**
+     * Refleja en la línea de tiempo el intervalo simulado y el instante actual.
+     * Debe llamarse en el hilo de JavaFX.
+     */
+    private void updateTimelineView() {
+        if (replay != null) return;
+        simulationView.updateTimeline(getTimelineStart(), getTimelineEnd(), getSimulationTime());
+    }
 
-                        // También actualizamos la etiqueta del nombre si existe
-                        Group planetGroup = simulationView.getPlanetGroup();
-                        int textIndex = planetGroup.getChildren().indexOf(planeta3D) + 1;
-                        if (textIndex < planetGroup.getChildren().size() && 
-                            planetGroup.getChildren().get(textIndex) instanceof javafx.scene.text.Text) {
-                            javafx.scene.text.Text text = 
-                                (javafx.scene.text.Text) planetGroup.getChildren().get(textIndex);
-                            text.setTranslateX(position[0] * zoomFactor + planeta.getSize() * 2);
-                            text.setTranslateZ(position[2] * zoomFactor);
-                        }
-                    }
-                    planetIndex++;
-                }
+    /**
+     * Empieza a grabar la posición de todos los cuerpos en cada paso de simulación.
+     * @param directory Directorio de la grabación
+     * @param precision Precisión de las posiciones grabadas
+     * @throws IOException Si no se puede crear la grabación
+     */
+    public void startRecording(Path directory, TrajectoryPrecision precision) throws IOException {
+        stopRecording();
+        // Con el modelo bloqueado: el temporizador no puede grabar ni mover los
+        // cuerpos hasta que el fotograma 0 esté copiado
+        synchronized (modelLock) {
+            TrajectoryRecorder created = TrajectoryRecorder.forSystem(directory, solarSystem, precision);
+            created.record(solarSystem); // estado inicial como fotograma 0
+            recorder = created;
+        }
+        LOG.info("Grabando trayectorias en {}", directory);
+    }
+
+    /**
+     * Empieza a grabar en un único fichero comprimido.
+     * @param file Fichero de la grabación
+     * @param encoding Codificación de las posiciones
+     * @param quantum Resolución para {@link TrajectoryEncoding#DELTA_OF_DELTA}, en unidades de la escena
+     * @throws IOException Si no se puede crear la grabación
+     */
+    public void startRecording(Path file, TrajectoryEncoding encoding, double quantum) throws IOException {
+        stopRecording();
+        synchronized (modelLock) {
+            TrajectoryRecorder created = TrajectoryRecorder.forSystem(file, solarSystem, encoding, quantum);
+            created.record(solarSystem);
+            recorder = created;
+        }
+        LOG.info("Grabando trayectorias comprimidas en {}", file);
+    }
+
+    /**
+     * Comprime una grabación hecha con {@link #startRecording(Path, TrajectoryPrecision)}.
+     * @param recording Directorio de la grabación
+     * @param archive Fichero comprimido de destino
+     * @param encoding Codificación de las posiciones
+     * @param quantum Resolución para {@link TrajectoryEncoding#DELTA_OF_DELTA}
+     * @throws IOException Si no se puede leer la grabación o escribir el fichero
+     */
+    public void exportRecording(Path recording, Path archive, TrajectoryEncoding encoding, double quantum) throws IOException {
+        try (TrajectoryReader reader = TrajectoryReader.open(recording)) {
+            long size = CompressedTrajectoryWriter.export(reader, archive, encoding, quantum);
+            LOG.info("Grabación exportada a {} ({} bytes)", archive, size);
+        }
+    }
+
+    /**
+     * Termina la grabación en curso, si la hay.
+     */
+    public void stopRecording() {
+        TrajectoryRecorder activeRecorder;
+        synchronized (modelLock) {
+            activeRecorder = recorder;
+            if (activeRecorder == null) return;
+            recorder = null;
+        }
+        // Ya nadie graba en él: se espera al escritor sin bloquear el modelo
+        try {
+            activeRecorder.close();
+            LOG.info("Grabación terminada: {} fotogramas", activeRecorder.getFrameCount());
+        } catch (IOException e) {
+            LOG.error("La grabación no se completó correctamente", e);
+        }
+    }
+
+    /**
+     * Indica si se está grabando.
+     * @return true si hay una grabación en curso
+     */
+    public boolean isRecording() {
+        return recorder != null;
+    }
+
+    /**
+     * Entra en modo de reproducción: mientras dure, el temporizador de la simulación
+     * avanza por los fotogramas de la grabación en lugar de integrar, y la vista
+     * muestra las posiciones grabadas. El estado de la simulación se guarda y se
+     * recupera al salir con {@link #stopReplay()}.
+     * @param recording Directorio o fichero comprimido de una grabación hecha con {@link #startRecording}
+     * @throws IOException Si la grabación no se puede abrir
+     */
+    public void startReplay(Path recording) throws IOException {
+        stopRecording();
+        TrajectorySource reader = Files.isDirectory(recording)
+            ? TrajectoryReader.open(recording)
+            : CompressedTrajectoryReader.open(recording);
+        synchronized (modelLock) {
+            closeReplay();
+
+            // Los cuerpos de la grabación se buscan por identificador
+            Map<Integer, CelestialBody> bodiesById = new HashMap<>();
+            for (CelestialBody body : solarSystem.getCelestialBodies()) {
+                bodiesById.put(body.getId(), body);
             }
-            
-            if (moons3D == null) return;
-            
-            int moonIndex = 0;
-            for (int i = 0; i < solarSystem.getCelestialBodies().size(); i++) {
-                if (solarSystem.getCelestialBodies().get(i) instanceof Moon) {
-                    Moon luna = (Moon) solarSystem.getCelestialBodies().get(i);
-                    
-                    if (moonIndex < moons3D.length) {
-                        Sphere luna3D = moons3D[moonIndex];
-                        
-                        // Obtener la posición exacta del modelo
-                        double[] position = luna.getPosition();
-                        
-                        // Aplicar la posición exactamente como está en el modelo, con el factor de zoom
-                        luna3D.setTranslateX(position[0] * zoomFactor);
-                        luna3D.setTranslateZ(position[2] * zoomFactor);
-                        
-                        // También actualizamos la etiqueta del nombre si existe
-                        Group planetGroup = simulationView.getPlanetGroup();
-                        int textIndex = planetGroup.getChildren().indexOf(luna3D) + 1;
-                        if (textIndex < planetGroup.getChildren().size() && 
-                            planetGroup.getChildren().get(textIndex) instanceof javafx.scene.text.Text) {
-                            javafx.scene.text.Text text = 
-                                (javafx.scene.text.Text) planetGroup.getChildren().get(textIndex);
-                            text.setTranslateX(position[0] * zoomFactor + luna.getSize() * 2);
-                            text.setTranslateZ(position[2] * zoomFactor);
-                        }
-                    }
-                    moonIndex++;
-                }
+            int[] ids = reader.getBodyIds();
+            replayBodies = new CelestialBody[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                replayBodies[i] = bodiesById.get(ids[i]);
+            }
+            replayPositions = new double[ids.length * 3];
+            liveState = solarSystem.captureState(liveState);
+            replay = reader;
+            replayFrame = 0;
+            applyReplayFrame();
+        }
+        updatePlanetPositions();
+        LOG.info("Reproduciendo {} fotogramas de {}", reader.getFrameCount(), recording);
+    }
+
+    /**
+     * Salta a un fotograma de la reproducción. El coste no depende del fotograma.
+     * @param frame Índice del fotograma (se limita al intervalo de la grabación)
+     */
+    public void seekReplay(long frame) {
+        synchronized (modelLock) {
+            if (replay == null) return;
+            replayFrame = Math.max(0, Math.min(frame, replay.getFrameCount() - 1));
+            applyReplayFrame();
+        }
+        updatePlanetPositions();
+    }
+
+    /**
+     * Sale del modo de reproducción y devuelve los cuerpos al estado que tenían al entrar.
+     */
+    public void stopReplay() {
+        synchronized (modelLock) {
+            if (replay == null) return;
+            closeReplay();
+            solarSystem.restoreState(liveState);
+        }
+        if (orbitsGroup != null) {
+            Platform.runLater(orbitsGroup::update);
+        }
+        updatePlanetPositions();
+    }
+
+    /**
+     * Indica si la vista muestra una grabación en lugar de la simulación.
+     * @return true en modo de reproducción
+     */
+    public boolean isReplaying() {
+        return replay != null;
+    }
+
+    /**
+     * Obtiene el fotograma que se está mostrando en modo de reproducción.
+     * @return Índice del fotograma
+     */
+    public long getReplayFrame() {
+        synchronized (modelLock) {
+            return replayFrame;
+        }
+    }
+
+    /**
+     * Obtiene el número de fotogramas de la grabación que se reproduce.
+     * @return Fotogramas, o 0 si no hay reproducción
+     */
+    public long getReplayFrameCount() {
+        TrajectorySource reader = replay;
+        return reader != null ? reader.getFrameCount() : 0;
+    }
+
+    /**
+     * Avanza un fotograma de la reproducción; al llegar al final se detiene en el último.
+     */
+    private void advanceReplay() {
+        synchronized (modelLock) {
+            if (replay == null || replayFrame + 1 >= replay.getFrameCount()) return;
+            replayFrame++;
+            applyReplayFrame();
+        }
+    }
+
+    /**
+     * Copia las posiciones del fotograma actual en los cuerpos. Los fotogramas que
+     * se descartaron al grabar se saltan dejando las posiciones anteriores.
+     */
+    private void applyReplayFrame() {
+        try {
+            if (!replay.readPositions(replayFrame, replayPositions)) return;
+        } catch (IOException e) {
+            LOG.error("No se pudo leer el fotograma " + replayFrame, e);
+            return;
+        }
+        // Primero los cuerpos sin sistema de referencia propio: con setPosition las
+        // lunas guardan el desplazamiento respecto a la posición ya grabada del planeta
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < replayBodies.length; i++) {
+                CelestialBody body = replayBodies[i];
+                if (body == null || (body.getFrameParent() == null) != (pass == 0)) continue;
+                double[] position = body.getPosition();
+                System.arraycopy(replayPositions, i * 3, position, 0, 3);
+                body.setPosition(position);
+            }
+        }
+        if (orbitsGroup != null) {
+            Platform.runLater(orbitsGroup::update);
+        }
+    }
+
+    private void closeReplay() {
+        if (replay != null) {
+            replay.close();
+            replay = null;
+        }
+        replayBodies = null;
+        replayPositions = null;
+    }
+
+    /**
+     * Corrige la posición de los planetas para alinearlos perfectamente con sus órbitas y asegura que el zoom no los desplace.
+     */
+    private void updatePlanetPositions() {
+        if (simulationView == null || orbitsGroup == null) return;
+
+        Platform.runLater(() -> {
+            // Añadir la posición actual a las estelas
+            if (trailsGroup != null) {
+                trailsGroup.sample();
             }
+            
+            // Los cuerpos visibles y sus etiquetas se recolocan en el próximo fotograma
+            simulationView.requestFrameUpdate();
+            updateTimelineView();
         });
     }
 
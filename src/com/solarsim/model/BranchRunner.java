@@ -0,0 +1,78 @@
+package com.solarsim.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Avanza varias {@link SimulationBranch} en paralelo, cada una en su propia
+ * tarea. Una rama nunca se reparte entre hilos, así que no necesita sincronización.
+ */
+public class BranchRunner implements AutoCloseable {
+    private final ExecutorService pool;
+
+    /**
+     * Crea un ejecutor con un hilo por procesador.
+     */
+    public BranchRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Crea un ejecutor.
+     * @param threads Número máximo de ramas que avanzan a la vez
+     */
+    public BranchRunner(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Número de hilos no válido: " + threads);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "solarsim-branch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Encola el avance de una rama.
+     * @param branch Rama a avanzar
+     * @param days Días a simular
+     * @param timeStep Paso de tiempo en días
+     * @return Futuro que se completa con la rama cuando termina
+     */
+    public CompletableFuture<SimulationBranch> submit(SimulationBranch branch, double days, double timeStep) {
+        return CompletableFuture.supplyAsync(() -> {
+            branch.advance(days, timeStep);
+            return branch;
+        }, pool);
+    }
+
+    /**
+     * Avanza varias ramas el mismo intervalo y espera a que terminen todas.
+     * @param branches Ramas a avanzar
+     * @param days Días a simular
+     * @param timeStep Paso de tiempo en días
+     * @throws InterruptedException Si se interrumpe la espera
+     * @throws ExecutionException Si alguna rama falla al avanzar
+     */
+    public void advanceAll(List<SimulationBranch> branches, double days, double timeStep)
+            throws InterruptedException, ExecutionException {
+        List<CompletableFuture<SimulationBranch>> futures = new ArrayList<>(branches.size());
+        for (SimulationBranch branch : branches) {
+            futures.add(submit(branch, days, timeStep));
+        }
+        for (CompletableFuture<SimulationBranch> future : futures) {
+            future.get();
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
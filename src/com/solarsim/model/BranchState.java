@@ -0,0 +1,212 @@
+package com.solarsim.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estado dinámico de los cuerpos de una {@link SimulationBranch}, guardado en
+ * páginas de arrays primitivos que se comparten entre ramas con copia en
+ * escritura.
+ *
+ * Cada página contiene {@value #PAGE_SIZE} cuerpos con {@value #STRIDE} valores
+ * por cuerpo: posición (x, y, z), velocidad (vx, vy, vz), ángulo orbital y masa.
+ * Bifurcar un estado solo copia el array de referencias a las páginas; una rama
+ * copia una página la primera vez que escribe en ella, de modo que las páginas
+ * que ninguna rama modifica existen una sola vez en memoria.
+ *
+ * Un estado no es seguro para varios hilos, pero ramas distintas sí pueden
+ * avanzar a la vez: las páginas compartidas solo se leen.
+ */
+public class BranchState {
+    /** Desplazamientos de cada valor dentro del bloque de un cuerpo */
+    public static final int X = 0;
+    public static final int VX = 3;
+    public static final int ANGLE = 6;
+    public static final int MASS = 7;
+
+    static final int STRIDE = 8;
+    static final int PAGE_SHIFT = 8;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    private double[][] pages;
+    private boolean[] owned;
+    private int count;
+
+    // Identificadores; el array y el índice se comparten hasta que una rama añade cuerpos
+    private int[] ids;
+    private Map<Integer, Integer> indexById;
+    private boolean idsShared;
+
+    private BranchState(double[][] pages, int[] ids, int count, Map<Integer, Integer> indexById) {
+        this.pages = pages;
+        this.owned = new boolean[pages.length];
+        this.ids = ids;
+        this.count = count;
+        this.indexById = indexById;
+    }
+
+    /**
+     * Copia el estado actual de una lista de cuerpos.
+     * @param bodies Cuerpos, en el orden en que avanzarán
+     * @return Un estado nuevo que posee todas sus páginas
+     */
+    static BranchState capture(List<CelestialBody> bodies) {
+        int count = bodies.size();
+        double[][] pages = new double[(count + PAGE_SIZE - 1) >> PAGE_SHIFT][];
+        int[] ids = new int[count];
+        Map<Integer, Integer> indexById = new HashMap<>();
+        for (int p = 0; p < pages.length; p++) {
+            pages[p] = new double[PAGE_SIZE * STRIDE];
+        }
+        for (int i = 0; i < count; i++) {
+            CelestialBody body = bodies.get(i);
+            double[] page = pages[i >> PAGE_SHIFT];
+            int o = base(i);
+            System.arraycopy(body.getPosition(), 0, page, o + X, 3);
+            System.arraycopy(body.getVelocity(), 0, page, o + VX, 3);
+            page[o + ANGLE] = body.getCurrentAngle();
+            page[o + MASS] = body.getMass();
+            ids[i] = body.getId();
+            indexById.put(body.getId(), i);
+        }
+        BranchState state = new BranchState(pages, ids, count, indexById);
+        Arrays.fill(state.owned, true);
+        return state;
+    }
+
+    /**
+     * Crea un estado que comparte todas las páginas con este. A partir de aquí
+     * ninguno de los dos escribe en una página compartida sin copiarla antes.
+     * @return El estado bifurcado
+     */
+    BranchState fork() {
+        Arrays.fill(owned, false);
+        idsShared = true;
+        BranchState child = new BranchState(pages.clone(), ids, count, indexById);
+        child.idsShared = true;
+        return child;
+    }
+
+    /**
+     * Obtiene el número de cuerpos.
+     * @return Cuerpos
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Obtiene el identificador de un cuerpo.
+     * @param index Posición del cuerpo
+     * @return Identificador
+     */
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Busca la posición de un cuerpo por su identificador.
+     * @param id Identificador
+     * @return Posición, o -1 si el cuerpo no está en el estado
+     */
+    public int indexOf(int id) {
+        Integer index = indexById.get(id);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Lee un valor de un cuerpo.
+     * @param index Posición del cuerpo
+     * @param field Desplazamiento del valor ({@link #X} + eje, {@link #VX} + eje, {@link #ANGLE}, {@link #MASS})
+     * @return El valor
+     */
+    public double get(int index, int field) {
+        return pages[index >> PAGE_SHIFT][base(index) + field];
+    }
+
+    /**
+     * Obtiene la página de un cuerpo lista para escribir, copiándola si aún se
+     * comparte con otra rama. Los valores del cuerpo empiezan en {@link #base(int)}.
+     * @param index Posición del cuerpo
+     * @return Página propia de este estado
+     */
+    public double[] writablePage(int index) {
+        int p = index >> PAGE_SHIFT;
+        if (!owned[p]) {
+            pages[p] = pages[p].clone();
+            owned[p] = true;
+        }
+        return pages[p];
+    }
+
+    /**
+     * Calcula dónde empiezan los valores de un cuerpo dentro de su página.
+     * @param index Posición del cuerpo
+     * @return Desplazamiento en la página
+     */
+    public static int base(int index) {
+        return (index & (PAGE_SIZE - 1)) * STRIDE;
+    }
+
+    /**
+     * Escribe un valor de un cuerpo.
+     * @param index Posición del cuerpo
+     * @param field Desplazamiento del valor
+     * @param value Nuevo valor
+     */
+    public void set(int index, int field, double value) {
+        writablePage(index)[base(index) + field] = value;
+    }
+
+    /**
+     * Añade un cuerpo al final del estado.
+     * @param body Cuerpo con su estado inicial
+     */
+    void add(CelestialBody body) {
+        if (idsShared) {
+            ids = Arrays.copyOf(ids, Math.max(count + 1, ids.length));
+            indexById = new HashMap<>(indexById);
+            idsShared = false;
+        } else if (count == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(16, count * 2));
+        }
+        int index = count++;
+        if (index >> PAGE_SHIFT == pages.length) {
+            pages = Arrays.copyOf(pages, pages.length + 1);
+            owned = Arrays.copyOf(owned, pages.length);
+            pages[pages.length - 1] = new double[PAGE_SIZE * STRIDE];
+            owned[pages.length - 1] = true;
+        }
+        double[] page = writablePage(index);
+        int o = base(index);
+        System.arraycopy(body.getPosition(), 0, page, o + X, 3);
+        System.arraycopy(body.getVelocity(), 0, page, o + VX, 3);
+        page[o + ANGLE] = body.getCurrentAngle();
+        page[o + MASS] = body.getMass();
+        ids[index] = body.getId();
+        indexById.put(body.getId(), index);
+    }
+
+    /**
+     * Obtiene el número de páginas.
+     * @return Páginas
+     */
+    public int getPageCount() {
+        return pages.length;
+    }
+
+    /**
+     * Obtiene el número de páginas que este estado ha copiado o creado, es decir,
+     * las que no comparte con otras ramas.
+     * @return Páginas propias
+     */
+    public int getOwnedPageCount() {
+        int owned = 0;
+        for (boolean page : this.owned) {
+            if (page) owned++;
+        }
+        return owned;
+    }
+}
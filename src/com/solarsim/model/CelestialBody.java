@@ -1,16 +1,21 @@
 package com.solarsim.model;
 
+import com.solarsim.physics.Orbit;
+
 /**
  * Clase base para todos los cuerpos celestes del sistema solar.
  * Define propiedades y comportamientos comunes de todos los cuerpos astronómicos.
  */
 public class CelestialBody {
+    private int id = -1; // asignado por el SolarSystem al añadir el cuerpo
     private String name;
     private double mass; // in kilograms
     private double radius; // in kilometers
     private double[] position; // in 3D space (x, y, z)
     private double[] velocity; // in 3D space (vx, vy, vz)
     private double currentAngle; // Current orbital angle in radians
+    private Orbit orbit; // Keplerian elements relative to the parent body, may be null
+    private long positionStamp; // cambia cada vez que se mueve el cuerpo
 
     /**
      * Constructor básico que inicializa un cuerpo celeste.
@@ -44,6 +49,23 @@ public class CelestialBody {
         this.currentAngle = 0;
     }
 
+    /**
+     * Obtiene el identificador del cuerpo dentro de su sistema solar.
+     * Es estable durante toda la ejecución y se usa en los checkpoints y las grabaciones.
+     * @return Identificador, o -1 si el cuerpo no pertenece a ningún sistema
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Asigna el identificador del cuerpo. Solo lo llama {@link SolarSystem}.
+     * @param id Nuevo identificador
+     */
+    void setId(int id) {
+        this.id = id;
+    }
+
     /**
      * Obtiene el nombre del cuerpo celeste.
      * @return Nombre del cuerpo celeste
@@ -60,6 +82,14 @@ public class CelestialBody {
         return mass;
     }
     
+    /**
+     * Establece la masa del cuerpo celeste (por ejemplo, al restaurar un checkpoint).
+     * @param mass Nueva masa en kilogramos
+     */
+    public void setMass(double mass) {
+        this.mass = mass;
+    }
+
     /**
      * Obtiene el radio del cuerpo celeste.
      * @return Radio en kilómetros
@@ -69,13 +99,77 @@ public class CelestialBody {
     }
 
     /**
-     * Obtiene la posición actual del cuerpo celeste.
+     * Obtiene la posición actual del cuerpo celeste. Los cuerpos que componen su
+     * posición la guardan en este array al pedirla, así que desde otros hilos hay
+     * que usar {@link #copyPosition(double[])}.
      * @return Vector de posición [x, y, z]
      */
     public double[] getPosition() {
         return position;
     }
 
+    /**
+     * Copia la posición absoluta sin modificar el cuerpo: a diferencia de
+     * {@link #getPosition()}, no rellena ninguna caché, así que se puede llamar desde
+     * un hilo distinto del que mueve el modelo (por ejemplo, el de JavaFX).
+     * @param out Array de al menos 3 elementos que recibe [x, y, z]
+     */
+    public void copyPosition(double[] out) {
+        CelestialBody parent = getFrameParent();
+        if (parent == null) {
+            System.arraycopy(getPosition(), 0, out, 0, 3);
+            return;
+        }
+        copyRelativePosition(out);
+        double x = out[0];
+        double y = out[1];
+        double z = out[2];
+        parent.copyPosition(out);
+        out[0] += x;
+        out[1] += y;
+        out[2] += z;
+    }
+
+    /**
+     * Copia la posición respecto al cuerpo de {@link #getFrameParent()} sin
+     * modificar el cuerpo. Las subclases con sistema de referencia propio deben
+     * sobrescribirlo.
+     * @param out Array de al menos 3 elementos que recibe [x, y, z]; sin cuerpo padre,
+     *            la posición absoluta
+     */
+    public void copyRelativePosition(double[] out) {
+        System.arraycopy(getPosition(), 0, out, 0, 3);
+    }
+
+    /**
+     * Obtiene el cuerpo en cuyo sistema de referencia se guarda la posición de este.
+     * Los cuerpos con sistema propio guardan su posición relativa y componen la
+     * absoluta solo cuando alguien la pide; la vista usa esta relación para
+     * descartar un sistema entero sin componer las posiciones de sus cuerpos.
+     * @return El cuerpo padre, o null si la posición se guarda en coordenadas absolutas
+     */
+    public CelestialBody getFrameParent() {
+        return null;
+    }
+
+    /**
+     * Obtiene una marca que cambia cada vez que cambia la posición absoluta del
+     * cuerpo, incluida la debida al movimiento de su sistema de referencia. Sirve
+     * para saber si una posición compuesta a partir de este cuerpo sigue siendo válida.
+     * @return Marca de la posición actual
+     */
+    public long getPositionStamp() {
+        return positionStamp;
+    }
+
+    /**
+     * Indica que la posición del cuerpo ha cambiado. Las subclases que modifican su
+     * posición sin pasar por {@link #setPosition(double[])} deben llamarlo.
+     */
+    protected void positionChanged() {
+        positionStamp++;
+    }
+
     /**
      * Obtiene el vector de velocidad actual del cuerpo celeste.
      * @return Vector de velocidad [vx, vy, vz]
@@ -100,12 +194,29 @@ public class CelestialBody {
         this.currentAngle = angle;
     }
 
+    /**
+     * Obtiene los elementos orbitales del cuerpo respecto a su cuerpo central.
+     * @return La órbita, o null si el cuerpo no tiene una órbita definida
+     */
+    public Orbit getOrbit() {
+        return orbit;
+    }
+
+    /**
+     * Establece los elementos orbitales del cuerpo respecto a su cuerpo central.
+     * @param orbit Nueva órbita, o null si el cuerpo no orbita a otro
+     */
+    public void setOrbit(Orbit orbit) {
+        this.orbit = orbit;
+    }
+
     /**
      * Establece la posición del cuerpo celeste.
      * @param position Nuevo vector de posición [x, y, z]
      */
     public void setPosition(double[] position) {
         this.position = position;
+        positionChanged();
     }
 
     /**
@@ -126,5 +237,38 @@ public class CelestialBody {
         for (int i = 0; i < position.length; i++) {
             position[i] += velocity[i] * time;
         }
+        positionChanged();
+    }
+
+    /**
+     * Avanza el estado de este cuerpo guardado fuera del objeto, en una rama de
+     * simulación. El cuerpo solo aporta sus parámetros y no modifica sus campos,
+     * así que varias ramas pueden compartirlo mientras avanzan en paralelo.
+     * @param time Tiempo transcurrido (en días)
+     * @param state Estado de la rama
+     * @param index Posición del cuerpo en el estado
+     */
+    public void advance(double time, BranchState state, int index) {
+        double[] page = state.writablePage(index);
+        int o = BranchState.base(index);
+        for (int i = 0; i < 3; i++) {
+            page[o + BranchState.X + i] += page[o + BranchState.VX + i] * time;
+        }
+    }
+
+    /**
+     * Avanza un ángulo orbital con movimiento circular uniforme.
+     * @param angle Ángulo actual en radianes
+     * @param period Periodo orbital en días
+     * @param time Tiempo transcurrido en días
+     * @return Nuevo ángulo normalizado entre 0 y 2π
+     */
+    protected static double advanceAngle(double angle, double period, double time) {
+        double angularVelocity = 2 * Math.PI / period;
+        double newAngle = (angle + angularVelocity * time) % (2 * Math.PI);
+        if (newAngle < 0) {
+            newAngle += 2 * Math.PI;
+        }
+        return newAngle;
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.solarsim.model;
+
+import java.util.List;
+
+/**
+ * Recibe los cambios en el conjunto de cuerpos de un {@link SolarSystem}.
+ *
+ * Los métodos se llaman en el hilo que añade o quita el cuerpo, después de que el
+ * cambio sea visible para los demás hilos.
+ */
+public interface CelestialBodyListener {
+    /**
+     * Se llama después de añadir un cuerpo, desde la implementación por defecto de
+     * {@link #bodiesAdded(List)}.
+     * @param body El cuerpo añadido
+     */
+    void bodyAdded(CelestialBody body);
+
+    /**
+     * Se llama una vez por cada llamada a {@link SolarSystem#addCelestialBodies},
+     * con todos los cuerpos añadidos. Por defecto avisa de cada cuerpo por separado;
+     * conviene sobrescribirlo si el trabajo por aviso no depende del número de cuerpos.
+     * @param bodies Cuerpos añadidos, en orden
+     */
+    default void bodiesAdded(List<CelestialBody> bodies) {
+        for (CelestialBody body : bodies) {
+            bodyAdded(body);
+        }
+    }
+
+    /**
+     * Se llama después de quitar un cuerpo.
+     * @param body El cuerpo quitado
+     */
+    void bodyRemoved(CelestialBody body);
+}
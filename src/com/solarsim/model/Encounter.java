@@ -0,0 +1,63 @@
+package com.solarsim.model;
+
+/**
+ * Encuentro cercano entre dos cuerpos detectado durante un paso de simulación.
+ */
+public class Encounter {
+    private final CelestialBody first;
+    private final CelestialBody second;
+    private final double time;
+    private final double distance;
+
+    /**
+     * Crea un encuentro.
+     * @param first Primer cuerpo
+     * @param second Segundo cuerpo
+     * @param time Instante de máxima aproximación (días de simulación)
+     * @param distance Distancia entre centros en la máxima aproximación, en km
+     */
+    public Encounter(CelestialBody first, CelestialBody second, double time, double distance) {
+        this.first = first;
+        this.second = second;
+        this.time = time;
+        this.distance = distance;
+    }
+
+    public CelestialBody getFirst() {
+        return first;
+    }
+
+    public CelestialBody getSecond() {
+        return second;
+    }
+
+    /**
+     * Obtiene el instante de máxima aproximación.
+     * @return Días de simulación
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * Obtiene la distancia entre centros en la máxima aproximación.
+     * @return Distancia en km
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Indica si los dos cuerpos llegan a tocarse.
+     * @return true si la distancia es menor que la suma de los radios
+     */
+    public boolean isCollision() {
+        return distance <= first.getRadius() + second.getRadius();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s-%s a %.0f km en t = %.3f días%s", first.getName(), second.getName(), distance, time,
+            isCollision() ? " (colisión)" : "");
+    }
+}
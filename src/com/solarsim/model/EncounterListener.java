@@ -0,0 +1,13 @@
+package com.solarsim.model;
+
+/**
+ * Recibe los encuentros cercanos que detecta un {@link SolarSystem} en cada paso.
+ */
+@FunctionalInterface
+public interface EncounterListener {
+    /**
+     * Se llama una vez por encuentro, en orden de tiempo dentro de cada paso.
+     * @param encounter El encuentro
+     */
+    void encounterDetected(Encounter encounter);
+}
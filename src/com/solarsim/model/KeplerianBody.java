@@ -0,0 +1,157 @@
+package com.solarsim.model;
+
+import com.solarsim.physics.Orbit;
+
+/**
+ * Cuerpo que recorre su órbita kepleriana alrededor de un cuerpo central, sin
+ * perturbaciones.
+ *
+ * Cada paso avanza la anomalía media 2π·dt/T, que se guarda como ángulo orbital
+ * del cuerpo (y por tanto en los checkpoints y las ramas), resuelve la ecuación
+ * de Kepler y escribe la posición y la velocidad, sumando las del cuerpo central
+ * si lo hay. Los cuerpos sin órbita elíptica se mueven en línea recta, como un
+ * {@link CelestialBody}.
+ */
+public class KeplerianBody extends CelestialBody {
+    private CelestialBody central;
+    private double mu; // parámetro gravitacional del cuerpo central, en km³/día²
+    private double period; // en días; 0 si el cuerpo no sigue una órbita elíptica
+
+    /**
+     * Crea un cuerpo colocado en el punto de su órbita que indica la anomalía
+     * verdadera de los elementos.
+     * @param name Nombre del cuerpo
+     * @param mass Masa en kilogramos
+     * @param radius Radio en kilómetros
+     * @param orbit Elementos respecto al cuerpo central
+     * @param mu Parámetro gravitacional del cuerpo central en km³/día²
+     * @param central Cuerpo central, o null si está fijo en el origen (el Sol)
+     */
+    public KeplerianBody(String name, double mass, double radius, Orbit orbit, double mu, CelestialBody central) {
+        super(name, mass, radius);
+        setOrbit(orbit);
+        double a = orbit != null ? orbit.getSemiMajorAxis() : 0;
+        startMotion(mu, a > 0 && mu > 0 ? 2 * Math.PI * Math.sqrt(a * a * a / mu) : 0, central);
+    }
+
+    /**
+     * Crea un cuerpo que aún no se mueve: la subclase llama a
+     * {@link #startMotion(double, double, CelestialBody)} cuando conoce su órbita.
+     * @param name Nombre del cuerpo
+     * @param mass Masa en kilogramos
+     * @param radius Radio en kilómetros
+     */
+    protected KeplerianBody(String name, double mass, double radius) {
+        super(name, mass, radius);
+    }
+
+    /**
+     * Fija el movimiento del cuerpo y lo coloca en el punto de su órbita que indica
+     * la anomalía verdadera de {@link #getOrbit()}. No pasa por
+     * {@link #getPosition()}, así que las subclases pueden llamarlo al colocar el
+     * cuerpo la primera vez que se pide su posición.
+     * @param mu Parámetro gravitacional del cuerpo central en km³/día²
+     * @param period Periodo orbital en días, coherente con mu y el semieje mayor
+     * @param central Cuerpo central, o null si está fijo en el origen
+     */
+    protected void startMotion(double mu, double period, CelestialBody central) {
+        Orbit orbit = getOrbit();
+        this.central = central != this ? central : null;
+        this.mu = mu;
+        if (orbit == null || !(orbit.getEccentricity() < 1) || !(period > 0) || !(mu > 0)) {
+            this.period = 0;
+            return;
+        }
+        this.period = period;
+        double meanAnomaly = Orbit.meanAnomalyFromTrueAnomaly(
+            Math.toRadians(orbit.getTrueAnomaly()), orbit.getEccentricity());
+        meanAnomaly = advanceAngle(meanAnomaly, period, 0);
+        setCurrentAngle(meanAnomaly);
+        moveTo(meanAnomaly, super.getPosition(), getVelocity());
+        positionChanged();
+    }
+
+    /**
+     * Obtiene el cuerpo alrededor del cual se mueve.
+     * @return Cuerpo central, o null si está fijo en el origen
+     */
+    public CelestialBody getCentralBody() {
+        return central;
+    }
+
+    /**
+     * Obtiene el periodo orbital.
+     * @return Periodo en días, o 0 si el cuerpo no sigue una órbita elíptica
+     */
+    public double getOrbitalPeriod() {
+        return period;
+    }
+
+    /**
+     * Avanza el cuerpo sobre su órbita y escribe su posición y su velocidad.
+     * @param time Tiempo transcurrido (en días)
+     */
+    @Override
+    public void updatePosition(double time) {
+        if (period <= 0) {
+            super.updatePosition(time);
+            return;
+        }
+        double meanAnomaly = advanceAngle(getCurrentAngle(), period, time);
+        setCurrentAngle(meanAnomaly);
+        moveTo(meanAnomaly, super.getPosition(), getVelocity());
+        positionChanged();
+    }
+
+    /**
+     * Avanza el cuerpo en una rama de simulación con el mismo movimiento que
+     * {@link #updatePosition(double)}, alrededor de la posición que su cuerpo
+     * central tiene en esa rama.
+     */
+    @Override
+    public void advance(double time, BranchState state, int index) {
+        if (period <= 0) {
+            super.advance(time, state, index);
+            return;
+        }
+        double meanAnomaly = advanceAngle(state.get(index, BranchState.ANGLE), period, time);
+        double[] position = new double[3];
+        double[] velocity = new double[3];
+        stateAt(meanAnomaly, position, velocity);
+        int centralIndex = central != null ? state.indexOf(central.getId()) : -1;
+        double[] page = state.writablePage(index);
+        int o = BranchState.base(index);
+        page[o + BranchState.ANGLE] = meanAnomaly;
+        for (int i = 0; i < 3; i++) {
+            double center = centralIndex >= 0 ? state.get(centralIndex, BranchState.X + i) : 0;
+            double drift = centralIndex >= 0 ? state.get(centralIndex, BranchState.VX + i) : 0;
+            page[o + BranchState.X + i] = center + position[i];
+            page[o + BranchState.VX + i] = drift + velocity[i];
+        }
+    }
+
+    /**
+     * Escribe la posición y la velocidad absolutas para una anomalía media.
+     */
+    private void moveTo(double meanAnomaly, double[] position, double[] velocity) {
+        stateAt(meanAnomaly, position, velocity);
+        if (central != null) {
+            double[] center = central.getPosition();
+            double[] drift = central.getVelocity();
+            for (int i = 0; i < 3; i++) {
+                position[i] += center[i];
+                velocity[i] += drift[i];
+            }
+        }
+    }
+
+    /**
+     * Calcula la posición y la velocidad relativas al cuerpo central.
+     */
+    private void stateAt(double meanAnomaly, double[] position, double[] velocity) {
+        Orbit orbit = getOrbit();
+        double trueAnomaly = Orbit.trueAnomalyFromMeanAnomaly(meanAnomaly, orbit.getEccentricity());
+        orbit.positionAtTrueAnomaly(trueAnomaly, position);
+        orbit.velocityAtTrueAnomaly(trueAnomaly, mu, velocity);
+    }
+}
@@ -0,0 +1,375 @@
+package com.solarsim.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Índice de fotogramas clave de una simulación: instantáneas periódicas del
+ * estado completo ordenadas por tiempo de simulación.
+ *
+ * Para volver a cualquier instante ya simulado se busca (búsqueda binaria) la
+ * última instantánea anterior, se restaura y se integran solo los pasos que
+ * faltan hasta el instante pedido, en lugar de repetir la simulación desde el
+ * principio. Mientras se arrastra la línea de tiempo, {@link #interpolate} da
+ * una vista previa sin tocar el modelo mediante interpolación de Hermite entre
+ * las dos instantáneas vecinas.
+ *
+ * La integración es determinista, así que las instantáneas posteriores al
+ * instante al que se salta siguen siendo válidas: se conservan y la línea de
+ * tiempo no se acorta. Si el estado se modifica (por ejemplo, cambiando una masa)
+ * hay que llamar a {@link #truncateAfter} para descartar el futuro ya calculado.
+ *
+ * La memoria está acotada por un presupuesto en bytes. Al superarlo se descarta
+ * una de cada dos instantáneas (se conservan la primera y la última) y se dobla la
+ * separación, de modo que la línea de tiempo entera sigue cubierta con menos
+ * resolución. La separación inicial también crece con el número de cuerpos, para
+ * que el presupuesto cubra el mismo intervalo simulado sea cual sea el tamaño del
+ * sistema.
+ */
+public class KeyframeIndex {
+    /** Presupuesto por defecto para todas las instantáneas */
+    public static final long DEFAULT_MAX_BYTES = 256L << 20;
+
+    /** Instantáneas que debe admitir el presupuesto con la separación base */
+    private static final int MIN_KEYFRAMES = 64;
+
+    /** Bytes por cuerpo: posición, velocidad, ángulo y masa, tangente e identificador */
+    private static final long BYTES_PER_BODY = (3 + 3 + 1 + 1 + 3) * Double.BYTES + Integer.BYTES;
+
+    private final double baseSpacing;
+    private final long maxBytes;
+    private double spacing;
+    private long bytes;
+
+    private final List<SystemState> states = new ArrayList<>();
+    private final List<double[]> tangents = new ArrayList<>();
+    private double[] times = new double[64];
+
+    // Posiciones del paso anterior, para estimar la tangente de cada instantánea
+    private double[] previousPositions = new double[0];
+    private double previousTime = Double.NaN;
+    private int previousCount = -1;
+
+    // Instantánea cuya tangente se corrige con el paso siguiente (diferencia centrada)
+    private int refineIndex = -1;
+    private double[] refineBase;
+    private double refineBaseTime;
+
+    /**
+     * Crea un índice con el presupuesto por defecto.
+     * @param spacing Días de simulación entre instantáneas en sistemas pequeños:
+     *                menos separación da saltos más rápidos y mejores vistas previas
+     *                a cambio de memoria
+     */
+    public KeyframeIndex(double spacing) {
+        this(spacing, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Crea un índice.
+     * @param spacing Días de simulación entre instantáneas en sistemas pequeños
+     * @param maxBytes Memoria máxima aproximada para todas las instantáneas
+     */
+    public KeyframeIndex(double spacing, long maxBytes) {
+        if (!(spacing > 0)) {
+            throw new IllegalArgumentException("Separación entre instantáneas no válida: " + spacing);
+        }
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Presupuesto de memoria no válido: " + maxBytes);
+        }
+        this.baseSpacing = spacing;
+        this.maxBytes = maxBytes;
+        this.spacing = spacing;
+    }
+
+    /**
+     * Registra el estado del sistema tras un paso de simulación y guarda una
+     * instantánea si ha pasado la separación desde la última.
+     * @param solarSystem Sistema simulado
+     * @return true si se ha guardado una instantánea
+     */
+    public boolean observe(SolarSystem solarSystem) {
+        double time = solarSystem.getSimulationTime();
+        if (refineIndex >= 0) {
+            refineTangent(solarSystem, time);
+        }
+        boolean captured = false;
+        int count = size();
+        if (count == 0 || time >= times[count - 1] + spacing - 1e-9) {
+            capture(solarSystem, time);
+            captured = true;
+        }
+        rememberPositions(solarSystem, time);
+        return captured;
+    }
+
+    /**
+     * Obtiene el número de instantáneas.
+     * @return Instantáneas guardadas
+     */
+    public int size() {
+        return states.size();
+    }
+
+    /**
+     * Obtiene la separación actual entre instantáneas, que crece con el número de
+     * cuerpos y cada vez que se aclara el índice.
+     * @return Días de simulación
+     */
+    public double getSpacing() {
+        return spacing;
+    }
+
+    /**
+     * Obtiene la memoria aproximada que ocupan las instantáneas.
+     * @return Bytes
+     */
+    public long getMemoryUsage() {
+        return bytes;
+    }
+
+    /**
+     * Obtiene el tiempo de la primera instantánea.
+     * @return Días simulados, o NaN si el índice está vacío
+     */
+    public double getStartTime() {
+        return states.isEmpty() ? Double.NaN : times[0];
+    }
+
+    /**
+     * Obtiene el tiempo de la última instantánea.
+     * @return Días simulados, o NaN si el índice está vacío
+     */
+    public double getEndTime() {
+        return states.isEmpty() ? Double.NaN : times[states.size() - 1];
+    }
+
+    /**
+     * Busca la última instantánea no posterior a un instante.
+     * @param time Días simulados
+     * @return Índice de la instantánea, o -1 si el instante es anterior a todas
+     */
+    public int floorIndex(double time) {
+        int index = Arrays.binarySearch(times, 0, states.size(), time);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Obtiene una instantánea. No debe modificarse.
+     * @param index Índice de la instantánea
+     * @return La instantánea
+     */
+    public SystemState getKeyframe(int index) {
+        return states.get(index);
+    }
+
+    /**
+     * Lleva el sistema a un instante ya simulado: restaura la instantánea anterior
+     * e integra desde ella con el paso indicado; el último paso se acorta para
+     * terminar exactamente en el instante pedido.
+     * @param solarSystem Sistema del que se tomaron las instantáneas
+     * @param time Días simulados (se limita al intervalo del índice)
+     * @param timeStep Paso de integración en días
+     * @return Número de pasos integrados tras restaurar
+     */
+    public int seek(SolarSystem solarSystem, double time, double timeStep) {
+        if (states.isEmpty()) return 0;
+        time = Math.max(getStartTime(), Math.min(time, getEndTime()));
+        SystemState keyframe = states.get(Math.max(0, floorIndex(time)));
+        solarSystem.restoreState(keyframe);
+
+        int steps = 0;
+        double remaining = time - keyframe.getSimulationTime();
+        while (remaining > 1e-9) {
+            double step = Math.min(timeStep, remaining);
+            solarSystem.simulateMovement(step);
+            remaining -= step;
+            steps++;
+        }
+        // La tangente de la siguiente instantánea no puede usar el paso anterior
+        previousCount = -1;
+        refineIndex = -1;
+        return steps;
+    }
+
+    /**
+     * Calcula una vista previa de las posiciones en un instante por interpolación
+     * cúbica de Hermite entre las dos instantáneas que lo rodean.
+     * @param time Días simulados
+     * @param out Array de al menos 3·n elementos, con n el número de cuerpos de las instantáneas
+     * @return false si el instante está fuera del índice o las instantáneas vecinas
+     *         no tienen los mismos cuerpos
+     */
+    public boolean interpolate(double time, double[] out) {
+        int i = floorIndex(time);
+        if (i < 0 || i >= states.size()) return false;
+        SystemState a = states.get(i);
+        if (i == states.size() - 1 || time == times[i]) {
+            System.arraycopy(a.getPositions(), 0, out, 0, a.size() * 3);
+            return true;
+        }
+        SystemState b = states.get(i + 1);
+        if (a.size() != b.size()) return false;
+
+        double h = times[i + 1] - times[i];
+        double t = (time - times[i]) / h;
+        double t2 = t * t;
+        double t3 = t2 * t;
+        double h00 = 2 * t3 - 3 * t2 + 1;
+        double h10 = (t3 - 2 * t2 + t) * h;
+        double h01 = -2 * t3 + 3 * t2;
+        double h11 = (t3 - t2) * h;
+
+        double[] p0 = a.getPositions();
+        double[] p1 = b.getPositions();
+        double[] m0 = tangents.get(i);
+        double[] m1 = tangents.get(i + 1);
+        int components = a.size() * 3;
+        for (int c = 0; c < components; c++) {
+            out[c] = h00 * p0[c] + h10 * m0[c] + h01 * p1[c] + h11 * m1[c];
+        }
+        return true;
+    }
+
+    /**
+     * Descarta las instantáneas posteriores a un instante, por ejemplo cuando el
+     * estado se ha modificado y el futuro calculado ya no es válido.
+     * @param time Días simulados
+     */
+    public void truncateAfter(double time) {
+        int keep = floorIndex(time) + 1;
+        while (states.size() > keep) {
+            bytes -= bytesOf(states.remove(states.size() - 1));
+            tangents.remove(tangents.size() - 1);
+        }
+        refineIndex = -1;
+    }
+
+    /**
+     * Vacía el índice.
+     */
+    public void clear() {
+        states.clear();
+        tangents.clear();
+        bytes = 0;
+        spacing = baseSpacing;
+        previousCount = -1;
+        refineIndex = -1;
+    }
+
+    private void capture(SolarSystem solarSystem, double time) {
+        int count = states.size();
+        if (count == 0) {
+            spacing = initialSpacing(solarSystem.getCelestialBodies().size());
+        }
+        if (count == times.length) {
+            times = Arrays.copyOf(times, count * 2);
+        }
+        SystemState state = solarSystem.captureState(null);
+        times[count] = time;
+        states.add(state);
+        tangents.add(tangent(state, time));
+        bytes += bytesOf(state);
+        while (bytes > maxBytes && states.size() > 2) {
+            thin();
+        }
+    }
+
+    /**
+     * Multiplica la separación base por la menor potencia de dos con la que el
+     * presupuesto admite {@link #MIN_KEYFRAMES} separaciones base de simulación.
+     */
+    private double initialSpacing(int bodyCount) {
+        double ratio = (double) bodyCount * BYTES_PER_BODY * MIN_KEYFRAMES / maxBytes;
+        double factor = 1;
+        while (factor < ratio) {
+            factor *= 2;
+        }
+        return baseSpacing * factor;
+    }
+
+    /**
+     * Descarta las instantáneas de índice impar, salvo la última, y dobla la separación.
+     */
+    private void thin() {
+        int count = states.size();
+        int last = count - 1;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (i % 2 == 0 || i == last) {
+                states.set(kept, states.get(i));
+                tangents.set(kept, tangents.get(i));
+                times[kept] = times[i];
+                kept++;
+            } else {
+                bytes -= bytesOf(states.get(i));
+            }
+        }
+        states.subList(kept, count).clear();
+        tangents.subList(kept, count).clear();
+        refineIndex = refineIndex == last ? kept - 1 : -1;
+        spacing *= 2;
+    }
+
+    private static long bytesOf(SystemState state) {
+        return state.size() * BYTES_PER_BODY;
+    }
+
+    /**
+     * Estima la velocidad de cada cuerpo como diferencia con el paso anterior; los
+     * cuerpos que se mueven por ángulo orbital no actualizan su velocidad, así que
+     * la del modelo solo se usa si no hay paso anterior.
+     */
+    private double[] tangent(SystemState state, double time) {
+        int components = state.size() * 3;
+        double[] tangent = new double[components];
+        double dt = time - previousTime;
+        if (previousCount == state.size() && dt > 0) {
+            double[] positions = state.getPositions();
+            for (int c = 0; c < components; c++) {
+                tangent[c] = (positions[c] - previousPositions[c]) / dt;
+            }
+            refineIndex = states.size();
+            refineBase = Arrays.copyOf(previousPositions, components);
+            refineBaseTime = previousTime;
+        } else {
+            System.arraycopy(state.getVelocities(), 0, tangent, 0, components);
+        }
+        return tangent;
+    }
+
+    /**
+     * Sustituye la tangente de la última instantánea, calculada hacia atrás, por la
+     * diferencia centrada entre el paso anterior y el siguiente.
+     */
+    private void refineTangent(SolarSystem solarSystem, double time) {
+        int index = refineIndex;
+        refineIndex = -1;
+        if (index != states.size() - 1) return;
+        List<CelestialBody> bodies = solarSystem.getCelestialBodies();
+        double[] tangent = tangents.get(index);
+        double dt = time - refineBaseTime;
+        if (bodies.size() * 3 != tangent.length || !(dt > 0)) return;
+        for (int i = 0; i < bodies.size(); i++) {
+            double[] position = bodies.get(i).getPosition();
+            for (int axis = 0; axis < 3; axis++) {
+                int c = i * 3 + axis;
+                tangent[c] = (position[axis] - refineBase[c]) / dt;
+            }
+        }
+    }
+
+    private void rememberPositions(SolarSystem solarSystem, double time) {
+        List<CelestialBody> bodies = solarSystem.getCelestialBodies();
+        int count = bodies.size();
+        if (previousPositions.length < count * 3) {
+            previousPositions = new double[count * 3];
+        }
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(bodies.get(i).getPosition(), 0, previousPositions, i * 3, 3);
+        }
+        previousCount = count;
+        previousTime = time;
+    }
+}
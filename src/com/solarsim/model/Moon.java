@@ -2,6 +2,8 @@ package com.solarsim.model;
 
 import java.awt.Color;
 
+import com.solarsim.physics.Orbit;
+
 /**
  * Clase que representa una luna o satélite en el sistema solar.
  * Extiende CelestialBody añadiendo propiedades específicas de satélites.
@@ -12,6 +14,11 @@ public class Moon extends CelestialBody {
     private Color color;
     private double size; // tamaño visual para renderizado
     private Planet parentPlanet; // planeta alrededor del cual orbita
+    // Desplazamiento respecto al planeta fijado con setPosition; mientras no se fije,
+    // la posición relativa se calcula a partir del ángulo orbital
+    private final double[] fixedOffset = new double[3];
+    private volatile boolean offsetFromAngle = true;
+    private long composedStamp = -1; // marca de la última posición absoluta compuesta
     
     /**
      * Constructor para crear una luna con todas sus propiedades.
@@ -33,6 +40,7 @@ public class Moon extends CelestialBody {
         this.color = color;
         this.size = size;
         this.parentPlanet = parentPlanet;
+        setOrbit(new Orbit(orbitalRadius, 0, 0, 0, 0, 0)); // Órbita circular alrededor del planeta
     }
     
     /**
@@ -91,37 +99,106 @@ public class Moon extends CelestialBody {
         return parentPlanet;
     }
     
+    /**
+     * Las lunas guardan su posición en el sistema de referencia de su planeta.
+     */
+    @Override
+    public CelestialBody getFrameParent() {
+        return parentPlanet;
+    }
+
     /**
      * Actualiza la posición de la luna basándose en su movimiento orbital.
-     * La posición final es relativa al planeta alrededor del cual orbita.
+     * Solo avanza el ángulo alrededor del planeta: la posición relativa y la
+     * absoluta se calculan cuando se piden.
      * 
      * @param time Tiempo transcurrido (en días)
      */
     @Override
     public void updatePosition(double time) {
-        // Calcular nueva posición orbital usando ángulo
-        double angularVelocity = 2 * Math.PI / orbitalPeriod;
-        double newAngle = getCurrentAngle() + (angularVelocity * time);
-        
-        // Normalizar el ángulo para mantenerlo entre 0 y 2π
-        newAngle = newAngle % (2 * Math.PI);
-        if (newAngle < 0) {
-            newAngle += 2 * Math.PI;
+        setCurrentAngle(advanceAngle(getCurrentAngle(), orbitalPeriod, time));
+    }
+
+    @Override
+    public void setCurrentAngle(double angle) {
+        super.setCurrentAngle(angle);
+        offsetFromAngle = true;
+        positionChanged();
+    }
+
+    /**
+     * Copia la posición de la luna respecto a su planeta. No arrastra el error de
+     * redondeo de las coordenadas absolutas, que son mucho mayores que la órbita, y
+     * no modifica la luna.
+     */
+    @Override
+    public void copyRelativePosition(double[] out) {
+        if (offsetFromAngle) {
+            double angle = getCurrentAngle();
+            out[0] = orbitalRadius * Math.cos(angle);
+            out[1] = 0; // Mantener en el plano orbital (sin inclinación por ahora)
+            out[2] = orbitalRadius * Math.sin(angle);
+        } else {
+            System.arraycopy(fixedOffset, 0, out, 0, 3);
+        }
+    }
+
+    /**
+     * Obtiene la posición absoluta, sumando la relativa a la del planeta si alguno
+     * de los dos se ha movido desde la última vez que se pidió. Guarda el resultado
+     * en la luna: solo debe llamarse desde el hilo que mueve el modelo o con el
+     * modelo bloqueado; los demás hilos deben usar {@link #copyPosition(double[])}.
+     */
+    @Override
+    public double[] getPosition() {
+        double[] position = super.getPosition();
+        long stamp = getPositionStamp();
+        if (stamp != composedStamp) {
+            copyRelativePosition(position);
+            double[] center = parentPlanet.getPosition();
+            for (int i = 0; i < 3; i++) {
+                position[i] += center[i];
+            }
+            composedStamp = stamp;
+        }
+        return position;
+    }
+
+    /**
+     * Coloca la luna en una posición absoluta; la posición relativa pasa a ser la
+     * diferencia con la posición actual del planeta.
+     */
+    @Override
+    public void setPosition(double[] position) {
+        super.setPosition(position);
+        double[] center = parentPlanet.getPosition();
+        for (int i = 0; i < 3; i++) {
+            fixedOffset[i] = position[i] - center[i];
         }
-        
-        // Establecer el nuevo ángulo
-        setCurrentAngle(newAngle);
-        
-        // Obtener la posición actual del planeta padre
-        double[] planetPosition = parentPlanet.getPosition();
-        
-        // Calcular la posición orbital relativa al planeta
-        double[] position = new double[3];
-        position[0] = planetPosition[0] + orbitalRadius * Math.cos(getCurrentAngle());
-        position[1] = 0; // Mantener en el plano orbital (sin inclinación por ahora)
-        position[2] = planetPosition[2] + orbitalRadius * Math.sin(getCurrentAngle());
-        
-        // Actualizar la posición
-        setPosition(position);
-    }
-}
\ No newline at end of file
+        offsetFromAngle = false;
+        composedStamp = getPositionStamp();
+    }
+
+    @Override
+    public long getPositionStamp() {
+        return super.getPositionStamp() + parentPlanet.getPositionStamp();
+    }
+
+    /**
+     * Avanza la luna en una rama de simulación, alrededor de la posición que su
+     * planeta tiene en esa misma rama.
+     */
+    @Override
+    public void advance(double time, BranchState state, int index) {
+        double angle = advanceAngle(state.get(index, BranchState.ANGLE), orbitalPeriod, time);
+        int parent = state.indexOf(parentPlanet.getId());
+        double centerX = parent >= 0 ? state.get(parent, BranchState.X) : 0;
+        double centerZ = parent >= 0 ? state.get(parent, BranchState.X + 2) : 0;
+        double[] page = state.writablePage(index);
+        int o = BranchState.base(index);
+        page[o + BranchState.ANGLE] = angle;
+        page[o + BranchState.X] = centerX + orbitalRadius * Math.cos(angle);
+        page[o + BranchState.X + 1] = 0;
+        page[o + BranchState.X + 2] = centerZ + orbitalRadius * Math.sin(angle);
+    }
+}
@@ -2,6 +2,8 @@ package com.solarsim.model;
 
 import java.awt.Color;
 
+import com.solarsim.physics.Orbit;
+
 /**
  * Clase que representa un planeta en el sistema solar.
  * Extiende CelestialBody añadiendo propiedades específicas de planetas.
@@ -26,6 +28,8 @@ public class Planet extends CelestialBody {
         this.orbitalPeriod = orbitalPeriod;
         this.color = Color.WHITE; // Default color
         this.size = radius / 1000; // Default size based on radius
+        setOrbit(new Orbit(orbitalRadius, 0, 0, 0, 0, 0)); // Órbita circular en el plano XZ
+        setPosition(new double[] {orbitalRadius, 0, 0}); // Ángulo inicial 0
     }
     
     /**
@@ -44,6 +48,8 @@ public class Planet extends CelestialBody {
         this.orbitalPeriod = orbitalPeriod;
         this.color = color;
         this.size = size;
+        setOrbit(new Orbit(orbitalRadius, 0, 0, 0, 0, 0)); // Órbita circular en el plano XZ
+        setPosition(new double[] {orbitalRadius, 0, 0}); // Ángulo inicial 0
     }
 
     /**
@@ -101,18 +107,8 @@ public class Planet extends CelestialBody {
      */
     @Override
     public void updatePosition(double time) {
-        // Calculate new orbital position using angle
-        double angularVelocity = 2 * Math.PI / orbitalPeriod;
-        double newAngle = getCurrentAngle() + (angularVelocity * time);
-        
-        // Normalizar el ángulo para mantenerlo entre 0 y 2π
-        newAngle = newAngle % (2 * Math.PI);
-        if (newAngle < 0) {
-            newAngle += 2 * Math.PI;
-        }
-        
-        // Establecer el nuevo ángulo
-        setCurrentAngle(newAngle);
+        // Calcular y establecer el nuevo ángulo orbital
+        setCurrentAngle(advanceAngle(getCurrentAngle(), orbitalPeriod, time));
         
         // Update 3D position basado en el radio orbital exacto
         double[] position = new double[3];
@@ -120,10 +116,20 @@ public class Planet extends CelestialBody {
         position[1] = 0; // Mantener en el plano orbital (sin inclinación)
         position[2] = orbitalRadius * Math.sin(getCurrentAngle());
         setPosition(position);
-        
-    /*     // Debug
-        System.out.println("Actualizando: " + getName() + ", Ángulo: " + getCurrentAngle() + 
-                           ", Pos X: " + position[0] + ", Pos Z: " + position[2]);
-    */
     }
-}
\ No newline at end of file
+
+    /**
+     * Avanza el planeta en una rama de simulación con el mismo movimiento
+     * circular que {@link #updatePosition(double)}.
+     */
+    @Override
+    public void advance(double time, BranchState state, int index) {
+        double angle = advanceAngle(state.get(index, BranchState.ANGLE), orbitalPeriod, time);
+        double[] page = state.writablePage(index);
+        int o = BranchState.base(index);
+        page[o + BranchState.ANGLE] = angle;
+        page[o + BranchState.X] = orbitalRadius * Math.cos(angle);
+        page[o + BranchState.X + 1] = 0;
+        page[o + BranchState.X + 2] = orbitalRadius * Math.sin(angle);
+    }
+}
@@ -0,0 +1,199 @@
+package com.solarsim.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rama independiente de una simulación, creada con {@link SolarSystem#fork} o
+ * bifurcando otra rama, para explorar variantes (una masa perturbada, un cometa
+ * añadido) a partir del mismo instante.
+ *
+ * Una rama no copia los cuerpos: comparte los objetos {@link CelestialBody} del
+ * sistema de origen, que solo aportan sus parámetros, y guarda el estado
+ * dinámico en un {@link BranchState} cuyas páginas se comparten con copia en
+ * escritura. Bifurcar una rama cuesta lo mismo tenga mil cuerpos o un millón.
+ *
+ * Cada rama debe avanzar en un solo hilo a la vez, pero ramas distintas pueden
+ * avanzar en paralelo, por ejemplo con {@link BranchRunner}.
+ */
+public class SimulationBranch {
+    private final String name;
+    private final BranchState state;
+    private List<CelestialBody> bodies;
+    private boolean bodiesShared;
+    private int nextId;
+    private double simulationTime;
+    private long stepCount;
+
+    SimulationBranch(String name, List<CelestialBody> bodies, boolean bodiesShared, BranchState state,
+            int nextId, double simulationTime, long stepCount) {
+        this.name = name;
+        this.bodies = bodies;
+        this.bodiesShared = bodiesShared;
+        this.state = state;
+        this.nextId = nextId;
+        this.simulationTime = simulationTime;
+        this.stepCount = stepCount;
+    }
+
+    /**
+     * Crea una rama nueva a partir del estado actual de esta. Ambas comparten
+     * cuerpos y páginas de estado hasta que una de ellas los modifica.
+     * @param name Nombre de la nueva rama
+     * @return La rama bifurcada
+     */
+    public SimulationBranch fork(String name) {
+        bodiesShared = true;
+        return new SimulationBranch(name, bodies, true, state.fork(), nextId, simulationTime, stepCount);
+    }
+
+    /**
+     * Avanza todos los cuerpos de la rama un paso de tiempo.
+     * @param timeStep Paso de tiempo en días
+     */
+    public void simulateMovement(double timeStep) {
+        int count = bodies.size();
+        for (int i = 0; i < count; i++) {
+            bodies.get(i).advance(timeStep, state, i);
+        }
+        simulationTime += timeStep;
+        stepCount++;
+    }
+
+    /**
+     * Avanza la rama un intervalo de tiempo en pasos iguales; el último se acorta
+     * si el intervalo no es múltiplo del paso.
+     * @param days Días a simular
+     * @param timeStep Paso de tiempo en días
+     */
+    public void advance(double days, double timeStep) {
+        double remaining = days;
+        while (remaining > 1e-9) {
+            double step = Math.min(timeStep, remaining);
+            simulateMovement(step);
+            remaining -= step;
+        }
+    }
+
+    /**
+     * Cambia la masa de un cuerpo solo en esta rama.
+     * @param bodyId Identificador del cuerpo
+     * @param mass Nueva masa en kg
+     * @throws IllegalArgumentException Si el cuerpo no está en la rama
+     */
+    public void setMass(int bodyId, double mass) {
+        state.set(indexOf(bodyId), BranchState.MASS, mass);
+    }
+
+    /**
+     * Añade un cuerpo solo a esta rama, con su posición, velocidad, ángulo y masa
+     * actuales como estado inicial. El objeto no se modifica al avanzar la rama.
+     * @param body Cuerpo nuevo; si no pertenece a ningún sistema se le asigna un
+     *             identificador libre en la rama
+     * @return Identificador del cuerpo en la rama
+     */
+    public int addCelestialBody(CelestialBody body) {
+        if (body.getId() < 0) {
+            body.setId(nextId++);
+        }
+        if (bodiesShared) {
+            bodies = new ArrayList<>(bodies);
+            bodiesShared = false;
+        }
+        bodies.add(body);
+        state.add(body);
+        return body.getId();
+    }
+
+    /**
+     * Copia la posición de un cuerpo en la rama.
+     * @param bodyId Identificador del cuerpo
+     * @param out Array de al menos 3 elementos para [x, y, z]
+     * @return El array out
+     * @throws IllegalArgumentException Si el cuerpo no está en la rama
+     */
+    public double[] getPosition(int bodyId, double[] out) {
+        int index = indexOf(bodyId);
+        for (int axis = 0; axis < 3; axis++) {
+            out[axis] = state.get(index, BranchState.X + axis);
+        }
+        return out;
+    }
+
+    /**
+     * Obtiene la masa de un cuerpo en la rama.
+     * @param bodyId Identificador del cuerpo
+     * @return Masa en kg
+     * @throws IllegalArgumentException Si el cuerpo no está en la rama
+     */
+    public double getMass(int bodyId) {
+        return state.get(indexOf(bodyId), BranchState.MASS);
+    }
+
+    /**
+     * Copia el estado de la rama en una instantánea, por ejemplo para guardarla o
+     * aplicarla al sistema principal con {@link SolarSystem#restoreState}.
+     * @param target Instantánea a rellenar, o null para crear una
+     * @return La instantánea rellenada
+     */
+    public SystemState captureState(SystemState target) {
+        if (target == null) target = new SystemState();
+        int count = state.size();
+        target.resize(count);
+        int[] ids = target.getIds();
+        double[] positions = target.getPositions();
+        double[] velocities = target.getVelocities();
+        double[] angles = target.getAngles();
+        double[] masses = target.getMasses();
+        for (int i = 0; i < count; i++) {
+            ids[i] = state.getId(i);
+            for (int axis = 0; axis < 3; axis++) {
+                positions[i * 3 + axis] = state.get(i, BranchState.X + axis);
+                velocities[i * 3 + axis] = state.get(i, BranchState.VX + axis);
+            }
+            angles[i] = state.get(i, BranchState.ANGLE);
+            masses[i] = state.get(i, BranchState.MASS);
+        }
+        target.setSimulationTime(simulationTime);
+        target.setStepCount(stepCount);
+        return target;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Obtiene los cuerpos de la rama.
+     * @return Lista no modificable
+     */
+    public List<CelestialBody> getCelestialBodies() {
+        return Collections.unmodifiableList(bodies);
+    }
+
+    /**
+     * Obtiene el estado dinámico de la rama, por ejemplo para consultar cuántas
+     * páginas comparte.
+     * @return El estado
+     */
+    public BranchState getState() {
+        return state;
+    }
+
+    public double getSimulationTime() {
+        return simulationTime;
+    }
+
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    private int indexOf(int bodyId) {
+        int index = state.indexOf(bodyId);
+        if (index < 0) {
+            throw new IllegalArgumentException("El cuerpo " + bodyId + " no está en la rama " + name);
+        }
+        return index;
+    }
+}
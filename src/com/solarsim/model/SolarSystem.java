@@ -1,28 +1,140 @@
 package com.solarsim.model;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.solarsim.physics.EncounterDetector;
+import com.solarsim.util.catalog.BinaryCatalog;
+import com.solarsim.util.catalog.CatalogBody;
+import com.solarsim.util.catalog.CatalogColumn;
+import com.solarsim.util.CheckpointFile;
 
 /**
  * Clase que representa un sistema solar completo con múltiples cuerpos celestes.
  * Gestiona el conjunto de planetas, estrellas y otros objetos astronómicos.
+ *
+ * La lista de cuerpos es una instantánea inmutable que se sustituye entera al
+ * añadir o quitar cuerpos, así que se pueden añadir y quitar cuerpos desde
+ * cualquier hilo mientras otro simula o dibuja: cada paso de simulación trabaja
+ * con la lista que había al empezar y los cambios se aplican en el siguiente.
  */
 public class SolarSystem {
-    private List<CelestialBody> celestialBodies;
+    private volatile List<CelestialBody> celestialBodies;
+    private final Object registryLock = new Object();
+    private final List<CelestialBodyListener> bodyListeners = new CopyOnWriteArrayList<>();
+    private int nextId;
+    private double simulationTime; // días simulados
+    private long stepCount;
+    private double lastTimeStep;
+
+    // Detección de encuentros; solo se calcula si hay alguien escuchando
+    private final List<EncounterListener> encounterListeners = new CopyOnWriteArrayList<>();
+    private EncounterDetector encounterDetector;
+    private double encounterDistance;
+    private double[] previousPositions = new double[0];
+    private double[] currentPositions = new double[0];
+    private double[] radii = new double[0];
 
     /**
      * Constructor que inicializa un sistema solar vacío.
      */
     public SolarSystem() {
-        celestialBodies = new ArrayList<>();
+        celestialBodies = Collections.emptyList();
     }
 
     /**
-     * Añade un cuerpo celeste al sistema solar.
+     * Añade un cuerpo celeste al sistema solar. Se puede llamar con la simulación
+     * en marcha; el cuerpo empieza a moverse en el siguiente paso.
      * @param body El cuerpo celeste a añadir
      */
     public void addCelestialBody(CelestialBody body) {
-        celestialBodies.add(body);
+        addCelestialBodies(new CelestialBody[] {body});
+    }
+
+    /**
+     * Añade varios cuerpos de una vez, copiando la lista una sola vez.
+     * @param bodies Cuerpos a añadir, en orden
+     */
+    public void addCelestialBodies(CelestialBody[] bodies) {
+        synchronized (registryLock) {
+            List<CelestialBody> current = celestialBodies;
+            CelestialBody[] next = current.toArray(new CelestialBody[current.size() + bodies.length]);
+            for (int i = 0; i < bodies.length; i++) {
+                bodies[i].setId(nextId++);
+                next[current.size() + i] = bodies[i];
+            }
+            celestialBodies = Collections.unmodifiableList(Arrays.asList(next));
+        }
+        List<CelestialBody> added = Collections.unmodifiableList(Arrays.asList(bodies.clone()));
+        for (CelestialBodyListener listener : bodyListeners) {
+            listener.bodiesAdded(added);
+        }
+    }
+
+    /**
+     * Quita un cuerpo del sistema. Se puede llamar con la simulación en marcha; los
+     * pasos que ya han empezado todavía lo mueven.
+     * @param body El cuerpo a quitar
+     * @return true si el cuerpo pertenecía al sistema
+     */
+    public boolean removeCelestialBody(CelestialBody body) {
+        synchronized (registryLock) {
+            List<CelestialBody> current = celestialBodies;
+            int index = current.indexOf(body);
+            if (index < 0) return false;
+            CelestialBody[] next = new CelestialBody[current.size() - 1];
+            for (int i = 0, j = 0; i < current.size(); i++) {
+                if (i != index) next[j++] = current.get(i);
+            }
+            celestialBodies = Collections.unmodifiableList(Arrays.asList(next));
+        }
+        for (CelestialBodyListener listener : bodyListeners) {
+            listener.bodyRemoved(body);
+        }
+        return true;
+    }
+
+    /**
+     * Empieza a notificar los cuerpos que se añaden y se quitan.
+     * @param listener Oyente a añadir
+     */
+    public void addCelestialBodyListener(CelestialBodyListener listener) {
+        bodyListeners.add(listener);
+    }
+
+    /**
+     * Deja de notificar los cambios de cuerpos a un oyente.
+     * @param listener Oyente a quitar
+     */
+    public void removeCelestialBodyListener(CelestialBodyListener listener) {
+        bodyListeners.remove(listener);
+    }
+
+    /**
+     * Añade todos los cuerpos de un catálogo binario mapeado. Los cuerpos no copian
+     * sus datos: cada uno lee del catálogo, la primera vez que se necesitan, solo
+     * las columnas indicadas.
+     * @param catalog Catálogo abierto con {@link BinaryCatalog#open}
+     * @param columns Columnas que necesita esta ejecución (por ejemplo, sin nombres ni
+     *                colores en una simulación sin interfaz)
+     * @return Número de cuerpos añadidos
+     */
+    public int addFromCatalog(BinaryCatalog catalog, Set<CatalogColumn> columns) {
+        int count = catalog.size();
+        CelestialBody[] bodiesByIndex = new CelestialBody[count];
+        for (int i = 0; i < count; i++) {
+            bodiesByIndex[i] = new CatalogBody(catalog, i, columns, bodiesByIndex);
+        }
+        addCelestialBodies(bodiesByIndex);
+        return count;
     }
 
     /**
@@ -30,14 +142,249 @@ public class SolarSystem {
      * @param timeStep El paso de tiempo para la simulación en días
      */
     public void simulateMovement(double timeStep) {
-        for (CelestialBody body : celestialBodies) {
+        List<CelestialBody> bodies = celestialBodies;
+        boolean detect = !encounterListeners.isEmpty();
+        if (detect) {
+            previousPositions = copyPositions(bodies, previousPositions);
+        }
+        for (CelestialBody body : bodies) {
             body.updatePosition(timeStep);
         }
+        if (detect) {
+            detectEncounters(bodies, simulationTime, timeStep);
+        }
+        simulationTime += timeStep;
+        stepCount++;
+        lastTimeStep = timeStep;
+    }
+
+    /**
+     * Empieza a notificar los encuentros cercanos entre cuerpos. Mientras haya algún
+     * oyente, cada paso compara las trayectorias de todos los cuerpos (ver
+     * {@link EncounterDetector}); sin oyentes no se calcula nada.
+     * @param listener Oyente a añadir
+     */
+    public void addEncounterListener(EncounterListener listener) {
+        encounterListeners.add(listener);
+    }
+
+    /**
+     * Deja de notificar encuentros a un oyente.
+     * @param listener Oyente a quitar
+     */
+    public void removeEncounterListener(EncounterListener listener) {
+        encounterListeners.remove(listener);
+    }
+
+    /**
+     * Fija a qué distancia entre superficies se considera que dos cuerpos se
+     * encuentran. Con 0 (por defecto) solo se informa de las colisiones.
+     * @param distance Distancia en km
+     */
+    public void setEncounterDistance(double distance) {
+        this.encounterDistance = distance;
+    }
+
+    private void detectEncounters(List<CelestialBody> bodies, double startTime, double timeStep) {
+        int count = bodies.size();
+        currentPositions = copyPositions(bodies, currentPositions);
+        if (radii.length < count) {
+            radii = new double[count];
+        }
+        for (int i = 0; i < count; i++) {
+            radii[i] = bodies.get(i).getRadius();
+        }
+        if (encounterDetector == null) {
+            encounterDetector = new EncounterDetector();
+        }
+        int found = encounterDetector.detect(previousPositions, currentPositions, radii, count, encounterDistance);
+        if (found == 0) return;
+
+        List<Encounter> encounters = new ArrayList<>(found);
+        for (int k = 0; k < found; k++) {
+            encounters.add(new Encounter(bodies.get(encounterDetector.getFirst(k)),
+                bodies.get(encounterDetector.getSecond(k)),
+                startTime + encounterDetector.getFraction(k) * timeStep, encounterDetector.getDistance(k)));
+        }
+        encounters.sort((a, b) -> Double.compare(a.getTime(), b.getTime()));
+        for (Encounter encounter : encounters) {
+            for (EncounterListener listener : encounterListeners) {
+                listener.encounterDetected(encounter);
+            }
+        }
+    }
+
+    private static double[] copyPositions(List<CelestialBody> bodies, double[] target) {
+        int count = bodies.size();
+        if (target.length < count * 3) {
+            target = new double[count * 3];
+        }
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(bodies.get(i).getPosition(), 0, target, i * 3, 3);
+        }
+        return target;
+    }
+
+    /**
+     * Obtiene el tiempo de simulación transcurrido.
+     * @return Días simulados
+     */
+    public double getSimulationTime() {
+        return simulationTime;
+    }
+
+    /**
+     * Obtiene el número de pasos de simulación dados.
+     * @return Número de pasos
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * Copia el estado dinámico de todos los cuerpos en una instantánea.
+     * @param state Instantánea a rellenar (se reutilizan sus arrays), o null para crear una
+     * @return La instantánea rellenada
+     */
+    public SystemState captureState(SystemState state) {
+        if (state == null) state = new SystemState();
+        List<CelestialBody> bodies = celestialBodies;
+        int count = bodies.size();
+        state.resize(count);
+        int[] ids = state.getIds();
+        double[] positions = state.getPositions();
+        double[] velocities = state.getVelocities();
+        double[] angles = state.getAngles();
+        double[] masses = state.getMasses();
+        for (int i = 0; i < count; i++) {
+            CelestialBody body = bodies.get(i);
+            ids[i] = body.getId();
+            System.arraycopy(body.getPosition(), 0, positions, i * 3, 3);
+            System.arraycopy(body.getVelocity(), 0, velocities, i * 3, 3);
+            angles[i] = body.getCurrentAngle();
+            masses[i] = body.getMass();
+        }
+        state.setSimulationTime(simulationTime);
+        state.setStepCount(stepCount);
+        state.setLastTimeStep(lastTimeStep);
+        return state;
+    }
+
+    /**
+     * Restaura el estado dinámico desde una instantánea. Los cuerpos se emparejan
+     * por identificador, de modo que la instantánea debe proceder de este mismo
+     * sistema (o de uno construido igual).
+     * @param state Instantánea a aplicar
+     * @throws IllegalArgumentException Si algún identificador no corresponde a un cuerpo del sistema
+     */
+    public void restoreState(SystemState state) {
+        restoreState(state, false);
+    }
+
+    /**
+     * Restaura el estado dinámico desde una instantánea tomada antes de que se
+     * añadieran o quitaran cuerpos. Los cuerpos añadidos después conservan su estado.
+     * @param state Instantánea a aplicar
+     * @param skipMissing true para ignorar los cuerpos de la instantánea que ya no
+     *                    están en el sistema; false para fallar como {@link #restoreState(SystemState)}
+     * @throws IllegalArgumentException Si falta algún cuerpo y skipMissing es false
+     */
+    public void restoreState(SystemState state, boolean skipMissing) {
+        int count = state.size();
+        int[] ids = state.getIds();
+        double[] positions = state.getPositions();
+        double[] velocities = state.getVelocities();
+        double[] angles = state.getAngles();
+        double[] masses = state.getMasses();
+
+        List<CelestialBody> bodies = celestialBodies;
+        Map<Integer, CelestialBody> byId = null;
+        for (int i = 0; i < count; i++) {
+            CelestialBody body = i < bodies.size() ? bodies.get(i) : null;
+            if (body == null || body.getId() != ids[i]) {
+                // El orden no coincide: se recurre a un índice por identificador
+                if (byId == null) {
+                    byId = new HashMap<>();
+                    for (CelestialBody candidate : bodies) {
+                        byId.put(candidate.getId(), candidate);
+                    }
+                }
+                body = byId.get(ids[i]);
+                if (body == null) {
+                    if (skipMissing) continue;
+                    throw new IllegalArgumentException("El estado contiene un cuerpo desconocido: id " + ids[i]);
+                }
+            }
+            copyInto(body.getPosition(), positions, i * 3, body, true);
+            copyInto(body.getVelocity(), velocities, i * 3, body, false);
+            body.setCurrentAngle(angles[i]);
+            body.setMass(masses[i]);
+        }
+        simulationTime = state.getSimulationTime();
+        stepCount = state.getStepCount();
+        lastTimeStep = state.getLastTimeStep();
+    }
+
+    /**
+     * Crea una rama independiente a partir del estado actual. El estado dinámico
+     * se copia una vez a páginas compartibles y los cuerpos no se copian; para
+     * preparar muchas variantes del mismo instante conviene bifurcar una rama y
+     * luego bifurcar esa rama, lo que no copia nada hasta que cada variante escribe.
+     * Como {@link #captureState}, lee los cuerpos sin bloquearlos: si otro hilo
+     * avanza el sistema, hay que llamarlo con el modelo bloqueado (el controlador
+     * lo hace en {@code SimulationController#forkSimulation}).
+     * @param name Nombre de la rama
+     * @return La rama
+     */
+    public SimulationBranch fork(String name) {
+        // La lista es inmutable: la rama la comparte y la copia si le añade cuerpos
+        List<CelestialBody> snapshot = celestialBodies;
+        return new SimulationBranch(name, snapshot, true, BranchState.capture(snapshot),
+            nextId, simulationTime, stepCount);
+    }
+
+    /**
+     * Guarda el estado completo en un checkpoint binario.
+     * @param path Fichero de destino (se reemplaza de forma atómica)
+     * @param checksum true para añadir una suma de verificación CRC32C
+     * @throws IOException Si no se puede escribir
+     */
+    public void saveCheckpoint(Path path, boolean checksum) throws IOException {
+        new CheckpointFile().write(path, captureState(null), checksum);
+    }
+
+    /**
+     * Restaura el estado completo desde un checkpoint binario.
+     * @param path Fichero del checkpoint
+     * @throws IOException Si no se puede leer, está dañado o no corresponde a este sistema
+     */
+    public void restoreCheckpoint(Path path) throws IOException {
+        SystemState state = new CheckpointFile().read(path, null);
+        try {
+            restoreState(state);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("El checkpoint " + path + " no corresponde a este sistema", e);
+        }
+    }
+
+    /**
+     * Copia un vector de 3 componentes en el array del cuerpo, o lo sustituye si no
+     * tiene uno utilizable.
+     */
+    private static void copyInto(double[] target, double[] source, int offset, CelestialBody body, boolean position) {
+        if (target != null && target.length >= 3) {
+            System.arraycopy(source, offset, target, 0, 3);
+        } else if (position) {
+            body.setPosition(new double[] {source[offset], source[offset + 1], source[offset + 2]});
+        } else {
+            body.setVelocity(new double[] {source[offset], source[offset + 1], source[offset + 2]});
+        }
     }
 
     /**
      * Obtiene la lista de todos los cuerpos celestes en el sistema.
-     * @return Lista de cuerpos celestes
+     * @return Instantánea inmutable de la lista; no cambia aunque luego se añadan o
+     *         quiten cuerpos, así que conviene pedirla una vez por recorrido
      */
     public List<CelestialBody> getCelestialBodies() {
         return celestialBodies;
@@ -0,0 +1,126 @@
+package com.solarsim.model;
+
+import java.util.Arrays;
+
+/**
+ * Instantánea del estado dinámico de un {@link SolarSystem} en arrays primitivos.
+ *
+ * Guarda, por cuerpo y en el orden del sistema, el identificador, la posición,
+ * la velocidad, el ángulo orbital y la masa, además del tiempo de simulación y
+ * el estado del integrador (pasos dados y último paso de tiempo). No contiene
+ * referencias a los cuerpos, así que se puede copiar, guardar en disco o pasar a
+ * otro hilo sin compartir estado mutable.
+ *
+ * Los arrays se reutilizan entre capturas mientras el número de cuerpos no crezca.
+ */
+public class SystemState {
+    private int count;
+    private int[] ids = new int[0];
+    private double[] positions = new double[0];
+    private double[] velocities = new double[0];
+    private double[] angles = new double[0];
+    private double[] masses = new double[0];
+    private double simulationTime;
+    private long stepCount;
+    private double lastTimeStep;
+
+    /**
+     * Ajusta el número de cuerpos, ampliando los arrays si hace falta.
+     * @param count Número de cuerpos
+     */
+    public void resize(int count) {
+        if (count > ids.length) {
+            ids = Arrays.copyOf(ids, count);
+            positions = Arrays.copyOf(positions, count * 3);
+            velocities = Arrays.copyOf(velocities, count * 3);
+            angles = Arrays.copyOf(angles, count);
+            masses = Arrays.copyOf(masses, count);
+        }
+        this.count = count;
+    }
+
+    /**
+     * Copia el contenido de otra instantánea en esta.
+     * @param other Instantánea de origen
+     */
+    public void copyFrom(SystemState other) {
+        resize(other.count);
+        System.arraycopy(other.ids, 0, ids, 0, count);
+        System.arraycopy(other.positions, 0, positions, 0, count * 3);
+        System.arraycopy(other.velocities, 0, velocities, 0, count * 3);
+        System.arraycopy(other.angles, 0, angles, 0, count);
+        System.arraycopy(other.masses, 0, masses, 0, count);
+        simulationTime = other.simulationTime;
+        stepCount = other.stepCount;
+        lastTimeStep = other.lastTimeStep;
+    }
+
+    /**
+     * Obtiene el número de cuerpos.
+     * @return Número de cuerpos
+     */
+    public int size() {
+        return count;
+    }
+
+    /** @return Identificadores de los cuerpos (longitud >= {@link #size()}) */
+    public int[] getIds() {
+        return ids;
+    }
+
+    /** @return Posiciones [x0, y0, z0, x1, ...] en km (longitud >= 3·{@link #size()}) */
+    public double[] getPositions() {
+        return positions;
+    }
+
+    /** @return Velocidades [vx0, vy0, vz0, vx1, ...] en km/día (longitud >= 3·{@link #size()}) */
+    public double[] getVelocities() {
+        return velocities;
+    }
+
+    /** @return Ángulos orbitales en radianes (longitud >= {@link #size()}) */
+    public double[] getAngles() {
+        return angles;
+    }
+
+    /** @return Masas en kg (longitud >= {@link #size()}) */
+    public double[] getMasses() {
+        return masses;
+    }
+
+    /**
+     * Obtiene el tiempo de simulación.
+     * @return Días simulados desde el inicio
+     */
+    public double getSimulationTime() {
+        return simulationTime;
+    }
+
+    public void setSimulationTime(double simulationTime) {
+        this.simulationTime = simulationTime;
+    }
+
+    /**
+     * Obtiene el número de pasos de integración dados.
+     * @return Número de pasos
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    public void setStepCount(long stepCount) {
+        this.stepCount = stepCount;
+    }
+
+    /**
+     * Obtiene el último paso de tiempo usado por el integrador.
+     * @return Paso en días (0 si aún no se ha avanzado)
+     */
+    public double getLastTimeStep() {
+        return lastTimeStep;
+    }
+
+    public void setLastTimeStep(double lastTimeStep) {
+        this.lastTimeStep = lastTimeStep;
+    }
+}
@@ -0,0 +1,330 @@
+package com.solarsim.physics;
+
+import java.util.Arrays;
+
+/**
+ * Detección de encuentros cercanos y colisiones entre cuerpos durante un paso de
+ * simulación, sobre arrays primitivos de posiciones.
+ *
+ * Fase amplia: cada cuerpo ocupa la caja que barre durante el paso, ampliada con
+ * su radio y la mitad de la distancia de encuentro, y se registra en las celdas
+ * de una rejilla uniforme (tabla hash) que toca esa caja. Solo se prueban las
+ * parejas que comparten celda, y cada pareja solo en una celda de referencia, así
+ * que el coste por paso es lineal en el número de cuerpos si la densidad es
+ * razonable. Los cuerpos cuya caja ocupa demasiadas celdas (un planeta rápido
+ * entre millones de partículas pequeñas) se prueban aparte contra todos los demás.
+ *
+ * Fase estrecha: entre el principio y el final del paso se supone movimiento
+ * relativo rectilíneo y se calcula el instante de máxima aproximación, de modo
+ * que no se pierden los cuerpos que se cruzan dentro del paso.
+ *
+ * Un detector reutiliza sus arrays entre pasos y no es seguro para varios hilos.
+ */
+public class EncounterDetector {
+    private static final int MAX_CELLS_PER_BODY = 64;
+    private static final int COORDINATE_BITS = 21;
+    private static final long COORDINATE_MASK = (1L << COORDINATE_BITS) - 1;
+
+    private double cellSize;
+
+    // Cajas barridas: min x, y, z, max x, y, z por cuerpo
+    private double[] boxes = new double[0];
+
+    // Tabla hash de celdas con direccionamiento abierto; una ranura es válida si su sello es el del paso
+    private long[] slotKeys = new long[0];
+    private int[] slotHeads = new int[0];
+    private int[] slotStamps = new int[0];
+    private int[] usedSlots = new int[0];
+    private int usedCount;
+    private int stamp;
+
+    // Entradas (cuerpo, celda) enlazadas por celda
+    private int[] entryBodies = new int[0];
+    private int[] entryNext = new int[0];
+    private int entryCount;
+
+    private int[] oversized = new int[0];
+    private int oversizedCount;
+
+    // Resultados del último paso
+    private int[] firsts = new int[16];
+    private int[] seconds = new int[16];
+    private double[] fractions = new double[16];
+    private double[] distances = new double[16];
+    private int found;
+
+    /**
+     * Fija el lado de las celdas de la rejilla. Por defecto (0) se usa el doble del
+     * tamaño medio de las cajas barridas en cada paso.
+     * @param cellSize Lado en km, o 0 para elegirlo automáticamente
+     */
+    public void setCellSize(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Busca las parejas de cuerpos que se acercan durante un paso.
+     * @param previous Posiciones al principio del paso [x0, y0, z0, x1, ...] en km
+     * @param current Posiciones al final del paso
+     * @param radii Radio de cada cuerpo en km
+     * @param count Número de cuerpos
+     * @param margin Distancia entre superficies a partir de la cual se informa de un encuentro, en km
+     * @return Número de encuentros encontrados, consultables con {@link #getFirst} y compañía
+     */
+    public int detect(double[] previous, double[] current, double[] radii, int count, double margin) {
+        found = 0;
+        if (count < 2) return 0;
+        double size = computeBoxes(previous, current, radii, count, margin);
+        buildGrid(count, size);
+        testCells(previous, current, radii, margin, size);
+        testOversized(previous, current, radii, count, margin);
+        return found;
+    }
+
+    /**
+     * Obtiene el primer cuerpo de un encuentro (el de menor índice).
+     * @param encounter Índice del encuentro
+     * @return Índice del cuerpo
+     */
+    public int getFirst(int encounter) {
+        return firsts[encounter];
+    }
+
+    /**
+     * Obtiene el segundo cuerpo de un encuentro.
+     * @param encounter Índice del encuentro
+     * @return Índice del cuerpo
+     */
+    public int getSecond(int encounter) {
+        return seconds[encounter];
+    }
+
+    /**
+     * Obtiene en qué punto del paso se produce la máxima aproximación.
+     * @param encounter Índice del encuentro
+     * @return Fracción del paso entre 0 y 1
+     */
+    public double getFraction(int encounter) {
+        return fractions[encounter];
+    }
+
+    /**
+     * Obtiene la distancia entre centros en la máxima aproximación.
+     * @param encounter Índice del encuentro
+     * @return Distancia en km
+     */
+    public double getDistance(int encounter) {
+        return distances[encounter];
+    }
+
+    private double computeBoxes(double[] previous, double[] current, double[] radii, int count, double margin) {
+        if (boxes.length < count * 6) {
+            boxes = new double[count * 6];
+        }
+        double extentSum = 0;
+        for (int i = 0; i < count; i++) {
+            double inflate = radii[i] + margin / 2;
+            double extent = 0;
+            for (int axis = 0; axis < 3; axis++) {
+                double a = previous[i * 3 + axis];
+                double b = current[i * 3 + axis];
+                double min = Math.min(a, b) - inflate;
+                double max = Math.max(a, b) + inflate;
+                boxes[i * 6 + axis] = min;
+                boxes[i * 6 + 3 + axis] = max;
+                extent = Math.max(extent, max - min);
+            }
+            extentSum += extent;
+        }
+        if (cellSize > 0) return cellSize;
+        double size = 2 * extentSum / count;
+        return size > 0 ? size : 1;
+    }
+
+    private void buildGrid(int count, double size) {
+        entryCount = 0;
+        usedCount = 0;
+        oversizedCount = 0;
+        if (++stamp == 0) {
+            Arrays.fill(slotStamps, 0);
+            stamp = 1;
+        }
+        ensureTable(count * 2);
+        for (int i = 0; i < count; i++) {
+            long x0 = cell(boxes[i * 6], size), x1 = cell(boxes[i * 6 + 3], size);
+            long y0 = cell(boxes[i * 6 + 1], size), y1 = cell(boxes[i * 6 + 4], size);
+            long z0 = cell(boxes[i * 6 + 2], size), z1 = cell(boxes[i * 6 + 5], size);
+            long cells = (x1 - x0 + 1) * (y1 - y0 + 1) * (z1 - z0 + 1);
+            if (cells > MAX_CELLS_PER_BODY || cells <= 0) {
+                if (oversizedCount == oversized.length) {
+                    oversized = Arrays.copyOf(oversized, Math.max(16, oversizedCount * 2));
+                }
+                oversized[oversizedCount++] = i;
+                continue;
+            }
+            for (long x = x0; x <= x1; x++) {
+                for (long y = y0; y <= y1; y++) {
+                    for (long z = z0; z <= z1; z++) {
+                        insert(key(x, y, z), i);
+                    }
+                }
+            }
+        }
+    }
+
+    private void insert(long key, int body) {
+        if (entryCount == entryBodies.length) {
+            int capacity = Math.max(64, entryCount * 2);
+            entryBodies = Arrays.copyOf(entryBodies, capacity);
+            entryNext = Arrays.copyOf(entryNext, capacity);
+        }
+        if (usedCount * 2 >= slotKeys.length) {
+            rehash(slotKeys.length * 2);
+        }
+        int slot = findSlot(key);
+        if (slotStamps[slot] != stamp) {
+            slotStamps[slot] = stamp;
+            slotKeys[slot] = key;
+            slotHeads[slot] = -1;
+            usedSlots[usedCount++] = slot;
+        }
+        entryBodies[entryCount] = body;
+        entryNext[entryCount] = slotHeads[slot];
+        slotHeads[slot] = entryCount++;
+    }
+
+    private int findSlot(long key) {
+        int mask = slotKeys.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (slotStamps[slot] == stamp && slotKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void ensureTable(int expectedCells) {
+        int capacity = Integer.highestOneBit(Math.max(64, expectedCells * 2) - 1) << 1;
+        if (slotKeys.length < capacity) {
+            slotKeys = new long[capacity];
+            slotHeads = new int[capacity];
+            slotStamps = new int[capacity];
+            usedSlots = new int[capacity];
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] keys = slotKeys;
+        int[] heads = slotHeads;
+        int[] used = Arrays.copyOf(usedSlots, usedCount);
+        slotKeys = new long[capacity];
+        slotHeads = new int[capacity];
+        slotStamps = new int[capacity];
+        usedSlots = new int[capacity];
+        int count = usedCount;
+        usedCount = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = findSlot(keys[used[i]]);
+            slotStamps[slot] = stamp;
+            slotKeys[slot] = keys[used[i]];
+            slotHeads[slot] = heads[used[i]];
+            usedSlots[usedCount++] = slot;
+        }
+    }
+
+    private void testCells(double[] previous, double[] current, double[] radii, double margin, double size) {
+        for (int u = 0; u < usedCount; u++) {
+            int slot = usedSlots[u];
+            long key = slotKeys[slot];
+            for (int e1 = slotHeads[slot]; e1 >= 0; e1 = entryNext[e1]) {
+                int a = entryBodies[e1];
+                for (int e2 = entryNext[e1]; e2 >= 0; e2 = entryNext[e2]) {
+                    int b = entryBodies[e2];
+                    if (!overlap(a, b)) continue;
+                    // La pareja se prueba solo en la celda que contiene la esquina mínima de la intersección
+                    long reference = key(cell(Math.max(boxes[a * 6], boxes[b * 6]), size),
+                        cell(Math.max(boxes[a * 6 + 1], boxes[b * 6 + 1]), size),
+                        cell(Math.max(boxes[a * 6 + 2], boxes[b * 6 + 2]), size));
+                    if (reference != key) continue;
+                    narrowPhase(previous, current, radii, margin, a, b);
+                }
+            }
+        }
+    }
+
+    private void testOversized(double[] previous, double[] current, double[] radii, int count, double margin) {
+        for (int k = 0; k < oversizedCount; k++) {
+            int o = oversized[k];
+            for (int b = 0; b < count; b++) {
+                if (b == o || !overlap(o, b)) continue;
+                // Dos cuerpos grandes se prueban una sola vez
+                if (b < o && isOversized(b, k)) continue;
+                narrowPhase(previous, current, radii, margin, o, b);
+            }
+        }
+    }
+
+    private boolean isOversized(int body, int before) {
+        for (int k = 0; k < before; k++) {
+            if (oversized[k] == body) return true;
+        }
+        return false;
+    }
+
+    private boolean overlap(int a, int b) {
+        int oa = a * 6;
+        int ob = b * 6;
+        return boxes[oa] <= boxes[ob + 3] && boxes[ob] <= boxes[oa + 3]
+            && boxes[oa + 1] <= boxes[ob + 4] && boxes[ob + 1] <= boxes[oa + 4]
+            && boxes[oa + 2] <= boxes[ob + 5] && boxes[ob + 2] <= boxes[oa + 5];
+    }
+
+    /**
+     * Calcula la máxima aproximación de una pareja suponiendo movimiento relativo
+     * rectilíneo durante el paso y la registra si baja del límite.
+     */
+    private void narrowPhase(double[] previous, double[] current, double[] radii, double margin, int a, int b) {
+        double d0x = previous[b * 3] - previous[a * 3];
+        double d0y = previous[b * 3 + 1] - previous[a * 3 + 1];
+        double d0z = previous[b * 3 + 2] - previous[a * 3 + 2];
+        double dx = current[b * 3] - current[a * 3] - d0x;
+        double dy = current[b * 3 + 1] - current[a * 3 + 1] - d0y;
+        double dz = current[b * 3 + 2] - current[a * 3 + 2] - d0z;
+        double speed2 = dx * dx + dy * dy + dz * dz;
+        double t = speed2 > 0 ? -(d0x * dx + d0y * dy + d0z * dz) / speed2 : 0;
+        t = Math.max(0, Math.min(1, t));
+        double cx = d0x + dx * t;
+        double cy = d0y + dy * t;
+        double cz = d0z + dz * t;
+        double distance = Math.sqrt(cx * cx + cy * cy + cz * cz);
+        if (distance > radii[a] + radii[b] + margin) return;
+
+        if (found == firsts.length) {
+            int capacity = found * 2;
+            firsts = Arrays.copyOf(firsts, capacity);
+            seconds = Arrays.copyOf(seconds, capacity);
+            fractions = Arrays.copyOf(fractions, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+        }
+        firsts[found] = Math.min(a, b);
+        seconds[found] = Math.max(a, b);
+        fractions[found] = t;
+        distances[found] = distance;
+        found++;
+    }
+
+    private static long cell(double coordinate, double size) {
+        return (long) Math.floor(coordinate / size);
+    }
+
+    private static long key(long x, long y, long z) {
+        return (x & COORDINATE_MASK) | (y & COORDINATE_MASK) << COORDINATE_BITS
+            | (z & COORDINATE_MASK) << (2 * COORDINATE_BITS);
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+}
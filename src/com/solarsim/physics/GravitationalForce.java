@@ -5,7 +5,18 @@ package com.solarsim.physics;
  * Implementa la Ley de Gravitación Universal de Newton.
  */
 public class GravitationalForce {
-    
+    /** Constante de gravitación en km³/(kg·día²), las unidades de la simulación */
+    public static final double G_KM_DAY = 6.67430e-11 * 1e-9 * 86400.0 * 86400.0;
+
+    /**
+     * Calcula el parámetro gravitacional μ = G·M de un cuerpo.
+     * @param mass Masa del cuerpo (en kilogramos)
+     * @return μ en km³/día²
+     */
+    public static double gravitationalParameter(double mass) {
+        return G_KM_DAY * mass;
+    }
+
     /**
      * Calcula la fuerza gravitacional entre dos masas a una distancia dada.
      * Utiliza la fórmula F = G * (m1 * m2) / r²
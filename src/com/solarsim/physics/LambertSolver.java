@@ -0,0 +1,132 @@
+package com.solarsim.physics;
+
+/**
+ * Resuelve el problema de Lambert: la órbita kepleriana que une dos posiciones
+ * en un tiempo de vuelo dado, alrededor de un cuerpo central.
+ *
+ * Usa la formulación de variables universales (funciones de Stumpff) para
+ * transferencias de menos de una revolución, con iteraciones de Newton
+ * protegidas por un intervalo de bisección, de modo que converge también en los
+ * casos casi parabólicos o muy largos en los que Newton solo diverge. Los vectores
+ * están en el sistema del simulador (plano XZ, -Y hacia el norte de la eclíptica).
+ *
+ * Un solver guarda solo arrays de trabajo: cada hilo debe usar su propia instancia.
+ */
+public class LambertSolver {
+    private static final int MAX_ITERATIONS = 60;
+    private static final double TOLERANCE = 1e-11;
+
+    private final double mu;
+    private final double sqrtMu;
+
+    /**
+     * Crea un solver.
+     * @param mu Parámetro gravitacional del cuerpo central en km³/día²
+     */
+    public LambertSolver(double mu) {
+        this.mu = mu;
+        this.sqrtMu = Math.sqrt(mu);
+    }
+
+    /**
+     * Calcula las velocidades de salida y llegada de una transferencia.
+     * @param r1 Posición de salida [x, y, z] en km
+     * @param r2 Posición de llegada [x, y, z] en km
+     * @param timeOfFlight Tiempo de vuelo en días
+     * @param prograde true para recorrer la transferencia en el sentido de los planetas
+     * @param v1 Array donde se escribe la velocidad de salida en km/día
+     * @param v2 Array donde se escribe la velocidad de llegada en km/día
+     * @return false si no hay solución (tiempo no positivo, posiciones colineales o sin convergencia)
+     */
+    public boolean solve(double[] r1, double[] r2, double timeOfFlight, boolean prograde, double[] v1, double[] v2) {
+        if (!(timeOfFlight > 0)) return false;
+        double r1n = Math.sqrt(r1[0] * r1[0] + r1[1] * r1[1] + r1[2] * r1[2]);
+        double r2n = Math.sqrt(r2[0] * r2[0] + r2[1] * r2[1] + r2[2] * r2[2]);
+        double cosAngle = (r1[0] * r2[0] + r1[1] * r2[1] + r1[2] * r2[2]) / (r1n * r2n);
+        cosAngle = Math.max(-1, Math.min(1, cosAngle));
+
+        // Componente norte (-Y) de r1 × r2: positiva si el camino corto es directo
+        double north = -(r1[2] * r2[0] - r1[0] * r2[2]);
+        boolean shortWay = prograde ? north >= 0 : north < 0;
+        double sinAngle = Math.sqrt(1 - cosAngle * cosAngle) * (shortWay ? 1 : -1);
+        if (1 - cosAngle < 1e-14) return false;
+        double a = sinAngle * Math.sqrt(r1n * r2n / (1 - cosAngle));
+        if (Math.abs(a) < 1e-12 * (r1n + r2n)) return false;
+
+        double target = sqrtMu * timeOfFlight;
+        double low = -4 * Math.PI * Math.PI;
+        double high = 4 * Math.PI * Math.PI;
+        double z = 0;
+        double y = Double.NaN;
+        boolean converged = false;
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            double c = stumpffC(z);
+            double s = stumpffS(z);
+            y = r1n + r2n + a * (z * s - 1) / Math.sqrt(c);
+            if (a > 0 && y < 0) {
+                // Fuera del dominio: z demasiado pequeño
+                low = z;
+                z = (low + high) / 2;
+                continue;
+            }
+            double chi = Math.sqrt(y / c);
+            double f = chi * chi * chi * s + a * Math.sqrt(y) - target;
+            if (Math.abs(f) <= TOLERANCE * target) {
+                converged = true;
+                break;
+            }
+            if (f < 0) {
+                low = z;
+            } else {
+                high = z;
+            }
+            double derivative = derivative(z, y, c, s, a);
+            double next = derivative > 0 ? z - f / derivative : Double.NaN;
+            z = next > low && next < high ? next : (low + high) / 2;
+            if (high - low < 1e-14) {
+                converged = Math.abs(f) <= 1e-8 * target;
+                break;
+            }
+        }
+        if (!converged || !(y > 0)) return false;
+
+        double f = 1 - y / r1n;
+        double g = a * Math.sqrt(y / mu);
+        double gDot = 1 - y / r2n;
+        for (int axis = 0; axis < 3; axis++) {
+            v1[axis] = (r2[axis] - f * r1[axis]) / g;
+            v2[axis] = (gDot * r2[axis] - r1[axis]) / g;
+        }
+        return true;
+    }
+
+    /**
+     * Derivada del tiempo de vuelo (por √μ) respecto a z.
+     */
+    private static double derivative(double z, double y, double c, double s, double a) {
+        if (Math.abs(z) < 1e-8) {
+            return Math.sqrt(2) / 40 * y * Math.sqrt(y) + a / 8 * (Math.sqrt(y) + a * Math.sqrt(1 / (2 * y)));
+        }
+        double yc = y / c;
+        return yc * Math.sqrt(yc) * ((c - 1.5 * s / c) / (2 * z) + 0.75 * s * s / c)
+            + a / 8 * (3 * s / c * Math.sqrt(y) + a * Math.sqrt(c / y));
+    }
+
+    private static double stumpffC(double z) {
+        if (z > 1e-8) return (1 - Math.cos(Math.sqrt(z))) / z;
+        if (z < -1e-8) return (Math.cosh(Math.sqrt(-z)) - 1) / -z;
+        return 0.5 - z / 24;
+    }
+
+    private static double stumpffS(double z) {
+        if (z > 1e-8) {
+            double sz = Math.sqrt(z);
+            return (sz - Math.sin(sz)) / (sz * sz * sz);
+        }
+        if (z < -1e-8) {
+            double sz = Math.sqrt(-z);
+            return (Math.sinh(sz) - sz) / (sz * sz * sz);
+        }
+        return 1.0 / 6 - z / 120;
+    }
+}
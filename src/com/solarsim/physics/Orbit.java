@@ -1,16 +1,22 @@
 package com.solarsim.physics;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Clase que representa la órbita de un cuerpo celeste.
  * Almacena y calcula los parámetros orbitales utilizando los elementos keplerianos.
  */
 public class Orbit {
+    /** Cambios de elementos en cualquier órbita, para detectarlos sin recorrer todas */
+    private static final AtomicInteger CHANGES = new AtomicInteger();
+
     private double semiMajorAxis; // en kilómetros
     private double eccentricity; // adimensional
     private double inclination; // en grados
     private double longitudeOfAscendingNode; // en grados
     private double argumentOfPeriapsis; // en grados
     private double trueAnomaly; // en grados
+    private int version; // se incrementa cuando cambia la forma u orientación de la órbita
 
     /**
      * Constructor para crear una órbita con todos sus parámetros keplerianos.
@@ -57,6 +63,8 @@ public class Orbit {
      */
     public void setSemiMajorAxis(double semiMajorAxis) {
         this.semiMajorAxis = semiMajorAxis;
+        version++;
+        CHANGES.incrementAndGet();
     }
 
     /**
@@ -73,6 +81,8 @@ public class Orbit {
      */
     public void setEccentricity(double eccentricity) {
         this.eccentricity = eccentricity;
+        version++;
+        CHANGES.incrementAndGet();
     }
 
     /**
@@ -89,6 +99,8 @@ public class Orbit {
      */
     public void setInclination(double inclination) {
         this.inclination = inclination;
+        version++;
+        CHANGES.incrementAndGet();
     }
 
     /**
@@ -105,6 +117,8 @@ public class Orbit {
      */
     public void setLongitudeOfAscendingNode(double longitudeOfAscendingNode) {
         this.longitudeOfAscendingNode = longitudeOfAscendingNode;
+        version++;
+        CHANGES.incrementAndGet();
     }
 
     /**
@@ -121,6 +135,8 @@ public class Orbit {
      */
     public void setArgumentOfPeriapsis(double argumentOfPeriapsis) {
         this.argumentOfPeriapsis = argumentOfPeriapsis;
+        version++;
+        CHANGES.incrementAndGet();
     }
 
     /**
@@ -138,4 +154,203 @@ public class Orbit {
     public void setTrueAnomaly(double trueAnomaly) {
         this.trueAnomaly = trueAnomaly;
     }
-}
\ No newline at end of file
+
+    /**
+     * Obtiene un contador que cambia cada vez que se modifica la forma u orientación
+     * de la órbita (todos los elementos salvo la anomalía verdadera). Permite a quien
+     * guarde datos derivados de la trayectoria saber si debe recalcularlos.
+     * @return Versión actual de los elementos
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Obtiene un contador global que cambia cada vez que se modifica la forma u
+     * orientación de cualquier órbita. Si no ha cambiado desde la última consulta no
+     * hace falta comprobar {@link #getVersion()} órbita a órbita.
+     * @return Número de cambios de elementos desde el arranque
+     */
+    public static int getChangeCount() {
+        return CHANGES.get();
+    }
+
+    /**
+     * Calcula la distancia al foco para una anomalía verdadera dada: r = a(1-e²)/(1+e·cos ν).
+     * @param trueAnomalyRadians Anomalía verdadera en radianes
+     * @return Distancia al foco en kilómetros
+     */
+    public double radiusAtTrueAnomaly(double trueAnomalyRadians) {
+        return semiMajorAxis * (1 - eccentricity * eccentricity)
+            / (1 + eccentricity * Math.cos(trueAnomalyRadians));
+    }
+
+    /**
+     * Calcula la posición relativa al foco para una anomalía verdadera dada.
+     * El plano de referencia es el plano XZ del simulador (el mismo en el que se
+     * mueven los planetas) y el eje Y es su normal; una inclinación positiva eleva
+     * la órbita hacia -Y, que en JavaFX es "arriba".
+     *
+     * @param trueAnomalyRadians Anomalía verdadera en radianes
+     * @param out Array de al menos 3 elementos donde se escribe [x, y, z] en kilómetros
+     */
+    public void positionAtTrueAnomaly(double trueAnomalyRadians, double[] out) {
+        double r = radiusAtTrueAnomaly(trueAnomalyRadians);
+        double node = Math.toRadians(longitudeOfAscendingNode);
+        double incl = Math.toRadians(inclination);
+        double u = Math.toRadians(argumentOfPeriapsis) + trueAnomalyRadians; // argumento de latitud
+
+        double cosU = Math.cos(u);
+        double sinU = Math.sin(u);
+        double cosNode = Math.cos(node);
+        double sinNode = Math.sin(node);
+        double cosIncl = Math.cos(incl);
+
+        out[0] = r * (cosNode * cosU - sinNode * sinU * cosIncl);
+        out[1] = -r * (sinU * Math.sin(incl));
+        out[2] = r * (sinNode * cosU + cosNode * sinU * cosIncl);
+    }
+
+    /**
+     * Calcula la velocidad para una anomalía verdadera dada, en el mismo sistema
+     * que {@link #positionAtTrueAnomaly}. Solo para órbitas elípticas (e < 1).
+     *
+     * @param trueAnomalyRadians Anomalía verdadera en radianes
+     * @param mu Parámetro gravitacional del cuerpo central en km³/día²
+     * @param out Array de al menos 3 elementos donde se escribe [vx, vy, vz] en km/día
+     */
+    public void velocityAtTrueAnomaly(double trueAnomalyRadians, double mu, double[] out) {
+        double p = semiMajorAxis * (1 - eccentricity * eccentricity);
+        double scale = Math.sqrt(mu / p);
+        double radial = scale * eccentricity * Math.sin(trueAnomalyRadians);
+        double transverse = scale * (1 + eccentricity * Math.cos(trueAnomalyRadians));
+
+        double node = Math.toRadians(longitudeOfAscendingNode);
+        double incl = Math.toRadians(inclination);
+        double u = Math.toRadians(argumentOfPeriapsis) + trueAnomalyRadians;
+        double cosU = Math.cos(u);
+        double sinU = Math.sin(u);
+        double cosNode = Math.cos(node);
+        double sinNode = Math.sin(node);
+        double cosIncl = Math.cos(incl);
+        double sinIncl = Math.sin(incl);
+
+        // Dirección radial y su perpendicular en el plano de la órbita
+        out[0] = radial * (cosNode * cosU - sinNode * sinU * cosIncl)
+            + transverse * (-cosNode * sinU - sinNode * cosU * cosIncl);
+        out[1] = -radial * sinU * sinIncl - transverse * cosU * sinIncl;
+        out[2] = radial * (sinNode * cosU + cosNode * sinU * cosIncl)
+            + transverse * (-sinNode * sinU + cosNode * cosU * cosIncl);
+    }
+
+    /**
+     * Convierte la anomalía verdadera en anomalía media. Solo para órbitas elípticas (e < 1).
+     * @param trueAnomalyRadians Anomalía verdadera en radianes
+     * @param eccentricity Excentricidad (0 <= e < 1)
+     * @return Anomalía media en radianes, en [-π, π]
+     */
+    public static double meanAnomalyFromTrueAnomaly(double trueAnomalyRadians, double eccentricity) {
+        double eccentricAnomaly = 2 * Math.atan2(Math.sqrt(1 - eccentricity) * Math.sin(trueAnomalyRadians / 2),
+                                                 Math.sqrt(1 + eccentricity) * Math.cos(trueAnomalyRadians / 2));
+        return Math.IEEEremainder(eccentricAnomaly - eccentricity * Math.sin(eccentricAnomaly), 2 * Math.PI);
+    }
+
+    /**
+     * Convierte la anomalía media en anomalía verdadera resolviendo la ecuación de
+     * Kepler M = E - e·sin E por Newton-Raphson. Solo para órbitas elípticas (e < 1).
+     * @param meanAnomalyRadians Anomalía media en radianes
+     * @param eccentricity Excentricidad (0 <= e < 1)
+     * @return Anomalía verdadera en radianes, en [-π, π]
+     */
+    public static double trueAnomalyFromMeanAnomaly(double meanAnomalyRadians, double eccentricity) {
+        double m = Math.IEEEremainder(meanAnomalyRadians, 2 * Math.PI);
+        double e = eccentricity;
+        double eccentricAnomaly = e < 0.8 ? m : Math.PI * Math.signum(m);
+        for (int i = 0; i < 30; i++) {
+            double f = eccentricAnomaly - e * Math.sin(eccentricAnomaly) - m;
+            double delta = f / (1 - e * Math.cos(eccentricAnomaly));
+            eccentricAnomaly -= delta;
+            if (Math.abs(delta) < 1e-12) break;
+        }
+        return 2 * Math.atan2(Math.sqrt(1 + e) * Math.sin(eccentricAnomaly / 2),
+                              Math.sqrt(1 - e) * Math.cos(eccentricAnomaly / 2));
+    }
+
+    /**
+     * Calcula los elementos keplerianos a partir de un vector de estado relativo
+     * al cuerpo central. Los vectores están en el sistema del simulador (plano XZ,
+     * -Y hacia el norte de la eclíptica), el mismo de {@link #positionAtTrueAnomaly}.
+     * Para órbitas circulares o ecuatoriales, los ángulos indefinidos se toman como 0.
+     *
+     * @param position Posición [x, y, z] en kilómetros
+     * @param velocity Velocidad [vx, vy, vz] en kilómetros por día
+     * @param mu Parámetro gravitacional del cuerpo central en km³/día²
+     * @return La órbita osculadora (semieje mayor negativo si es hiperbólica)
+     */
+    public static Orbit fromStateVector(double[] position, double[] velocity, double mu) {
+        // Paso al sistema eclíptico: X = x, Y = z, Z = -y
+        double rx = position[0], ry = position[2], rz = -position[1];
+        double vx = velocity[0], vy = velocity[2], vz = -velocity[1];
+
+        double r = Math.sqrt(rx * rx + ry * ry + rz * rz);
+        double v2 = vx * vx + vy * vy + vz * vz;
+        double rv = rx * vx + ry * vy + rz * vz;
+
+        // Momento angular h = r × v
+        double hx = ry * vz - rz * vy;
+        double hy = rz * vx - rx * vz;
+        double hz = rx * vy - ry * vx;
+        double h = Math.sqrt(hx * hx + hy * hy + hz * hz);
+
+        // Vector excentricidad
+        double k = v2 - mu / r;
+        double ex = (k * rx - rv * vx) / mu;
+        double ey = (k * ry - rv * vy) / mu;
+        double ez = (k * rz - rv * vz) / mu;
+        double e = Math.sqrt(ex * ex + ey * ey + ez * ez);
+
+        double a = 1.0 / (2.0 / r - v2 / mu);
+        double incl = Math.acos(clamp(hz / h));
+
+        // Línea de nodos n = k × h
+        double nx = -hy;
+        double ny = hx;
+        double n = Math.sqrt(nx * nx + ny * ny);
+
+        double node = n > 1e-12 * h ? Math.atan2(ny, nx) : 0;
+        double periapsis;
+        double trueAnomaly;
+        if (e > 1e-10) {
+            double argument = n > 1e-12 * h
+                ? Math.acos(clamp((nx * ex + ny * ey) / (n * e)))
+                : Math.atan2(ey, ex);
+            if (n > 1e-12 * h && ez < 0) argument = 2 * Math.PI - argument;
+            periapsis = argument;
+            trueAnomaly = Math.acos(clamp((ex * rx + ey * ry + ez * rz) / (e * r)));
+            if (rv < 0) trueAnomaly = 2 * Math.PI - trueAnomaly;
+        } else {
+            // Órbita circular: se mide desde el nodo (o desde X si además es ecuatorial)
+            periapsis = 0;
+            if (n > 1e-12 * h) {
+                trueAnomaly = Math.acos(clamp((nx * rx + ny * ry) / (n * r)));
+                if (rz < 0) trueAnomaly = 2 * Math.PI - trueAnomaly;
+            } else {
+                trueAnomaly = Math.atan2(ry, rx);
+                if (hz < 0) trueAnomaly = -trueAnomaly;
+            }
+        }
+
+        return new Orbit(a, e, Math.toDegrees(incl), Math.toDegrees(normalize(node)),
+            Math.toDegrees(normalize(periapsis)), Math.toDegrees(normalize(trueAnomaly)));
+    }
+
+    private static double clamp(double cosine) {
+        return Math.max(-1, Math.min(1, cosine));
+    }
+
+    private static double normalize(double angle) {
+        double twoPi = 2 * Math.PI;
+        angle %= twoPi;
+        return angle < 0 ? angle + twoPi : angle;
+    }
+}
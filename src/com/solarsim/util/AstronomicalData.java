@@ -1,33 +1,53 @@
 package com.solarsim.util;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.solarsim.util.catalog.BodyRecord;
+import com.solarsim.util.catalog.JsonCatalogReader;
+import com.solarsim.util.logging.Log;
+import com.solarsim.util.logging.Logger;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Clase para cargar y gestionar datos astronómicos desde archivos JSON.
  * Proporciona métodos para acceder a la información de planetas y otros cuerpos celestes.
+ *
+ * El fichero se lee en streaming con {@link JsonCatalogReader} y cada cuerpo se
+ * guarda como un {@link BodyRecord} compacto; no se conserva el árbol JSON. Los
+ * cuerpos se identifican por el campo {@code name} del fichero y los campos que el
+ * registro no tipa se guardan tal cual. Los campos reconocidos se devuelven con su
+ * nombre canónico ({@code radius}, {@code mass} en kg...) aunque el fichero use
+ * otro ({@code meanRadius}, {@code {massValue, massExponent}}...).
+ *
+ * {@link #getPlanetData(String)} construye un objeto JSON nuevo en cada llamada;
+ * {@link #getPlanetDataAsMap(String)} devuelve una vista no modificable que se
+ * construye una vez por cuerpo.
  */
 public class AstronomicalData {
+    private static final Logger LOG = Log.getLogger(AstronomicalData.class);
 
-    private Map<String, JsonObject> planetData;
-    private Gson gson;
+    private final List<BodyRecord> records;
+    private final Map<String, BodyRecord> recordsByName;
+    private final Map<String, Map<String, Object>> mapViews = new ConcurrentHashMap<>();
+    private final Gson gson = new Gson();
 
     /**
      * Constructor que inicializa y carga datos astronómicos desde un archivo.
      * @param filePath Ruta al archivo JSON con los datos astronómicos
      */
     public AstronomicalData(String filePath) {
-        planetData = new HashMap<>();
-        gson = new Gson();
+        records = new ArrayList<>();
+        recordsByName = new HashMap<>();
         loadData(filePath);
     }
 
@@ -37,45 +57,129 @@ public class AstronomicalData {
      */
     private void loadData(String filePath) {
         try {
-            String content = new String(Files.readAllBytes(Paths.get(filePath)));
-            JsonArray planetsArray = JsonParser.parseString(content).getAsJsonArray();
-            for (JsonElement element : planetsArray) {
-                JsonObject planet = element.getAsJsonObject();
-                String name = planet.get("name").getAsString();
-                planetData.put(name, planet);
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+            new JsonCatalogReader(true).read(Paths.get(filePath), record -> {
+                records.add(record);
+                recordsByName.put(record.getCatalogName(), record);
+            });
+            LOG.info("Cargados {} cuerpos de {}", records.size(), filePath);
+        } catch (IOException | RuntimeException e) {
+            LOG.error("No se pudo cargar el catálogo " + filePath, e);
         }
     }
 
+    /**
+     * Obtiene el registro de un cuerpo.
+     * @param name Nombre del cuerpo (campo {@code name} del fichero)
+     * @return El registro, o null si no existe
+     */
+    public BodyRecord getRecord(String name) {
+        return recordsByName.get(name);
+    }
+
+    /**
+     * Obtiene todos los registros en el orden del fichero.
+     * @return Lista no modificable de registros
+     */
+    public List<BodyRecord> getRecords() {
+        return Collections.unmodifiableList(records);
+    }
+
+    /**
+     * Obtiene el número de cuerpos cargados.
+     * @return Número de registros
+     */
+    public int size() {
+        return records.size();
+    }
+
     /**
      * Obtiene los datos de un planeta específico como objeto JSON.
      * @param planetName Nombre del planeta
      * @return Objeto JSON con los datos del planeta, o null si no existe
      */
     public JsonObject getPlanetData(String planetName) {
-        return planetData.get(planetName);
+        BodyRecord record = recordsByName.get(planetName);
+        return record != null ? toJson(record) : null;
     }
 
     /**
      * Obtiene todos los datos de planetas disponibles.
+     * Construye un objeto JSON por cuerpo; con catálogos grandes es preferible {@link #getRecords()}.
      * @return Mapa con todos los datos planetarios
      */
     public Map<String, JsonObject> getAllPlanetData() {
-        return planetData;
+        Map<String, JsonObject> result = new LinkedHashMap<>();
+        for (BodyRecord record : records) {
+            result.put(record.getCatalogName(), toJson(record));
+        }
+        return result;
     }
-    
+
     /**
      * Obtiene los datos de un planeta específico como Map.
      * @param planetName Nombre del planeta
-     * @return Map con los datos del planeta, o null si no existe
+     * @return Map no modificable con los datos del planeta, o null si no existe
      */
     public Map<String, Object> getPlanetDataAsMap(String planetName) {
-        JsonObject jsonObject = planetData.get(planetName);
-        if (jsonObject == null) {
+        BodyRecord record = recordsByName.get(planetName);
+        if (record == null) {
             return null;
         }
-        return gson.fromJson(jsonObject, Map.class);
+        return mapViews.computeIfAbsent(planetName, key -> toMap(record));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toMap(BodyRecord record) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("name", record.getCatalogName());
+        if (!record.getName().equals(record.getCatalogName())) map.put("englishName", record.getName());
+        if (record.getParentName() != null) map.put("parent", record.getParentName());
+        putIfKnown(map, "mass", record.getMass());
+        putIfKnown(map, "radius", record.getRadius());
+        putIfKnown(map, "semiMajorAxis", record.getSemiMajorAxis());
+        putIfKnown(map, "eccentricity", record.getEccentricity());
+        putIfKnown(map, "inclination", record.getInclination());
+        putIfKnown(map, "longitudeOfAscendingNode", record.getLongitudeOfAscendingNode());
+        putIfKnown(map, "argumentOfPeriapsis", record.getArgumentOfPeriapsis());
+        putIfKnown(map, "meanAnomaly", record.getMeanAnomaly());
+        putIfKnown(map, "orbitalPeriod", record.getOrbitalPeriod());
+        map.put("isPlanet", record.isPlanet());
+        JsonObject extra = record.getExtraFields();
+        if (extra != null) {
+            map.putAll(gson.fromJson(extra, Map.class));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static JsonObject toJson(BodyRecord record) {
+        JsonObject json = new JsonObject();
+        json.addProperty("name", record.getCatalogName());
+        if (!record.getName().equals(record.getCatalogName())) json.addProperty("englishName", record.getName());
+        if (record.getParentName() != null) json.addProperty("parent", record.getParentName());
+        addIfKnown(json, "mass", record.getMass());
+        addIfKnown(json, "radius", record.getRadius());
+        addIfKnown(json, "semiMajorAxis", record.getSemiMajorAxis());
+        addIfKnown(json, "eccentricity", record.getEccentricity());
+        addIfKnown(json, "inclination", record.getInclination());
+        addIfKnown(json, "longitudeOfAscendingNode", record.getLongitudeOfAscendingNode());
+        addIfKnown(json, "argumentOfPeriapsis", record.getArgumentOfPeriapsis());
+        addIfKnown(json, "meanAnomaly", record.getMeanAnomaly());
+        addIfKnown(json, "orbitalPeriod", record.getOrbitalPeriod());
+        json.addProperty("isPlanet", record.isPlanet());
+        JsonObject extra = record.getExtraFields();
+        if (extra != null) {
+            for (Map.Entry<String, JsonElement> field : extra.entrySet()) {
+                json.add(field.getKey(), field.getValue().deepCopy());
+            }
+        }
+        return json;
+    }
+
+    private static void addIfKnown(JsonObject json, String key, double value) {
+        if (!Double.isNaN(value)) json.addProperty(key, value);
+    }
+
+    private static void putIfKnown(Map<String, Object> map, String key, double value) {
+        if (!Double.isNaN(value)) map.put(key, value);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,205 @@
+package com.solarsim.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+import com.solarsim.model.SystemState;
+
+/**
+ * Lectura y escritura de checkpoints binarios de un {@link SystemState}.
+ *
+ * Formato (little-endian): una cabecera de 64 bytes seguida de los arrays del
+ * estado, cada uno copiado en bloque desde o hacia un buffer directo mediante
+ * sus vistas {@code asIntBuffer()}/{@code asDoubleBuffer()}:
+ * <pre>
+ *   0  int    magia "SCKP"
+ *   4  int    versión
+ *   8  int    flags (bit 0: hay CRC32C de la carga)
+ *  12  int    número de cuerpos n
+ *  16  double tiempo de simulación (días)
+ *  24  long   pasos dados
+ *  32  double último paso de tiempo (días)
+ *  40  long   longitud de la carga en bytes
+ *  48  long   CRC32C de la carga (0 si no hay)
+ *  56  -      reservado
+ *  64  int[n]     identificadores (rellenado a múltiplo de 8 bytes)
+ *      double[3n] posiciones
+ *      double[3n] velocidades
+ *      double[n]  ángulos
+ *      double[n]  masas
+ * </pre>
+ *
+ * El fichero se escribe en un temporal junto al destino y se mueve al final, así
+ * que un checkpoint a medio escribir nunca reemplaza al anterior. El buffer
+ * directo se reutiliza entre llamadas; una instancia no debe usarse desde varios
+ * hilos a la vez.
+ */
+public class CheckpointFile {
+    public static final int MAGIC = 0x504B4353; // "SCKP" en little-endian
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+
+    private static final int FLAG_CHECKSUM = 1;
+
+    private ByteBuffer buffer;
+
+    /**
+     * Escribe un checkpoint.
+     * @param path Fichero de destino
+     * @param state Estado a guardar
+     * @param checksum true para calcular y guardar un CRC32C de la carga
+     * @throws IOException Si no se puede escribir
+     */
+    public void write(Path path, SystemState state, boolean checksum) throws IOException {
+        int count = state.size();
+        long payloadLength = payloadLength(count);
+        ByteBuffer data = buffer(HEADER_SIZE + payloadLength);
+
+        data.position(HEADER_SIZE);
+        data.asIntBuffer().put(state.getIds(), 0, count);
+        data.position(HEADER_SIZE + idsLength(count));
+        data.asDoubleBuffer()
+            .put(state.getPositions(), 0, count * 3)
+            .put(state.getVelocities(), 0, count * 3)
+            .put(state.getAngles(), 0, count)
+            .put(state.getMasses(), 0, count);
+
+        long crc = 0;
+        if (checksum) {
+            data.position(HEADER_SIZE);
+            crc = checksum(data);
+        }
+
+        data.putInt(0, MAGIC);
+        data.putInt(4, VERSION);
+        data.putInt(8, checksum ? FLAG_CHECKSUM : 0);
+        data.putInt(12, count);
+        data.putDouble(16, state.getSimulationTime());
+        data.putLong(24, state.getStepCount());
+        data.putDouble(32, state.getLastTimeStep());
+        data.putLong(40, payloadLength);
+        data.putLong(48, crc);
+        data.position(0);
+
+        Path absolute = path.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            channel.force(false);
+        }
+        try {
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Lee un checkpoint.
+     * @param path Fichero del checkpoint
+     * @param state Estado a rellenar (se reutilizan sus arrays), o null para crear uno
+     * @return El estado leído
+     * @throws IOException Si no se puede leer, no es un checkpoint, su versión no es
+     *                     compatible o la suma de verificación no coincide
+     */
+    public SystemState read(Path path, SystemState state) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Checkpoint truncado: " + path);
+            }
+            ByteBuffer header = buffer(HEADER_SIZE);
+            readFully(channel, header, path);
+
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("No es un checkpoint de SolarSim: " + path);
+            }
+            int version = header.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("Versión de checkpoint no soportada: " + version);
+            }
+            int flags = header.getInt(8);
+            int count = header.getInt(12);
+            double simulationTime = header.getDouble(16);
+            long stepCount = header.getLong(24);
+            double lastTimeStep = header.getDouble(32);
+            long payloadLength = header.getLong(40);
+            long storedCrc = header.getLong(48);
+            if (count < 0 || payloadLength != payloadLength(count) || size < HEADER_SIZE + payloadLength) {
+                throw new IOException("Checkpoint truncado o dañado: " + path);
+            }
+
+            ByteBuffer data = buffer(payloadLength);
+            readFully(channel, data, path);
+            if ((flags & FLAG_CHECKSUM) != 0 && checksum(data) != storedCrc) {
+                throw new IOException("La suma de verificación del checkpoint no coincide: " + path);
+            }
+
+            if (state == null) state = new SystemState();
+            state.resize(count);
+            data.position(0);
+            data.asIntBuffer().get(state.getIds(), 0, count);
+            data.position(idsLength(count));
+            data.asDoubleBuffer()
+                .get(state.getPositions(), 0, count * 3)
+                .get(state.getVelocities(), 0, count * 3)
+                .get(state.getAngles(), 0, count)
+                .get(state.getMasses(), 0, count);
+            state.setSimulationTime(simulationTime);
+            state.setStepCount(stepCount);
+            state.setLastTimeStep(lastTimeStep);
+            return state;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, Path path) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target) < 0) {
+                throw new IOException("Checkpoint truncado: " + path);
+            }
+        }
+        target.flip();
+    }
+
+    /**
+     * Calcula el CRC32C de los bytes restantes del buffer sin mover su posición.
+     */
+    private static long checksum(ByteBuffer data) {
+        CRC32C crc = new CRC32C();
+        crc.update(data.duplicate());
+        return crc.getValue();
+    }
+
+    /**
+     * Devuelve el buffer directo reutilizable, ampliado si hace falta, listo para
+     * usar sus primeros {@code length} bytes.
+     */
+    private ByteBuffer buffer(long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Checkpoint demasiado grande: " + length + " bytes");
+        }
+        if (buffer == null || buffer.capacity() < length) {
+            buffer = ByteBuffer.allocateDirect((int) length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        buffer.clear().limit((int) length);
+        return buffer;
+    }
+
+    private static int idsLength(int count) {
+        return (count * Integer.BYTES + 7) & ~7;
+    }
+
+    private static long payloadLength(int count) {
+        return idsLength(count) + (long) count * 8 * Double.BYTES;
+    }
+}
@@ -0,0 +1,259 @@
+package com.solarsim.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Properties;
+
+import com.solarsim.util.logging.Log;
+import com.solarsim.util.logging.Logger;
+
+/**
+ * Caché en disco de respuestas HTTP GET.
+ *
+ * Cada URL se guarda como dos ficheros en el directorio de la caché: el cuerpo
+ * de la respuesta tal cual llegó y unas propiedades con el ETag, la cabecera
+ * Last-Modified, el instante de la última validación y el tamaño y la fecha del
+ * cuerpo que describen. Los metadatos se escriben después del cuerpo y solo se
+ * usan si siguen describiendo el cuerpo guardado: si el proceso se interrumpe
+ * entre las dos escrituras, el cuerpo nuevo no se sirve con la validación (ni el
+ * ETag) del anterior, sino que se revalida sin petición condicional. Mientras no haya pasado
+ * el TTL la copia se sirve sin tocar la red; después se revalida con una
+ * petición condicional (If-None-Match / If-Modified-Since) y un 304 solo renueva
+ * el instante de validación.
+ *
+ * Si la red falla y existe una copia, aunque esté caducada, se usa esa copia.
+ * Las conexiones tienen tiempos máximos de conexión y de lectura para que un
+ * servidor lento no bloquee indefinidamente.
+ */
+public class HttpResponseCache {
+    private static final Logger LOG = Log.getLogger(HttpResponseCache.class);
+
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "lastModified";
+    private static final String VALIDATED_AT = "validatedAt";
+    private static final String BODY_SIZE = "bodySize";
+    private static final String BODY_MODIFIED = "bodyModified";
+
+    private final Path directory;
+    private final Duration timeToLive;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    /**
+     * Crea una caché.
+     * @param directory Directorio donde se guardan las respuestas (se crea si no existe)
+     * @param timeToLive Tiempo durante el que una respuesta se sirve sin revalidar
+     * @param connectTimeoutMillis Tiempo máximo para establecer la conexión, en milisegundos
+     * @param readTimeoutMillis Tiempo máximo de espera entre datos recibidos, en milisegundos
+     */
+    public HttpResponseCache(Path directory, Duration timeToLive, int connectTimeoutMillis, int readTimeoutMillis) {
+        this.directory = directory;
+        this.timeToLive = timeToLive;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    /**
+     * Crea una caché en el directorio por defecto: la propiedad del sistema
+     * {@code solarsim.cache.dir} o, si no está definida, {@code ~/.solarsim/cache}.
+     * @param timeToLive Tiempo durante el que una respuesta se sirve sin revalidar
+     * @return La caché
+     */
+    public static HttpResponseCache createDefault(Duration timeToLive) {
+        String configured = System.getProperty("solarsim.cache.dir");
+        Path dir = configured != null
+            ? Paths.get(configured)
+            : Paths.get(System.getProperty("user.home"), ".solarsim", "cache");
+        return new HttpResponseCache(dir, timeToLive, 5000, 15000);
+    }
+
+    /**
+     * Obtiene el cuerpo de la respuesta a un GET, desde la caché o desde la red.
+     * @param url Dirección a consultar
+     * @return Ruta del fichero con el cuerpo de la respuesta
+     * @throws IOException Si no hay copia en caché y la petición falla
+     */
+    public Path fetch(URL url) throws IOException {
+        Path body = bodyPath(url);
+        Path meta = metaPath(url);
+        Properties properties = readMeta(meta, body);
+
+        if (Files.exists(body) && isFresh(properties)) {
+            return body;
+        }
+
+        try {
+            return download(url, body, meta, properties);
+        } catch (IOException e) {
+            if (Files.exists(body)) {
+                LOG.warn("No se pudo revalidar " + url + "; se usa la copia en caché", e);
+                return body;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Indica si la respuesta guardada de una URL se puede servir sin revalidar.
+     * @param url Dirección consultada
+     * @return true si hay una copia dentro del TTL
+     */
+    public boolean isFresh(URL url) {
+        try {
+            Path body = bodyPath(url);
+            return Files.exists(body) && isFresh(readMeta(metaPath(url), body));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Obtiene el instante (en milisegundos) en que se validó por última vez la copia de una URL.
+     * @param url Dirección consultada
+     * @return Instante de la última validación, o 0 si no hay copia
+     */
+    public long getValidatedAt(URL url) {
+        try {
+            return Long.parseLong(readMeta(metaPath(url), bodyPath(url)).getProperty(VALIDATED_AT, "0"));
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private boolean isFresh(Properties properties) {
+        long validatedAt;
+        try {
+            validatedAt = Long.parseLong(properties.getProperty(VALIDATED_AT, "0"));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return System.currentTimeMillis() - validatedAt < timeToLive.toMillis();
+    }
+
+    private Path download(URL url, Path body, Path meta, Properties previous) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("GET");
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+        connection.setUseCaches(false);
+
+        String etag = previous.getProperty(ETAG);
+        String lastModified = previous.getProperty(LAST_MODIFIED);
+        if (etag != null) {
+            connection.setRequestProperty("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            connection.setRequestProperty("If-Modified-Since", lastModified);
+        }
+
+        try {
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                LOG.debug("{} no ha cambiado (304)", url);
+                previous.setProperty(VALIDATED_AT, Long.toString(System.currentTimeMillis()));
+                writeMeta(meta, previous);
+                return body;
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Respuesta " + status + " de " + url + ": " + connection.getResponseMessage());
+            }
+
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "download", ".tmp");
+            try (InputStream in = connection.getInputStream();
+                 OutputStream out = Files.newOutputStream(temp)) {
+                in.transferTo(out);
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            Files.move(temp, body, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            Properties properties = new Properties();
+            if (connection.getHeaderField("ETag") != null) {
+                properties.setProperty(ETAG, connection.getHeaderField("ETag"));
+            }
+            if (connection.getHeaderField("Last-Modified") != null) {
+                properties.setProperty(LAST_MODIFIED, connection.getHeaderField("Last-Modified"));
+            }
+            properties.setProperty(VALIDATED_AT, Long.toString(System.currentTimeMillis()));
+            properties.setProperty(BODY_SIZE, Long.toString(Files.size(body)));
+            properties.setProperty(BODY_MODIFIED, Long.toString(Files.getLastModifiedTime(body).toMillis()));
+            writeMeta(meta, properties);
+            LOG.debug("{} descargado ({} bytes)", url, Files.size(body));
+            return body;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Lee los metadatos de una respuesta.
+     * @return Las propiedades, o unas vacías si no existen o describen otro cuerpo
+     *         (por ejemplo, el anterior a una descarga interrumpida)
+     */
+    private Properties readMeta(Path meta, Path body) throws IOException {
+        Properties properties = new Properties();
+        if (!Files.exists(meta) || !Files.exists(body)) {
+            return properties;
+        }
+        try (Reader reader = Files.newBufferedReader(meta, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        String size = Long.toString(Files.size(body));
+        String modified = Long.toString(Files.getLastModifiedTime(body).toMillis());
+        if (!size.equals(properties.getProperty(BODY_SIZE)) || !modified.equals(properties.getProperty(BODY_MODIFIED))) {
+            LOG.debug("Los metadatos de {} no corresponden a su respuesta; se ignoran", body);
+            return new Properties();
+        }
+        return properties;
+    }
+
+    private void writeMeta(Path meta, Properties properties) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "meta", ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(temp, meta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path bodyPath(URL url) {
+        return directory.resolve(key(url) + ".body");
+    }
+
+    private Path metaPath(URL url) {
+        return directory.resolve(key(url) + ".meta");
+    }
+
+    /**
+     * Nombre de fichero estable para una URL (SHA-1 en hexadecimal).
+     */
+    private static String key(URL url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                .digest(url.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+                hex.append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
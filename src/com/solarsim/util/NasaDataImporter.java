@@ -1,49 +1,124 @@
 package com.solarsim.util;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
+import java.io.Reader;
+import java.lang.reflect.Type;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
 import com.solarsim.model.Planet;
+import com.solarsim.util.logging.Log;
+import com.solarsim.util.logging.Logger;
 
 public class NasaDataImporter {
+    private static final Logger LOG = Log.getLogger(NasaDataImporter.class);
 
     private static final String NASA_API_URL = "https://api.le-systeme-solaire.net/rest/bodies/";
-    private Gson gson;
+    private static final Duration DEFAULT_TTL = Duration.ofHours(24);
+    private static final Type BODY_MAP = new TypeToken<Map<String, Object>>() { }.getType();
+
+    /** Hilo de descarga en segundo plano, compartido por todos los importadores */
+    private static final ExecutorService FETCH_EXECUTOR = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "solarsim-fetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Gson gson;
+    private final URL apiUrl;
+    private final HttpResponseCache cache;
+
+    // Resultado ya interpretado, compartido entre llamadas mientras el fichero en caché no cambie
+    private JsonArray parsedBodies;
+    private FileTime parsedModified;
 
     public NasaDataImporter() {
-        this.gson = new Gson();
+        this(NASA_API_URL, HttpResponseCache.createDefault(DEFAULT_TTL));
     }
 
-    public JsonArray fetchAstronomicalData() throws IOException {
-        URL url = new URL(NASA_API_URL);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("GET");
+    /**
+     * Crea un importador contra una dirección y una caché concretas (por ejemplo,
+     * un servidor local que sustituye a la API en las pruebas).
+     * @param apiUrl Dirección del listado de cuerpos
+     * @param cache Caché en disco de las respuestas
+     */
+    public NasaDataImporter(String apiUrl, HttpResponseCache cache) {
+        this.gson = new Gson();
+        try {
+            this.apiUrl = new URL(apiUrl);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("URL no válida: " + apiUrl, e);
+        }
+        this.cache = cache;
+    }
 
-        if (connection.getResponseCode() != 200) {
-            throw new IOException("Failed to fetch data from NASA API: " + connection.getResponseMessage());
+    /**
+     * Obtiene el listado de cuerpos. Dentro del TTL de la caché se devuelve el
+     * mismo array ya interpretado sin acceder a la red ni volver a leer la
+     * respuesta (solo se consultan los metadatos de la caché en disco); pasado el
+     * TTL se revalida y solo se vuelve a interpretar si la respuesta ha cambiado.
+     * El array devuelto es compartido y no debe modificarse.
+     * @return Array JSON con los cuerpos
+     * @throws IOException Si no hay copia en caché y la descarga falla
+     */
+    public synchronized JsonArray fetchAstronomicalData() throws IOException {
+        if (parsedBodies != null && cache.isFresh(apiUrl)) {
+            return parsedBodies;
         }
 
-        BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-        StringBuilder response = new StringBuilder();
-        String line;
+        Path body = cache.fetch(apiUrl);
+        FileTime modified = Files.getLastModifiedTime(body);
+        if (parsedBodies != null && modified.equals(parsedModified)) {
+            return parsedBodies;
+        }
 
-        while ((line = reader.readLine()) != null) {
-            response.append(line);
+        try (Reader reader = Files.newBufferedReader(body, StandardCharsets.UTF_8)) {
+            JsonObject jsonResponse = JsonParser.parseReader(reader).getAsJsonObject();
+            parsedBodies = jsonResponse.getAsJsonArray("bodies");
+            parsedModified = modified;
+        } catch (RuntimeException e) {
+            throw new IOException("Respuesta no válida de " + apiUrl, e);
         }
-        reader.close();
+        return parsedBodies;
+    }
 
-        JsonObject jsonResponse = JsonParser.parseString(response.toString()).getAsJsonObject();
-        return jsonResponse.getAsJsonArray("bodies");
+    /**
+     * Obtiene el listado de cuerpos en un hilo de fondo, para que el arranque no
+     * espere a una API lenta.
+     * @return Futuro con el array JSON de cuerpos
+     */
+    public CompletableFuture<JsonArray> fetchAstronomicalDataAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetchAstronomicalData();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, FETCH_EXECUTOR);
+    }
+
+    /**
+     * Crea los planetas a partir de los datos de la API en un hilo de fondo.
+     * @return Futuro con la lista de planetas
+     */
+    public CompletableFuture<List<Planet>> createPlanetsFromDataAsync() {
+        return CompletableFuture.supplyAsync(this::createPlanetsFromData, FETCH_EXECUTOR);
     }
 
     public List<Map<String, Object>> processAstronomicalData() {
@@ -54,23 +129,24 @@ public class NasaDataImporter {
                 JsonObject body = element.getAsJsonObject();
                 
                 // Convert JsonObject to Map
-                Map<String, Object> planetData = gson.fromJson(body, Map.class);
+                Map<String, Object> planetData = gson.fromJson(body, BODY_MAP);
                 planetsList.add(planetData);
                 
-                // Display some basic info
-                System.out.println("Name: " + planetData.get("englishName"));
-                if (planetData.containsKey("mass") && planetData.get("mass") != null) {
-                    Map<String, Object> massInfo = (Map<String, Object>) planetData.get("mass");
-                    if (massInfo.containsKey("massValue") && massInfo.containsKey("massExponent")) {
-                        double massValue = ((Number) massInfo.get("massValue")).doubleValue();
-                        double massExponent = ((Number) massInfo.get("massExponent")).doubleValue();
-                        double totalMass = massValue * Math.pow(10, massExponent);
-                        System.out.println("Mass: " + totalMass + " kg");
-                    }
+                String name = body.has("englishName") && !body.get("englishName").isJsonNull()
+                    ? body.get("englishName").getAsString() : null;
+                JsonElement mass = body.get("mass");
+                if (mass != null && mass.isJsonObject()
+                        && mass.getAsJsonObject().has("massValue") && mass.getAsJsonObject().has("massExponent")) {
+                    JsonObject massObj = mass.getAsJsonObject();
+                    double totalMass = massObj.get("massValue").getAsDouble()
+                        * Math.pow(10, massObj.get("massExponent").getAsDouble());
+                    LOG.debug("Cuerpo {}: {} kg", name, totalMass);
+                } else {
+                    LOG.debug("Cuerpo {}", name);
                 }
             }
         } catch (IOException e) {
-            e.printStackTrace();
+            LOG.error("No se pudieron obtener los datos astronómicos", e);
         }
         return planetsList;
     }
@@ -122,7 +198,7 @@ public class NasaDataImporter {
                 }
             }
         } catch (IOException e) {
-            e.printStackTrace();
+            LOG.error("No se pudieron obtener los datos astronómicos", e);
         }
         return planets;
     }
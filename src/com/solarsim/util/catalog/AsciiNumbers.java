@@ -0,0 +1,141 @@
+package com.solarsim.util.catalog;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Conversión de números en texto ASCII directamente desde un búfer de bytes,
+ * sin crear cadenas intermedias. Pensada para ficheros de ancho fijo y tablas
+ * numéricas de millones de líneas.
+ */
+public final class AsciiNumbers {
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        double value = 1;
+        for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = value;
+            value *= 10;
+        }
+    }
+
+    private AsciiNumbers() {
+    }
+
+    /**
+     * Interpreta un número decimal entre dos posiciones absolutas del búfer. Se
+     * ignoran los espacios a ambos lados y se admite signo, parte fraccionaria y
+     * exponente ({@code E} o {@code D}, como en Fortran).
+     *
+     * Con hasta 15 dígitos significativos y exponentes decimales moderados el
+     * resultado coincide con {@link Double#parseDouble}; fuera de ese rango puede
+     * diferir en el último bit.
+     *
+     * @param buffer Búfer con el texto
+     * @param from Posición absoluta del primer byte del campo
+     * @param to Posición absoluta siguiente al último byte del campo
+     * @return El valor, o NaN si el campo está vacío o no es un número
+     */
+    public static double parseDouble(ByteBuffer buffer, int from, int to) {
+        while (from < to && buffer.get(from) == ' ') from++;
+        while (to > from && isBlank(buffer.get(to - 1))) to--;
+        if (from >= to) return Double.NaN;
+
+        int pos = from;
+        boolean negative = false;
+        byte c = buffer.get(pos);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            pos++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0; // potencia de diez que hay que aplicar a la mantisa
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; pos < to; pos++) {
+            c = buffer.get(pos);
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                if (digits < 18) {
+                    if (mantissa != 0 || c != '0') digits++;
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (seenPoint) scale--;
+                } else if (!seenPoint) {
+                    scale++; // dígitos que ya no caben en la mantisa
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (!seenDigit) return Double.NaN;
+
+        if (pos < to) {
+            c = buffer.get(pos);
+            if (c != 'e' && c != 'E' && c != 'd' && c != 'D') return Double.NaN;
+            pos++;
+            boolean negativeExponent = false;
+            if (pos < to && (buffer.get(pos) == '-' || buffer.get(pos) == '+')) {
+                negativeExponent = buffer.get(pos) == '-';
+                pos++;
+            }
+            int exponent = 0;
+            boolean exponentDigit = false;
+            for (; pos < to; pos++) {
+                c = buffer.get(pos);
+                if (c < '0' || c > '9') return Double.NaN;
+                exponentDigit = true;
+                if (exponent < 10000) exponent = exponent * 10 + (c - '0');
+            }
+            if (!exponentDigit) return Double.NaN;
+            scale += negativeExponent ? -exponent : exponent;
+        }
+
+        double value = mantissa;
+        if (scale != 0) {
+            if (scale < 0 && -scale < POWERS_OF_TEN.length) {
+                value /= POWERS_OF_TEN[-scale];
+            } else if (scale > 0 && scale < POWERS_OF_TEN.length) {
+                value *= POWERS_OF_TEN[scale];
+            } else {
+                value *= Math.pow(10, scale);
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Interpreta un entero entre dos posiciones absolutas del búfer, ignorando espacios.
+     * @param buffer Búfer con el texto
+     * @param from Posición absoluta del primer byte del campo
+     * @param to Posición absoluta siguiente al último byte del campo
+     * @param missing Valor devuelto si el campo está vacío o no es un entero
+     * @return El valor
+     */
+    public static long parseLong(ByteBuffer buffer, int from, int to, long missing) {
+        while (from < to && buffer.get(from) == ' ') from++;
+        while (to > from && isBlank(buffer.get(to - 1))) to--;
+        if (from >= to) return missing;
+
+        boolean negative = false;
+        byte c = buffer.get(from);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            from++;
+        }
+        if (from >= to) return missing;
+        long value = 0;
+        for (int pos = from; pos < to; pos++) {
+            c = buffer.get(pos);
+            if (c < '0' || c > '9') return missing;
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private static boolean isBlank(byte c) {
+        return c == ' ' || c == '\r' || c == '\t';
+    }
+}
@@ -0,0 +1,229 @@
+package com.solarsim.util.catalog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Catálogo binario de cuerpos abierto mediante {@link FileChannel#map}.
+ *
+ * Abrir el catálogo solo lee la cabecera y el directorio de columnas; los datos
+ * se leen directamente de la página mapeada cuando se piden, sin copiarlos al
+ * montón de Java. Cargar un catálogo de un millón de cuerpos es, por tanto,
+ * prácticamente instantáneo, y una ejecución que solo necesita algunas columnas
+ * solo toca las páginas de esas columnas.
+ *
+ * Formato (little-endian), versión {@value #VERSION}:
+ * <pre>
+ *   0   int   magia 'SCAT'
+ *   4   int   versión
+ *   8   long  número de cuerpos
+ *   16  int   número de columnas
+ *   20  int   reservado
+ *   24  long  posición del montón de nombres
+ *   32  long  tamaño del montón de nombres
+ *   40  ...   reservado hasta {@value #HEADER_SIZE}
+ *   64  directorio: por columna {int id, int ancho, long posición}
+ *   ... columnas contiguas alineadas a 8 bytes, y el montón de nombres (UTF-8)
+ * </pre>
+ *
+ * Las lecturas usan accesos absolutos, así que varios hilos pueden consultar el
+ * mismo catálogo a la vez.
+ */
+public class BinaryCatalog implements Closeable {
+    static final int MAGIC = 0x54414353; // "SCAT" en little-endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int DIRECTORY_ENTRY_SIZE = 16;
+
+    /** Indicador de cuerpo marcado como planeta en la columna {@link CatalogColumn#FLAGS} */
+    public static final int FLAG_PLANET = 1;
+
+    private final FileChannel channel;
+    private final ByteBuffer data;
+    private final int count;
+    private final int[] columnOffsets;
+    private final int nameHeapOffset;
+
+    private BinaryCatalog(FileChannel channel, ByteBuffer data) throws IOException {
+        this.channel = channel;
+        this.data = data;
+
+        if (data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("No es un catálogo binario de cuerpos");
+        }
+        int version = data.getInt(4);
+        if (version > VERSION) {
+            throw new IOException("Versión de catálogo no soportada: " + version);
+        }
+        long bodies = data.getLong(8);
+        if (bodies < 0 || bodies > Integer.MAX_VALUE) {
+            throw new IOException("Número de cuerpos no válido: " + bodies);
+        }
+        this.count = (int) bodies;
+        this.nameHeapOffset = checkedOffset(data.getLong(24));
+
+        columnOffsets = new int[CatalogColumn.values().length];
+        Arrays.fill(columnOffsets, -1);
+        int columns = data.getInt(16);
+        for (int c = 0; c < columns; c++) {
+            int entry = HEADER_SIZE + c * DIRECTORY_ENTRY_SIZE;
+            CatalogColumn column = CatalogColumn.fromId(data.getInt(entry));
+            if (column == null) continue; // columna de una versión posterior
+            if (data.getInt(entry + 4) != column.getWidth()) {
+                throw new IOException("Ancho inesperado en la columna " + column);
+            }
+            int offset = checkedOffset(data.getLong(entry + 8));
+            if ((long) offset + (long) count * column.getWidth() > data.limit()) {
+                throw new IOException("La columna " + column + " excede el fichero");
+            }
+            columnOffsets[column.ordinal()] = offset;
+        }
+    }
+
+    /**
+     * Abre un catálogo en modo de solo lectura.
+     * @param path Ruta del fichero
+     * @return El catálogo mapeado
+     * @throws IOException Si el fichero no existe, es mayor de 2 GB o no tiene el formato esperado
+     */
+    public static BinaryCatalog open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Catálogo demasiado grande para un único mapeo: " + size + " bytes");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            return new BinaryCatalog(channel, mapped);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Obtiene el número de cuerpos del catálogo.
+     * @return Número de cuerpos
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Indica si el fichero contiene una columna.
+     * @param column Columna a comprobar
+     * @return true si existe
+     */
+    public boolean hasColumn(CatalogColumn column) {
+        return columnOffsets[column.ordinal()] >= 0;
+    }
+
+    /**
+     * Lee un valor de una columna de tipo double.
+     * @param column Columna (de ancho 8)
+     * @param index Índice del cuerpo
+     * @return El valor, o NaN si la columna no existe
+     */
+    public double getDouble(CatalogColumn column, int index) {
+        int offset = columnOffsets[column.ordinal()];
+        if (offset < 0) return Double.NaN;
+        return data.getDouble(offset + (index << 3));
+    }
+
+    /**
+     * Lee un valor de una columna de tipo int.
+     * @param column Columna (de ancho 4)
+     * @param index Índice del cuerpo
+     * @param missing Valor devuelto si la columna no existe
+     * @return El valor
+     */
+    public int getInt(CatalogColumn column, int index, int missing) {
+        int offset = columnOffsets[column.ordinal()];
+        if (offset < 0) return missing;
+        return data.getInt(offset + (index << 2));
+    }
+
+    /**
+     * Decodifica el nombre de un cuerpo desde el montón de nombres.
+     * @param index Índice del cuerpo
+     * @return El nombre, o null si el catálogo no guarda nombres
+     */
+    public String getName(int index) {
+        int offset = getInt(CatalogColumn.NAME_OFFSET, index, -1);
+        int length = getInt(CatalogColumn.NAME_LENGTH, index, -1);
+        if (offset < 0 || length < 0) return null;
+        byte[] bytes = new byte[length];
+        data.get(nameHeapOffset + offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Busca un cuerpo por nombre comparando los bytes del montón, sin crear cadenas.
+     * @param name Nombre exacto
+     * @return Índice del primer cuerpo con ese nombre, o -1
+     */
+    public int indexOf(String name) {
+        if (!hasColumn(CatalogColumn.NAME_OFFSET) || !hasColumn(CatalogColumn.NAME_LENGTH)) return -1;
+        byte[] target = name.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < count; i++) {
+            if (getInt(CatalogColumn.NAME_LENGTH, i, -1) != target.length) continue;
+            int start = nameHeapOffset + getInt(CatalogColumn.NAME_OFFSET, i, 0);
+            int j = 0;
+            while (j < target.length && data.get(start + j) == target[j]) j++;
+            if (j == target.length) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Obtiene el índice del cuerpo central.
+     * @param index Índice del cuerpo
+     * @return Índice del cuerpo central, o -1 si orbita el Sol o no se conoce
+     */
+    public int getParent(int index) {
+        return getInt(CatalogColumn.PARENT, index, -1);
+    }
+
+    /**
+     * Indica si el cuerpo está marcado como planeta.
+     * @param index Índice del cuerpo
+     * @return true si es un planeta
+     */
+    public boolean isPlanet(int index) {
+        return (getInt(CatalogColumn.FLAGS, index, 0) & FLAG_PLANET) != 0;
+    }
+
+    /**
+     * Obtiene el color del cuerpo.
+     * @param index Índice del cuerpo
+     * @return Color ARGB (blanco si el catálogo no guarda colores)
+     */
+    public int getColor(int index) {
+        return getInt(CatalogColumn.COLOR, index, 0xFFFFFFFF);
+    }
+
+    /**
+     * Cierra el canal del fichero. El mapeo sigue siendo válido hasta que el
+     * recolector de basura libere el búfer.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int checkedOffset(long offset) throws IOException {
+        if (offset < 0 || offset > data.limit()) {
+            throw new IOException("Posición fuera del fichero: " + offset);
+        }
+        return (int) offset;
+    }
+}
@@ -0,0 +1,292 @@
+package com.solarsim.util.catalog;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.solarsim.model.CelestialBody;
+import com.solarsim.model.Moon;
+import com.solarsim.model.Planet;
+import com.solarsim.physics.Orbit;
+
+/**
+ * Escribe catálogos en el formato de {@link BinaryCatalog}.
+ *
+ * Los cuerpos se acumulan en arrays por columna y el fichero se escribe de una
+ * vez sobre un mapeo de lectura y escritura, en un fichero temporal que después
+ * se renombra para que un lector nunca vea un catálogo a medias.
+ */
+public class BinaryCatalogWriter {
+    private static final CatalogColumn[] COLUMNS = CatalogColumn.values();
+
+    private int count;
+    private double[][] doubles = new double[COLUMNS.length][];
+    private int[][] ints = new int[COLUMNS.length][];
+    private byte[] nameHeap = new byte[1024];
+    private final List<String> parentNames = new ArrayList<>();
+    private final Map<String, Integer> indexByName = new HashMap<>();
+    private int nameHeapSize;
+
+    public BinaryCatalogWriter() {
+        for (CatalogColumn column : COLUMNS) {
+            if (column.getWidth() == 8) {
+                doubles[column.ordinal()] = new double[64];
+            } else {
+                ints[column.ordinal()] = new int[64];
+            }
+        }
+    }
+
+    /**
+     * Añade un cuerpo leído de un catálogo JSON. El cuerpo central se resuelve por
+     * nombre al escribir; si no está en el catálogo se guarda como -1.
+     * @param record Registro del cuerpo
+     * @param argbColor Color ARGB con el que se representará
+     * @return Índice asignado al cuerpo
+     */
+    public int add(BodyRecord record, int argbColor) {
+        int index = addRow(record.getName(), record.getParentName(), record.isPlanet(), argbColor);
+        set(CatalogColumn.MASS, index, record.getMass());
+        set(CatalogColumn.RADIUS, index, record.getRadius());
+        set(CatalogColumn.SEMI_MAJOR_AXIS, index, record.getSemiMajorAxis());
+        set(CatalogColumn.ECCENTRICITY, index, record.getEccentricity());
+        set(CatalogColumn.INCLINATION, index, record.getInclination());
+        set(CatalogColumn.ASCENDING_NODE, index, record.getLongitudeOfAscendingNode());
+        set(CatalogColumn.ARGUMENT_OF_PERIAPSIS, index, record.getArgumentOfPeriapsis());
+        set(CatalogColumn.MEAN_ANOMALY, index, record.getMeanAnomaly());
+        set(CatalogColumn.ORBITAL_PERIOD, index, record.getOrbitalPeriod());
+        return index;
+    }
+
+    /**
+     * Añade un cuerpo del modelo (por ejemplo, los creados por {@code NasaDataImporter}).
+     * @param body Cuerpo a guardar
+     * @return Índice asignado al cuerpo
+     */
+    public int add(CelestialBody body) {
+        String parent = null;
+        int color = 0xFFFFFFFF;
+        double period = Double.NaN;
+        if (body instanceof Planet) {
+            color = ((Planet) body).getColor().getRGB();
+            period = ((Planet) body).getOrbitalPeriod();
+        } else if (body instanceof Moon) {
+            Moon moon = (Moon) body;
+            color = moon.getColor().getRGB();
+            period = moon.getOrbitalPeriod();
+            parent = moon.getParentPlanet() != null ? moon.getParentPlanet().getName() : null;
+        }
+        int index = addRow(body.getName(), parent, body instanceof Planet, color);
+        set(CatalogColumn.MASS, index, body.getMass());
+        set(CatalogColumn.RADIUS, index, body.getRadius());
+        set(CatalogColumn.ORBITAL_PERIOD, index, period);
+        Orbit orbit = body.getOrbit();
+        if (orbit != null) {
+            set(CatalogColumn.SEMI_MAJOR_AXIS, index, orbit.getSemiMajorAxis());
+            set(CatalogColumn.ECCENTRICITY, index, orbit.getEccentricity());
+            set(CatalogColumn.INCLINATION, index, orbit.getInclination());
+            set(CatalogColumn.ASCENDING_NODE, index, orbit.getLongitudeOfAscendingNode());
+            set(CatalogColumn.ARGUMENT_OF_PERIAPSIS, index, orbit.getArgumentOfPeriapsis());
+            set(CatalogColumn.MEAN_ANOMALY, index, meanAnomalyDegrees(orbit));
+        } else {
+            set(CatalogColumn.SEMI_MAJOR_AXIS, index, Double.NaN);
+            set(CatalogColumn.ECCENTRICITY, index, Double.NaN);
+            set(CatalogColumn.INCLINATION, index, Double.NaN);
+            set(CatalogColumn.ASCENDING_NODE, index, Double.NaN);
+            set(CatalogColumn.ARGUMENT_OF_PERIAPSIS, index, Double.NaN);
+            set(CatalogColumn.MEAN_ANOMALY, index, Double.NaN);
+        }
+        return index;
+    }
+
+    /**
+     * Añade todos los cuerpos de un conjunto de elementos orbitales. Los nombres se
+     * copian como bytes, sin crear cadenas; estos cuerpos orbitan el Sol y no se
+     * pueden usar como cuerpo central de otros.
+     * @param elements Elementos importados
+     * @param argbColor Color ARGB común para todos los cuerpos
+     */
+    public void addAll(OrbitElementArrays elements, int argbColor) {
+        int total = elements.size();
+        ensureCapacity(count + total);
+        byte[] heap = elements.getNameHeap();
+        for (int k = 0; k < total; k++) {
+            int index = count++;
+            appendName(index, heap, elements.getNameOffset(k), elements.getNameLength(k));
+            parentNames.add(null);
+            ints[CatalogColumn.COLOR.ordinal()][index] = argbColor;
+            ints[CatalogColumn.FLAGS.ordinal()][index] = 0;
+            set(CatalogColumn.MASS, index, Double.NaN);
+            set(CatalogColumn.RADIUS, index, Double.NaN);
+            set(CatalogColumn.SEMI_MAJOR_AXIS, index, elements.getSemiMajorAxis(k));
+            set(CatalogColumn.ECCENTRICITY, index, elements.getEccentricity(k));
+            set(CatalogColumn.INCLINATION, index, elements.getInclination(k));
+            set(CatalogColumn.ASCENDING_NODE, index, elements.getAscendingNode(k));
+            set(CatalogColumn.ARGUMENT_OF_PERIAPSIS, index, elements.getArgumentOfPeriapsis(k));
+            set(CatalogColumn.MEAN_ANOMALY, index, elements.getMeanAnomaly(k));
+            set(CatalogColumn.ORBITAL_PERIOD, index, elements.getOrbitalPeriod(k));
+        }
+    }
+
+    /**
+     * Convierte un catálogo JSON en un catálogo binario, leyéndolo en streaming.
+     * @param json Fichero JSON de entrada (ver {@link JsonCatalogReader})
+     * @param output Fichero binario de salida
+     * @return Número de cuerpos escritos
+     * @throws IOException Si no se puede leer la entrada o escribir la salida
+     */
+    public static int convertJson(Path json, Path output) throws IOException {
+        BinaryCatalogWriter writer = new BinaryCatalogWriter();
+        new JsonCatalogReader().read(json, record -> writer.add(record, 0xFFFFFFFF));
+        writer.write(output);
+        return writer.size();
+    }
+
+    /**
+     * Obtiene el número de cuerpos añadidos.
+     * @return Número de cuerpos
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Escribe el catálogo. Se puede llamar varias veces.
+     * @param path Ruta del fichero de destino (se reemplaza si existe)
+     * @throws IOException Si no se puede escribir
+     */
+    public void write(Path path) throws IOException {
+        resolveParents();
+
+        long position = BinaryCatalog.HEADER_SIZE + (long) COLUMNS.length * BinaryCatalog.DIRECTORY_ENTRY_SIZE;
+        long[] offsets = new long[COLUMNS.length];
+        for (CatalogColumn column : COLUMNS) {
+            position = align8(position);
+            offsets[column.ordinal()] = position;
+            position += (long) count * column.getWidth();
+        }
+        long nameHeapOffset = align8(position);
+        long total = nameHeapOffset + nameHeapSize;
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException("El catálogo supera los 2 GB");
+        }
+
+        Path dir = path.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, "catalog", ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, total);
+            out.order(ByteOrder.LITTLE_ENDIAN);
+
+            out.putInt(0, BinaryCatalog.MAGIC);
+            out.putInt(4, BinaryCatalog.VERSION);
+            out.putLong(8, count);
+            out.putInt(16, COLUMNS.length);
+            out.putLong(24, nameHeapOffset);
+            out.putLong(32, nameHeapSize);
+
+            for (CatalogColumn column : COLUMNS) {
+                int entry = BinaryCatalog.HEADER_SIZE + column.ordinal() * BinaryCatalog.DIRECTORY_ENTRY_SIZE;
+                out.putInt(entry, column.getId());
+                out.putInt(entry + 4, column.getWidth());
+                out.putLong(entry + 8, offsets[column.ordinal()]);
+
+                int base = (int) offsets[column.ordinal()];
+                if (column.getWidth() == 8) {
+                    double[] values = doubles[column.ordinal()];
+                    for (int i = 0; i < count; i++) {
+                        out.putDouble(base + (i << 3), values[i]);
+                    }
+                } else {
+                    int[] values = ints[column.ordinal()];
+                    for (int i = 0; i < count; i++) {
+                        out.putInt(base + (i << 2), values[i]);
+                    }
+                }
+            }
+
+            out.put((int) nameHeapOffset, nameHeap, 0, nameHeapSize);
+            out.force();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private int addRow(String name, String parentName, boolean planet, int argbColor) {
+        int index = count;
+        ensureCapacity(index + 1);
+        count++;
+
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        appendName(index, bytes, 0, bytes.length);
+        indexByName.putIfAbsent(name, index);
+
+        parentNames.add(parentName);
+        ints[CatalogColumn.COLOR.ordinal()][index] = argbColor;
+        ints[CatalogColumn.FLAGS.ordinal()][index] = planet ? BinaryCatalog.FLAG_PLANET : 0;
+        return index;
+    }
+
+    private void appendName(int index, byte[] source, int offset, int length) {
+        if (nameHeapSize + length > nameHeap.length) {
+            nameHeap = Arrays.copyOf(nameHeap, Math.max(nameHeap.length * 2, nameHeapSize + length));
+        }
+        System.arraycopy(source, offset, nameHeap, nameHeapSize, length);
+        ints[CatalogColumn.NAME_OFFSET.ordinal()][index] = nameHeapSize;
+        ints[CatalogColumn.NAME_LENGTH.ordinal()][index] = length;
+        nameHeapSize += length;
+    }
+
+    private void resolveParents() {
+        int[] parents = ints[CatalogColumn.PARENT.ordinal()];
+        for (int i = 0; i < count; i++) {
+            String parent = parentNames.get(i);
+            Integer index = parent != null ? indexByName.get(parent) : null;
+            parents[i] = index != null ? index : -1;
+        }
+    }
+
+    private void set(CatalogColumn column, int index, double value) {
+        doubles[column.ordinal()][index] = value;
+    }
+
+    private void ensureCapacity(int required) {
+        int capacity = doubles[CatalogColumn.MASS.ordinal()].length;
+        if (required <= capacity) return;
+        int newCapacity = Math.max(required, capacity * 2);
+        for (CatalogColumn column : COLUMNS) {
+            int c = column.ordinal();
+            if (doubles[c] != null) doubles[c] = Arrays.copyOf(doubles[c], newCapacity);
+            if (ints[c] != null) ints[c] = Arrays.copyOf(ints[c], newCapacity);
+        }
+    }
+
+    /**
+     * Convierte la anomalía verdadera guardada en la órbita en anomalía media (grados).
+     */
+    private static double meanAnomalyDegrees(Orbit orbit) {
+        double e = orbit.getEccentricity();
+        if (e >= 1) return Double.NaN;
+        double nu = Math.toRadians(orbit.getTrueAnomaly());
+        double eccentricAnomaly = 2 * Math.atan2(Math.sqrt(1 - e) * Math.sin(nu / 2),
+                                                 Math.sqrt(1 + e) * Math.cos(nu / 2));
+        return Math.toDegrees(eccentricAnomaly - e * Math.sin(eccentricAnomaly));
+    }
+
+    private static long align8(long position) {
+        return (position + 7) & ~7L;
+    }
+}
@@ -0,0 +1,153 @@
+package com.solarsim.util.catalog;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Registro compacto con los datos físicos y orbitales de un cuerpo de catálogo.
+ *
+ * Solo contiene campos primitivos y dos referencias a cadenas internadas, de modo
+ * que un catálogo de cientos de miles de cuerpos ocupa una fracción de lo que
+ * ocuparía su árbol JSON. Los valores desconocidos se guardan como {@code NaN}.
+ * Si el lector se configura para ello, los campos que no tienen equivalente tipado
+ * se conservan aparte en {@link #getExtraFields()}.
+ */
+public final class BodyRecord {
+    private final String name;
+    private final String catalogName;
+    private final String parentName;
+    private final double mass;
+    private final double radius;
+    private final double semiMajorAxis;
+    private final double eccentricity;
+    private final double inclination;
+    private final double longitudeOfAscendingNode;
+    private final double argumentOfPeriapsis;
+    private final double meanAnomaly;
+    private final double orbitalPeriod;
+    private final boolean planet;
+    private final JsonObject extraFields;
+
+    /**
+     * Crea un registro.
+     * @param name Nombre del cuerpo (internado)
+     * @param parentName Nombre del cuerpo central, o null si orbita el Sol (internado)
+     * @param mass Masa en kg
+     * @param radius Radio medio en km
+     * @param semiMajorAxis Semieje mayor en km
+     * @param eccentricity Excentricidad
+     * @param inclination Inclinación en grados
+     * @param longitudeOfAscendingNode Longitud del nodo ascendente en grados
+     * @param argumentOfPeriapsis Argumento del periapsis en grados
+     * @param meanAnomaly Anomalía media en la época en grados
+     * @param orbitalPeriod Periodo orbital en días
+     * @param planet true si el catálogo lo marca como planeta
+     */
+    public BodyRecord(String name, String parentName, double mass, double radius,
+                      double semiMajorAxis, double eccentricity, double inclination,
+                      double longitudeOfAscendingNode, double argumentOfPeriapsis, double meanAnomaly,
+                      double orbitalPeriod, boolean planet) {
+        this(name, name, parentName, mass, radius, semiMajorAxis, eccentricity, inclination,
+            longitudeOfAscendingNode, argumentOfPeriapsis, meanAnomaly, orbitalPeriod, planet, null);
+    }
+
+    /**
+     * Crea un registro que conserva el nombre original del fichero y los campos sin
+     * equivalente tipado.
+     * @param name Nombre para mostrar (internado)
+     * @param catalogName Valor del campo {@code name} del fichero, que puede no coincidir
+     *                    con el nombre para mostrar (internado)
+     * @param extraFields Campos no reconocidos con su valor original, o null si no hay
+     *                    o no se han conservado
+     * @see #BodyRecord(String, String, double, double, double, double, double, double, double, double, double, boolean)
+     */
+    public BodyRecord(String name, String catalogName, String parentName, double mass, double radius,
+                      double semiMajorAxis, double eccentricity, double inclination,
+                      double longitudeOfAscendingNode, double argumentOfPeriapsis, double meanAnomaly,
+                      double orbitalPeriod, boolean planet, JsonObject extraFields) {
+        this.name = name;
+        this.catalogName = catalogName;
+        this.parentName = parentName;
+        this.mass = mass;
+        this.radius = radius;
+        this.semiMajorAxis = semiMajorAxis;
+        this.eccentricity = eccentricity;
+        this.inclination = inclination;
+        this.longitudeOfAscendingNode = longitudeOfAscendingNode;
+        this.argumentOfPeriapsis = argumentOfPeriapsis;
+        this.meanAnomaly = meanAnomaly;
+        this.orbitalPeriod = orbitalPeriod;
+        this.planet = planet;
+        this.extraFields = extraFields;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Obtiene el nombre tal como figura en el campo {@code name} del fichero. En el
+     * formato de la API es el nombre francés, mientras que {@link #getName()} da el inglés.
+     * @return Nombre original del catálogo
+     */
+    public String getCatalogName() {
+        return catalogName;
+    }
+
+    public String getParentName() {
+        return parentName;
+    }
+
+    public double getMass() {
+        return mass;
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+
+    public double getSemiMajorAxis() {
+        return semiMajorAxis;
+    }
+
+    public double getEccentricity() {
+        return eccentricity;
+    }
+
+    public double getInclination() {
+        return inclination;
+    }
+
+    public double getLongitudeOfAscendingNode() {
+        return longitudeOfAscendingNode;
+    }
+
+    public double getArgumentOfPeriapsis() {
+        return argumentOfPeriapsis;
+    }
+
+    public double getMeanAnomaly() {
+        return meanAnomaly;
+    }
+
+    public double getOrbitalPeriod() {
+        return orbitalPeriod;
+    }
+
+    public boolean isPlanet() {
+        return planet;
+    }
+
+    /**
+     * Obtiene los campos del fichero que no tienen equivalente tipado en el registro.
+     * El objeto es compartido: no debe modificarse.
+     * @return Campos adicionales, o null si no hay o el lector no los conservaba
+     */
+    public JsonObject getExtraFields() {
+        return extraFields;
+    }
+
+    @Override
+    public String toString() {
+        return "BodyRecord[" + name + "]";
+    }
+}
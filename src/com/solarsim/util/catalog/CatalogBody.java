@@ -0,0 +1,202 @@
+package com.solarsim.util.catalog;
+
+import java.util.Set;
+
+import com.solarsim.model.BranchState;
+import com.solarsim.model.CelestialBody;
+import com.solarsim.model.KeplerianBody;
+import com.solarsim.physics.GravitationalForce;
+import com.solarsim.physics.Orbit;
+
+/**
+ * Cuerpo celeste respaldado por una fila de un {@link BinaryCatalog} mapeado.
+ *
+ * Nombre, masa, radio y órbita no se copian al crear el cuerpo: se leen del
+ * catálogo la primera vez que se piden, y solo si la columna correspondiente
+ * está entre las seleccionadas para la ejecución. Las columnas no seleccionadas
+ * no se tocan nunca, así que sus páginas del fichero no llegan a cargarse.
+ *
+ * La posición inicial se calcula a partir de los elementos orbitales en el primer
+ * acceso, relativa al cuerpo central si el catálogo lo indica. Después el cuerpo
+ * se mueve sobre su órbita como un {@link KeplerianBody}, con el periodo de la
+ * columna {@link CatalogColumn#ORBITAL_PERIOD} (o el que corresponde a la masa del
+ * cuerpo central si no se conoce).
+ */
+public class CatalogBody extends KeplerianBody {
+    private final BinaryCatalog catalog;
+    private final int index;
+    private final Set<CatalogColumn> columns;
+    private final CelestialBody[] bodiesByIndex;
+
+    private String name;
+    private double massOverride = Double.NaN;
+    private boolean orbitLoaded;
+    private volatile boolean placed;
+
+    /**
+     * Crea un cuerpo para una fila del catálogo.
+     * @param catalog Catálogo mapeado
+     * @param index Fila del cuerpo
+     * @param columns Columnas que esta ejecución puede leer
+     * @param bodiesByIndex Cuerpos creados para el catálogo, por fila; sirve para
+     *                      resolver el cuerpo central (puede contener nulls)
+     */
+    public CatalogBody(BinaryCatalog catalog, int index, Set<CatalogColumn> columns, CelestialBody[] bodiesByIndex) {
+        super(null, 0, 0);
+        this.catalog = catalog;
+        this.index = index;
+        this.columns = columns;
+        this.bodiesByIndex = bodiesByIndex;
+    }
+
+    /**
+     * Obtiene la fila del cuerpo en el catálogo.
+     * @return Índice de la fila
+     */
+    public int getCatalogIndex() {
+        return index;
+    }
+
+    @Override
+    public String getName() {
+        if (name == null) {
+            String stored = columns.contains(CatalogColumn.NAME_OFFSET) ? catalog.getName(index) : null;
+            name = stored != null ? stored : "#" + index;
+        }
+        return name;
+    }
+
+    @Override
+    public double getMass() {
+        if (!Double.isNaN(massOverride)) return massOverride;
+        return columns.contains(CatalogColumn.MASS) ? zeroIfUnknown(catalog.getDouble(CatalogColumn.MASS, index)) : 0;
+    }
+
+    @Override
+    public void setMass(double mass) {
+        massOverride = mass;
+    }
+
+    @Override
+    public double getRadius() {
+        return columns.contains(CatalogColumn.RADIUS) ? zeroIfUnknown(catalog.getDouble(CatalogColumn.RADIUS, index)) : 0;
+    }
+
+    /**
+     * Obtiene el color del cuerpo.
+     * @return Color ARGB (blanco si la columna no está seleccionada)
+     */
+    public int getColor() {
+        return columns.contains(CatalogColumn.COLOR) ? catalog.getColor(index) : 0xFFFFFFFF;
+    }
+
+    /**
+     * Obtiene el cuerpo central según el catálogo.
+     * @return El cuerpo central, o null si orbita el Sol, no se conoce o no se ha cargado
+     */
+    public CelestialBody getParent() {
+        if (!columns.contains(CatalogColumn.PARENT)) return null;
+        int parent = catalog.getParent(index);
+        return parent >= 0 && parent < bodiesByIndex.length ? bodiesByIndex[parent] : null;
+    }
+
+    @Override
+    public Orbit getOrbit() {
+        if (!orbitLoaded) {
+            orbitLoaded = true;
+            if (super.getOrbit() == null) {
+                super.setOrbit(readOrbit());
+            }
+        }
+        return super.getOrbit();
+    }
+
+    @Override
+    public void setOrbit(Orbit orbit) {
+        orbitLoaded = true;
+        super.setOrbit(orbit);
+    }
+
+    @Override
+    public double[] getPosition() {
+        ensurePlaced();
+        return super.getPosition();
+    }
+
+    @Override
+    public void setPosition(double[] position) {
+        ensurePlaced();
+        super.setPosition(position);
+    }
+
+    @Override
+    public void updatePosition(double time) {
+        ensurePlaced();
+        super.updatePosition(time);
+    }
+
+    @Override
+    public void advance(double time, BranchState state, int index) {
+        ensurePlaced();
+        super.advance(time, state, index);
+    }
+
+    /**
+     * Coloca el cuerpo en su órbita la primera vez que se necesita. La marca se
+     * publica después de escribir la posición, la velocidad y el periodo, así que
+     * otro hilo que la vea activada lee el cuerpo ya colocado.
+     */
+    private void ensurePlaced() {
+        if (placed) return;
+        synchronized (this) {
+            if (placed) return;
+            placeOnOrbit();
+            placed = true;
+        }
+    }
+
+    private Orbit readOrbit() {
+        if (!columns.contains(CatalogColumn.SEMI_MAJOR_AXIS)) return null;
+        double a = catalog.getDouble(CatalogColumn.SEMI_MAJOR_AXIS, index);
+        if (Double.isNaN(a) || a <= 0) return null;
+
+        double e = read(CatalogColumn.ECCENTRICITY);
+        double i = read(CatalogColumn.INCLINATION);
+        double node = read(CatalogColumn.ASCENDING_NODE);
+        double periapsis = read(CatalogColumn.ARGUMENT_OF_PERIAPSIS);
+        double meanAnomaly = read(CatalogColumn.MEAN_ANOMALY);
+        double trueAnomaly = e < 1
+            ? Math.toDegrees(Orbit.trueAnomalyFromMeanAnomaly(Math.toRadians(meanAnomaly), e))
+            : 0;
+        return new Orbit(a, e, i, node, periapsis, trueAnomaly);
+    }
+
+    private void placeOnOrbit() {
+        Orbit orbit = getOrbit();
+        CelestialBody parent = getParent();
+        if (orbit == null || !(orbit.getSemiMajorAxis() > 0)) return;
+        double a = orbit.getSemiMajorAxis();
+        double period = read(CatalogColumn.ORBITAL_PERIOD);
+        double mu;
+        if (period > 0) {
+            mu = 4 * Math.PI * Math.PI * a * a * a / (period * period);
+        } else {
+            mu = parent != null && parent != this && parent.getMass() > 0
+                ? GravitationalForce.gravitationalParameter(parent.getMass())
+                : HorizonsVectorImporter.SUN_MU;
+            period = 2 * Math.PI * Math.sqrt(a * a * a / mu);
+        }
+        startMotion(mu, period, parent);
+    }
+
+    /**
+     * Lee una columna seleccionada; los valores ausentes cuentan como 0.
+     */
+    private double read(CatalogColumn column) {
+        return columns.contains(column) ? zeroIfUnknown(catalog.getDouble(column, index)) : 0;
+    }
+
+    private static double zeroIfUnknown(double value) {
+        return Double.isNaN(value) ? 0 : value;
+    }
+}
@@ -0,0 +1,74 @@
+package com.solarsim.util.catalog;
+
+/**
+ * Columnas del catálogo binario. Cada columna guarda un valor de ancho fijo por
+ * cuerpo, de forma contigua, y se identifica en el fichero por su {@link #getId() id};
+ * los lectores ignoran los identificadores que no conocen, de modo que versiones
+ * posteriores del formato pueden añadir columnas sin romper las anteriores.
+ */
+public enum CatalogColumn {
+    /** Masa en kg (double) */
+    MASS(1, 8),
+    /** Radio medio en km (double) */
+    RADIUS(2, 8),
+    /** Semieje mayor en km (double) */
+    SEMI_MAJOR_AXIS(3, 8),
+    /** Excentricidad (double) */
+    ECCENTRICITY(4, 8),
+    /** Inclinación en grados (double) */
+    INCLINATION(5, 8),
+    /** Longitud del nodo ascendente en grados (double) */
+    ASCENDING_NODE(6, 8),
+    /** Argumento del periapsis en grados (double) */
+    ARGUMENT_OF_PERIAPSIS(7, 8),
+    /** Anomalía media en la época en grados (double) */
+    MEAN_ANOMALY(8, 8),
+    /** Periodo orbital en días (double) */
+    ORBITAL_PERIOD(9, 8),
+    /** Color ARGB (int) */
+    COLOR(10, 4),
+    /** Índice del cuerpo central en el catálogo, o -1 (int) */
+    PARENT(11, 4),
+    /** Indicadores, ver {@link BinaryCatalog#FLAG_PLANET} (int) */
+    FLAGS(12, 4),
+    /** Posición del nombre en el montón de nombres (int) */
+    NAME_OFFSET(13, 4),
+    /** Longitud en bytes UTF-8 del nombre (int) */
+    NAME_LENGTH(14, 4);
+
+    private final int id;
+    private final int width;
+
+    CatalogColumn(int id, int width) {
+        this.id = id;
+        this.width = width;
+    }
+
+    /**
+     * Obtiene el identificador de la columna en el fichero.
+     * @return Identificador estable entre versiones
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Obtiene el ancho de cada valor de la columna.
+     * @return Ancho en bytes
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Busca una columna por su identificador.
+     * @param id Identificador leído del fichero
+     * @return La columna, o null si esta versión no la conoce
+     */
+    public static CatalogColumn fromId(int id) {
+        for (CatalogColumn column : values()) {
+            if (column.id == id) return column;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,461 @@
+package com.solarsim.util.catalog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.solarsim.model.CelestialBody;
+import com.solarsim.model.KeplerianBody;
+import com.solarsim.model.SolarSystem;
+import com.solarsim.physics.Orbit;
+import com.solarsim.util.logging.Log;
+import com.solarsim.util.logging.Logger;
+
+/**
+ * Importador de tablas de vectores de estado exportadas de JPL Horizons.
+ *
+ * Lee el fichero por bloques en un búfer reutilizado y analiza cada línea
+ * directamente sobre los bytes: solo las pocas líneas de cabecera que interesan
+ * (nombre del cuerpo, cuerpo central, radios, unidades) se convierten en cadenas.
+ * Se admiten los dos formatos de Horizons para la tabla entre {@code $$SOE} y
+ * {@code $$EOE}:
+ * <pre>
+ *   2460000.500000000 = A.D. 2023-Feb-25 00:00:00.0000 TDB
+ *    X =-1.0123E+08 Y = 1.2345E+08 Z = 5.1234E+06
+ *    VX=-1.2345E+01 VY=-8.1234E+00 VZ= 1.1234E-01
+ * </pre>
+ * y el formato CSV ({@code JDTDB, fecha, X, Y, Z, VX, VY, VZ, ...}). Las unidades
+ * se toman de la línea "Output units" (KM-S, KM-D o AU-D).
+ *
+ * Varios ficheros se leen a la vez con un grupo fijo de hilos.
+ */
+public class HorizonsVectorImporter {
+    private static final Logger LOG = Log.getLogger(HorizonsVectorImporter.class);
+
+    /** Parámetro gravitacional del Sol en km³/día² */
+    public static final double SUN_MU = 1.32712440018e11 * 86400.0 * 86400.0;
+
+    private static final double KM_PER_AU = 149_597_870.7;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] START_OF_ENTRIES = "$$SOE".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END_OF_ENTRIES = "$$EOE".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TARGET_NAME = "Target body name".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CENTER_NAME = "Center body name".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TARGET_RADII = "Target radii".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OUTPUT_UNITS = "Output units".getBytes(StandardCharsets.US_ASCII);
+
+    private final int threads;
+
+    /**
+     * Crea un importador con un hilo por procesador.
+     */
+    public HorizonsVectorImporter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Crea un importador.
+     * @param threads Número máximo de ficheros que se leen a la vez
+     */
+    public HorizonsVectorImporter(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Lee todos los ficheros {@code *.txt} de un directorio.
+     * @param directory Directorio con las exportaciones
+     * @return Una tabla por fichero, ordenadas por nombre de fichero
+     * @throws IOException Si algún fichero no se puede leer
+     */
+    public List<HorizonsVectorTable> importDirectory(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.txt")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(null);
+        return importAll(files);
+    }
+
+    /**
+     * Lee varios ficheros en paralelo.
+     * @param files Ficheros a leer
+     * @return Una tabla por fichero, en el mismo orden
+     * @throws IOException Si algún fichero no se puede leer
+     */
+    public List<HorizonsVectorTable> importAll(List<Path> files) throws IOException {
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, files.size())), task -> {
+            Thread thread = new Thread(task, "solarsim-horizons-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<HorizonsVectorTable>> futures = new ArrayList<>(files.size());
+            for (Path file : files) {
+                futures.add(pool.submit(() -> read(file)));
+            }
+            List<HorizonsVectorTable> tables = new ArrayList<>(files.size());
+            for (Future<HorizonsVectorTable> future : futures) {
+                tables.add(future.get());
+            }
+            LOG.info("Leídas {} tablas de Horizons en {} ms", tables.size(), (System.nanoTime() - start) / 1_000_000);
+            return tables;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Importación interrumpida", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException("Error al leer las tablas de Horizons", cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Lee un fichero de vectores de estado.
+     * @param file Fichero exportado de Horizons
+     * @return La tabla con todas las filas del fichero
+     * @throws IOException Si el fichero no se puede leer o le falta la tabla
+     */
+    public HorizonsVectorTable read(Path file) throws IOException {
+        Parser parser = new Parser(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            boolean eof = false;
+            while (!eof) {
+                eof = channel.read(buffer) < 0;
+                buffer.flip();
+                int lineStart = 0;
+                int limit = buffer.limit();
+                for (int pos = 0; pos < limit; pos++) {
+                    if (buffer.get(pos) == '\n') {
+                        parser.line(buffer, lineStart, pos);
+                        lineStart = pos + 1;
+                    }
+                }
+                if (eof && lineStart < limit) {
+                    parser.line(buffer, lineStart, limit);
+                    lineStart = limit;
+                }
+                if (lineStart == 0 && limit == buffer.capacity()) {
+                    throw new IOException("Línea demasiado larga en " + file);
+                }
+                buffer.position(lineStart);
+                buffer.compact();
+            }
+        }
+        return parser.finish();
+    }
+
+    /**
+     * Añade al sistema un cuerpo por tabla, con el vector de estado más próximo a
+     * la época indicada. Si el cuerpo central de una tabla es el cuerpo de otra
+     * (por ejemplo, una luna respecto a su planeta) se suman las posiciones y
+     * velocidades. Los cuerpos centrados en el Sol con órbita elíptica se crean
+     * como {@link KeplerianBody} que recorren su órbita osculadora; el resto
+     * conserva el movimiento rectilíneo de {@link CelestialBody}, porque las
+     * tablas no dan la masa de su cuerpo central.
+     * @param system Sistema a poblar
+     * @param tables Tablas leídas
+     * @param epoch Fecha juliana de las condiciones iniciales
+     * @return Número de cuerpos añadidos
+     */
+    public static int seed(SolarSystem system, List<HorizonsVectorTable> tables, double epoch) {
+        Map<String, HorizonsVectorTable> byName = new HashMap<>();
+        for (HorizonsVectorTable table : tables) {
+            byName.put(table.getTargetName(), table);
+        }
+
+        int added = 0;
+        double[] offset = new double[6];
+        double[] scratch = new double[3];
+        for (HorizonsVectorTable table : tables) {
+            int row = table.nearestRow(epoch);
+            if (row < 0) continue;
+
+            double[] position = new double[3];
+            double[] velocity = new double[3];
+            table.getPosition(row, position);
+            table.getVelocity(row, velocity);
+
+            String center = table.getCenterName();
+            boolean heliocentric = center == null || center.startsWith("Sun") || center.startsWith("Solar System Barycenter");
+            Orbit orbit = heliocentric ? Orbit.fromStateVector(position, velocity, SUN_MU) : null;
+
+            // Componer con la cadena de cuerpos centrales conocidos
+            HorizonsVectorTable parent = center != null ? byName.get(center) : null;
+            int depth = 0;
+            while (parent != null && parent != table && depth++ < 8) {
+                int parentRow = parent.nearestRow(epoch);
+                parent.getPosition(parentRow, scratch);
+                offset[0] = scratch[0]; offset[1] = scratch[1]; offset[2] = scratch[2];
+                parent.getVelocity(parentRow, scratch);
+                for (int k = 0; k < 3; k++) {
+                    position[k] += offset[k];
+                    velocity[k] += scratch[k];
+                }
+                parent = parent.getCenterName() != null ? byName.get(parent.getCenterName()) : null;
+            }
+
+            double radius = Double.isNaN(table.getRadius()) ? 0 : table.getRadius();
+            CelestialBody body;
+            if (orbit != null && orbit.getEccentricity() < 1) {
+                body = new KeplerianBody(table.getTargetName(), 0, radius, orbit, SUN_MU, null);
+            } else {
+                body = new CelestialBody(table.getTargetName(), 0, radius, position, velocity);
+                body.setOrbit(orbit);
+            }
+            system.addCelestialBody(body);
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * Estado del análisis de un fichero.
+     */
+    private static final class Parser {
+        private final Path file;
+        private String targetName;
+        private String centerName;
+        private double radius = Double.NaN;
+        private double positionFactor = 1;
+        private double velocityFactor = 86400;
+        private HorizonsVectorTable table;
+        private boolean inEntries;
+        private boolean sawEntries;
+
+        // Fila en curso (formato de varias líneas)
+        private double epoch = Double.NaN;
+        private final double[] values = new double[6];
+        private int valueMask;
+
+        Parser(Path file) {
+            this.file = file;
+        }
+
+        void line(ByteBuffer buffer, int from, int to) {
+            if (to > from && buffer.get(to - 1) == '\r') to--;
+            int start = skipSpaces(buffer, from, to);
+            if (start >= to) return;
+
+            if (!inEntries) {
+                if (startsWith(buffer, start, to, START_OF_ENTRIES)) {
+                    inEntries = true;
+                    sawEntries = true;
+                    if (table == null) {
+                        table = new HorizonsVectorTable(targetName != null ? targetName : fileName(), centerName, radius);
+                    }
+                } else {
+                    header(buffer, start, to);
+                }
+                return;
+            }
+
+            if (startsWith(buffer, start, to, END_OF_ENTRIES)) {
+                inEntries = false;
+                return;
+            }
+
+            byte first = buffer.get(start);
+            if (first >= '0' && first <= '9') {
+                int comma = indexOf(buffer, start, to, (byte) ',');
+                if (comma >= 0) {
+                    csvRow(buffer, start, to);
+                } else {
+                    int end = start;
+                    while (end < to && buffer.get(end) != ' ' && buffer.get(end) != '=') end++;
+                    epoch = AsciiNumbers.parseDouble(buffer, start, end);
+                    valueMask = 0;
+                }
+            } else {
+                labelledValues(buffer, start, to);
+            }
+        }
+
+        private void header(ByteBuffer buffer, int start, int to) {
+            if (startsWith(buffer, start, to, TARGET_NAME)) {
+                targetName = bodyName(text(buffer, start, to));
+            } else if (startsWith(buffer, start, to, CENTER_NAME)) {
+                centerName = bodyName(text(buffer, start, to));
+            } else if (startsWith(buffer, start, to, TARGET_RADII)) {
+                int colon = indexOf(buffer, start, to, (byte) ':');
+                if (colon >= 0) {
+                    radius = meanRadius(buffer, colon + 1, to);
+                }
+            } else if (startsWith(buffer, start, to, OUTPUT_UNITS)) {
+                String units = text(buffer, start, to).toUpperCase();
+                positionFactor = units.contains("AU") ? KM_PER_AU : 1;
+                velocityFactor = units.contains("-D") ? 1 : 86400;
+            }
+        }
+
+        /**
+         * Lee la línea de radios, que puede dar uno ("1737.4 km") o los tres semiejes
+         * del elipsoide ("6378.137 x 6378.137 x 6356.752 km", a veces separados por
+         * comas), y devuelve su media.
+         */
+        private static double meanRadius(ByteBuffer buffer, int from, int to) {
+            double sum = 0;
+            int count = 0;
+            int valueStart = from;
+            for (int pos = from; pos <= to; pos++) {
+                byte c = pos < to ? buffer.get(pos) : (byte) 'k';
+                if (c != 'x' && c != ',' && c != 'k') continue;
+                double value = AsciiNumbers.parseDouble(buffer, valueStart, pos);
+                if (!Double.isNaN(value)) {
+                    sum += value;
+                    count++;
+                }
+                if (c == 'k') break;
+                valueStart = pos + 1;
+            }
+            return count > 0 ? sum / count : Double.NaN;
+        }
+
+        /**
+         * Analiza pares "ETIQUETA = valor" de una línea (X, Y, Z, VX, VY, VZ).
+         */
+        private void labelledValues(ByteBuffer buffer, int from, int to) {
+            for (int pos = from; pos < to; pos++) {
+                if (buffer.get(pos) != '=') continue;
+
+                int labelEnd = pos;
+                while (labelEnd > from && buffer.get(labelEnd - 1) == ' ') labelEnd--;
+                int labelStart = labelEnd;
+                while (labelStart > from && isLetter(buffer.get(labelStart - 1))) labelStart--;
+                int slot = slot(buffer, labelStart, labelEnd);
+
+                int valueStart = skipSpaces(buffer, pos + 1, to);
+                int valueEnd = valueStart;
+                while (valueEnd < to && buffer.get(valueEnd) != ' ') valueEnd++;
+                if (slot >= 0) {
+                    values[slot] = AsciiNumbers.parseDouble(buffer, valueStart, valueEnd);
+                    valueMask |= 1 << slot;
+                }
+                pos = valueEnd - 1;
+            }
+            if (valueMask == 0x3F && !Double.isNaN(epoch)) {
+                addRow();
+                valueMask = 0;
+            }
+        }
+
+        private void csvRow(ByteBuffer buffer, int from, int to) {
+            int field = 0;
+            int fieldStart = from;
+            for (int pos = from; pos <= to && field < 8; pos++) {
+                if (pos == to || buffer.get(pos) == ',') {
+                    if (field == 0) {
+                        epoch = AsciiNumbers.parseDouble(buffer, fieldStart, pos);
+                    } else if (field >= 2) {
+                        values[field - 2] = AsciiNumbers.parseDouble(buffer, fieldStart, pos);
+                    }
+                    field++;
+                    fieldStart = pos + 1;
+                }
+            }
+            if (field == 8 && !Double.isNaN(epoch)) {
+                addRow();
+            }
+        }
+
+        /**
+         * Convierte del sistema eclíptico de Horizons al del simulador y a km, km/día.
+         */
+        private void addRow() {
+            double p = positionFactor;
+            double v = velocityFactor * positionFactor;
+            table.add(epoch,
+                values[0] * p, -values[2] * p, values[1] * p,
+                values[3] * v, -values[5] * v, values[4] * v);
+        }
+
+        HorizonsVectorTable finish() throws IOException {
+            if (!sawEntries) {
+                throw new IOException("No se encontró la tabla $$SOE/$$EOE en " + file);
+            }
+            return table;
+        }
+
+        private String fileName() {
+            String name = file.getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            return dot > 0 ? name.substring(0, dot) : name;
+        }
+
+        private static int slot(ByteBuffer buffer, int from, int to) {
+            int length = to - from;
+            if (length == 1) {
+                byte c = buffer.get(from);
+                return c == 'X' ? 0 : c == 'Y' ? 1 : c == 'Z' ? 2 : -1;
+            }
+            if (length == 2 && buffer.get(from) == 'V') {
+                byte c = buffer.get(from + 1);
+                return c == 'X' ? 3 : c == 'Y' ? 4 : c == 'Z' ? 5 : -1;
+            }
+            return -1;
+        }
+
+        /**
+         * "Target body name: Mars (499)   {source: mar097}" → "Mars"
+         */
+        private static String bodyName(String line) {
+            int colon = line.indexOf(':');
+            String name = colon >= 0 ? line.substring(colon + 1) : line;
+            int brace = name.indexOf('{');
+            if (brace >= 0) name = name.substring(0, brace);
+            name = name.trim();
+            int paren = name.lastIndexOf(" (");
+            if (paren > 0 && name.endsWith(")")) name = name.substring(0, paren);
+            return name.trim();
+        }
+
+        private static String text(ByteBuffer buffer, int from, int to) {
+            byte[] bytes = new byte[to - from];
+            buffer.get(from, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static boolean startsWith(ByteBuffer buffer, int from, int to, byte[] prefix) {
+            if (to - from < prefix.length) return false;
+            for (int i = 0; i < prefix.length; i++) {
+                if (buffer.get(from + i) != prefix[i]) return false;
+            }
+            return true;
+        }
+
+        private static int indexOf(ByteBuffer buffer, int from, int to, byte value) {
+            for (int i = from; i < to; i++) {
+                if (buffer.get(i) == value) return i;
+            }
+            return -1;
+        }
+
+        private static int skipSpaces(ByteBuffer buffer, int from, int to) {
+            while (from < to && (buffer.get(from) == ' ' || buffer.get(from) == '\t')) from++;
+            return from;
+        }
+
+        private static boolean isLetter(byte c) {
+            return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.solarsim.util.catalog;
+
+import java.util.Arrays;
+
+/**
+ * Tabla de vectores de estado de un cuerpo exportada de JPL Horizons.
+ *
+ * Las filas se guardan en arrays paralelos de tipos primitivos, ya convertidas al
+ * sistema y las unidades del simulador: kilómetros y kilómetros por día, en el
+ * plano XZ con -Y hacia el norte de la eclíptica (X = X, Y = -Z, Z = Y respecto a
+ * las coordenadas eclípticas de Horizons).
+ */
+public class HorizonsVectorTable {
+    private final String targetName;
+    private final String centerName;
+    private final double radius;
+
+    private int count;
+    private double[] epochs = new double[16];
+    private double[] states = new double[16 * 6];
+
+    /**
+     * Crea una tabla vacía.
+     * @param targetName Nombre del cuerpo según la cabecera ("Mars (499)" → "Mars")
+     * @param centerName Nombre del cuerpo central, o null si no figura
+     * @param radius Radio del cuerpo en km, o NaN si no figura
+     */
+    public HorizonsVectorTable(String targetName, String centerName, double radius) {
+        this.targetName = targetName;
+        this.centerName = centerName;
+        this.radius = radius;
+    }
+
+    void add(double epoch, double x, double y, double z, double vx, double vy, double vz) {
+        if (count == epochs.length) {
+            epochs = Arrays.copyOf(epochs, count * 2);
+            states = Arrays.copyOf(states, count * 2 * 6);
+        }
+        epochs[count] = epoch;
+        int base = count * 6;
+        states[base] = x;
+        states[base + 1] = y;
+        states[base + 2] = z;
+        states[base + 3] = vx;
+        states[base + 4] = vy;
+        states[base + 5] = vz;
+        count++;
+    }
+
+    public String getTargetName() {
+        return targetName;
+    }
+
+    public String getCenterName() {
+        return centerName;
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+
+    /**
+     * Obtiene el número de filas.
+     * @return Número de vectores de estado
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Obtiene la época de una fila.
+     * @param row Fila
+     * @return Fecha juliana (TDB)
+     */
+    public double getEpoch(int row) {
+        return epochs[row];
+    }
+
+    /**
+     * Copia la posición de una fila.
+     * @param row Fila
+     * @param out Array de al menos 3 elementos para [x, y, z] en km
+     */
+    public void getPosition(int row, double[] out) {
+        System.arraycopy(states, row * 6, out, 0, 3);
+    }
+
+    /**
+     * Copia la velocidad de una fila.
+     * @param row Fila
+     * @param out Array de al menos 3 elementos para [vx, vy, vz] en km/día
+     */
+    public void getVelocity(int row, double[] out) {
+        System.arraycopy(states, row * 6 + 3, out, 0, 3);
+    }
+
+    /**
+     * Busca la fila cuya época está más cerca de la indicada (búsqueda binaria;
+     * las tablas de Horizons están ordenadas por época).
+     * @param epoch Fecha juliana buscada
+     * @return Índice de la fila, o -1 si la tabla está vacía
+     */
+    public int nearestRow(double epoch) {
+        if (count == 0) return -1;
+        int index = Arrays.binarySearch(epochs, 0, count, epoch);
+        if (index >= 0) return index;
+        int insertion = -index - 1;
+        if (insertion == 0) return 0;
+        if (insertion == count) return count - 1;
+        return epoch - epochs[insertion - 1] <= epochs[insertion] - epoch ? insertion - 1 : insertion;
+    }
+}
@@ -0,0 +1,260 @@
+package com.solarsim.util.catalog;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Lector en streaming de catálogos JSON de cuerpos celestes.
+ *
+ * Recorre el documento con un {@link JsonReader} y decodifica cada cuerpo
+ * directamente en un {@link BodyRecord}, sin construir el árbol JSON: la memoria
+ * necesaria depende del número de registros que conserve el consumidor, no del
+ * tamaño del fichero. Los campos desconocidos se saltan sin materializarlos, salvo
+ * que se pida conservarlos con {@link #JsonCatalogReader(boolean)}.
+ *
+ * Acepta tanto un array de cuerpos en la raíz como un objeto con un array
+ * {@code "bodies"} (el formato de la API de le-systeme-solaire.net), y reconoce
+ * los nombres de campo de ambos formatos:
+ * <pre>
+ *   name | englishName          nombre
+ *   mass (número | {massValue, massExponent})
+ *   radius | meanRadius         km
+ *   semiMajorAxis | semimajorAxis
+ *   eccentricity, inclination
+ *   longAscNode | longitudeOfAscendingNode, argPeriapsis | argumentOfPeriapsis
+ *   mainAnomaly | meanAnomaly                             grados
+ *   orbitalPeriod | sideralOrbit   días
+ *   isPlanet
+ *   parent | aroundPlanet ({planet})
+ * </pre>
+ */
+public class JsonCatalogReader {
+    /** Cadenas repetidas (nombres de cuerpos centrales) compartidas entre registros */
+    private final Map<String, String> stringPool = new HashMap<>();
+
+    private final boolean keepExtraFields;
+
+    /**
+     * Crea un lector que descarta los campos desconocidos.
+     */
+    public JsonCatalogReader() {
+        this(false);
+    }
+
+    /**
+     * Crea un lector.
+     * @param keepExtraFields true para guardar en cada registro los campos sin
+     *                        equivalente tipado (ver {@link BodyRecord#getExtraFields()})
+     */
+    public JsonCatalogReader(boolean keepExtraFields) {
+        this.keepExtraFields = keepExtraFields;
+    }
+
+    /**
+     * Lee un fichero de catálogo y entrega cada cuerpo al consumidor según se decodifica.
+     * @param path Ruta del fichero JSON (UTF-8)
+     * @param consumer Receptor de los registros
+     * @return Número de registros leídos
+     * @throws IOException Si el fichero no se puede leer o no tiene el formato esperado
+     */
+    public int read(Path path, Consumer<BodyRecord> consumer) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return read(reader, consumer);
+        }
+    }
+
+    /**
+     * Lee un catálogo desde un flujo de caracteres.
+     * @param source Flujo con el documento JSON; no se cierra
+     * @param consumer Receptor de los registros
+     * @return Número de registros leídos
+     * @throws IOException Si el flujo no se puede leer o no tiene el formato esperado
+     */
+    public int read(Reader source, Consumer<BodyRecord> consumer) throws IOException {
+        JsonReader json = new JsonReader(source);
+
+        if (json.peek() == JsonToken.BEGIN_OBJECT) {
+            int count = 0;
+            json.beginObject();
+            while (json.hasNext()) {
+                if (json.nextName().equals("bodies")) {
+                    count += readArray(json, consumer);
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+            return count;
+        }
+        return readArray(json, consumer);
+    }
+
+    private int readArray(JsonReader json, Consumer<BodyRecord> consumer) throws IOException {
+        int count = 0;
+        json.beginArray();
+        while (json.hasNext()) {
+            BodyRecord record = readBody(json);
+            if (record != null) {
+                consumer.accept(record);
+                count++;
+            }
+        }
+        json.endArray();
+        return count;
+    }
+
+    /**
+     * Decodifica un objeto cuerpo. Devuelve null si no tiene nombre.
+     */
+    private BodyRecord readBody(JsonReader json) throws IOException {
+        String name = null;
+        String englishName = null;
+        String parent = null;
+        double mass = Double.NaN;
+        double radius = Double.NaN;
+        double semiMajorAxis = Double.NaN;
+        double eccentricity = Double.NaN;
+        double inclination = Double.NaN;
+        double node = Double.NaN;
+        double periapsis = Double.NaN;
+        double meanAnomaly = Double.NaN;
+        double period = Double.NaN;
+        boolean planet = false;
+        JsonObject extra = null;
+
+        json.beginObject();
+        while (json.hasNext()) {
+            String field = json.nextName();
+            if (json.peek() == JsonToken.NULL) {
+                json.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "name":
+                    name = json.nextString();
+                    break;
+                case "englishName":
+                    englishName = json.nextString();
+                    break;
+                case "mass":
+                    mass = readMass(json);
+                    break;
+                case "radius":
+                case "meanRadius":
+                    radius = json.nextDouble();
+                    break;
+                case "semiMajorAxis":
+                case "semimajorAxis":
+                    semiMajorAxis = json.nextDouble();
+                    break;
+                case "eccentricity":
+                    eccentricity = json.nextDouble();
+                    break;
+                case "inclination":
+                    inclination = json.nextDouble();
+                    break;
+                case "longAscNode":
+                case "longitudeOfAscendingNode":
+                    node = json.nextDouble();
+                    break;
+                case "argPeriapsis":
+                case "argumentOfPeriapsis":
+                    periapsis = json.nextDouble();
+                    break;
+                case "mainAnomaly":
+                case "meanAnomaly":
+                    meanAnomaly = json.nextDouble();
+                    break;
+                case "orbitalPeriod":
+                case "sideralOrbit":
+                    period = json.nextDouble();
+                    break;
+                case "isPlanet":
+                    planet = json.nextBoolean();
+                    break;
+                case "parent":
+                    parent = json.nextString();
+                    break;
+                case "aroundPlanet":
+                    parent = readAroundPlanet(json);
+                    break;
+                default:
+                    if (keepExtraFields) {
+                        if (extra == null) extra = new JsonObject();
+                        extra.add(field, JsonParser.parseReader(json));
+                    } else {
+                        json.skipValue();
+                    }
+                    break;
+            }
+        }
+        json.endObject();
+
+        // En la API "name" es el nombre francés; se prefiere el inglés si existe
+        String displayName = englishName != null && !englishName.isEmpty() ? englishName : name;
+        if (displayName == null) {
+            return null;
+        }
+        String catalogName = name != null ? name.intern() : displayName.intern();
+        return new BodyRecord(displayName.intern(), catalogName, pooled(parent), mass, radius,
+            semiMajorAxis, eccentricity, inclination, node, periapsis, meanAnomaly, period, planet, extra);
+    }
+
+    /**
+     * La masa puede venir como número o como {massValue, massExponent}.
+     */
+    private double readMass(JsonReader json) throws IOException {
+        if (json.peek() != JsonToken.BEGIN_OBJECT) {
+            return json.nextDouble();
+        }
+        double value = Double.NaN;
+        double exponent = 0;
+        json.beginObject();
+        while (json.hasNext()) {
+            String field = json.nextName();
+            if (field.equals("massValue")) {
+                value = json.nextDouble();
+            } else if (field.equals("massExponent")) {
+                exponent = json.nextDouble();
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return value * Math.pow(10, exponent);
+    }
+
+    private String readAroundPlanet(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.STRING) {
+            return json.nextString();
+        }
+        String parent = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            if (json.nextName().equals("planet") && json.peek() == JsonToken.STRING) {
+                parent = json.nextString();
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return parent;
+    }
+
+    private String pooled(String value) {
+        if (value == null) return null;
+        String existing = stringPool.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+}
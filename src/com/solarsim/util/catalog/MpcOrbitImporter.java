@@ -0,0 +1,214 @@
+package com.solarsim.util.catalog;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.solarsim.util.logging.Log;
+import com.solarsim.util.logging.Logger;
+
+/**
+ * Importador de ficheros de elementos orbitales de ancho fijo al estilo del
+ * Minor Planet Center (MPCORB.DAT).
+ *
+ * El fichero se divide en trozos de tamaño fijo que se procesan en paralelo;
+ * cada trozo se mapea en memoria por separado (así el fichero puede superar los
+ * 2 GB) y se ajusta a límites de línea: un trozo empieza en la primera línea que
+ * comienza dentro de él y termina con la última línea que comienza dentro de él,
+ * aunque acabe en el trozo siguiente. Los campos se convierten directamente
+ * desde los bytes mapeados con {@link AsciiNumbers}, sin crear una cadena por
+ * línea, y los nombres se copian como bytes a {@link OrbitElementArrays}.
+ *
+ * Las líneas que no contienen elementos válidos (la cabecera del fichero, la
+ * línea de guiones, líneas vacías) se descartan.
+ *
+ * Columnas usadas (base 1): 1-7 designación empaquetada, 27-35 anomalía media,
+ * 38-46 argumento del perihelio, 49-57 nodo ascendente, 60-68 inclinación,
+ * 71-79 excentricidad, 81-91 movimiento medio diario, 93-103 semieje mayor (UA),
+ * 167-194 designación legible.
+ */
+public class MpcOrbitImporter {
+    private static final Logger LOG = Log.getLogger(MpcOrbitImporter.class);
+
+    /** Kilómetros por unidad astronómica */
+    public static final double KM_PER_AU = 149_597_870.7;
+
+    /** Periodo en días de una órbita de 1 UA alrededor del Sol */
+    private static final double DAYS_PER_AU_ORBIT = 365.256898;
+
+    private static final int DEFAULT_CHUNK_SIZE = 32 * 1024 * 1024;
+
+    /** Margen que se mapea tras el final de un trozo para completar su última línea */
+    private static final int MAX_LINE_LENGTH = 1024;
+
+    /** Longitud mínima de una línea con todos los elementos (hasta el semieje mayor) */
+    private static final int MIN_LINE_LENGTH = 103;
+
+    /** Bytes medios por línea, para reservar los arrays de cada trozo */
+    private static final int TYPICAL_LINE_LENGTH = 203;
+
+    private final int threads;
+    private final int chunkSize;
+    private final AtomicLong skippedLines = new AtomicLong();
+
+    /**
+     * Crea un importador con un hilo por procesador.
+     */
+    public MpcOrbitImporter() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Crea un importador.
+     * @param threads Hilos de análisis
+     * @param chunkSize Tamaño en bytes de cada trozo del fichero
+     */
+    public MpcOrbitImporter(int threads, int chunkSize) {
+        if (threads < 1 || chunkSize < MAX_LINE_LENGTH) {
+            throw new IllegalArgumentException("Configuración no válida: " + threads + " hilos, trozos de " + chunkSize);
+        }
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Analiza el fichero completo.
+     * @param file Fichero de elementos orbitales
+     * @return Un conjunto de elementos por trozo, en el orden del fichero
+     * @throws IOException Si el fichero no se puede leer
+     */
+    public List<OrbitElementArrays> parse(Path file) throws IOException {
+        skippedLines.set(0);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "solarsim-mpc-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Future<OrbitElementArrays>> futures = new ArrayList<>();
+            for (long start = 0; start < size; start += chunkSize) {
+                long chunkStart = start;
+                long chunkEnd = Math.min(size, start + chunkSize);
+                futures.add(pool.submit(() -> parseChunk(channel, size, chunkStart, chunkEnd)));
+            }
+
+            List<OrbitElementArrays> results = new ArrayList<>(futures.size());
+            for (Future<OrbitElementArrays> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Importación interrumpida", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException("Error al analizar " + file, cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Analiza un fichero y escribe el resultado como catálogo binario.
+     * @param file Fichero de elementos orbitales
+     * @param catalog Fichero del catálogo binario que se crea
+     * @return Número de cuerpos importados
+     * @throws IOException Si no se puede leer la entrada o escribir el catálogo
+     */
+    public int importToCatalog(Path file, Path catalog) throws IOException {
+        long startTime = System.nanoTime();
+        List<OrbitElementArrays> chunks = parse(file);
+        BinaryCatalogWriter writer = new BinaryCatalogWriter();
+        for (OrbitElementArrays chunk : chunks) {
+            writer.addAll(chunk, 0xFFA0A0A0);
+        }
+        writer.write(catalog);
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        LOG.info("Importados {} cuerpos en {} s", writer.size(), String.format("%.2f", seconds));
+        return writer.size();
+    }
+
+    /**
+     * Obtiene el número de líneas descartadas en el último análisis.
+     * @return Líneas sin elementos válidos
+     */
+    public long getSkippedLines() {
+        return skippedLines.get();
+    }
+
+    private OrbitElementArrays parseChunk(FileChannel channel, long fileSize, long start, long end) throws IOException {
+        // Se mapea desde el byte anterior para saber si el trozo empieza justo en una línea
+        long mapStart = start == 0 ? 0 : start - 1;
+        long mapEnd = Math.min(fileSize, end + MAX_LINE_LENGTH);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+        int limit = buffer.limit();
+        int chunkLimit = (int) (end - mapStart); // las líneas deben empezar antes de aquí
+
+        int pos = 0;
+        if (start > 0) {
+            while (pos < limit && buffer.get(pos) != '\n') pos++;
+            pos++; // primera línea completa del trozo
+        }
+
+        OrbitElementArrays elements = new OrbitElementArrays((int) ((end - start) / TYPICAL_LINE_LENGTH) + 16);
+        long skipped = 0;
+        while (pos < chunkLimit && pos < limit) {
+            int lineEnd = pos;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') lineEnd++;
+            if (!parseLine(buffer, pos, lineEnd, elements)) skipped++;
+            pos = lineEnd + 1;
+        }
+        skippedLines.addAndGet(skipped);
+        return elements;
+    }
+
+    /**
+     * Interpreta una línea [from, to) y la añade a los elementos si es válida.
+     */
+    private static boolean parseLine(MappedByteBuffer line, int from, int to, OrbitElementArrays out) {
+        if (to > from && line.get(to - 1) == '\r') to--;
+        if (to - from < MIN_LINE_LENGTH) return false;
+
+        double meanAnomaly = AsciiNumbers.parseDouble(line, from + 26, from + 35);
+        double periapsis = AsciiNumbers.parseDouble(line, from + 37, from + 46);
+        double node = AsciiNumbers.parseDouble(line, from + 48, from + 57);
+        double inclination = AsciiNumbers.parseDouble(line, from + 59, from + 68);
+        double eccentricity = AsciiNumbers.parseDouble(line, from + 70, from + 79);
+        double meanMotion = AsciiNumbers.parseDouble(line, from + 80, from + 91);
+        double semiMajorAxisAu = AsciiNumbers.parseDouble(line, from + 92, from + 103);
+        if (Double.isNaN(semiMajorAxisAu) || Double.isNaN(eccentricity) || Double.isNaN(meanAnomaly)
+                || Double.isNaN(periapsis) || Double.isNaN(node) || Double.isNaN(inclination)) {
+            return false;
+        }
+
+        double period = meanMotion > 0
+            ? 360.0 / meanMotion
+            : DAYS_PER_AU_ORBIT * Math.pow(semiMajorAxisAu, 1.5);
+
+        // Designación legible si la línea la tiene; si no, la empaquetada
+        int nameFrom = from + 166;
+        int nameTo = Math.min(to, from + 194);
+        while (nameFrom < nameTo && line.get(nameFrom) == ' ') nameFrom++;
+        while (nameTo > nameFrom && line.get(nameTo - 1) == ' ') nameTo--;
+        if (nameFrom >= nameTo) {
+            nameFrom = from;
+            nameTo = from + 7;
+            while (nameTo > nameFrom && line.get(nameTo - 1) == ' ') nameTo--;
+        }
+
+        out.add(line, nameFrom, nameTo, semiMajorAxisAu * KM_PER_AU, eccentricity, inclination,
+            node, periapsis, meanAnomaly, period);
+        return true;
+    }
+}
@@ -0,0 +1,174 @@
+package com.solarsim.util.catalog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.solarsim.physics.Orbit;
+
+/**
+ * Elementos orbitales de muchos cuerpos en arrays paralelos de tipos primitivos.
+ *
+ * Es la forma en que los importadores masivos entregan sus resultados: no hay un
+ * objeto por cuerpo y los nombres se guardan como bytes UTF-8 en un único
+ * montón. Las unidades son las de {@link Orbit}: kilómetros, grados y días.
+ */
+public class OrbitElementArrays {
+    private int count;
+    private double[] semiMajorAxis;
+    private double[] eccentricity;
+    private double[] inclination;
+    private double[] ascendingNode;
+    private double[] argumentOfPeriapsis;
+    private double[] meanAnomaly;
+    private double[] orbitalPeriod;
+    private int[] nameOffset;
+    private int[] nameLength;
+    private byte[] nameHeap;
+    private int nameHeapSize;
+
+    /**
+     * Crea un conjunto vacío.
+     * @param initialCapacity Número de cuerpos previsto
+     */
+    public OrbitElementArrays(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        semiMajorAxis = new double[capacity];
+        eccentricity = new double[capacity];
+        inclination = new double[capacity];
+        ascendingNode = new double[capacity];
+        argumentOfPeriapsis = new double[capacity];
+        meanAnomaly = new double[capacity];
+        orbitalPeriod = new double[capacity];
+        nameOffset = new int[capacity];
+        nameLength = new int[capacity];
+        nameHeap = new byte[capacity * 12];
+    }
+
+    /**
+     * Añade un cuerpo copiando su nombre directamente de un búfer de bytes.
+     * @param names Búfer con el nombre en ASCII/UTF-8
+     * @param nameFrom Posición absoluta del primer byte del nombre
+     * @param nameTo Posición absoluta siguiente al último byte del nombre
+     * @param a Semieje mayor en km
+     * @param e Excentricidad
+     * @param i Inclinación en grados
+     * @param node Longitud del nodo ascendente en grados
+     * @param periapsis Argumento del periapsis en grados
+     * @param m Anomalía media en grados
+     * @param period Periodo orbital en días
+     * @return Índice del cuerpo
+     */
+    public int add(ByteBuffer names, int nameFrom, int nameTo,
+                   double a, double e, double i, double node, double periapsis, double m, double period) {
+        int index = count;
+        if (index == semiMajorAxis.length) grow();
+        int length = Math.max(nameTo - nameFrom, 0);
+        if (nameHeapSize + length > nameHeap.length) {
+            nameHeap = Arrays.copyOf(nameHeap, Math.max(nameHeap.length * 2, nameHeapSize + length));
+        }
+        names.get(nameFrom, nameHeap, nameHeapSize, length);
+        nameOffset[index] = nameHeapSize;
+        nameLength[index] = length;
+        nameHeapSize += length;
+
+        semiMajorAxis[index] = a;
+        eccentricity[index] = e;
+        inclination[index] = i;
+        ascendingNode[index] = node;
+        argumentOfPeriapsis[index] = periapsis;
+        meanAnomaly[index] = m;
+        orbitalPeriod[index] = period;
+        count++;
+        return index;
+    }
+
+    /**
+     * Obtiene el número de cuerpos.
+     * @return Número de cuerpos
+     */
+    public int size() {
+        return count;
+    }
+
+    public double getSemiMajorAxis(int index) {
+        return semiMajorAxis[index];
+    }
+
+    public double getEccentricity(int index) {
+        return eccentricity[index];
+    }
+
+    public double getInclination(int index) {
+        return inclination[index];
+    }
+
+    public double getAscendingNode(int index) {
+        return ascendingNode[index];
+    }
+
+    public double getArgumentOfPeriapsis(int index) {
+        return argumentOfPeriapsis[index];
+    }
+
+    public double getMeanAnomaly(int index) {
+        return meanAnomaly[index];
+    }
+
+    public double getOrbitalPeriod(int index) {
+        return orbitalPeriod[index];
+    }
+
+    /**
+     * Obtiene el montón de nombres; el nombre del cuerpo i ocupa
+     * [{@link #getNameOffset(int)}, offset + {@link #getNameLength(int)}).
+     * @return Array de bytes compartido (no modificar)
+     */
+    public byte[] getNameHeap() {
+        return nameHeap;
+    }
+
+    public int getNameOffset(int index) {
+        return nameOffset[index];
+    }
+
+    public int getNameLength(int index) {
+        return nameLength[index];
+    }
+
+    /**
+     * Decodifica el nombre de un cuerpo (crea una cadena; no usar en bucles masivos).
+     * @param index Índice del cuerpo
+     * @return El nombre
+     */
+    public String getName(int index) {
+        return new String(nameHeap, nameOffset[index], nameLength[index], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Crea la órbita de un cuerpo, con la anomalía verdadera correspondiente a su anomalía media.
+     * @param index Índice del cuerpo
+     * @return Nueva órbita
+     */
+    public Orbit toOrbit(int index) {
+        double e = eccentricity[index];
+        double trueAnomaly = e < 1
+            ? Math.toDegrees(Orbit.trueAnomalyFromMeanAnomaly(Math.toRadians(meanAnomaly[index]), e))
+            : 0;
+        return new Orbit(semiMajorAxis[index], e, inclination[index], ascendingNode[index],
+            argumentOfPeriapsis[index], trueAnomaly);
+    }
+
+    private void grow() {
+        int capacity = semiMajorAxis.length * 2;
+        semiMajorAxis = Arrays.copyOf(semiMajorAxis, capacity);
+        eccentricity = Arrays.copyOf(eccentricity, capacity);
+        inclination = Arrays.copyOf(inclination, capacity);
+        ascendingNode = Arrays.copyOf(ascendingNode, capacity);
+        argumentOfPeriapsis = Arrays.copyOf(argumentOfPeriapsis, capacity);
+        meanAnomaly = Arrays.copyOf(meanAnomaly, capacity);
+        orbitalPeriod = Arrays.copyOf(orbitalPeriod, capacity);
+        nameOffset = Arrays.copyOf(nameOffset, capacity);
+        nameLength = Arrays.copyOf(nameLength, capacity);
+    }
+}
@@ -0,0 +1,209 @@
+package com.solarsim.util.logging;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Destino de registro asíncrono basado en un búfer circular sin bloqueos.
+ *
+ * Varios hilos productores reservan una ranura con una operación CAS sobre el
+ * índice de escritura, rellenan un evento preasignado y lo publican. Un único
+ * hilo en segundo plano consume los eventos, los formatea y los escribe en la
+ * consola. Si el búfer está lleno el mensaje se descarta y se contabiliza, de
+ * forma que quien registra nunca espera a que la terminal avance.
+ */
+final class AsyncRingAppender {
+    private static final DateTimeFormatter TIME_FORMAT =
+        DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    /** Tiempo de espera del hilo consumidor cuando no hay eventos pendientes */
+    private static final long IDLE_PARK_NANOS = 2_000_000L;
+
+    private final LogEvent[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private final LongAdder dropped = new LongAdder();
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private final Thread drainThread;
+    private volatile boolean running = true;
+
+    /**
+     * Crea el destino y arranca su hilo de vaciado.
+     * @param requestedCapacity Capacidad deseada; se redondea a potencia de dos
+     * @param out Flujo para mensajes de nivel inferior a WARN
+     * @param err Flujo para mensajes WARN y ERROR
+     */
+    AsyncRingAppender(int requestedCapacity, PrintStream out, PrintStream err) {
+        int capacity = Integer.highestOneBit(Math.max(16, requestedCapacity - 1)) << 1;
+        this.slots = new LogEvent[capacity];
+        this.published = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new LogEvent();
+            published.set(i, -1);
+        }
+        this.out = out;
+        this.err = err;
+
+        drainThread = new Thread(this::drainLoop, "solarsim-log");
+        drainThread.setDaemon(true);
+        drainThread.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "solarsim-log-shutdown"));
+    }
+
+    /**
+     * Encola un evento. Nunca bloquea: si no hay espacio el evento se descarta.
+     */
+    void append(LogLevel level, String category, String format, int argCount,
+                Object arg1, Object arg2, Throwable error) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= slots.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) (sequence & mask);
+        LogEvent event = slots[index];
+        event.timestamp = System.currentTimeMillis();
+        event.level = level;
+        event.category = category;
+        event.thread = Thread.currentThread().getName();
+        event.format = format;
+        event.argCount = argCount;
+        event.arg1 = arg1;
+        event.arg2 = arg2;
+        event.error = error;
+        published.lazySet(index, sequence);
+    }
+
+    /**
+     * Obtiene el número de mensajes descartados por falta de espacio.
+     * @return Total de mensajes descartados desde el arranque
+     */
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    private void drainLoop() {
+        StringBuilder line = new StringBuilder(256);
+        while (running) {
+            if (drainAvailable(line) == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        // Último vaciado desde este mismo hilo: es el único que avanza head
+        drainAvailable(line);
+    }
+
+    /**
+     * Consume todos los eventos publicados hasta el momento.
+     * @return Número de eventos escritos
+     */
+    private int drainAvailable(StringBuilder line) {
+        int written = 0;
+        boolean wroteOut = false;
+        boolean wroteErr = false;
+        long next = head;
+        while (true) {
+            int index = (int) (next & mask);
+            if (published.get(index) != next) {
+                break;
+            }
+            LogEvent event = slots[index];
+            PrintStream target = event.level.getSeverity() >= LogLevel.WARN.getSeverity() ? err : out;
+            line.setLength(0);
+            event.formatTo(line);
+            target.println(line);
+            if (event.error != null) {
+                event.error.printStackTrace(target);
+            }
+            wroteOut |= target == out;
+            wroteErr |= target == err;
+            event.clear();
+            next++;
+            head = next;
+            written++;
+        }
+
+        long lost = dropped.sumThenReset();
+        if (lost > 0) {
+            err.println("[log] " + lost + " mensajes descartados por búfer lleno");
+            wroteErr = true;
+        }
+        if (wroteOut) out.flush();
+        if (wroteErr) err.flush();
+        return written;
+    }
+
+    /**
+     * Pide al hilo de vaciado que escriba lo pendiente y termine, y espera a que
+     * lo haga. Si no termina a tiempo los eventos restantes se pierden: vaciar
+     * desde aquí a la vez que él podría escribir dos veces el mismo evento.
+     */
+    private void shutdown() {
+        running = false;
+        LockSupport.unpark(drainThread);
+        try {
+            drainThread.join(500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Evento preasignado que se reutiliza para cada ranura del búfer.
+     */
+    private static final class LogEvent {
+        long timestamp;
+        LogLevel level;
+        String category;
+        String thread;
+        String format;
+        int argCount;
+        Object arg1;
+        Object arg2;
+        Throwable error;
+
+        void formatTo(StringBuilder sb) {
+            TIME_FORMAT.formatTo(Instant.ofEpochMilli(timestamp), sb);
+            sb.append(" [").append(thread).append("] ")
+              .append(level.name()).append(' ')
+              .append(category.substring(category.lastIndexOf('.') + 1))
+              .append(" - ");
+
+            int argIndex = 0;
+            int from = 0;
+            int marker;
+            while (argIndex < argCount
+                   && (marker = format.indexOf("{}", from)) >= 0) {
+                sb.append(format, from, marker).append(argIndex++ == 0 ? arg1 : arg2);
+                from = marker + 2;
+            }
+            sb.append(format, from, format.length());
+        }
+
+        void clear() {
+            category = null;
+            thread = null;
+            format = null;
+            arg1 = null;
+            arg2 = null;
+            error = null;
+        }
+    }
+}
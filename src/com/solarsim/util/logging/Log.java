@@ -0,0 +1,119 @@
+package com.solarsim.util.logging;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Punto de entrada del sistema de registro del simulador.
+ *
+ * Los niveles se configuran por categoría y se heredan por prefijo: el nivel de
+ * "com.solarsim.view" se aplica a "com.solarsim.view.JavaFX3DSimulationView" si
+ * esta no tiene uno propio. La configuración inicial se lee de las propiedades
+ * del sistema:
+ * <pre>
+ *   -Dsolarsim.log.level=INFO                        nivel raíz
+ *   -Dsolarsim.log.level.com.solarsim.view=DEBUG     nivel de una categoría
+ *   -Dsolarsim.log.bufferSize=8192                   ranuras del búfer circular
+ * </pre>
+ */
+public final class Log {
+    private static final String LEVEL_PROPERTY = "solarsim.log.level";
+    private static final String BUFFER_PROPERTY = "solarsim.log.bufferSize";
+
+    private static final Map<String, Logger> loggers = new ConcurrentHashMap<>();
+    private static final Map<String, LogLevel> configuredLevels = new ConcurrentHashMap<>();
+    private static volatile LogLevel rootLevel;
+
+    static {
+        Properties properties = System.getProperties();
+        rootLevel = LogLevel.parse(properties.getProperty(LEVEL_PROPERTY), LogLevel.INFO);
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(LEVEL_PROPERTY + ".")) {
+                String category = key.substring(LEVEL_PROPERTY.length() + 1);
+                configuredLevels.put(category, LogLevel.parse(properties.getProperty(key), rootLevel));
+            }
+        }
+    }
+
+    private Log() {
+    }
+
+    /**
+     * Obtiene el registrador de una clase, usando su nombre completo como categoría.
+     * @param type Clase que registra
+     * @return El registrador de la categoría
+     */
+    public static Logger getLogger(Class<?> type) {
+        return getLogger(type.getName());
+    }
+
+    /**
+     * Obtiene (o crea) el registrador de una categoría.
+     * @param category Nombre de la categoría
+     * @return El registrador de la categoría
+     */
+    public static Logger getLogger(String category) {
+        return loggers.computeIfAbsent(category, name -> new Logger(name, resolveLevel(name)));
+    }
+
+    /**
+     * Cambia en tiempo de ejecución el nivel de una categoría y de todas sus
+     * subcategorías que no tengan un nivel propio más específico.
+     * @param category Categoría (prefijo) a configurar
+     * @param level Nuevo nivel mínimo
+     */
+    public static void setLevel(String category, LogLevel level) {
+        configuredLevels.put(category, level);
+        refreshLevels();
+    }
+
+    /**
+     * Cambia el nivel raíz que se aplica a las categorías sin configuración propia.
+     * @param level Nuevo nivel raíz
+     */
+    public static void setRootLevel(LogLevel level) {
+        rootLevel = level;
+        refreshLevels();
+    }
+
+    /**
+     * Obtiene el destino asíncrono compartido, creándolo en el primer uso.
+     * @return El destino de registro
+     */
+    static AsyncRingAppender appender() {
+        return AppenderHolder.INSTANCE;
+    }
+
+    private static void refreshLevels() {
+        for (Logger logger : loggers.values()) {
+            logger.setLevel(resolveLevel(logger.getCategory()));
+        }
+    }
+
+    /**
+     * Busca el nivel configurado para el prefijo más largo de la categoría.
+     */
+    private static LogLevel resolveLevel(String category) {
+        String name = category;
+        while (true) {
+            LogLevel level = configuredLevels.get(name);
+            if (level != null) {
+                return level;
+            }
+            int dot = name.lastIndexOf('.');
+            if (dot < 0) {
+                return rootLevel;
+            }
+            name = name.substring(0, dot);
+        }
+    }
+
+    /**
+     * Inicialización diferida: el hilo de vaciado solo arranca si algo llega a registrarse.
+     */
+    private static final class AppenderHolder {
+        static final AsyncRingAppender INSTANCE = new AsyncRingAppender(
+            Integer.getInteger(BUFFER_PROPERTY, 8192), System.out, System.err);
+    }
+}
@@ -0,0 +1,46 @@
+package com.solarsim.util.logging;
+
+/**
+ * Niveles de severidad soportados por el sistema de registro del simulador.
+ * Cada nivel tiene un peso numérico para que la comprobación de nivel sea
+ * una simple comparación de enteros.
+ */
+public enum LogLevel {
+    TRACE(0),
+    DEBUG(1),
+    INFO(2),
+    WARN(3),
+    ERROR(4),
+    OFF(5);
+
+    private final int severity;
+
+    LogLevel(int severity) {
+        this.severity = severity;
+    }
+
+    /**
+     * Obtiene el peso numérico del nivel.
+     * @return Severidad (mayor valor = más grave)
+     */
+    public int getSeverity() {
+        return severity;
+    }
+
+    /**
+     * Convierte un texto (por ejemplo, de una propiedad del sistema) en un nivel.
+     * @param value Nombre del nivel, sin distinguir mayúsculas
+     * @param defaultLevel Nivel a devolver si el texto es nulo o no válido
+     * @return El nivel correspondiente
+     */
+    public static LogLevel parse(String value, LogLevel defaultLevel) {
+        if (value == null) {
+            return defaultLevel;
+        }
+        try {
+            return LogLevel.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return defaultLevel;
+        }
+    }
+}
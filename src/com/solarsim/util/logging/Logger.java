@@ -0,0 +1,128 @@
+package com.solarsim.util.logging;
+
+/**
+ * Registrador asociado a una categoría (normalmente el nombre de una clase).
+ * La comprobación de nivel es una única comparación de enteros, y el formateo
+ * del mensaje se pospone al hilo de escritura, de modo que las llamadas con un
+ * nivel desactivado no construyen cadenas ni bloquean al hilo que las invoca.
+ *
+ * Los mensajes usan marcadores "{}" que se sustituyen por los argumentos en el
+ * orden indicado. Los argumentos se formatean más tarde en otro hilo, por lo que
+ * deben ser inmutables (cadenas, números, etc.).
+ */
+public final class Logger {
+    private final String category;
+    private volatile int threshold;
+
+    /**
+     * Constructor usado por {@link Log}; las instancias se obtienen mediante
+     * {@link Log#getLogger(String)}.
+     * @param category Nombre de la categoría
+     * @param level Nivel mínimo inicial
+     */
+    Logger(String category, LogLevel level) {
+        this.category = category;
+        this.threshold = level.getSeverity();
+    }
+
+    /**
+     * Obtiene el nombre de la categoría del registrador.
+     * @return Nombre de la categoría
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Cambia el nivel mínimo de este registrador.
+     * @param level Nuevo nivel mínimo
+     */
+    void setLevel(LogLevel level) {
+        this.threshold = level.getSeverity();
+    }
+
+    /**
+     * Indica si los mensajes del nivel indicado se registrarían.
+     * @param level Nivel a comprobar
+     * @return true si el nivel está activado
+     */
+    public boolean isEnabled(LogLevel level) {
+        return level.getSeverity() >= threshold;
+    }
+
+    public boolean isTraceEnabled() {
+        return threshold <= 0;
+    }
+
+    public boolean isDebugEnabled() {
+        return threshold <= 1;
+    }
+
+    public boolean isInfoEnabled() {
+        return threshold <= 2;
+    }
+
+    public void trace(String message) {
+        if (threshold <= 0) Log.appender().append(LogLevel.TRACE, category, message, 0, null, null, null);
+    }
+
+    public void trace(String format, Object arg) {
+        if (threshold <= 0) Log.appender().append(LogLevel.TRACE, category, format, 1, arg, null, null);
+    }
+
+    public void trace(String format, Object arg1, Object arg2) {
+        if (threshold <= 0) Log.appender().append(LogLevel.TRACE, category, format, 2, arg1, arg2, null);
+    }
+
+    public void debug(String message) {
+        if (threshold <= 1) Log.appender().append(LogLevel.DEBUG, category, message, 0, null, null, null);
+    }
+
+    public void debug(String format, Object arg) {
+        if (threshold <= 1) Log.appender().append(LogLevel.DEBUG, category, format, 1, arg, null, null);
+    }
+
+    public void debug(String format, Object arg1, Object arg2) {
+        if (threshold <= 1) Log.appender().append(LogLevel.DEBUG, category, format, 2, arg1, arg2, null);
+    }
+
+    public void info(String message) {
+        if (threshold <= 2) Log.appender().append(LogLevel.INFO, category, message, 0, null, null, null);
+    }
+
+    public void info(String format, Object arg) {
+        if (threshold <= 2) Log.appender().append(LogLevel.INFO, category, format, 1, arg, null, null);
+    }
+
+    public void info(String format, Object arg1, Object arg2) {
+        if (threshold <= 2) Log.appender().append(LogLevel.INFO, category, format, 2, arg1, arg2, null);
+    }
+
+    public void warn(String message) {
+        if (threshold <= 3) Log.appender().append(LogLevel.WARN, category, message, 0, null, null, null);
+    }
+
+    public void warn(String format, Object arg) {
+        if (threshold <= 3) Log.appender().append(LogLevel.WARN, category, format, 1, arg, null, null);
+    }
+
+    public void warn(String format, Object arg1, Object arg2) {
+        if (threshold <= 3) Log.appender().append(LogLevel.WARN, category, format, 2, arg1, arg2, null);
+    }
+
+    public void warn(String message, Throwable error) {
+        if (threshold <= 3) Log.appender().append(LogLevel.WARN, category, message, 0, null, null, error);
+    }
+
+    public void error(String message) {
+        if (threshold <= 4) Log.appender().append(LogLevel.ERROR, category, message, 0, null, null, null);
+    }
+
+    public void error(String format, Object arg) {
+        if (threshold <= 4) Log.appender().append(LogLevel.ERROR, category, format, 1, arg, null, null);
+    }
+
+    public void error(String message, Throwable error) {
+        if (threshold <= 4) Log.appender().append(LogLevel.ERROR, category, message, 0, null, null, error);
+    }
+}
@@ -0,0 +1,74 @@
+package com.solarsim.util.trajectory;
+
+import java.util.Arrays;
+
+/**
+ * Secuencia de bits que se escribe en un array de bytes ampliable, empezando por
+ * el bit más significativo de cada byte.
+ */
+final class BitSink {
+    private byte[] bytes;
+    private int length;
+    private long pending;
+    private int pendingBits;
+
+    BitSink(int capacity) {
+        bytes = new byte[Math.max(16, capacity)];
+    }
+
+    /**
+     * Escribe los {@code bits} bits menos significativos de un valor (hasta 64).
+     */
+    void write(long value, int bits) {
+        if (bits > 32) {
+            write(value >>> 32, bits - 32);
+            value &= 0xFFFFFFFFL;
+            bits = 32;
+        }
+        pending = (pending << bits) | (value & ((1L << bits) - 1));
+        pendingBits += bits;
+        while (pendingBits >= 8) {
+            pendingBits -= 8;
+            put((byte) (pending >>> pendingBits));
+        }
+    }
+
+    void writeBit(boolean bit) {
+        write(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * Completa el último byte con ceros.
+     */
+    void align() {
+        if (pendingBits > 0) {
+            put((byte) (pending << (8 - pendingBits)));
+            pendingBits = 0;
+        }
+        pending = 0;
+    }
+
+    /**
+     * Longitud en bytes escrita hasta ahora, sin contar los bits pendientes.
+     */
+    int length() {
+        return length;
+    }
+
+    byte[] array() {
+        return bytes;
+    }
+
+    void clear() {
+        length = 0;
+        pending = 0;
+        pendingBits = 0;
+    }
+
+    private void put(byte b) {
+        if (length == bytes.length) {
+            bytes = Arrays.copyOf(bytes, length * 2);
+        }
+        bytes[length++] = b;
+    }
+}
@@ -0,0 +1,36 @@
+package com.solarsim.util.trajectory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Lectura de una secuencia de bits escrita con {@link BitSink} desde un buffer,
+ * mediante accesos absolutos.
+ */
+final class BitSource {
+    private final ByteBuffer buffer;
+    private int position;
+    private long pending;
+    private int pendingBits;
+
+    BitSource(ByteBuffer buffer, int position) {
+        this.buffer = buffer;
+        this.position = position;
+    }
+
+    long read(int bits) {
+        if (bits > 32) {
+            long high = read(bits - 32);
+            return (high << 32) | read(32);
+        }
+        while (pendingBits < bits) {
+            pending = (pending << 8) | (buffer.get(position++) & 0xFF);
+            pendingBits += 8;
+        }
+        pendingBits -= bits;
+        return (pending >>> pendingBits) & ((1L << bits) - 1);
+    }
+
+    boolean readBit() {
+        return read(1) != 0;
+    }
+}
@@ -0,0 +1,133 @@
+package com.solarsim.util.trajectory;
+
+/**
+ * Codificación de una columna de valores consecutivos de un bloque.
+ *
+ * <ul>
+ *   <li>XOR (Gorilla): el primer valor va en 64 bits; cada siguiente se combina
+ *       con XOR con el anterior. Un resultado nulo ocupa un bit ('0'); si los bits
+ *       significativos caben en la ventana del valor anterior se escriben tras
+ *       '10'; si no, tras '11' van 5 bits de ceros iniciales, 6 de longitud y los
+ *       bits significativos.</li>
+ *   <li>Diferencia de diferencias: los valores se cuantizan a enteros, el primero
+ *       va en 64 bits y el resto como diferencia de la diferencia anterior, en
+ *       zigzag y con un prefijo según su tamaño: '0' para cero, '10' + 7 bits,
+ *       '110' + 9 bits, '1110' + 12 bits o '1111' + 64 bits.</li>
+ * </ul>
+ */
+final class ColumnCodec {
+
+    private ColumnCodec() {
+    }
+
+    static void encodeXor(double[] values, int from, int count, BitSink out) {
+        if (count == 0) return;
+        long previous = Double.doubleToRawLongBits(values[from]);
+        out.write(previous, 64);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            long current = Double.doubleToRawLongBits(values[from + i]);
+            long xor = current ^ previous;
+            previous = current;
+            if (xor == 0) {
+                out.write(0, 1);
+                continue;
+            }
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                out.write(0b10, 2);
+                out.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int significant = 64 - leading - trailing;
+                out.write(0b11, 2);
+                out.write(leading, 5);
+                out.write(significant - 1, 6);
+                out.write(xor >>> trailing, significant);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+    }
+
+    static void decodeXor(BitSource in, int count, double[] out, int from) {
+        if (count == 0) return;
+        long previous = in.read(64);
+        out[from] = Double.longBitsToDouble(previous);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < count; i++) {
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.read(5);
+                    int significant = (int) in.read(6) + 1;
+                    trailing = 64 - leading - significant;
+                }
+                previous ^= in.read(64 - leading - trailing) << trailing;
+            }
+            out[from + i] = Double.longBitsToDouble(previous);
+        }
+    }
+
+    static void encodeDeltaOfDelta(double[] values, int from, int count, double quantum, BitSink out) {
+        if (count == 0) return;
+        long previous = Math.round(values[from] / quantum);
+        out.write(previous, 64);
+        long previousDelta = 0;
+        for (int i = 1; i < count; i++) {
+            long current = Math.round(values[from + i] / quantum);
+            long delta = current - previous;
+            writeBucketed(delta - previousDelta, out);
+            previousDelta = delta;
+            previous = current;
+        }
+    }
+
+    static void decodeDeltaOfDelta(BitSource in, int count, double quantum, double[] out, int from) {
+        if (count == 0) return;
+        long previous = in.read(64);
+        out[from] = previous * quantum;
+        long delta = 0;
+        for (int i = 1; i < count; i++) {
+            delta += readBucketed(in);
+            previous += delta;
+            out[from + i] = previous * quantum;
+        }
+    }
+
+    private static void writeBucketed(long value, BitSink out) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        if (zigzag == 0) {
+            out.write(0, 1);
+        } else if (zigzag >>> 7 == 0) {
+            out.write(0b10, 2);
+            out.write(zigzag, 7);
+        } else if (zigzag >>> 9 == 0) {
+            out.write(0b110, 3);
+            out.write(zigzag, 9);
+        } else if (zigzag >>> 12 == 0) {
+            out.write(0b1110, 4);
+            out.write(zigzag, 12);
+        } else {
+            out.write(0b1111, 4);
+            out.write(zigzag, 64);
+        }
+    }
+
+    private static long readBucketed(BitSource in) {
+        long zigzag;
+        if (!in.readBit()) {
+            return 0;
+        } else if (!in.readBit()) {
+            zigzag = in.read(7);
+        } else if (!in.readBit()) {
+            zigzag = in.read(9);
+        } else if (!in.readBit()) {
+            zigzag = in.read(12);
+        } else {
+            zigzag = in.read(64);
+        }
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+}
@@ -0,0 +1,218 @@
+package com.solarsim.util.trajectory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lector de grabaciones escritas con {@link CompressedTrajectoryWriter}.
+ *
+ * El fichero se mapea en memoria y cada bloque se descomprime completo la primera
+ * vez que se pide uno de sus fotogramas; el último bloque descomprimido se
+ * conserva, así que una reproducción secuencial solo descomprime un bloque de
+ * cada {@code B} fotogramas y un salto cuesta, como mucho, un bloque.
+ * {@link #readTrajectory} descomprime solo las columnas del cuerpo pedido.
+ */
+public class CompressedTrajectoryReader implements TrajectorySource {
+    private final Path file;
+    private final ByteBuffer data;
+    private final int[] ids;
+    private final TrajectoryEncoding encoding;
+    private final double quantum;
+    private final int blockFrames;
+    private final long frameCount;
+    private final long[] blockOffsets;
+
+    // Último bloque descomprimido
+    private int cachedBlock = -1;
+    private final double[] times;
+    private final double[] columns;
+
+    private CompressedTrajectoryReader(Path file, ByteBuffer data) throws IOException {
+        this.file = file;
+        this.data = data;
+        if (data.limit() < CompressedTrajectoryWriter.HEADER_SIZE || data.getInt(0) != CompressedTrajectoryWriter.MAGIC) {
+            throw new IOException("No es una grabación comprimida: " + file);
+        }
+        if (data.getInt(4) > CompressedTrajectoryWriter.VERSION) {
+            throw new IOException("Versión de grabación no soportada: " + data.getInt(4));
+        }
+        encoding = TrajectoryEncoding.fromId(data.getInt(8));
+        int bodies = data.getInt(12);
+        blockFrames = data.getInt(16);
+        int blocks = data.getInt(20);
+        frameCount = data.getLong(24);
+        quantum = data.getDouble(32);
+        long indexOffset = data.getLong(40);
+        if (encoding == null || bodies < 0 || blockFrames < 1 || blocks < 0 || frameCount < 0
+                || indexOffset < CompressedTrajectoryWriter.dataOffset(bodies)
+                || indexOffset + (long) blocks * Long.BYTES > data.limit()
+                || frameCount > (long) blocks * blockFrames) {
+            throw new IOException("Cabecera de grabación dañada: " + file);
+        }
+
+        ids = new int[bodies];
+        for (int i = 0; i < bodies; i++) {
+            ids[i] = data.getInt(CompressedTrajectoryWriter.HEADER_SIZE + i * Integer.BYTES);
+        }
+        blockOffsets = new long[blocks];
+        for (int b = 0; b < blocks; b++) {
+            blockOffsets[b] = data.getLong((int) indexOffset + b * Long.BYTES);
+        }
+        times = new double[blockFrames];
+        columns = new double[bodies * 3 * blockFrames];
+    }
+
+    /**
+     * Abre una grabación comprimida.
+     * @param file Fichero de la grabación
+     * @return El lector
+     * @throws IOException Si el fichero no existe, es mayor de 2 GB o no tiene el formato esperado
+     */
+    public static CompressedTrajectoryReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Grabación demasiado grande para un único mapeo: " + size + " bytes");
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            return new CompressedTrajectoryReader(file, mapped);
+        }
+    }
+
+    @Override
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    @Override
+    public int getBodyCount() {
+        return ids.length;
+    }
+
+    @Override
+    public int[] getBodyIds() {
+        return ids.clone();
+    }
+
+    public TrajectoryEncoding getEncoding() {
+        return encoding;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized double getTime(long frame) {
+        int k = load(frame);
+        return times[k];
+    }
+
+    @Override
+    public synchronized boolean readPositions(long frame, double[] out) {
+        int k = load(frame);
+        if (Double.isNaN(times[k])) return false;
+        int components = ids.length * 3;
+        for (int c = 0; c < components; c++) {
+            out[c] = columns[c * blockFrames + k];
+        }
+        return true;
+    }
+
+    /**
+     * Lee la trayectoria de un cuerpo en un intervalo de fotogramas.
+     * @param body Posición del cuerpo en la grabación
+     * @param fromFrame Primer fotograma
+     * @param count Número de fotogramas
+     * @param out Array de al menos 3·count elementos para [x, y, z] por fotograma
+     */
+    public void readTrajectory(int body, long fromFrame, int count, double[] out) {
+        double[] axis = new double[blockFrames];
+        long frame = fromFrame;
+        int done = 0;
+        while (done < count) {
+            check(frame);
+            int block = (int) (frame / blockFrames);
+            int k = (int) (frame % blockFrames);
+            int size = blockSize(block);
+            int take = Math.min(count - done, size - k);
+            for (int a = 0; a < 3; a++) {
+                decodeColumn(block, 1 + body * 3 + a, size, axis, 0);
+                for (int f = 0; f < take; f++) {
+                    out[(done + f) * 3 + a] = axis[k + f];
+                }
+            }
+            done += take;
+            frame += take;
+        }
+    }
+
+    @Override
+    public void close() {
+        // El mapeo se libera cuando el recolector de basura recoge el buffer
+    }
+
+    /**
+     * Descomprime, si no lo está ya, el bloque de un fotograma.
+     * @return Posición del fotograma dentro del bloque
+     */
+    private int load(long frame) {
+        check(frame);
+        int block = (int) (frame / blockFrames);
+        if (block != cachedBlock) {
+            int size = blockSize(block);
+            int components = ids.length * 3;
+            int lengths = (int) blockOffsets[block] + Integer.BYTES;
+            int start = columnStart(block, 0);
+            ColumnCodec.decodeXor(new BitSource(data, start), size, times, 0);
+            for (int c = 0; c < components; c++) {
+                start += data.getInt(lengths + c * Integer.BYTES);
+                BitSource in = new BitSource(data, start);
+                if (encoding == TrajectoryEncoding.XOR) {
+                    ColumnCodec.decodeXor(in, size, columns, c * blockFrames);
+                } else {
+                    ColumnCodec.decodeDeltaOfDelta(in, size, quantum, columns, c * blockFrames);
+                }
+            }
+            cachedBlock = block;
+        }
+        return (int) (frame % blockFrames);
+    }
+
+    private void decodeColumn(int block, int column, int size, double[] out, int from) {
+        BitSource in = new BitSource(data, columnStart(block, column));
+        if (column == 0 || encoding == TrajectoryEncoding.XOR) {
+            ColumnCodec.decodeXor(in, size, out, from);
+        } else {
+            ColumnCodec.decodeDeltaOfDelta(in, size, quantum, out, from);
+        }
+    }
+
+    private int blockSize(int block) {
+        return data.getInt((int) blockOffsets[block]);
+    }
+
+    /**
+     * Calcula dónde empieza una columna de un bloque (0 es el tiempo) sumando las
+     * longitudes de las columnas anteriores.
+     */
+    private int columnStart(int block, int column) {
+        int offset = (int) blockOffsets[block];
+        int lengths = offset + Integer.BYTES;
+        int start = offset + Integer.BYTES * (ids.length * 3 + 2);
+        for (int c = 0; c < column; c++) {
+            start += data.getInt(lengths + c * Integer.BYTES);
+        }
+        return start;
+    }
+
+    private void check(long frame) {
+        if (frame < 0 || frame >= frameCount) {
+            throw new IndexOutOfBoundsException("Fotograma fuera de la grabación: " + frame);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.solarsim.util.trajectory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Escritor de grabaciones comprimidas de trayectorias.
+ *
+ * Los fotogramas se añaden de uno en uno y se agrupan en bloques; al completarse
+ * un bloque, cada columna (el tiempo y la x, y, z de cada cuerpo) se codifica por
+ * separado con {@link ColumnCodec} y el bloque se escribe al final del fichero.
+ * Un índice con la posición de cada bloque permite a
+ * {@link CompressedTrajectoryReader} descomprimir solo el bloque de un fotograma.
+ *
+ * Formato (little-endian), versión {@value #VERSION}:
+ * <pre>
+ *   0   int    magia 'STRC'
+ *   4   int    versión
+ *   8   int    codificación ({@link TrajectoryEncoding#getId()})
+ *   12  int    número de cuerpos n
+ *   16  int    fotogramas por bloque B
+ *   20  int    número de bloques
+ *   24  long   número de fotogramas
+ *   32  double resolución de la cuantización (0 si no se cuantiza)
+ *   40  long   posición del índice de bloques
+ *   48  ...    reservado hasta {@value #HEADER_SIZE}
+ *   64  int[n] identificadores de los cuerpos (rellenado a múltiplo de 8 bytes)
+ *   ... bloques: int fotogramas, int[3n + 1] bytes de cada columna, columnas
+ *       (primero el tiempo, que siempre se codifica con XOR)
+ *   ... índice: long[bloques] posición de cada bloque
+ * </pre>
+ *
+ * Mientras se escribe, el fichero se llama igual que el destino con la
+ * extensión {@code .tmp}; al cerrar se completa la cabecera y se mueve al destino.
+ */
+public class CompressedTrajectoryWriter implements Closeable {
+    static final int MAGIC = 0x43525453; // "STRC" en little-endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    /** Fotogramas por bloque por defecto */
+    public static final int DEFAULT_BLOCK_FRAMES = 256;
+
+    private final Path file;
+    private final Path temp;
+    private final FileChannel channel;
+    private final int[] ids;
+    private final TrajectoryEncoding encoding;
+    private final double quantum;
+    private final int blockFrames;
+
+    private final double[] times;
+    private final double[] columns;
+    private final BitSink sink;
+    private final ByteBuffer blockHeader;
+    private int blockSize;
+    private long frameCount;
+    private long[] blockOffsets = new long[64];
+    private int blockCount;
+    private long position;
+    private boolean closed;
+
+    /**
+     * Crea un escritor con bloques de {@value #DEFAULT_BLOCK_FRAMES} fotogramas.
+     * @param file Fichero de destino
+     * @param ids Identificadores de los cuerpos, en el orden de los fotogramas
+     * @param encoding Codificación de las posiciones
+     * @param quantum Resolución de la cuantización para {@link TrajectoryEncoding#DELTA_OF_DELTA},
+     *                en las unidades de las posiciones; se ignora con XOR
+     * @throws IOException Si no se puede crear el fichero
+     */
+    public CompressedTrajectoryWriter(Path file, int[] ids, TrajectoryEncoding encoding, double quantum) throws IOException {
+        this(file, ids, encoding, quantum, DEFAULT_BLOCK_FRAMES);
+    }
+
+    /**
+     * Crea un escritor.
+     * @param file Fichero de destino
+     * @param ids Identificadores de los cuerpos, en el orden de los fotogramas
+     * @param encoding Codificación de las posiciones
+     * @param quantum Resolución de la cuantización para {@link TrajectoryEncoding#DELTA_OF_DELTA}
+     * @param blockFrames Fotogramas por bloque: bloques mayores comprimen algo más,
+     *                    menores hacen más barato el acceso aleatorio
+     * @throws IOException Si no se puede crear el fichero
+     */
+    public CompressedTrajectoryWriter(Path file, int[] ids, TrajectoryEncoding encoding, double quantum,
+            int blockFrames) throws IOException {
+        if (blockFrames < 1) {
+            throw new IllegalArgumentException("Fotogramas por bloque no válidos: " + blockFrames);
+        }
+        if (encoding == TrajectoryEncoding.DELTA_OF_DELTA && !(quantum > 0)) {
+            throw new IllegalArgumentException("La cuantización necesita una resolución positiva: " + quantum);
+        }
+        this.file = file.toAbsolutePath();
+        this.temp = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+        this.ids = ids.clone();
+        this.encoding = encoding;
+        this.quantum = encoding == TrajectoryEncoding.DELTA_OF_DELTA ? quantum : 0;
+        this.blockFrames = blockFrames;
+        this.times = new double[blockFrames];
+        this.columns = new double[ids.length * 3 * blockFrames];
+        this.sink = new BitSink(columns.length * 2);
+        this.blockHeader = ByteBuffer.allocate(Integer.BYTES * (ids.length * 3 + 2)).order(ByteOrder.LITTLE_ENDIAN);
+
+        channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        position = dataOffset(ids.length);
+    }
+
+    /**
+     * Añade un fotograma.
+     * @param time Tiempo de simulación (NaN para un fotograma ausente)
+     * @param positions Posiciones [x0, y0, z0, x1, ...] de todos los cuerpos
+     * @throws IOException Si no se puede escribir el bloque completado
+     */
+    public void append(double time, double[] positions) throws IOException {
+        times[blockSize] = time;
+        int components = ids.length * 3;
+        for (int c = 0; c < components; c++) {
+            columns[c * blockFrames + blockSize] = positions[c];
+        }
+        blockSize++;
+        frameCount++;
+        if (blockSize == blockFrames) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Obtiene el número de fotogramas añadidos.
+     * @return Fotogramas
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Obtiene el número de bytes escritos en el fichero hasta ahora.
+     * @return Bytes
+     */
+    public long getBytesWritten() {
+        return position;
+    }
+
+    /**
+     * Escribe el último bloque, el índice y la cabecera y mueve el fichero a su destino.
+     * @throws IOException Si no se puede completar el fichero
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try (FileChannel output = channel) {
+            if (blockSize > 0) {
+                writeBlock();
+            }
+            long indexOffset = position;
+            ByteBuffer index = ByteBuffer.allocate(blockCount * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            index.asLongBuffer().put(blockOffsets, 0, blockCount);
+            writeFully(output, index, indexOffset);
+
+            ByteBuffer header = ByteBuffer.allocate(dataOffset(ids.length)).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, encoding.getId());
+            header.putInt(12, ids.length);
+            header.putInt(16, blockFrames);
+            header.putInt(20, blockCount);
+            header.putLong(24, frameCount);
+            header.putDouble(32, quantum);
+            header.putLong(40, indexOffset);
+            for (int i = 0; i < ids.length; i++) {
+                header.putInt(HEADER_SIZE + i * Integer.BYTES, ids[i]);
+            }
+            writeFully(output, header, 0);
+            output.force(false);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Comprime una grabación completa.
+     * @param source Grabación de origen (por ejemplo, un {@link TrajectoryReader})
+     * @param file Fichero comprimido de destino
+     * @param encoding Codificación de las posiciones
+     * @param quantum Resolución de la cuantización para {@link TrajectoryEncoding#DELTA_OF_DELTA}
+     * @return Tamaño del fichero comprimido en bytes
+     * @throws IOException Si no se puede leer el origen o escribir el destino
+     */
+    public static long export(TrajectorySource source, Path file, TrajectoryEncoding encoding, double quantum) throws IOException {
+        double[] positions = new double[source.getBodyCount() * 3];
+        try (CompressedTrajectoryWriter writer = new CompressedTrajectoryWriter(file, source.getBodyIds(), encoding, quantum)) {
+            long frames = source.getFrameCount();
+            for (long frame = 0; frame < frames; frame++) {
+                // Un fotograma ausente conserva las posiciones anteriores, que comprimen a un bit
+                double time = source.readPositions(frame, positions) ? source.getTime(frame) : Double.NaN;
+                writer.append(time, positions);
+            }
+        }
+        return Files.size(file);
+    }
+
+    private void writeBlock() throws IOException {
+        int components = ids.length * 3;
+        sink.clear();
+        blockHeader.clear();
+        blockHeader.putInt(blockSize);
+
+        ColumnCodec.encodeXor(times, 0, blockSize, sink);
+        sink.align();
+        blockHeader.putInt(sink.length());
+        for (int c = 0; c < components; c++) {
+            int start = sink.length();
+            if (encoding == TrajectoryEncoding.XOR) {
+                ColumnCodec.encodeXor(columns, c * blockFrames, blockSize, sink);
+            } else {
+                ColumnCodec.encodeDeltaOfDelta(columns, c * blockFrames, blockSize, quantum, sink);
+            }
+            sink.align();
+            blockHeader.putInt(sink.length() - start);
+        }
+        blockHeader.flip();
+
+        if (blockCount == blockOffsets.length) {
+            blockOffsets = Arrays.copyOf(blockOffsets, blockCount * 2);
+        }
+        blockOffsets[blockCount++] = position;
+        position += writeFully(channel, blockHeader, position);
+        position += writeFully(channel, ByteBuffer.wrap(sink.array(), 0, sink.length()), position);
+        blockSize = 0;
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer data, long at) throws IOException {
+        int length = data.remaining();
+        while (data.hasRemaining()) {
+            at += channel.write(data, at);
+        }
+        return length;
+    }
+
+    static int dataOffset(int bodyCount) {
+        return HEADER_SIZE + ((bodyCount * Integer.BYTES + 7) & ~7);
+    }
+}
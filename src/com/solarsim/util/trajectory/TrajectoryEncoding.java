@@ -0,0 +1,40 @@
+package com.solarsim.util.trajectory;
+
+/**
+ * Codificación de las columnas de posición en una grabación comprimida.
+ */
+public enum TrajectoryEncoding {
+    /**
+     * XOR de cada valor con el anterior al estilo Gorilla. Sin pérdidas: devuelve
+     * exactamente los double grabados.
+     */
+    XOR(1),
+    /**
+     * Posiciones cuantizadas a una resolución fija y codificadas como diferencia
+     * de diferencias. Con pérdida acotada (media resolución), pero en un movimiento
+     * orbital suave casi todos los valores ocupan uno o pocos bits.
+     */
+    DELTA_OF_DELTA(2);
+
+    private final int id;
+
+    TrajectoryEncoding(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Busca la codificación con un identificador guardado en un fichero.
+     * @param id Identificador
+     * @return La codificación, o null si no se conoce
+     */
+    public static TrajectoryEncoding fromId(int id) {
+        for (TrajectoryEncoding encoding : values()) {
+            if (encoding.id == id) return encoding;
+        }
+        return null;
+    }
+}
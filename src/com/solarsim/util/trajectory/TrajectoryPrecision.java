@@ -0,0 +1,37 @@
+package com.solarsim.util.trajectory;
+
+/**
+ * Precisión con la que se guardan las posiciones de una grabación.
+ */
+public enum TrajectoryPrecision {
+    /** 4 bytes por componente; suficiente para visualizar, la mitad de espacio */
+    FLOAT(4),
+    /** 8 bytes por componente; reproduce exactamente las posiciones simuladas */
+    DOUBLE(8);
+
+    private final int width;
+
+    TrajectoryPrecision(int width) {
+        this.width = width;
+    }
+
+    /**
+     * Obtiene el tamaño de cada componente en bytes.
+     * @return 4 o 8
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Busca la precisión correspondiente a un ancho guardado en un fichero.
+     * @param width Ancho en bytes
+     * @return La precisión, o null si el ancho no es válido
+     */
+    public static TrajectoryPrecision fromWidth(int width) {
+        for (TrajectoryPrecision precision : values()) {
+            if (precision.width == width) return precision;
+        }
+        return null;
+    }
+}
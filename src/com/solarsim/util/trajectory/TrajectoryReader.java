@@ -0,0 +1,254 @@
+package com.solarsim.util.trajectory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.solarsim.util.logging.Log;
+import com.solarsim.util.logging.Logger;
+
+/**
+ * Lector de una grabación de {@link TrajectoryRecorder}.
+ *
+ * Los segmentos se mapean la primera vez que se accede a ellos. Como todos
+ * tienen el mismo número de fotogramas, localizar un fotograma es una división
+ * y una suma: saltar a cualquier punto de la grabación cuesta lo mismo que leer
+ * el fotograma siguiente. Las lecturas son absolutas, así que varios hilos
+ * pueden leer la misma grabación.
+ *
+ * Si falta algún fichero de segmento en medio de la grabación, sus fotogramas se
+ * leen como descartados (ver {@link #getMissingSegments()}) y el resto de la
+ * grabación sigue disponible.
+ */
+public class TrajectoryReader implements TrajectorySource {
+    private static final Logger LOG = Log.getLogger(TrajectoryReader.class);
+
+    private final Path directory;
+    private final int[] ids;
+    private final TrajectoryPrecision precision;
+    private final int framesPerSegment;
+    private final long frameCount;
+    private final ByteBuffer[] segments;
+    private final BitSet present;
+
+    private TrajectoryReader(Path directory, ByteBuffer first, BitSet present, long frameCount) {
+        this.directory = directory;
+        this.precision = TrajectoryPrecision.fromWidth(first.getInt(8));
+        int bodies = first.getInt(12);
+        this.framesPerSegment = first.getInt(16);
+        this.ids = new int[bodies];
+        for (int i = 0; i < bodies; i++) {
+            ids[i] = first.getInt(TrajectorySegment.HEADER_SIZE + i * Integer.BYTES);
+        }
+        this.frameCount = frameCount;
+        this.present = present;
+        this.segments = new ByteBuffer[present.length()];
+        this.segments[present.nextSetBit(0)] = first;
+    }
+
+    /**
+     * Abre una grabación.
+     * @param directory Directorio de la grabación
+     * @return El lector
+     * @throws IOException Si no hay segmentos o no tienen el formato esperado
+     */
+    public static TrajectoryReader open(Path directory) throws IOException {
+        BitSet present = new BitSet();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.traj")) {
+            for (Path file : files) {
+                int index = TrajectorySegment.indexOf(file);
+                if (index >= 0) present.set(index);
+            }
+        }
+        int segmentCount = present.length();
+        if (segmentCount == 0) {
+            throw new IOException("No hay ninguna grabación en " + directory);
+        }
+        // Todos los segmentos llevan la misma cabecera: vale el primero que exista
+        ByteBuffer first = map(TrajectorySegment.file(directory, present.nextSetBit(0)));
+        if (first.getInt(0) != TrajectorySegment.MAGIC) {
+            throw new IOException("No es una grabación de trayectorias: " + directory);
+        }
+        if (first.getInt(4) > TrajectorySegment.VERSION) {
+            throw new IOException("Versión de grabación no soportada: " + first.getInt(4));
+        }
+        if (TrajectoryPrecision.fromWidth(first.getInt(8)) == null || first.getInt(12) < 0 || first.getInt(16) < 1) {
+            throw new IOException("Cabecera de grabación dañada: " + directory);
+        }
+        int framesPerSegment = first.getInt(16);
+
+        // Todos los segmentos salvo el último están llenos
+        ByteBuffer last = present.nextSetBit(0) == segmentCount - 1
+            ? first : map(TrajectorySegment.file(directory, segmentCount - 1));
+        long frames = (long) (segmentCount - 1) * framesPerSegment + last.getInt(TrajectorySegment.OFFSET_WRITTEN);
+        TrajectoryReader reader = new TrajectoryReader(directory, first, present, frames);
+        reader.segments[segmentCount - 1] = last;
+        if (present.cardinality() < segmentCount) {
+            LOG.warn("Faltan los segmentos {} de la grabación {}; sus fotogramas se leerán como descartados",
+                Arrays.toString(reader.getMissingSegments()), directory);
+        }
+        return reader;
+    }
+
+    /**
+     * Obtiene los segmentos que faltan en el directorio. Sus fotogramas cuentan
+     * como descartados: tiempo NaN y sin posiciones.
+     * @return Números de los segmentos que faltan, en orden; vacío si la grabación está completa
+     */
+    public int[] getMissingSegments() {
+        int[] missing = new int[segments.length - present.cardinality()];
+        int k = 0;
+        for (int i = present.nextClearBit(0); i < segments.length; i = present.nextClearBit(i + 1)) {
+            missing[k++] = i;
+        }
+        return missing;
+    }
+
+    /**
+     * Obtiene el número de fotogramas de la grabación.
+     * @return Fotogramas
+     */
+    @Override
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Obtiene el número de cuerpos grabados.
+     * @return Cuerpos
+     */
+    @Override
+    public int getBodyCount() {
+        return ids.length;
+    }
+
+    /**
+     * Obtiene los identificadores de los cuerpos, en el orden de la grabación.
+     * @return Copia de los identificadores
+     */
+    @Override
+    public int[] getBodyIds() {
+        return ids.clone();
+    }
+
+    public TrajectoryPrecision getPrecision() {
+        return precision;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Obtiene el tiempo de simulación de un fotograma.
+     * @param frame Índice del fotograma
+     * @return Días simulados, o NaN si el fotograma se descartó al grabar o su segmento falta
+     * @throws IOException Si el segmento no se puede mapear
+     */
+    @Override
+    public double getTime(long frame) throws IOException {
+        ByteBuffer segment = segmentFor(frame);
+        if (segment == null) return Double.NaN;
+        return segment.getDouble(TrajectorySegment.timesOffset(ids.length) + local(frame) * Double.BYTES);
+    }
+
+    /**
+     * Lee las posiciones de todos los cuerpos en un fotograma.
+     * @param frame Índice del fotograma
+     * @param out Array de al menos 3·{@link #getBodyCount()} elementos para [x0, y0, z0, x1, ...]
+     * @return false si el fotograma se descartó al grabar o su segmento falta (out no se modifica)
+     * @throws IOException Si el segmento no se puede mapear
+     */
+    @Override
+    public boolean readPositions(long frame, double[] out) throws IOException {
+        ByteBuffer segment = segmentFor(frame);
+        int local = local(frame);
+        if (segment == null || Double.isNaN(segment.getDouble(TrajectorySegment.timesOffset(ids.length) + local * Double.BYTES))) {
+            return false;
+        }
+        int width = precision.getWidth();
+        int columns = (int) TrajectorySegment.columnsOffset(ids.length, framesPerSegment);
+        for (int c = 0; c < ids.length * 3; c++) {
+            int offset = columns + (c * framesPerSegment + local) * width;
+            out[c] = width == 4 ? segment.getFloat(offset) : segment.getDouble(offset);
+        }
+        return true;
+    }
+
+    /**
+     * Lee la trayectoria de un cuerpo en un intervalo de fotogramas.
+     * @param body Posición del cuerpo en la grabación
+     * @param fromFrame Primer fotograma
+     * @param count Número de fotogramas
+     * @param out Array de al menos 3·count elementos para [x, y, z] por fotograma; los
+     *            fotogramas de segmentos que faltan quedan a NaN
+     * @throws IOException Si algún segmento no se puede mapear
+     */
+    public void readTrajectory(int body, long fromFrame, int count, double[] out) throws IOException {
+        int width = precision.getWidth();
+        int columns = (int) TrajectorySegment.columnsOffset(ids.length, framesPerSegment);
+        for (int f = 0; f < count; f++) {
+            long frame = fromFrame + f;
+            ByteBuffer segment = segmentFor(frame);
+            if (segment == null) {
+                Arrays.fill(out, f * 3, f * 3 + 3, Double.NaN);
+                continue;
+            }
+            int local = local(frame);
+            for (int axis = 0; axis < 3; axis++) {
+                int offset = columns + ((body * 3 + axis) * framesPerSegment + local) * width;
+                out[f * 3 + axis] = width == 4 ? segment.getFloat(offset) : segment.getDouble(offset);
+            }
+        }
+    }
+
+    /**
+     * Libera las referencias a los segmentos mapeados. El mapeo se deshace cuando
+     * el recolector de basura recoge los buffers.
+     */
+    @Override
+    public void close() {
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = null;
+        }
+    }
+
+    private int local(long frame) {
+        return (int) (frame % framesPerSegment);
+    }
+
+    /**
+     * Obtiene el segmento de un fotograma, mapeándolo si hace falta.
+     * @return El segmento, o null si su fichero falta
+     */
+    private ByteBuffer segmentFor(long frame) throws IOException {
+        if (frame < 0 || frame >= frameCount) {
+            throw new IndexOutOfBoundsException("Fotograma fuera de la grabación: " + frame);
+        }
+        int index = (int) (frame / framesPerSegment);
+        ByteBuffer segment = segments[index];
+        if (segment == null && present.get(index)) {
+            segment = map(TrajectorySegment.file(directory, index));
+            segments[index] = segment;
+        }
+        return segment;
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < TrajectorySegment.HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Segmento de grabación no válido: " + file);
+            }
+            // El mapeo sigue siendo válido después de cerrar el canal
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.solarsim.util.trajectory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.solarsim.model.CelestialBody;
+import com.solarsim.model.SolarSystem;
+import com.solarsim.util.logging.Log;
+import com.solarsim.util.logging.Logger;
+
+/**
+ * Grabador de trayectorias: guarda la posición de cada cuerpo en cada paso en
+ * ficheros de segmento mapeados en memoria (ver {@link TrajectorySegment}).
+ *
+ * El hilo de la física solo copia las posiciones en un fotograma libre de un
+ * conjunto preasignado y lo encola; un hilo escritor lo vuelca en el segmento
+ * mapeado y abre el siguiente cuando se llena. Para no escribir un valor suelto
+ * en cada columna por fotograma, el escritor acumula bloques de
+ * {@value #BLOCK_FRAMES} fotogramas ya transpuestos y los copia columna a columna
+ * en bloque. La cola y el bloque se dimensionan con un presupuesto de memoria,
+ * así que con muchos cuerpos se encolan menos fotogramas (nunca menos de
+ * {@value #MIN_QUEUE_FRAMES}). Si el escritor se retrasa y no
+ * quedan fotogramas libres, el paso se descarta (su tiempo queda a NaN en el
+ * fichero) en lugar de bloquear la simulación; {@link #getDroppedFrames()}
+ * indica cuántos se han perdido.
+ *
+ * Con una {@link TrajectoryEncoding} el escritor no usa segmentos mapeados sino un
+ * {@link CompressedTrajectoryWriter}, y la grabación es un único fichero comprimido.
+ */
+public class TrajectoryRecorder implements Closeable {
+    private static final Logger LOG = Log.getLogger(TrajectoryRecorder.class);
+
+    /** Tamaño orientativo de cada segmento si no se indica el número de fotogramas */
+    private static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    /** Memoria para los fotogramas en cola, y límites del número de fotogramas */
+    private static final long QUEUE_BYTES = 64L * 1024 * 1024;
+    private static final int MIN_QUEUE_FRAMES = 2;
+    private static final int MAX_QUEUE_FRAMES = 64;
+
+    /** Fotogramas que el escritor agrupa antes de volcarlos en las columnas, y su memoria máxima */
+    private static final int BLOCK_FRAMES = 64;
+    private static final long BLOCK_BYTES = 16L * 1024 * 1024;
+
+    private final Path directory;
+    private final int[] ids;
+    private final TrajectoryPrecision precision;
+    private final int framesPerSegment;
+    private final CompressedTrajectoryWriter compressed;
+
+    private final BlockingQueue<Frame> free;
+    private final BlockingQueue<Frame> pending;
+    private final Thread writer;
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    private long nextFrame;
+
+    // Estado del hilo escritor
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private DoubleBuffer doubleColumns;
+    private FloatBuffer floatColumns;
+    private int segmentIndex = -1;
+    private int written;
+    private final int blockFrames;
+    private final double[] doubleBlock;
+    private final float[] floatBlock;
+    private int blockStart = -1;
+    private int blockEnd;
+    private long compressedFrames;
+
+    /**
+     * Crea un grabador con segmentos de unos 64 MB.
+     * @param directory Directorio de la grabación (se crea si no existe)
+     * @param ids Identificadores de los cuerpos, en el orden en que se grabarán
+     * @param precision Precisión de las posiciones
+     * @throws IOException Si no se puede crear el directorio
+     */
+    public TrajectoryRecorder(Path directory, int[] ids, TrajectoryPrecision precision) throws IOException {
+        this(directory, ids, precision, defaultFramesPerSegment(ids.length, precision));
+    }
+
+    /**
+     * Crea un grabador.
+     * @param directory Directorio de la grabación (se crea si no existe)
+     * @param ids Identificadores de los cuerpos, en el orden en que se grabarán
+     * @param precision Precisión de las posiciones
+     * @param framesPerSegment Fotogramas por fichero de segmento
+     * @throws IOException Si no se puede crear el directorio
+     */
+    public TrajectoryRecorder(Path directory, int[] ids, TrajectoryPrecision precision, int framesPerSegment) throws IOException {
+        this(Files.createDirectories(directory), ids, precision, checkedFramesPerSegment(ids, precision, framesPerSegment), null);
+    }
+
+    /**
+     * Crea un grabador que escribe una grabación comprimida.
+     * @param file Fichero de la grabación
+     * @param ids Identificadores de los cuerpos, en el orden en que se grabarán
+     * @param encoding Codificación de las posiciones
+     * @param quantum Resolución para {@link TrajectoryEncoding#DELTA_OF_DELTA}, en las
+     *                unidades de las posiciones
+     * @throws IOException Si no se puede crear el fichero
+     */
+    public TrajectoryRecorder(Path file, int[] ids, TrajectoryEncoding encoding, double quantum) throws IOException {
+        this(file.toAbsolutePath().getParent(), ids, TrajectoryPrecision.DOUBLE, 1,
+            new CompressedTrajectoryWriter(file, ids, encoding, quantum));
+    }
+
+    private TrajectoryRecorder(Path directory, int[] ids, TrajectoryPrecision precision, int framesPerSegment,
+            CompressedTrajectoryWriter compressed) {
+        this.directory = directory;
+        this.ids = ids.clone();
+        this.precision = precision;
+        this.framesPerSegment = framesPerSegment;
+        this.compressed = compressed;
+        long components = Math.max(1, (long) ids.length * 3);
+        long blockLimit = BLOCK_BYTES / (components * precision.getWidth());
+        this.blockFrames = (int) Math.max(1, Math.min(Math.min(BLOCK_FRAMES, framesPerSegment), blockLimit));
+        // Bloque en orden de columnas: [columna * blockFrames + fotograma]
+        int blockSize = compressed == null ? ids.length * 3 * blockFrames : 0;
+        this.doubleBlock = precision == TrajectoryPrecision.DOUBLE ? new double[blockSize] : null;
+        this.floatBlock = precision == TrajectoryPrecision.FLOAT ? new float[blockSize] : null;
+        int queueFrames = (int) Math.max(MIN_QUEUE_FRAMES,
+            Math.min(MAX_QUEUE_FRAMES, QUEUE_BYTES / (components * Double.BYTES)));
+        this.free = new ArrayBlockingQueue<>(queueFrames);
+        this.pending = new ArrayBlockingQueue<>(queueFrames);
+        for (int i = 0; i < queueFrames; i++) {
+            free.add(new Frame(ids.length));
+        }
+        writer = new Thread(this::drain, "solarsim-trajectory-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Crea un grabador para los cuerpos actuales de un sistema.
+     * @param directory Directorio de la grabación
+     * @param solarSystem Sistema a grabar
+     * @param precision Precisión de las posiciones
+     * @return El grabador
+     * @throws IOException Si no se puede crear el directorio
+     */
+    public static TrajectoryRecorder forSystem(Path directory, SolarSystem solarSystem, TrajectoryPrecision precision) throws IOException {
+        return new TrajectoryRecorder(directory, bodyIds(solarSystem), precision);
+    }
+
+    /**
+     * Crea un grabador comprimido para los cuerpos actuales de un sistema.
+     * @param file Fichero de la grabación
+     * @param solarSystem Sistema a grabar
+     * @param encoding Codificación de las posiciones
+     * @param quantum Resolución para {@link TrajectoryEncoding#DELTA_OF_DELTA}
+     * @return El grabador
+     * @throws IOException Si no se puede crear el fichero
+     */
+    public static TrajectoryRecorder forSystem(Path file, SolarSystem solarSystem, TrajectoryEncoding encoding,
+            double quantum) throws IOException {
+        return new TrajectoryRecorder(file, bodyIds(solarSystem), encoding, quantum);
+    }
+
+    private static int[] bodyIds(SolarSystem solarSystem) {
+        List<CelestialBody> bodies = solarSystem.getCelestialBodies();
+        int[] ids = new int[bodies.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = bodies.get(i).getId();
+        }
+        return ids;
+    }
+
+    /**
+     * Graba las posiciones actuales de los cuerpos del sistema como el siguiente
+     * fotograma. Debe llamarse desde un único hilo (el de la física) y no bloquea.
+     * @param solarSystem Sistema con los mismos cuerpos, en el mismo orden, que al crear el grabador
+     * @return true si el fotograma se ha encolado, false si se ha descartado
+     * @throws IllegalArgumentException Si el sistema no tiene el mismo número de cuerpos
+     */
+    public boolean record(SolarSystem solarSystem) {
+        List<CelestialBody> bodies = solarSystem.getCelestialBodies();
+        if (bodies.size() != ids.length) {
+            throw new IllegalArgumentException("El sistema tiene " + bodies.size()
+                + " cuerpos y la grabación " + ids.length);
+        }
+        long index = nextFrame++;
+        Frame frame = closed ? null : free.poll();
+        if (frame == null) {
+            droppedFrames.incrementAndGet();
+            return false;
+        }
+        frame.index = index;
+        frame.time = solarSystem.getSimulationTime();
+        double[] positions = frame.positions;
+        for (int i = 0; i < ids.length; i++) {
+            System.arraycopy(bodies.get(i).getPosition(), 0, positions, i * 3, 3);
+        }
+        pending.add(frame); // nunca hay más fotogramas que huecos en la cola
+        return true;
+    }
+
+    /**
+     * Obtiene el número de cuerpos que se graban en cada fotograma.
+     * @return Cuerpos por fotograma
+     */
+    public int getBodyCount() {
+        return ids.length;
+    }
+
+    /**
+     * Obtiene el número de fotogramas grabados o descartados hasta ahora.
+     * @return Fotogramas
+     */
+    public long getFrameCount() {
+        return nextFrame;
+    }
+
+    /**
+     * Obtiene el número de fotogramas descartados porque el escritor iba retrasado.
+     * @return Fotogramas descartados
+     */
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Termina de escribir los fotogramas pendientes y cierra el segmento actual.
+     * @throws IOException Si el escritor ha fallado
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        // Sin interrumpir: una interrupción cerraría el canal a mitad de escritura
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (droppedFrames.get() > 0) {
+            LOG.warn("Grabación con {} fotogramas descartados", droppedFrames.get());
+        }
+        if (failure != null) throw failure;
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                Frame frame = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (frame == null) {
+                    if (closed && pending.isEmpty()) break;
+                    continue;
+                }
+                try {
+                    write(frame);
+                } finally {
+                    free.add(frame);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            failure = e;
+            closed = true;
+            LOG.error("No se pudo escribir la grabación en " + directory, e);
+        } finally {
+            closeSegment();
+            closeCompressed();
+        }
+    }
+
+    private void closeCompressed() {
+        if (compressed == null) return;
+        try {
+            compressed.close();
+        } catch (IOException e) {
+            if (failure == null) failure = e;
+            LOG.error("No se pudo completar la grabación comprimida", e);
+        }
+    }
+
+    private void write(Frame frame) throws IOException {
+        if (compressed != null) {
+            // El fichero comprimido es secuencial: los huecos se rellenan con fotogramas ausentes
+            for (; compressedFrames < frame.index; compressedFrames++) {
+                compressed.append(Double.NaN, frame.positions);
+            }
+            compressed.append(frame.time, frame.positions);
+            compressedFrames++;
+            return;
+        }
+        int target = (int) (frame.index / framesPerSegment);
+        int local = (int) (frame.index % framesPerSegment);
+        int start = local - local % blockFrames;
+        if (target != segmentIndex || start != blockStart) {
+            flushBlock();
+            if (target != segmentIndex) {
+                openSegment(target);
+            }
+            blockStart = start;
+        }
+        segment.putDouble(TrajectorySegment.timesOffset(ids.length) + local * Double.BYTES, frame.time);
+
+        int k = local - blockStart;
+        double[] positions = frame.positions;
+        int components = ids.length * 3;
+        if (doubleBlock != null) {
+            for (int c = 0; c < components; c++) {
+                doubleBlock[c * blockFrames + k] = positions[c];
+            }
+        } else {
+            for (int c = 0; c < components; c++) {
+                floatBlock[c * blockFrames + k] = (float) positions[c];
+            }
+        }
+        blockEnd = k + 1;
+    }
+
+    /**
+     * Copia el bloque acumulado a las columnas del segmento y publica el número de
+     * fotogramas escritos.
+     */
+    private void flushBlock() {
+        if (blockStart < 0 || segment == null) return;
+        int components = ids.length * 3;
+        for (int c = 0; c < components; c++) {
+            int index = c * framesPerSegment + blockStart;
+            if (doubleBlock != null) {
+                doubleColumns.put(index, doubleBlock, c * blockFrames, blockEnd);
+            } else {
+                floatColumns.put(index, floatBlock, c * blockFrames, blockEnd);
+            }
+        }
+        written = Math.max(written, blockStart + blockEnd);
+        segment.putInt(TrajectorySegment.OFFSET_WRITTEN, written);
+        blockStart = -1;
+        blockEnd = 0;
+    }
+
+    private void openSegment(int index) throws IOException {
+        closeSegment();
+        int bodies = ids.length;
+        long size = TrajectorySegment.size(bodies, framesPerSegment, precision.getWidth());
+        channel = FileChannel.open(TrajectorySegment.file(directory, index), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        segmentIndex = index;
+        written = 0;
+        MappedByteBuffer columns = segment.duplicate();
+        columns.position((int) TrajectorySegment.columnsOffset(bodies, framesPerSegment));
+        columns.order(ByteOrder.LITTLE_ENDIAN);
+        doubleColumns = columns.asDoubleBuffer();
+        floatColumns = columns.asFloatBuffer();
+
+        segment.putInt(0, TrajectorySegment.MAGIC);
+        segment.putInt(4, TrajectorySegment.VERSION);
+        segment.putInt(8, precision.getWidth());
+        segment.putInt(12, bodies);
+        segment.putInt(16, framesPerSegment);
+        segment.putInt(TrajectorySegment.OFFSET_WRITTEN, 0);
+        segment.putLong(24, (long) index * framesPerSegment);
+        for (int i = 0; i < bodies; i++) {
+            segment.putInt(TrajectorySegment.HEADER_SIZE + i * Integer.BYTES, ids[i]);
+        }
+        // Los fotogramas descartados se reconocen por su tiempo NaN
+        int times = TrajectorySegment.timesOffset(bodies);
+        for (int i = 0; i < framesPerSegment; i++) {
+            segment.putDouble(times + i * Double.BYTES, Double.NaN);
+        }
+        LOG.debug("Segmento de trayectoria {} abierto", index);
+    }
+
+    private void closeSegment() {
+        if (channel == null) return;
+        flushBlock();
+        try {
+            segment.force();
+            channel.close();
+        } catch (IOException e) {
+            LOG.warn("No se pudo cerrar el segmento " + segmentIndex, e);
+        }
+        channel = null;
+        segment = null;
+        doubleColumns = null;
+        floatColumns = null;
+    }
+
+    private static int checkedFramesPerSegment(int[] ids, TrajectoryPrecision precision, int framesPerSegment) {
+        if (framesPerSegment < 1
+                || TrajectorySegment.size(ids.length, framesPerSegment, precision.getWidth()) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tamaño de segmento no válido: " + framesPerSegment + " fotogramas");
+        }
+        return framesPerSegment;
+    }
+
+    private static int defaultFramesPerSegment(int bodies, TrajectoryPrecision precision) {
+        long frameBytes = (long) bodies * 3 * precision.getWidth() + Double.BYTES;
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE / 2, DEFAULT_SEGMENT_BYTES / frameBytes));
+    }
+
+    /**
+     * Fotograma en tránsito entre el hilo de la física y el escritor.
+     */
+    private static final class Frame {
+        final double[] positions;
+        long index;
+        double time;
+
+        Frame(int bodies) {
+            positions = new double[bodies * 3];
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.solarsim.util.trajectory;
+
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Disposición de los ficheros de segmento de una grabación de trayectorias.
+ *
+ * Cada segmento guarda un número fijo de fotogramas. Formato (little-endian),
+ * versión {@value #VERSION}:
+ * <pre>
+ *   0   int    magia 'STRJ'
+ *   4   int    versión
+ *   8   int    bytes por componente (4 o 8)
+ *   12  int    número de cuerpos n
+ *   16  int    fotogramas por segmento S
+ *   20  int    fotogramas escritos en este segmento
+ *   24  long   índice global del primer fotograma
+ *   32  ...    reservado hasta {@value #HEADER_SIZE}
+ *   64  int[n] identificadores de los cuerpos (rellenado a múltiplo de 8 bytes)
+ *   ... double[S] tiempo de simulación de cada fotograma (NaN si falta)
+ *   ... columnas: para cada cuerpo, S valores de x, S de y y S de z
+ * </pre>
+ *
+ * Al ser columnar por cuerpo, la trayectoria de un cuerpo dentro de un segmento
+ * es contigua; la posición de cualquier fotograma se localiza con aritmética.
+ */
+final class TrajectorySegment {
+    static final int MAGIC = 0x4A525453; // "STRJ" en little-endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    static final int OFFSET_WRITTEN = 20;
+
+    private static final Pattern FILE_NAME = Pattern.compile("segment-(\\d{6,9})\\.traj");
+
+    private TrajectorySegment() {
+    }
+
+    static int timesOffset(int bodyCount) {
+        return HEADER_SIZE + ((bodyCount * Integer.BYTES + 7) & ~7);
+    }
+
+    static long columnsOffset(int bodyCount, int framesPerSegment) {
+        return timesOffset(bodyCount) + (long) framesPerSegment * Double.BYTES;
+    }
+
+    static long size(int bodyCount, int framesPerSegment, int width) {
+        return columnsOffset(bodyCount, framesPerSegment) + (long) bodyCount * 3 * framesPerSegment * width;
+    }
+
+    static Path file(Path directory, int segment) {
+        return directory.resolve(String.format("segment-%06d.traj", segment));
+    }
+
+    /**
+     * Obtiene el número de segmento de un fichero.
+     * @param file Fichero del directorio de la grabación
+     * @return Número de segmento, o -1 si el fichero no es un segmento
+     */
+    static int indexOf(Path file) {
+        Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+}
@@ -0,0 +1,48 @@
+package com.solarsim.util.trajectory;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Origen de fotogramas de una trayectoria grabada, con acceso aleatorio.
+ */
+public interface TrajectorySource extends Closeable {
+
+    /**
+     * Obtiene el número de fotogramas.
+     * @return Fotogramas
+     */
+    long getFrameCount();
+
+    /**
+     * Obtiene el número de cuerpos grabados.
+     * @return Cuerpos
+     */
+    int getBodyCount();
+
+    /**
+     * Obtiene los identificadores de los cuerpos, en el orden de la grabación.
+     * @return Copia de los identificadores
+     */
+    int[] getBodyIds();
+
+    /**
+     * Obtiene el tiempo de simulación de un fotograma.
+     * @param frame Índice del fotograma
+     * @return Días simulados, o NaN si el fotograma se descartó al grabar
+     * @throws IOException Si no se puede leer
+     */
+    double getTime(long frame) throws IOException;
+
+    /**
+     * Lee las posiciones de todos los cuerpos en un fotograma.
+     * @param frame Índice del fotograma
+     * @param out Array de al menos 3·{@link #getBodyCount()} elementos para [x0, y0, z0, x1, ...]
+     * @return false si el fotograma se descartó al grabar (out no se modifica)
+     * @throws IOException Si no se puede leer
+     */
+    boolean readPositions(long frame, double[] out) throws IOException;
+
+    @Override
+    void close();
+}
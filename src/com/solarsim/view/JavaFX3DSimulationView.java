@@ -1,5 +1,8 @@
 package com.solarsim.view;
 
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Group;
 import javafx.scene.PerspectiveCamera;
 import javafx.scene.Scene;
@@ -7,12 +10,15 @@ import javafx.scene.SceneAntialiasing;
 import javafx.scene.SubScene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.Slider;
 import javafx.scene.control.Tooltip;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
@@ -20,6 +26,8 @@ import javafx.scene.transform.Rotate;
 import javafx.stage.Stage;
 
 import com.solarsim.controller.SimulationController;
+import com.solarsim.util.logging.Log;
+import com.solarsim.util.logging.Logger;
 import com.solarsim.view.components.CelestialBodyInfoPanel;
 
 /**
@@ -27,6 +35,7 @@ import com.solarsim.view.components.CelestialBodyInfoPanel;
  * Proporciona visualización 3D real de planetas y órbitas.
  */
 public class JavaFX3DSimulationView {
+    private static final Logger LOG = Log.getLogger(JavaFX3DSimulationView.class);
     
     // Componentes JavaFX
     private Stage stage;
@@ -35,6 +44,14 @@ public class JavaFX3DSimulationView {
     private Group root3D;
     private PerspectiveCamera camera;
     private Group planetGroup;
+    private LabelLayer labelLayer;
+    private VBox loadingOverlay;
+    private Label loadingLabel;
+    private ProgressBar loadingBar;
+    private final ScreenProjector projector = new ScreenProjector();
+    private final SceneCuller sceneCuller = new SceneCuller();
+    private AnimationTimer frameTimer;
+    private boolean frameDirty = true;
     
     // Botones de control
     private Button botonIniciar;
@@ -42,6 +59,11 @@ public class JavaFX3DSimulationView {
     private Button botonReiniciar;
     private Button botonCambiarVista; // Nuevo botón para cambiar vista
     
+    // Línea de tiempo
+    private Slider timelineSlider;
+    private Label timelineLabel;
+    private boolean updatingTimeline;
+    
     // Para rotación 3D
     private double anchorX, anchorY;
     private double anchorAngleX = 0;
@@ -92,13 +114,19 @@ public class JavaFX3DSimulationView {
         VBox leftPanel = createLeftPanel();
         borderPane.setLeft(leftPanel);
         
+        // Línea de tiempo inferior
+        borderPane.setBottom(createTimeline());
+        
         // Panel de información lateral para cuerpos celestes (inicialmente oculto)
         infoPanel = new CelestialBodyInfoPanel();
         borderPane.setRight(infoPanel);
         
-        // Área 3D para la simulación
+        // Área 3D para la simulación, con la capa de etiquetas superpuesta
         createSimulationArea();
-        borderPane.setCenter(subScene3D);
+        StackPane simulationStack = new StackPane(subScene3D, labelLayer, createLoadingOverlay());
+        simulationStack.setAlignment(Pos.TOP_LEFT);
+        StackPane.setAlignment(loadingOverlay, Pos.CENTER);
+        borderPane.setCenter(simulationStack);
         
         // Escena principal
         scene = new Scene(borderPane, 1200, 800);
@@ -137,6 +165,109 @@ public class JavaFX3DSimulationView {
         return toolbar;
     }
     
+    /**
+     * Crea la línea de tiempo: un deslizador sobre el intervalo ya simulado. Al
+     * arrastrarlo se muestra una vista previa interpolada y al soltarlo la
+     * simulación salta al instante elegido.
+     */
+    private HBox createTimeline() {
+        HBox timeline = new HBox(10);
+        timeline.setStyle("-fx-padding: 5 10 5 10; -fx-background-color: #333333;");
+        timeline.setAlignment(Pos.CENTER_LEFT);
+        
+        timelineLabel = new Label("Día 0");
+        timelineLabel.setStyle("-fx-text-fill: white;");
+        timelineLabel.setMinWidth(90);
+        
+        timelineSlider = new Slider(0, 0, 0);
+        timelineSlider.setTooltip(new Tooltip("Arrastra para volver a un instante ya simulado"));
+        HBox.setHgrow(timelineSlider, javafx.scene.layout.Priority.ALWAYS);
+        
+        timelineSlider.valueChangingProperty().addListener((obs, wasChanging, changing) -> {
+            if (controller == null) return;
+            if (changing) {
+                // No se puede arrastrar el tiempo mientras el temporizador lo avanza
+                controller.pauseSimulation();
+                botonIniciar.setDisable(false);
+                botonPausar.setDisable(true);
+            } else {
+                controller.seekTimeline(timelineSlider.getValue());
+            }
+        });
+        timelineSlider.valueProperty().addListener((obs, oldValue, newValue) -> {
+            timelineLabel.setText(String.format("Día %.1f", newValue.doubleValue()));
+            if (updatingTimeline || controller == null) return;
+            if (timelineSlider.isValueChanging()) {
+                controller.previewTimeline(newValue.doubleValue());
+            } else {
+                // Clic directo sobre la barra
+                controller.seekTimeline(newValue.doubleValue());
+            }
+        });
+        
+        timeline.getChildren().addAll(timelineLabel, timelineSlider);
+        return timeline;
+    }
+    
+    /**
+     * Actualiza el intervalo y la posición de la línea de tiempo sin provocar saltos.
+     * Mientras el usuario arrastra el deslizador solo se amplía el intervalo.
+     * @param start Primer instante disponible, en días
+     * @param end Último instante simulado, en días
+     * @param current Instante actual de la simulación, en días
+     */
+    public void updateTimeline(double start, double end, double current) {
+        if (timelineSlider == null || Double.isNaN(start)) return;
+        updatingTimeline = true;
+        try {
+            timelineSlider.setMin(start);
+            timelineSlider.setMax(Math.max(start, end));
+            if (!timelineSlider.isValueChanging()) {
+                timelineSlider.setValue(current);
+            }
+        } finally {
+            updatingTimeline = false;
+        }
+    }
+    
+    /**
+     * Crea el indicador de progreso que se muestra sobre el área 3D mientras se
+     * construye la escena.
+     */
+    private VBox createLoadingOverlay() {
+        loadingLabel = new Label();
+        loadingLabel.setStyle("-fx-text-fill: white;");
+        loadingBar = new ProgressBar(0);
+        loadingBar.setPrefWidth(300);
+        
+        loadingOverlay = new VBox(8, loadingLabel, loadingBar);
+        loadingOverlay.setAlignment(Pos.CENTER);
+        loadingOverlay.setMaxSize(340, 80);
+        loadingOverlay.setStyle("-fx-padding: 10; -fx-background-color: rgba(0, 0, 0, 0.7);");
+        loadingOverlay.setMouseTransparent(true);
+        loadingOverlay.setVisible(false);
+        return loadingOverlay;
+    }
+    
+    /**
+     * Muestra el progreso de una tarea larga sobre el área 3D. Debe llamarse en el
+     * hilo de JavaFX.
+     * @param message Texto que describe la tarea
+     * @param progress Fracción completada entre 0 y 1, o negativa si no se conoce
+     */
+    public void showProgress(String message, double progress) {
+        loadingLabel.setText(message);
+        loadingBar.setProgress(progress < 0 ? ProgressBar.INDETERMINATE_PROGRESS : progress);
+        loadingOverlay.setVisible(true);
+    }
+    
+    /**
+     * Oculta el indicador de progreso. Debe llamarse en el hilo de JavaFX.
+     */
+    public void hideProgress() {
+        loadingOverlay.setVisible(false);
+    }
+    
     /**
      * Crea el panel de información con datos e instrucciones.
      */
@@ -190,6 +321,45 @@ public class JavaFX3DSimulationView {
         
         // Añadir rotaciones al grupo root
         root3D.getTransforms().addAll(rotateX, rotateY);
+        
+        // Capa 2D para los nombres de los cuerpos
+        labelLayer = new LabelLayer();
+
+        // Pasada por fotograma: proyección, descarte de cuerpos y etiquetas
+        planetGroup.localToSceneTransformProperty().addListener((obs, oldValue, newValue) -> frameDirty = true);
+        camera.localToSceneTransformProperty().addListener((obs, oldValue, newValue) -> frameDirty = true);
+        subScene3D.widthProperty().addListener((obs, oldValue, newValue) -> frameDirty = true);
+        subScene3D.heightProperty().addListener((obs, oldValue, newValue) -> frameDirty = true);
+        frameTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (frameDirty) {
+                    frameDirty = false;
+                    updateFrame();
+                }
+            }
+        };
+        frameTimer.start();
+    }
+
+    /**
+     * Recalcula la proyección una sola vez y la comparten el descarte de cuerpos
+     * y la colocación de etiquetas. Las etiquetas se colocan después del descarte
+     * para que las de los cuerpos ocultos no se muestren.
+     */
+    private void updateFrame() {
+        projector.update(planetGroup, camera, subScene3D.getWidth(), subScene3D.getHeight());
+        sceneCuller.cull(projector);
+        labelLayer.layoutLabels(projector);
+    }
+
+    /**
+     * Pide que en el próximo pulso se vuelvan a colocar cuerpos y etiquetas. Se
+     * llama cuando cambian las posiciones del modelo o el zoom; los cambios de
+     * cámara y de tamaño se detectan solos.
+     */
+    public void requestFrameUpdate() {
+        frameDirty = true;
     }
     
     /**
@@ -198,7 +368,7 @@ public class JavaFX3DSimulationView {
     private void setupEventHandlers() {
         // Manejar eventos de arrastre para rotación de la escena
         subScene3D.setOnMousePressed(event -> {
-            System.out.println("Mouse presionado en la escena 3D");
+            LOG.trace("Mouse presionado en la escena 3D");
             anchorX = event.getSceneX();
             anchorY = event.getSceneY();
             anchorAngleX = rotateX.getAngle();
@@ -214,7 +384,7 @@ public class JavaFX3DSimulationView {
             double deltaY = Math.abs(event.getSceneY() - anchorY);
             
             if (deltaX > 3 || deltaY > 3) {
-                System.out.println("Rotando escena con arrastre");
+                LOG.trace("Rotando escena con arrastre");
                 // Calcular la rotación basada en el movimiento del ratón
                 rotateX.setAngle(anchorAngleX - (anchorY - event.getSceneY()) * 0.25);
                 rotateY.setAngle(anchorAngleY + (anchorX - event.getSceneX()) * 0.25);
@@ -348,6 +518,30 @@ public class JavaFX3DSimulationView {
         return planetGroup;
     }
     
+    /**
+     * Obtiene la capa de etiquetas superpuesta a la escena 3D.
+     * @return La capa de etiquetas
+     */
+    public LabelLayer getLabelLayer() {
+        return labelLayer;
+    }
+    
+    /**
+     * Obtiene el componente que decide qué cuerpos se dibujan en cada fotograma.
+     * @return El descartador de cuerpos
+     */
+    public SceneCuller getSceneCuller() {
+        return sceneCuller;
+    }
+
+    /**
+     * Obtiene la escena principal de la ventana.
+     * @return La escena principal
+     */
+    public Scene getScene() {
+        return scene;
+    }
+
     /**
      * Obtiene la cámara para que el controlador pueda ajustar la vista.
      * @return La cámara de la escena 3D
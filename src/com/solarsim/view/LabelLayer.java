@@ -0,0 +1,343 @@
+package com.solarsim.view;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Sphere;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+/**
+ * Capa 2D de etiquetas superpuesta a la subescena 3D.
+ *
+ * En cada fotograma en que algo ha cambiado proyecta la posición de los cuerpos
+ * registrados a la pantalla, descarta los que quedan fuera de ella (o cuyo cuerpo
+ * ha sido descartado por {@link SceneCuller}) y resuelve los
+ * solapamientos con una rejilla uniforme, colocando primero las etiquetas de los
+ * cuerpos más importantes. Los nodos {@link Text} salen de un conjunto fijo que se
+ * reutiliza, de modo que el número de nodos y el trabajo sobre ellos dependen de
+ * las etiquetas visibles y no del total de cuerpos.
+ */
+public class LabelLayer extends Pane {
+    /** Número de nodos Text disponibles por defecto */
+    private static final int DEFAULT_POOL_SIZE = 128;
+
+    /** Tamaño de celda de la rejilla de colisiones en píxeles */
+    private static final double CELL_WIDTH = 64;
+    private static final double CELL_HEIGHT = 16;
+
+    /** Separación entre el borde del cuerpo y su etiqueta */
+    private static final double LABEL_GAP = 4;
+
+    // Entradas registradas (una por cuerpo), en arrays paralelos
+    private Sphere[] anchors = new Sphere[16];
+    private String[] texts = new String[16];
+    private int[] priorities = new int[16];
+    private Color[] fills = new Color[16];
+    private Font[] fonts = new Font[16];
+    private double[] estimatedWidths = new double[16];
+    private double[] estimatedHeights = new double[16];
+    private int entryCount;
+
+    /** Entrada de cada esfera registrada */
+    private final Map<Sphere, Integer> entryByAnchor = new IdentityHashMap<>();
+
+    /** Índices de entradas ordenados por prioridad descendente */
+    private int[] order = new int[0];
+    private boolean orderDirty;
+
+    // Conjunto fijo de nodos Text y la entrada que muestra cada uno
+    private final Text[] pool;
+    private final int[] poolEntry;
+    private int poolInUse;
+
+    // Rejilla uniforme: lista enlazada de etiquetas colocadas por celda
+    private int gridColumns;
+    private int gridRows;
+    private int[] cellHead = new int[0];
+    private int[] cellStamp = new int[0];
+    private int frameStamp;
+    private int[] linkSlot = new int[256];
+    private int[] linkNext = new int[256];
+    private int linkCount;
+    private final double[] placedMinX;
+    private final double[] placedMinY;
+    private final double[] placedMaxX;
+    private final double[] placedMaxY;
+
+    private final double[] projected = new double[3];
+
+    /**
+     * Crea una capa con el tamaño de conjunto de nodos por defecto.
+     */
+    public LabelLayer() {
+        this(DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * Crea una capa con un número máximo de etiquetas visibles a la vez.
+     * @param poolSize Número de nodos Text reutilizables
+     */
+    public LabelLayer(int poolSize) {
+        setMouseTransparent(true);
+        setPickOnBounds(false);
+
+        pool = new Text[poolSize];
+        poolEntry = new int[poolSize];
+        placedMinX = new double[poolSize];
+        placedMinY = new double[poolSize];
+        placedMaxX = new double[poolSize];
+        placedMaxY = new double[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            Text text = new Text();
+            text.setVisible(false);
+            text.setManaged(false);
+            pool[i] = text;
+            poolEntry[i] = -1;
+        }
+        getChildren().addAll(pool);
+    }
+
+    /**
+     * Registra la etiqueta de un cuerpo.
+     * @param anchor Esfera del cuerpo; la etiqueta se coloca a su derecha
+     * @param text Texto de la etiqueta
+     * @param priority Importancia del cuerpo (mayor valor = se coloca antes)
+     * @param fill Color del texto
+     * @param font Fuente del texto
+     */
+    public void addLabel(Sphere anchor, String text, int priority, Color fill, Font font) {
+        if (entryCount == anchors.length) {
+            int capacity = entryCount * 2;
+            anchors = Arrays.copyOf(anchors, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+            fills = Arrays.copyOf(fills, capacity);
+            fonts = Arrays.copyOf(fonts, capacity);
+            estimatedWidths = Arrays.copyOf(estimatedWidths, capacity);
+            estimatedHeights = Arrays.copyOf(estimatedHeights, capacity);
+        }
+        anchors[entryCount] = anchor;
+        entryByAnchor.put(anchor, entryCount);
+        texts[entryCount] = text;
+        priorities[entryCount] = priority;
+        fills[entryCount] = fill;
+        fonts[entryCount] = font;
+        // Estimación del tamaño sin medir el texto: evita crear un layout por cuerpo
+        double size = font.getSize();
+        estimatedWidths[entryCount] = text.length() * size * 0.6;
+        estimatedHeights[entryCount] = size * 1.2;
+        entryCount++;
+        orderDirty = true;
+    }
+
+    /**
+     * Elimina la etiqueta de un cuerpo. La última entrada ocupa su hueco y las
+     * etiquetas se vuelven a repartir en el siguiente fotograma.
+     * @param anchor Esfera con la que se registró la etiqueta
+     * @return true si había una etiqueta para esa esfera
+     */
+    public boolean removeLabel(Sphere anchor) {
+        Integer removed = entryByAnchor.remove(anchor);
+        if (removed == null) return false;
+        int entry = removed;
+        int last = entryCount - 1;
+        if (entry != last) {
+            entryByAnchor.put(anchors[last], entry);
+        }
+        anchors[entry] = anchors[last];
+        texts[entry] = texts[last];
+        priorities[entry] = priorities[last];
+        fills[entry] = fills[last];
+        fonts[entry] = fonts[last];
+        estimatedWidths[entry] = estimatedWidths[last];
+        estimatedHeights[entry] = estimatedHeights[last];
+        anchors[last] = null;
+        texts[last] = null;
+        entryCount--;
+        orderDirty = true;
+        hideUnusedFrom(0);
+        return true;
+    }
+
+    /**
+     * Elimina todas las etiquetas registradas.
+     */
+    public void clearLabels() {
+        Arrays.fill(anchors, 0, entryCount, null);
+        Arrays.fill(texts, 0, entryCount, null);
+        entryByAnchor.clear();
+        entryCount = 0;
+        orderDirty = true;
+        for (int i = 0; i < poolInUse; i++) {
+            pool[i].setVisible(false);
+            poolEntry[i] = -1;
+        }
+        poolInUse = 0;
+    }
+
+    /**
+     * Proyecta, descarta y coloca las etiquetas del fotograma actual.
+     * La capa debe estar alineada con la esquina superior izquierda de la subescena.
+     * @param projector Proyección del fotograma, ya actualizada para el grupo de planetas
+     */
+    public void layoutLabels(ScreenProjector projector) {
+        double width = projector.getWidth();
+        double height = projector.getHeight();
+        if (!projector.isValid()) {
+            hideUnusedFrom(0);
+            return;
+        }
+
+        if (orderDirty) {
+            sortByPriority();
+        }
+        prepareGrid(width, height);
+
+        int used = 0;
+        for (int k = 0; k < entryCount && used < pool.length; k++) {
+            int entry = order[k];
+            Sphere anchor = anchors[entry];
+            if (!anchor.isVisible()) continue;
+
+            if (!projector.project(anchor.getTranslateX(), anchor.getTranslateY(),
+                                   anchor.getTranslateZ(), projected)) {
+                continue;
+            }
+
+            double radius = projector.projectRadius(anchor.getRadius(), projected[2]);
+            double minX = projected[0] + radius + LABEL_GAP;
+            double minY = projected[1] - estimatedHeights[entry] / 2;
+            double maxX = minX + estimatedWidths[entry];
+            double maxY = minY + estimatedHeights[entry];
+
+            // Descartar etiquetas fuera de la pantalla
+            if (maxX < 0 || minX > width || maxY < 0 || minY > height) continue;
+
+            if (!tryPlace(used, minX, minY, maxX, maxY)) continue;
+
+            showInPool(used, entry, minX, maxY);
+            used++;
+        }
+        hideUnusedFrom(used);
+    }
+
+    /**
+     * Ordena las entradas por prioridad descendente (solo cuando cambian las entradas).
+     */
+    private void sortByPriority() {
+        Integer[] boxed = new Integer[entryCount];
+        for (int i = 0; i < entryCount; i++) boxed[i] = i;
+        Arrays.sort(boxed, (a, b) -> Integer.compare(priorities[b], priorities[a]));
+        order = new int[entryCount];
+        for (int i = 0; i < entryCount; i++) order[i] = boxed[i];
+        orderDirty = false;
+    }
+
+    /**
+     * Ajusta la rejilla al tamaño de la pantalla y la vacía para el nuevo fotograma.
+     * El vaciado es O(1): las celdas con un sello antiguo se consideran vacías.
+     */
+    private void prepareGrid(double width, double height) {
+        int columns = Math.max(1, (int) Math.ceil(width / CELL_WIDTH));
+        int rows = Math.max(1, (int) Math.ceil(height / CELL_HEIGHT));
+        if (columns != gridColumns || rows != gridRows) {
+            gridColumns = columns;
+            gridRows = rows;
+            cellHead = new int[columns * rows];
+            cellStamp = new int[columns * rows];
+            frameStamp = 0;
+        }
+        frameStamp++;
+        linkCount = 0;
+    }
+
+    /**
+     * Comprueba si el rectángulo choca con alguna etiqueta ya colocada en las
+     * celdas que ocupa y, si no, lo registra en todas ellas.
+     * @return true si la etiqueta se ha colocado
+     */
+    private boolean tryPlace(int slot, double minX, double minY, double maxX, double maxY) {
+        int c0 = clamp((int) (minX / CELL_WIDTH), gridColumns);
+        int c1 = clamp((int) (maxX / CELL_WIDTH), gridColumns);
+        int r0 = clamp((int) (minY / CELL_HEIGHT), gridRows);
+        int r1 = clamp((int) (maxY / CELL_HEIGHT), gridRows);
+
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * gridColumns + c;
+                if (cellStamp[cell] != frameStamp) continue;
+                for (int link = cellHead[cell]; link >= 0; link = linkNext[link]) {
+                    int other = linkSlot[link];
+                    if (minX < placedMaxX[other] && maxX > placedMinX[other]
+                        && minY < placedMaxY[other] && maxY > placedMinY[other]) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        placedMinX[slot] = minX;
+        placedMinY[slot] = minY;
+        placedMaxX[slot] = maxX;
+        placedMaxY[slot] = maxY;
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                link(slot, r * gridColumns + c);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Añade una etiqueta colocada a la lista de una celda. Una etiqueta que cruza
+     * varias celdas aparece en la lista de cada una.
+     */
+    private void link(int slot, int cell) {
+        if (cellStamp[cell] != frameStamp) {
+            cellStamp[cell] = frameStamp;
+            cellHead[cell] = -1;
+        }
+        if (linkCount == linkSlot.length) {
+            linkSlot = Arrays.copyOf(linkSlot, linkCount * 2);
+            linkNext = Arrays.copyOf(linkNext, linkCount * 2);
+        }
+        linkSlot[linkCount] = slot;
+        linkNext[linkCount] = cellHead[cell];
+        cellHead[cell] = linkCount;
+        linkCount++;
+    }
+
+    private static int clamp(int value, int size) {
+        return value < 0 ? 0 : (value >= size ? size - 1 : value);
+    }
+
+    /**
+     * Asigna un nodo del conjunto a una entrada, tocando solo las propiedades que cambian.
+     */
+    private void showInPool(int slot, int entry, double x, double baselineY) {
+        Text text = pool[slot];
+        if (poolEntry[slot] != entry) {
+            poolEntry[slot] = entry;
+            text.setText(texts[entry]);
+            text.setFill(fills[entry]);
+            text.setFont(fonts[entry]);
+        }
+        text.setTranslateX(x);
+        text.setTranslateY(baselineY);
+        if (!text.isVisible()) {
+            text.setVisible(true);
+        }
+    }
+
+    private void hideUnusedFrom(int used) {
+        for (int i = used; i < poolInUse; i++) {
+            pool[i].setVisible(false);
+            poolEntry[i] = -1;
+        }
+        poolInUse = used;
+    }
+}
@@ -0,0 +1,115 @@
+package com.solarsim.view;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.solarsim.model.CelestialBody;
+import com.solarsim.physics.Orbit;
+
+/**
+ * Caché de trayectorias orbitales muestreadas a partir de los elementos keplerianos.
+ *
+ * Cada cuerpo guarda su polilínea cerrada en unidades del modelo y relativa a su
+ * cuerpo central; solo se vuelve a muestrear cuando cambia la instancia de
+ * {@link Orbit} o su versión. Los cambios de zoom no invalidan la caché.
+ *
+ * Se puede consultar desde varios hilos: la escena se construye fuera del hilo de JavaFX.
+ */
+public class OrbitPathCache {
+    /** Muestras para una órbita circular */
+    private static final int BASE_SAMPLES = 64;
+
+    /** Muestras adicionales que se añaden en proporción a la excentricidad */
+    private static final int ECCENTRIC_EXTRA_SAMPLES = 448;
+
+    private final Map<CelestialBody, Entry> entries = new IdentityHashMap<>();
+
+    /**
+     * Obtiene la trayectoria de un cuerpo, muestreándola solo si no existe o ha cambiado.
+     * @param body Cuerpo con órbita definida
+     * @return Coordenadas [x0, y0, z0, x1, ...] de la polilínea cerrada, o null si el
+     *         cuerpo no tiene una órbita cerrada (sin órbita o con excentricidad >= 1)
+     */
+    public synchronized float[] getPath(CelestialBody body) {
+        Orbit orbit = body.getOrbit();
+        if (orbit == null || orbit.getEccentricity() >= 1) {
+            entries.remove(body);
+            return null;
+        }
+        Entry entry = entries.get(body);
+        if (entry == null || entry.orbit != orbit || entry.version != orbit.getVersion()) {
+            entry = new Entry(orbit, orbit.getVersion(), samplePath(orbit));
+            entries.put(body, entry);
+        }
+        return entry.points;
+    }
+
+    /**
+     * Indica si la trayectoria guardada de un cuerpo ya no corresponde a sus elementos.
+     * @param body Cuerpo a comprobar
+     * @return true si hay que volver a muestrear la órbita
+     */
+    public synchronized boolean isStale(CelestialBody body) {
+        Orbit orbit = body.getOrbit();
+        Entry entry = entries.get(body);
+        if (orbit == null) {
+            return entry != null;
+        }
+        return entry == null || entry.orbit != orbit || entry.version != orbit.getVersion();
+    }
+
+    /**
+     * Elimina la trayectoria guardada de un cuerpo.
+     * @param body Cuerpo que ya no se representa
+     */
+    public synchronized void remove(CelestialBody body) {
+        entries.remove(body);
+    }
+
+    /**
+     * Descarta las trayectorias de los cuerpos que no están en la colección, por
+     * ejemplo al reconstruir la escena de un sistema nuevo.
+     * @param bodies Cuerpos que se siguen representando
+     */
+    public synchronized void retainAll(Collection<CelestialBody> bodies) {
+        if (entries.isEmpty()) return;
+        Set<CelestialBody> keep = Collections.newSetFromMap(new IdentityHashMap<>());
+        keep.addAll(bodies);
+        entries.keySet().retainAll(keep);
+    }
+
+    /**
+     * Muestrea una órbita elíptica a intervalos uniformes de anomalía verdadera.
+     * A igual paso angular, los puntos quedan más juntos cerca del periapsis, donde
+     * la curvatura es mayor; el número total de muestras crece con la excentricidad.
+     */
+    static float[] samplePath(Orbit orbit) {
+        double e = Math.max(orbit.getEccentricity(), 0);
+        int samples = BASE_SAMPLES + (int) Math.round(ECCENTRIC_EXTRA_SAMPLES * e);
+        float[] points = new float[samples * 3];
+        double[] position = new double[3];
+        for (int i = 0; i < samples; i++) {
+            double nu = 2 * Math.PI * i / samples;
+            orbit.positionAtTrueAnomaly(nu, position);
+            points[i * 3] = (float) position[0];
+            points[i * 3 + 1] = (float) position[1];
+            points[i * 3 + 2] = (float) position[2];
+        }
+        return points;
+    }
+
+    private static final class Entry {
+        final Orbit orbit;
+        final int version;
+        final float[] points;
+
+        Entry(Orbit orbit, int version, float[] points) {
+            this.orbit = orbit;
+            this.version = version;
+            this.points = points;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.solarsim.view;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.solarsim.model.CelestialBody;
+import com.solarsim.model.Moon;
+import com.solarsim.physics.Orbit;
+
+import javafx.scene.Group;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.DrawMode;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.transform.Scale;
+
+/**
+ * Grupo que dibuja las trayectorias orbitales como mallas de líneas.
+ *
+ * Las órbitas alrededor del Sol forman un grupo, y las de los satélites un grupo
+ * por cuerpo central, que se desplaza con él. Cada grupo reparte sus órbitas en
+ * mallas de como mucho {@value #CHUNK_SIZE} cuerpos, de modo que añadir, quitar o
+ * cambiar una órbita solo regenera la malla en la que está. Las mallas están en
+ * unidades del modelo: el zoom se aplica con una única transformación de escala y
+ * no obliga a regenerarlas.
+ */
+public class OrbitPathLayer extends Group {
+    private static final Color HELIOCENTRIC_COLOR = Color.rgb(70, 70, 70);
+    private static final Color SATELLITE_COLOR = Color.rgb(120, 120, 160);
+
+    /** Cuerpos por malla */
+    static final int CHUNK_SIZE = 512;
+
+    private final OrbitPathCache cache;
+    private final Scale zoom = new Scale(1, 1, 1, 0, 0, 0);
+
+    private PathGroup heliocentric;
+
+    /** Grupos de satélites por cuerpo central */
+    private final Map<CelestialBody, PathGroup> satelliteGroups = new LinkedHashMap<>();
+
+    /** Malla y posición en ella de cada cuerpo cuya órbita se dibuja */
+    private final Map<CelestialBody, Slot> slots = new IdentityHashMap<>();
+
+    /** Valor de {@link Orbit#getChangeCount()} con el que se generaron las mallas */
+    private int seenOrbitChanges;
+
+    private final double[] center = new double[3];
+
+    /**
+     * Crea la capa de órbitas.
+     * @param cache Caché de trayectorias, compartida entre reconstrucciones de la escena
+     */
+    public OrbitPathLayer(OrbitPathCache cache) {
+        this.cache = cache;
+        getTransforms().add(zoom);
+    }
+
+    /**
+     * Construye las mallas de órbitas para el conjunto de cuerpos indicado.
+     * Las trayectorias que ya estaban en la caché no se vuelven a muestrear, y las
+     * de cuerpos que ya no están se descartan.
+     * @param bodies Cuerpos del sistema; los que no tienen órbita se ignoran
+     */
+    public void build(List<CelestialBody> bodies) {
+        getChildren().clear();
+        satelliteGroups.clear();
+        slots.clear();
+        seenOrbitChanges = Orbit.getChangeCount();
+        cache.retainAll(bodies);
+
+        heliocentric = new PathGroup(HELIOCENTRIC_COLOR);
+        getChildren().add(heliocentric.node);
+        Set<PathChunk> dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (CelestialBody body : bodies) {
+            place(body, dirty);
+        }
+        rebuild(dirty);
+        updateSatelliteCenters();
+    }
+
+    /**
+     * Añade las órbitas de cuerpos nuevos al grupo que les corresponde (el
+     * heliocéntrico o el de su cuerpo central) y regenera solo las mallas en las
+     * que han entrado, una vez cada una.
+     * @param bodies Cuerpos añadidos al sistema; los que no tienen órbita o ya estaban se ignoran
+     */
+    public void add(List<CelestialBody> bodies) {
+        int groups = satelliteGroups.size();
+        Set<PathChunk> dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (CelestialBody body : bodies) {
+            place(body, dirty);
+        }
+        rebuild(dirty);
+        if (satelliteGroups.size() != groups) {
+            updateSatelliteCenters();
+        }
+    }
+
+    /**
+     * Quita la órbita de un cuerpo. El último cuerpo de su malla ocupa su hueco y
+     * solo se regenera esa malla; si el cuerpo era el centro de un grupo de
+     * satélites, el grupo desaparece. La trayectoria guardada en la caché se descarta.
+     * @param body Cuerpo quitado del sistema
+     */
+    public void remove(CelestialBody body) {
+        cache.remove(body);
+        Slot slot = slots.remove(body);
+        if (slot != null) {
+            PathChunk chunk = slot.chunk;
+            int last = chunk.bodies.size() - 1;
+            CelestialBody moved = chunk.bodies.remove(last);
+            if (moved != body) {
+                chunk.bodies.set(slot.index, moved);
+                slots.get(moved).index = slot.index;
+            }
+            if (chunk.bodies.isEmpty()) {
+                chunk.group.removeChunk(chunk);
+            } else {
+                chunk.view.setMesh(createMesh(chunk.bodies));
+            }
+        }
+        PathGroup satellites = satelliteGroups.remove(body);
+        if (satellites != null) {
+            for (PathChunk chunk : satellites.chunks) {
+                for (CelestialBody satellite : chunk.bodies) {
+                    slots.remove(satellite);
+                }
+            }
+            getChildren().remove(satellites.node);
+        }
+    }
+
+    /**
+     * Actualiza la capa para el fotograma actual: regenera las mallas cuyas órbitas
+     * han cambiado de elementos y desplaza las de satélites con su cuerpo central.
+     * Si ninguna órbita ha cambiado, la comprobación cuesta una sola lectura.
+     */
+    public void update() {
+        int changes = Orbit.getChangeCount();
+        if (changes != seenOrbitChanges) {
+            seenOrbitChanges = changes;
+            refreshChangedOrbits();
+        }
+        updateSatelliteCenters();
+    }
+
+    /**
+     * Vuelve a generar solo las mallas en las que algún cuerpo ha cambiado sus elementos orbitales.
+     */
+    private void refreshChangedOrbits() {
+        if (heliocentric != null) {
+            heliocentric.refreshStale();
+        }
+        for (PathGroup group : satelliteGroups.values()) {
+            group.refreshStale();
+        }
+    }
+
+    /**
+     * Coloca la órbita de un cuerpo al final de la última malla de su grupo, o en
+     * una malla nueva si está llena.
+     * @param dirty Mallas que hay que regenerar; recibe la del cuerpo
+     */
+    private void place(CelestialBody body, Set<PathChunk> dirty) {
+        if (body.getOrbit() == null || slots.containsKey(body)) return;
+        PathGroup group = heliocentric;
+        if (body instanceof Moon) {
+            group = satelliteGroups.get(((Moon) body).getParentPlanet());
+            if (group == null) {
+                group = new PathGroup(SATELLITE_COLOR);
+                satelliteGroups.put(((Moon) body).getParentPlanet(), group);
+                getChildren().add(group.node);
+            }
+        }
+        PathChunk chunk = group.chunks.isEmpty() ? null : group.chunks.get(group.chunks.size() - 1);
+        if (chunk == null || chunk.bodies.size() >= CHUNK_SIZE) {
+            chunk = group.addChunk();
+        }
+        slots.put(body, new Slot(chunk, chunk.bodies.size()));
+        chunk.bodies.add(body);
+        dirty.add(chunk);
+    }
+
+    private void rebuild(Set<PathChunk> dirty) {
+        for (PathChunk chunk : dirty) {
+            chunk.view.setMesh(createMesh(chunk.bodies));
+        }
+    }
+
+    /**
+     * Aplica el factor de zoom a todas las órbitas sin regenerarlas.
+     * @param zoomFactor Factor de zoom actual
+     */
+    public void setZoom(double zoomFactor) {
+        zoom.setX(zoomFactor);
+        zoom.setY(zoomFactor);
+        zoom.setZ(zoomFactor);
+    }
+
+    /**
+     * Desplaza cada malla de satélites a la posición actual de su cuerpo central.
+     * El coste es proporcional al número de cuerpos con satélites, no al de lunas.
+     */
+    private void updateSatelliteCenters() {
+        for (Map.Entry<CelestialBody, PathGroup> entry : satelliteGroups.entrySet()) {
+            entry.getKey().copyPosition(center);
+            Group node = entry.getValue().node;
+            node.setTranslateX(center[0]);
+            node.setTranslateY(center[1]);
+            node.setTranslateZ(center[2]);
+        }
+    }
+
+    /**
+     * Concatena las polilíneas de los cuerpos en una única malla. Cada segmento
+     * p(i)→p(i+1) se codifica como el triángulo degenerado (i, i+1, i), que en modo
+     * {@link DrawMode#LINE} se dibuja como una sola línea.
+     */
+    private TriangleMesh createMesh(List<CelestialBody> bodies) {
+        List<float[]> paths = new ArrayList<>(bodies.size());
+        int totalPoints = 0;
+        for (CelestialBody body : bodies) {
+            float[] path = cache.getPath(body);
+            if (path != null) {
+                paths.add(path);
+                totalPoints += path.length / 3;
+            }
+        }
+
+        float[] points = new float[totalPoints * 3];
+        int[] faces = new int[totalPoints * 6];
+        int base = 0;
+        int face = 0;
+        for (float[] path : paths) {
+            int count = path.length / 3;
+            System.arraycopy(path, 0, points, base * 3, path.length);
+            for (int i = 0; i < count; i++) {
+                int a = base + i;
+                int b = base + (i + 1) % count; // cerrar la órbita
+                faces[face++] = a; faces[face++] = 0;
+                faces[face++] = b; faces[face++] = 0;
+                faces[face++] = a; faces[face++] = 0;
+            }
+            base += count;
+        }
+
+        TriangleMesh mesh = new TriangleMesh();
+        mesh.getPoints().setAll(points);
+        mesh.getTexCoords().setAll(0, 0);
+        mesh.getFaces().setAll(faces);
+        return mesh;
+    }
+
+    /**
+     * Crea un material que muestra el color indicado independientemente de la
+     * iluminación (los triángulos degenerados no tienen una normal útil).
+     */
+    static PhongMaterial createLineMaterial(Color color) {
+        WritableImage illumination = new WritableImage(1, 1);
+        illumination.getPixelWriter().setColor(0, 0, color);
+        PhongMaterial material = new PhongMaterial(Color.BLACK);
+        material.setSpecularColor(Color.BLACK);
+        material.setSelfIlluminationMap(illumination);
+        return material;
+    }
+
+    /**
+     * Órbitas que comparten centro y color, repartidas en mallas.
+     */
+    private final class PathGroup {
+        final Group node = new Group();
+        final List<PathChunk> chunks = new ArrayList<>();
+        final PhongMaterial material;
+
+        PathGroup(Color color) {
+            material = createLineMaterial(color);
+        }
+
+        PathChunk addChunk() {
+            MeshView view = new MeshView();
+            view.setDrawMode(DrawMode.LINE);
+            view.setCullFace(CullFace.NONE);
+            view.setMouseTransparent(true);
+            view.setMaterial(material);
+            PathChunk chunk = new PathChunk(this, view);
+            chunks.add(chunk);
+            node.getChildren().add(view);
+            return chunk;
+        }
+
+        void removeChunk(PathChunk chunk) {
+            chunks.remove(chunk);
+            node.getChildren().remove(chunk.view);
+        }
+
+        void refreshStale() {
+            for (PathChunk chunk : chunks) {
+                for (CelestialBody body : chunk.bodies) {
+                    if (cache.isStale(body)) {
+                        chunk.view.setMesh(createMesh(chunk.bodies));
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Una malla de un grupo y los cuerpos cuyas órbitas contiene, en orden.
+     */
+    private static final class PathChunk {
+        final PathGroup group;
+        final MeshView view;
+        final List<CelestialBody> bodies = new ArrayList<>(CHUNK_SIZE);
+
+        PathChunk(PathGroup group, MeshView view) {
+            this.group = group;
+            this.view = view;
+        }
+    }
+
+    /**
+     * Malla de un cuerpo y su posición en ella.
+     */
+    private static final class Slot {
+        final PathChunk chunk;
+        int index;
+
+        Slot(PathChunk chunk, int index) {
+            this.chunk = chunk;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.solarsim.view;
+
+import javafx.scene.paint.Color;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.DrawMode;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+
+/**
+ * Estela de movimiento de un cuerpo, guardada en un búfer circular de capacidad fija.
+ *
+ * Los vértices de la malla son directamente las ranuras del búfer y la topología
+ * (un segmento entre cada ranura y la siguiente) no cambia nunca. Al añadir una
+ * muestra solo se escribe el vértice de la cabeza y se actualizan dos caras: la
+ * que une la cabeza con la muestra más antigua se colapsa y la anterior vuelve a
+ * ser un segmento visible. La memoria es constante y no se crean objetos por
+ * fotograma.
+ */
+public class OrbitTrail {
+    private final int capacity;
+    private final TriangleMesh mesh;
+    private final MeshView view;
+
+    private int head = -1;
+    private int count;
+
+    private float lastX;
+    private float lastY;
+    private float lastZ;
+    private double minSpacingSquared;
+
+    // Buffers reutilizados para las escrituras parciales en la malla
+    private final float[] pointScratch = new float[3];
+    private final int[] faceScratch = new int[6];
+
+    /**
+     * Crea una estela vacía.
+     * @param capacity Número máximo de muestras que conserva la estela
+     * @param minSpacing Distancia mínima (en unidades del modelo) entre dos muestras consecutivas
+     * @param color Color de la estela
+     */
+    public OrbitTrail(int capacity, double minSpacing, Color color) {
+        this.capacity = capacity;
+        this.minSpacingSquared = minSpacing * minSpacing;
+
+        mesh = new TriangleMesh();
+        mesh.getPoints().setAll(new float[capacity * 3]);
+        mesh.getTexCoords().setAll(0, 0);
+        int[] faces = new int[capacity * 6];
+        for (int i = 0; i < capacity; i++) {
+            writeFace(faces, i * 6, i, (i + 1) % capacity);
+        }
+        mesh.getFaces().setAll(faces);
+
+        view = new MeshView(mesh);
+        view.setDrawMode(DrawMode.LINE);
+        view.setCullFace(CullFace.NONE);
+        view.setMouseTransparent(true);
+        view.setMaterial(OrbitPathLayer.createLineMaterial(color));
+        view.setVisible(false);
+    }
+
+    /**
+     * Ofrece la posición actual del cuerpo. Solo se guarda si se ha alejado de la
+     * última muestra al menos la separación mínima, de modo que la frecuencia de
+     * muestreo se adapta a la velocidad del cuerpo y la estela cubre siempre una
+     * longitud parecida.
+     * @param position Posición [x, y, z] en unidades del modelo
+     * @return true si se ha añadido una muestra
+     */
+    public boolean offer(double[] position) {
+        float x = (float) position[0];
+        float y = (float) position[1];
+        float z = (float) position[2];
+
+        if (count == 0) {
+            fillAll(x, y, z);
+            head = 0;
+            count = 1;
+            remember(x, y, z);
+            view.setVisible(true);
+            return true;
+        }
+
+        double dx = x - lastX;
+        double dy = y - lastY;
+        double dz = z - lastZ;
+        if (dx * dx + dy * dy + dz * dz < minSpacingSquared) {
+            return false;
+        }
+
+        int previous = head;
+        head = (head + 1) % capacity;
+        if (count < capacity) count++;
+
+        pointScratch[0] = x;
+        pointScratch[1] = y;
+        pointScratch[2] = z;
+        mesh.getPoints().set(head * 3, pointScratch, 0, 3);
+
+        // La cara anterior vuelve a unir dos muestras consecutivas
+        writeFace(faceScratch, 0, previous, head);
+        mesh.getFaces().set(previous * 6, faceScratch, 0, 6);
+        // La cara de la cabeza uniría la muestra más reciente con la más antigua
+        writeFace(faceScratch, 0, head, head);
+        mesh.getFaces().set(head * 6, faceScratch, 0, 6);
+
+        remember(x, y, z);
+        return true;
+    }
+
+    /**
+     * Vacía la estela sin liberar su memoria.
+     */
+    public void clear() {
+        count = 0;
+        head = -1;
+        view.setVisible(false);
+    }
+
+    /**
+     * Cambia la separación mínima entre muestras.
+     * @param minSpacing Nueva separación en unidades del modelo
+     */
+    public void setMinSpacing(double minSpacing) {
+        this.minSpacingSquared = minSpacing * minSpacing;
+    }
+
+    /**
+     * Obtiene el nodo que dibuja la estela.
+     * @return La vista de la malla
+     */
+    public MeshView getView() {
+        return view;
+    }
+
+    /**
+     * Obtiene el número de muestras guardadas.
+     * @return Número de muestras (como máximo la capacidad)
+     */
+    public int size() {
+        return count;
+    }
+
+    private void remember(float x, float y, float z) {
+        lastX = x;
+        lastY = y;
+        lastZ = z;
+    }
+
+    /**
+     * Coloca todas las ranuras en el primer punto: los segmentos aún no usados
+     * tienen longitud cero y no se ven. Solo ocurre al empezar la estela.
+     */
+    private void fillAll(float x, float y, float z) {
+        float[] points = new float[capacity * 3];
+        for (int i = 0; i < capacity; i++) {
+            points[i * 3] = x;
+            points[i * 3 + 1] = y;
+            points[i * 3 + 2] = z;
+        }
+        mesh.getPoints().set(0, points, 0, points.length);
+
+        int[] faces = new int[capacity * 6];
+        for (int i = 0; i < capacity; i++) {
+            writeFace(faces, i * 6, i, (i + 1) % capacity);
+        }
+        writeFace(faces, 0, 0, 0);
+        mesh.getFaces().set(0, faces, 0, faces.length);
+    }
+
+    /**
+     * Escribe el triángulo degenerado (a, b, a), que en modo línea se dibuja como el segmento a-b.
+     */
+    private static void writeFace(int[] faces, int offset, int a, int b) {
+        faces[offset] = a;
+        faces[offset + 1] = 0;
+        faces[offset + 2] = b;
+        faces[offset + 3] = 0;
+        faces[offset + 4] = a;
+        faces[offset + 5] = 0;
+    }
+}
@@ -0,0 +1,472 @@
+package com.solarsim.view;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.solarsim.model.CelestialBody;
+import com.solarsim.physics.Orbit;
+
+import javafx.scene.shape.Sphere;
+
+/**
+ * Decide en cada fotograma qué cuerpos merece la pena actualizar y dibujar.
+ *
+ * Un cuerpo se descarta si su esfera envolvente queda fuera del frustum de la
+ * cámara, si su disco proyectado mide menos de un píxel o si está completamente
+ * tapado por un oclusor mayor y más cercano (el Sol y los cuerpos más grandes en
+ * pantalla). Los nodos descartados se ocultan y no se les actualiza la posición,
+ * así que ni el grafo de escena ni el renderizador trabajan con ellos.
+ *
+ * Los cuerpos que guardan su posición relativa a otro ({@link CelestialBody#getFrameParent()},
+ * como las lunas) se tratan por sistemas: primero se comprueba la esfera que
+ * envuelve al padre y todas sus órbitas, y solo si es visible se componen las
+ * posiciones de sus cuerpos. Un planeta fuera de pantalla no cuesta nada por luna.
+ * Las posiciones se leen con {@link CelestialBody#copyPosition(double[])}, que no
+ * modifica el modelo mientras el temporizador lo está moviendo.
+ *
+ * Todo el estado se guarda en arrays paralelos reutilizados entre fotogramas.
+ *
+ * Las posiciones se leen del modelo salvo que haya una vista previa activa
+ * ({@link #setPreview}): entonces se toman de un búfer de la vista y el modelo no
+ * se toca.
+ */
+public class SceneCuller {
+    /** Radio aparente mínimo (en píxeles) para que un cuerpo se dibuje */
+    private static final double MIN_PIXEL_RADIUS = 0.5;
+
+    /** Número máximo de oclusores que se comprueban por cuerpo */
+    private static final int MAX_OCCLUDERS = 4;
+
+    private final List<CelestialBody> bodies = new ArrayList<>();
+    private final List<Sphere> nodes = new ArrayList<>();
+    private final Map<CelestialBody, Integer> indexByBody = new IdentityHashMap<>();
+    private boolean[] alwaysOccluder = new boolean[16];
+    private boolean[] visible = new boolean[16];
+
+    // Datos del fotograma actual
+    private double[] screenX = new double[16];
+    private double[] screenY = new double[16];
+    private double[] screenRadius = new double[16];
+    private double[] depth = new double[16];
+    private boolean[] inFrustum = new boolean[16];
+    private double[] posX = new double[16];
+    private double[] posY = new double[16];
+    private double[] posZ = new double[16];
+
+    // Sistemas del fotograma actual: índice del padre de cada cuerpo (-1 si no se
+    // agrupa) y, para cada padre, el radio en escena de su sistema y si es visible
+    private int[] parentIndex = new int[16];
+    private double[] systemReach = new double[16];
+    private double[] systemNodeRadius = new double[16];
+    private boolean[] systemVisible = new boolean[16];
+
+    // Parámetros de la proyección del fotograma actual
+    private ScreenProjector projector;
+    private double halfWidth;
+    private double halfHeight;
+    private double focal;
+    private double near;
+    private double far;
+
+    private final int[] occluders = new int[MAX_OCCLUDERS];
+    private int occluderCount;
+
+    // Vista previa: posiciones en el orden de la lista del modelo y, para cada
+    // cuerpo registrado, su índice en ese orden (-1 si no aparece)
+    private double[] previewPositions;
+    private int[] previewIndex = new int[16];
+
+    private final double[] scratch = new double[3];
+    private double zoomFactor = 1.0;
+    private int culledCount;
+
+    /**
+     * Elimina todos los cuerpos registrados.
+     */
+    public void clear() {
+        bodies.clear();
+        nodes.clear();
+        indexByBody.clear();
+        previewPositions = null;
+    }
+
+    /**
+     * Registra un cuerpo y el nodo que lo representa.
+     * @param body Cuerpo del modelo
+     * @param node Esfera que lo dibuja
+     * @param occluder true si el cuerpo debe tenerse siempre en cuenta como oclusor (p. ej. el Sol)
+     */
+    public void add(CelestialBody body, Sphere node, boolean occluder) {
+        int index = bodies.size();
+        ensureCapacity(index + 1);
+        bodies.add(body);
+        nodes.add(node);
+        indexByBody.put(body, index);
+        alwaysOccluder[index] = occluder;
+        visible[index] = node.isVisible();
+        previewIndex[index] = -1;
+    }
+
+    /**
+     * Deja de gestionar un cuerpo. El último cuerpo registrado ocupa su hueco, así
+     * que el coste no depende del número de cuerpos.
+     * @param body Cuerpo a quitar
+     * @return El nodo que lo dibujaba, o null si el cuerpo no estaba registrado
+     */
+    public Sphere remove(CelestialBody body) {
+        Integer removed = indexByBody.remove(body);
+        if (removed == null) return null;
+        int index = removed;
+        int last = bodies.size() - 1;
+        Sphere node = nodes.get(index);
+        if (index != last) {
+            CelestialBody moved = bodies.get(last);
+            bodies.set(index, moved);
+            nodes.set(index, nodes.get(last));
+            alwaysOccluder[index] = alwaysOccluder[last];
+            visible[index] = visible[last];
+            previewIndex[index] = previewIndex[last];
+            indexByBody.put(moved, index);
+        }
+        bodies.remove(last);
+        nodes.remove(last);
+        return node;
+    }
+
+    /**
+     * Obtiene el nodo que dibuja un cuerpo.
+     * @param body Cuerpo del modelo
+     * @return La esfera, o null si el cuerpo no está registrado
+     */
+    public Sphere getNode(CelestialBody body) {
+        Integer index = indexByBody.get(body);
+        return index == null ? null : nodes.get(index);
+    }
+
+    /**
+     * Dibuja los cuerpos en posiciones de vista previa en lugar de las del modelo,
+     * hasta que se llame a {@link #clearPreview()}.
+     * @param order Cuerpos en el orden de las posiciones
+     * @param positions Posiciones [x0, y0, z0, x1, ...] en unidades del modelo; el
+     *                  array se lee en cada fotograma, no se copia
+     */
+    public void setPreview(List<CelestialBody> order, double[] positions) {
+        int count = bodies.size();
+        Arrays.fill(previewIndex, 0, count, -1);
+        for (int k = 0; k < order.size(); k++) {
+            Integer index = indexByBody.get(order.get(k));
+            if (index != null) {
+                previewIndex[index] = k;
+            }
+        }
+        previewPositions = positions;
+    }
+
+    /**
+     * Vuelve a dibujar los cuerpos en sus posiciones del modelo.
+     */
+    public void clearPreview() {
+        previewPositions = null;
+    }
+
+    /**
+     * Establece el factor que convierte posiciones del modelo en coordenadas de escena.
+     * @param zoomFactor Factor de zoom actual
+     */
+    public void setZoom(double zoomFactor) {
+        this.zoomFactor = zoomFactor;
+    }
+
+    /**
+     * Clasifica todos los cuerpos y actualiza sus nodos. Debe llamarse en el hilo
+     * de JavaFX, después de {@link ScreenProjector#update}.
+     * @param projector Proyección del fotograma actual
+     */
+    public void cull(ScreenProjector projector) {
+        int count = bodies.size();
+        if (!projector.isValid()) {
+            for (int i = 0; i < count; i++) {
+                show(i, true);
+            }
+            return;
+        }
+
+        this.projector = projector;
+        halfWidth = projector.getWidth() / 2.0;
+        halfHeight = projector.getHeight() / 2.0;
+        focal = projector.getFocalLength();
+        near = projector.getNearClip();
+        far = projector.getFarClip();
+
+        resolveSystems(count);
+
+        // Cuerpos independientes y centros de sistema
+        for (int i = 0; i < count; i++) {
+            if (parentIndex[i] >= 0) continue;
+            loadPosition(i, -1);
+            classify(i);
+            systemVisible[i] = systemReach[i] > 0 && isSystemVisible(i);
+        }
+        // Cuerpos de cada sistema: solo se componen los de sistemas visibles
+        for (int i = 0; i < count; i++) {
+            int parent = parentIndex[i];
+            if (parent < 0) continue;
+            if (!systemVisible[parent]) {
+                inFrustum[i] = false;
+                continue;
+            }
+            loadPosition(i, parent);
+            classify(i);
+        }
+
+        selectOccluders(count);
+
+        culledCount = 0;
+        for (int i = 0; i < count; i++) {
+            boolean show = inFrustum[i] && !isOccluded(i);
+            if (show) {
+                Sphere node = nodes.get(i);
+                node.setTranslateX(posX[i] * zoomFactor);
+                node.setTranslateY(posY[i] * zoomFactor);
+                node.setTranslateZ(posZ[i] * zoomFactor);
+            } else {
+                culledCount++;
+            }
+            show(i, show);
+        }
+        this.projector = null;
+    }
+
+    /**
+     * Agrupa cada cuerpo con su padre de referencia, si este está registrado y no
+     * tiene a su vez padre, y calcula el radio de cada sistema en la escena: la
+     * mayor distancia orbital de sus cuerpos más el radio de su esfera.
+     */
+    private void resolveSystems(int count) {
+        Arrays.fill(systemReach, 0, count, 0);
+        Arrays.fill(systemNodeRadius, 0, count, 0);
+        for (int i = 0; i < count; i++) {
+            CelestialBody body = bodies.get(i);
+            CelestialBody parent = body.getFrameParent();
+            Integer index = parent != null && parent.getFrameParent() == null ? indexByBody.get(parent) : null;
+            if (index == null) {
+                parentIndex[i] = -1;
+                continue;
+            }
+            int p = index;
+            parentIndex[i] = p;
+            double radius = nodes.get(i).getRadius();
+            systemNodeRadius[p] = Math.max(systemNodeRadius[p], radius);
+            systemReach[p] = Math.max(systemReach[p], frameReach(body) * zoomFactor + radius);
+        }
+    }
+
+    /**
+     * Distancia máxima de un cuerpo a su padre de referencia: el apoapsis si tiene
+     * una órbita cerrada y, si no, la distancia actual.
+     */
+    private double frameReach(CelestialBody body) {
+        Orbit orbit = body.getOrbit();
+        if (orbit != null && orbit.getEccentricity() < 1) {
+            return orbit.getSemiMajorAxis() * (1 + Math.max(orbit.getEccentricity(), 0));
+        }
+        body.copyRelativePosition(scratch);
+        return Math.sqrt(scratch[0] * scratch[0] + scratch[1] * scratch[1] + scratch[2] * scratch[2]);
+    }
+
+    /**
+     * Indica si algún cuerpo del sistema de un padre puede verse: la esfera del
+     * sistema corta el frustum y un cuerpo en su borde más cercano mediría al menos
+     * {@link #MIN_PIXEL_RADIUS}. Las cotas son conservadoras.
+     */
+    private boolean isSystemVisible(int parent) {
+        double reach = systemReach[parent];
+        projector.toCameraSpace(posX[parent] * zoomFactor, posY[parent] * zoomFactor,
+            posZ[parent] * zoomFactor, scratch);
+        double cz = scratch[2];
+        if (cz + reach < near || cz - reach > far) return false;
+        if (cz - reach <= near) return true;
+
+        double nearest = cz - reach;
+        if (systemNodeRadius[parent] * focal / nearest < MIN_PIXEL_RADIUS) return false;
+        // Desplazamiento máximo en pantalla de un punto de la esfera respecto a su centro
+        double spreadX = focal * reach * (cz + Math.abs(scratch[0])) / (nearest * cz);
+        double spreadY = focal * reach * (cz + Math.abs(scratch[1])) / (nearest * cz);
+        double sx = halfWidth + scratch[0] * focal / cz;
+        double sy = halfHeight + scratch[1] * focal / cz;
+        return sx + spreadX >= 0 && sx - spreadX <= 2 * halfWidth
+            && sy + spreadY >= 0 && sy - spreadY <= 2 * halfHeight;
+    }
+
+    /**
+     * Calcula la posición de un cuerpo en este fotograma: la de la vista previa si
+     * la hay y, si no, la del modelo, compuesta sobre la de su padre si se agrupa.
+     */
+    private void loadPosition(int index, int parent) {
+        double[] preview = previewPositions;
+        if (preview != null && previewIndex[index] >= 0) {
+            int o = previewIndex[index] * 3;
+            posX[index] = preview[o];
+            posY[index] = preview[o + 1];
+            posZ[index] = preview[o + 2];
+            return;
+        }
+        CelestialBody body = bodies.get(index);
+        if (parent >= 0) {
+            body.copyRelativePosition(scratch);
+            posX[index] = posX[parent] + scratch[0];
+            posY[index] = posY[parent] + scratch[1];
+            posZ[index] = posZ[parent] + scratch[2];
+        } else {
+            body.copyPosition(scratch);
+            posX[index] = scratch[0];
+            posY[index] = scratch[1];
+            posZ[index] = scratch[2];
+        }
+    }
+
+    /**
+     * Proyecta la esfera de un cuerpo y decide si está en el frustum y mide al menos
+     * {@link #MIN_PIXEL_RADIUS}.
+     */
+    private void classify(int i) {
+        double radius = nodes.get(i).getRadius();
+        projector.toCameraSpace(posX[i] * zoomFactor, posY[i] * zoomFactor, posZ[i] * zoomFactor, scratch);
+        double cz = scratch[2];
+        depth[i] = cz;
+
+        if (cz + radius < near || cz - radius > far) {
+            inFrustum[i] = false;
+            return;
+        }
+        if (cz - radius <= near) {
+            // La esfera atraviesa el plano cercano: no se puede proyectar con
+            // fiabilidad y es preferible dibujarla
+            screenX[i] = halfWidth;
+            screenY[i] = halfHeight;
+            screenRadius[i] = Double.POSITIVE_INFINITY;
+            inFrustum[i] = true;
+            return;
+        }
+
+        double scale = focal / cz;
+        double sx = halfWidth + scratch[0] * scale;
+        double sy = halfHeight + scratch[1] * scale;
+        double sr = radius * scale;
+        screenX[i] = sx;
+        screenY[i] = sy;
+        screenRadius[i] = sr;
+        inFrustum[i] = sx + sr >= 0 && sx - sr <= 2 * halfWidth
+            && sy + sr >= 0 && sy - sr <= 2 * halfHeight
+            && sr >= MIN_PIXEL_RADIUS;
+    }
+
+    /**
+     * Obtiene el número de cuerpos descartados en el último fotograma.
+     * @return Cuerpos no dibujados
+     */
+    public int getCulledCount() {
+        return culledCount;
+    }
+
+    /**
+     * Obtiene el número de cuerpos registrados.
+     * @return Número de cuerpos
+     */
+    public int size() {
+        return bodies.size();
+    }
+
+    /**
+     * Elige como oclusores los cuerpos marcados como tales y, después, los de mayor
+     * radio aparente, hasta {@link #MAX_OCCLUDERS}.
+     */
+    private void selectOccluders(int count) {
+        occluderCount = 0;
+        for (int i = 0; i < count && occluderCount < MAX_OCCLUDERS; i++) {
+            if (alwaysOccluder[i] && canOcclude(i)) {
+                occluders[occluderCount++] = i;
+            }
+        }
+        while (occluderCount < MAX_OCCLUDERS) {
+            int best = -1;
+            for (int i = 0; i < count; i++) {
+                if (!canOcclude(i) || isOccluderIndex(i)) continue;
+                if (best < 0 || screenRadius[i] > screenRadius[best]) {
+                    best = i;
+                }
+            }
+            if (best < 0) break;
+            occluders[occluderCount++] = best;
+        }
+    }
+
+    /**
+     * Los cuerpos que atraviesan el plano cercano no sirven como oclusores: la
+     * cámara puede estar dentro de ellos y no taparían nada.
+     */
+    private boolean canOcclude(int index) {
+        return inFrustum[index] && !Double.isInfinite(screenRadius[index]);
+    }
+
+    private boolean isOccluderIndex(int index) {
+        for (int k = 0; k < occluderCount; k++) {
+            if (occluders[k] == index) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Un cuerpo está oculto si su esfera entera queda detrás de un oclusor y su
+     * disco en pantalla cabe dentro del disco del oclusor.
+     */
+    private boolean isOccluded(int index) {
+        Sphere node = nodes.get(index);
+        for (int k = 0; k < occluderCount; k++) {
+            int o = occluders[k];
+            if (o == index) continue;
+            double occluderRadius = nodes.get(o).getRadius();
+            if (depth[index] - node.getRadius() <= depth[o] + occluderRadius) continue;
+            double dx = screenX[index] - screenX[o];
+            double dy = screenY[index] - screenY[o];
+            double reach = screenRadius[o] - screenRadius[index];
+            if (reach > 0 && dx * dx + dy * dy <= reach * reach) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cambia la visibilidad del nodo solo si es distinta de la actual.
+     */
+    private void show(int index, boolean show) {
+        if (visible[index] != show) {
+            visible[index] = show;
+            nodes.get(index).setVisible(show);
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= visible.length) return;
+        int capacity = Math.max(required, visible.length * 2);
+        alwaysOccluder = Arrays.copyOf(alwaysOccluder, capacity);
+        visible = Arrays.copyOf(visible, capacity);
+        previewIndex = Arrays.copyOf(previewIndex, capacity);
+        screenX = Arrays.copyOf(screenX, capacity);
+        screenY = Arrays.copyOf(screenY, capacity);
+        screenRadius = Arrays.copyOf(screenRadius, capacity);
+        depth = Arrays.copyOf(depth, capacity);
+        inFrustum = Arrays.copyOf(inFrustum, capacity);
+        posX = Arrays.copyOf(posX, capacity);
+        posY = Arrays.copyOf(posY, capacity);
+        posZ = Arrays.copyOf(posZ, capacity);
+        parentIndex = Arrays.copyOf(parentIndex, capacity);
+        systemReach = Arrays.copyOf(systemReach, capacity);
+        systemNodeRadius = Arrays.copyOf(systemNodeRadius, capacity);
+        systemVisible = Arrays.copyOf(systemVisible, capacity);
+    }
+}
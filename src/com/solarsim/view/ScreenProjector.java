@@ -0,0 +1,144 @@
+package com.solarsim.view;
+
+import javafx.scene.Node;
+import javafx.scene.PerspectiveCamera;
+import javafx.scene.transform.NonInvertibleTransformException;
+import javafx.scene.transform.Transform;
+
+/**
+ * Proyecta coordenadas 3D de la escena a píxeles de la subescena.
+ *
+ * La matriz combinada (grupo de planetas → espacio de la cámara) se obtiene una
+ * sola vez por fotograma con {@link #update}; después cada proyección son unas
+ * pocas multiplicaciones sin crear objetos, lo que permite proyectar miles de
+ * cuerpos por fotograma.
+ */
+public class ScreenProjector {
+    // Matriz afín 3x4 del espacio del grupo al espacio de la cámara
+    private double mxx, mxy, mxz, tx;
+    private double myx, myy, myz, ty;
+    private double mzx, mzy, mzz, tz;
+
+    private double focalLength;
+    private double centerX;
+    private double centerY;
+    private double width;
+    private double height;
+    private double nearClip;
+    private double farClip;
+    private boolean valid;
+
+    /**
+     * Recalcula la transformación para el fotograma actual.
+     * @param space Nodo cuyas coordenadas locales se van a proyectar (p. ej. el grupo de planetas)
+     * @param camera Cámara de la subescena
+     * @param width Ancho de la subescena en píxeles
+     * @param height Alto de la subescena en píxeles
+     */
+    public void update(Node space, PerspectiveCamera camera, double width, double height) {
+        Transform toCamera;
+        try {
+            toCamera = camera.getLocalToSceneTransform().createInverse()
+                .createConcatenation(space.getLocalToSceneTransform());
+        } catch (NonInvertibleTransformException e) {
+            valid = false;
+            return;
+        }
+        mxx = toCamera.getMxx(); mxy = toCamera.getMxy(); mxz = toCamera.getMxz(); tx = toCamera.getTx();
+        myx = toCamera.getMyx(); myy = toCamera.getMyy(); myz = toCamera.getMyz(); ty = toCamera.getTy();
+        mzx = toCamera.getMzx(); mzy = toCamera.getMzy(); mzz = toCamera.getMzz(); tz = toCamera.getTz();
+
+        double halfFov = Math.toRadians(camera.getFieldOfView()) / 2.0;
+        double halfExtent = camera.isVerticalFieldOfView() ? height / 2.0 : width / 2.0;
+        this.focalLength = halfExtent / Math.tan(halfFov);
+        this.width = width;
+        this.height = height;
+        this.centerX = width / 2.0;
+        this.centerY = height / 2.0;
+        this.nearClip = camera.getNearClip();
+        this.farClip = camera.getFarClip();
+        this.valid = width > 0 && height > 0;
+    }
+
+    /**
+     * Proyecta un punto en coordenadas locales del espacio configurado.
+     * @param x Coordenada X
+     * @param y Coordenada Y
+     * @param z Coordenada Z
+     * @param out Array de al menos 3 elementos donde se escriben [xPantalla, yPantalla, profundidad]
+     * @return true si el punto está delante de la cámara y dentro de los planos de recorte
+     */
+    public boolean project(double x, double y, double z, double[] out) {
+        if (!valid) {
+            return false;
+        }
+        double cz = mzx * x + mzy * y + mzz * z + tz;
+        if (cz < nearClip || cz > farClip) {
+            return false;
+        }
+        double cx = mxx * x + mxy * y + mxz * z + tx;
+        double cy = myx * x + myy * y + myz * z + ty;
+        double scale = focalLength / cz;
+        out[0] = centerX + cx * scale;
+        out[1] = centerY + cy * scale;
+        out[2] = cz;
+        return true;
+    }
+
+    /**
+     * Transforma un punto al espacio de la cámara sin proyectarlo ni recortarlo.
+     * En ese espacio la cámara mira hacia +Z y la Y crece hacia abajo.
+     * @param x Coordenada X
+     * @param y Coordenada Y
+     * @param z Coordenada Z
+     * @param out Array de al menos 3 elementos donde se escribe [x, y, z] en el espacio de la cámara
+     */
+    public void toCameraSpace(double x, double y, double z, double[] out) {
+        out[0] = mxx * x + mxy * y + mxz * z + tx;
+        out[1] = myx * x + myy * y + myz * z + ty;
+        out[2] = mzx * x + mzy * y + mzz * z + tz;
+    }
+
+    /**
+     * Obtiene la distancia focal en píxeles: un objeto de tamaño s a profundidad d
+     * mide s·f/d píxeles en pantalla.
+     * @return Distancia focal en píxeles
+     */
+    public double getFocalLength() {
+        return focalLength;
+    }
+
+    public double getNearClip() {
+        return nearClip;
+    }
+
+    public double getFarClip() {
+        return farClip;
+    }
+
+    /**
+     * Convierte un radio en unidades de escena a píxeles a la profundidad indicada.
+     * @param radius Radio en unidades de escena
+     * @param depth Profundidad en el espacio de la cámara (devuelta por {@link #project})
+     * @return Radio aparente en píxeles
+     */
+    public double projectRadius(double radius, double depth) {
+        return radius * focalLength / depth;
+    }
+
+    /**
+     * Indica si la última llamada a {@link #update} produjo una transformación utilizable.
+     * @return true si se puede proyectar
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+}
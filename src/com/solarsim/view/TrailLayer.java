@@ -0,0 +1,125 @@
+package com.solarsim.view;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.solarsim.model.CelestialBody;
+import com.solarsim.physics.Orbit;
+
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Scale;
+
+/**
+ * Grupo con las estelas de movimiento de los cuerpos seleccionados.
+ *
+ * Igual que las órbitas, las estelas están en unidades del modelo y el zoom se
+ * aplica con una única transformación de escala. Se mantiene un número máximo de
+ * estelas; al superarlo se descarta la más antigua.
+ */
+public class TrailLayer extends Group {
+    /** Muestras por estela */
+    private static final int TRAIL_CAPACITY = 256;
+
+    /** Fracción de la órbita que cubre una estela llena */
+    private static final double ORBIT_FRACTION = 0.5;
+
+    /** Separación entre muestras para cuerpos sin órbita definida */
+    private static final double DEFAULT_SPACING = 1.0;
+
+    private final int maxTrails;
+    private final Map<CelestialBody, OrbitTrail> trails = new LinkedHashMap<>();
+    private final List<CelestialBody> bodies = new ArrayList<>();
+    private final List<OrbitTrail> trailList = new ArrayList<>();
+    private final Scale zoom = new Scale(1, 1, 1, 0, 0, 0);
+    private final double[] position = new double[3];
+
+    /**
+     * Crea la capa de estelas.
+     * @param maxTrails Número máximo de estelas simultáneas
+     */
+    public TrailLayer(int maxTrails) {
+        this.maxTrails = maxTrails;
+        getTransforms().add(zoom);
+    }
+
+    /**
+     * Empieza a dibujar la estela de un cuerpo si aún no la tiene.
+     * @param body Cuerpo a seguir
+     * @param color Color de la estela
+     */
+    public void addTrail(CelestialBody body, Color color) {
+        if (trails.containsKey(body)) return;
+
+        if (trails.size() >= maxTrails) {
+            CelestialBody oldest = trails.keySet().iterator().next();
+            removeTrail(oldest);
+        }
+
+        OrbitTrail trail = new OrbitTrail(TRAIL_CAPACITY, spacingFor(body), color);
+        trails.put(body, trail);
+        bodies.add(body);
+        trailList.add(trail);
+        getChildren().add(trail.getView());
+        body.copyPosition(position);
+        trail.offer(position);
+    }
+
+    /**
+     * Deja de dibujar la estela de un cuerpo.
+     * @param body Cuerpo a dejar de seguir
+     */
+    public void removeTrail(CelestialBody body) {
+        OrbitTrail trail = trails.remove(body);
+        if (trail != null) {
+            int index = trailList.indexOf(trail);
+            trailList.remove(index);
+            bodies.remove(index);
+            getChildren().remove(trail.getView());
+        }
+    }
+
+    /**
+     * Vacía todas las estelas (por ejemplo, tras reiniciar la simulación).
+     */
+    public void clearTrails() {
+        for (OrbitTrail trail : trailList) {
+            trail.clear();
+        }
+    }
+
+    /**
+     * Ofrece a cada estela la posición actual de su cuerpo. Se llama una vez por
+     * paso de simulación desde el hilo de JavaFX.
+     */
+    public void sample() {
+        for (int i = 0; i < trailList.size(); i++) {
+            bodies.get(i).copyPosition(position);
+            trailList.get(i).offer(position);
+        }
+    }
+
+    /**
+     * Aplica el factor de zoom a todas las estelas.
+     * @param zoomFactor Factor de zoom actual
+     */
+    public void setZoom(double zoomFactor) {
+        zoom.setX(zoomFactor);
+        zoom.setY(zoomFactor);
+        zoom.setZ(zoomFactor);
+    }
+
+    /**
+     * Calcula la separación entre muestras para que una estela llena cubra la
+     * misma fracción de la órbita sea cual sea su tamaño.
+     */
+    private static double spacingFor(CelestialBody body) {
+        Orbit orbit = body.getOrbit();
+        if (orbit == null || orbit.getSemiMajorAxis() <= 0) {
+            return DEFAULT_SPACING;
+        }
+        return 2 * Math.PI * orbit.getSemiMajorAxis() * ORBIT_FRACTION / TRAIL_CAPACITY;
+    }
+}
@@ -129,7 +129,8 @@ public class CelestialBodyInfoPanel extends ScrollPane {
             addProperty("Período orbital", planet.getOrbitalPeriod() + " días");
             
             // Posición actual
-            double[] pos = planet.getPosition();
+            double[] pos = new double[3];
+            planet.copyPosition(pos);
             addProperty("Posición X", String.format("%.2f", pos[0] / scaleFactor) + " km");
             addProperty("Posición Z", String.format("%.2f", pos[2] / scaleFactor) + " km");
         } else if (body instanceof Moon) {
@@ -142,11 +143,11 @@ public class CelestialBodyInfoPanel extends ScrollPane {
             addProperty("Planeta padre", parent.getName());
             addProperty("Distancia orbital", formatDistance(moon.getOrbitalRadius() / scaleFactor) + " km");
             
-            // Posición relativa
-            double[] planetPos = parent.getPosition();
-            double[] moonPos = moon.getPosition();
-            double dx = moonPos[0] - planetPos[0];
-            double dz = moonPos[2] - planetPos[2];
+            // Posición relativa, guardada por la luna en el sistema de su planeta
+            double[] relativePos = new double[3];
+            moon.copyRelativePosition(relativePos);
+            double dx = relativePos[0];
+            double dz = relativePos[2];
             addProperty("Distancia al planeta", String.format("%.2f", Math.sqrt(dx*dx + dz*dz) / scaleFactor) + " km");
         }
         